@@ -0,0 +1,52 @@
+/*
+ * $Id:: ReportFormat.java 2021/10/12 09:45 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.api.report;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * The formats an application list can be exported to.
+ */
+@Getter
+public enum ReportFormat {
+
+    XLSX("xlsx", "xlsx", "application/vnd.ms-excel"),
+    CSV("csv", "csv", "text/csv;charset=UTF-8"),
+    NDJSON("ndjson", "ndjson", "application/x-ndjson");
+
+    private final String value;
+    private final String extension;
+    private final String contentType;
+
+    ReportFormat(final String value, final String extension, final String contentType) {
+        this.value = value;
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    /**
+     * Get the report format of a value.
+     *
+     * @param value the format value, case insensitive
+     * @return the report format or null if the value is unknown
+     */
+    public static ReportFormat getReportFormat(final String value) {
+        return Arrays.stream(values())
+                .filter(format -> format.value.equalsIgnoreCase(value))
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * $Id:: StreamingReceipt.java 2021/10/21 10:05 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.api.report;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A stored receipt whose access has already been checked and which is read lazily from the database.
+ */
+public interface StreamingReceipt {
+
+    /**
+     * Read the receipt. The reader is only valid while the consumer runs.
+     *
+     * @param consumer the consumer of the receipt
+     * @throws IOException if the receipt cannot be consumed
+     */
+    void read(ReceiptConsumer consumer) throws IOException;
+
+    /**
+     * Consumer of a receipt.
+     */
+    @FunctionalInterface
+    interface ReceiptConsumer {
+
+        /**
+         * Consume the receipt.
+         *
+         * @param receipt the receipt
+         * @throws IOException if the receipt cannot be consumed
+         */
+        void accept(Reader receipt) throws IOException;
+    }
+}
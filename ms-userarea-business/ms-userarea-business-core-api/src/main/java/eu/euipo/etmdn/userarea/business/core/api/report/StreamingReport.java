@@ -0,0 +1,47 @@
+/*
+ * $Id:: StreamingReport.java 2021/10/07 10:31 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.api.report;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A report whose data has already been fetched and which is written directly to an output stream,
+ * without holding the whole file in memory.
+ */
+public interface StreamingReport {
+
+    /**
+     * Get the report file name.
+     *
+     * @return the file name
+     */
+    String getFileName();
+
+    /**
+     * Get the report content type.
+     *
+     * @return the content type
+     */
+    String getContentType();
+
+    /**
+     * Write the report to the given output stream. The stream is not closed.
+     *
+     * @param outputStream the output stream
+     * @throws IOException if the report cannot be written
+     */
+    void writeTo(OutputStream outputStream) throws IOException;
+
+}
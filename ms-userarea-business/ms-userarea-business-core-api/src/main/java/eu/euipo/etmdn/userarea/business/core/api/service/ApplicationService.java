@@ -13,15 +13,18 @@
 
 package eu.euipo.etmdn.userarea.business.core.api.service;
 
-import eu.euipo.etmdn.userarea.common.domain.FileInfo;
-import eu.euipo.etmdn.userarea.common.domain.document.FileResponse;
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReceipt;
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReport;
 import eu.euipo.etmdn.userarea.common.domain.eservice.ValidateEServiceRequest;
 import eu.euipo.etmdn.userarea.common.domain.eservice.ValidateEServiceResponse;
 import eu.euipo.etmdn.userarea.common.persistence.entity.Application;
 import eu.euipo.etmdn.userarea.domain.ApplicationType;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationRequest;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationSearchResult;
+import eu.euipo.etmdn.userarea.domain.application.DraftBulkResult;
 import eu.euipo.etmdn.userarea.domain.note.NoteApplication;
+import eu.euipo.etmdn.userarea.domain.payment.InvoiceFile;
+import eu.euipo.etmdn.userarea.domain.signature.ApplicationSignatures;
 import org.springframework.data.domain.Page;
 
 import java.util.Collection;
@@ -77,6 +80,15 @@ public interface ApplicationService {
      */
     String getReceipt(String username, final Long id);
 
+    /**
+     * Get Application/Draft receipt, read lazily from the database once it is consumed.
+     *
+     * @param username the username
+     * @param id       the application id
+     * @return {@link StreamingReceipt} the application receipt, or null if it does not exist or the user has no access
+     */
+    StreamingReceipt getStreamingReceipt(String username, final Long id);
+
     /**
      * Get resume url for draft application.
      *
@@ -105,23 +117,50 @@ public interface ApplicationService {
     boolean unlock(String username, final Long id);
 
     /**
-     * Lock Application note.
+     * Delete many draft applications.
+     *
+     * @param username the username
+     * @param ids      the draft ids
+     * @return {@link List<DraftBulkResult>} the result for each draft id
+     */
+    List<DraftBulkResult> deleteAll(String username, final List<Long> ids);
+
+    /**
+     * Lock many draft applications.
+     *
+     * @param username the username
+     * @param ids      the draft ids
+     * @return {@link List<DraftBulkResult>} the result for each draft id
+     */
+    List<DraftBulkResult> lockAll(String username, final List<Long> ids);
+
+    /**
+     * Unlock many draft applications.
+     *
+     * @param username the username
+     * @param ids      the draft ids
+     * @return {@link List<DraftBulkResult>} the result for each draft id
+     */
+    List<DraftBulkResult> unlockAll(String username, final List<Long> ids);
+
+    /**
+     * Lock Application note, or only read it with its version when the notes are updated optimistically.
      *
      * @param username      the username
      * @param noteApplication the application note
-     * @return String the application note
+     * @return {@link NoteApplication} the application note and its version
      */
-    String lockNote(String username, final NoteApplication noteApplication);
+    NoteApplication lockNote(String username, final NoteApplication noteApplication);
 
 
     /**
      * Update Application note.
      *
      * @param username      the username
-     * @param noteApplication the application note
-     * @return String the application note
+     * @param noteApplication the application note, with the version it was read at when the notes are updated optimistically
+     * @return {@link NoteApplication} the updated application note and its version
      */
-    String updateNote(String username, final NoteApplication noteApplication);
+    NoteApplication updateNote(String username, final NoteApplication noteApplication);
 
     /**
      * Get Duplicate application url
@@ -159,6 +198,15 @@ public interface ApplicationService {
      */
     List<Application> getApplicationsForSignatures(String username, final Set<String> roles);
 
+    /**
+     * Retrieve the applications shown in the signatures with their completed signatures, in one query.
+     *
+     * @param username the logged in username
+     * @param roles    the logged in user's set of roles
+     * @return {@link List<ApplicationSignatures>} the applications with their completed signatures
+     */
+    List<ApplicationSignatures> getApplicationSignatures(String username, final Set<String> roles);
+
     /**
      * Delete application.
      *
@@ -192,7 +240,7 @@ public interface ApplicationService {
 
     List<Application> findByNumber(String applicationId);
 
-    FileResponse getReceiptFromFrontoffice(String applicationNumber, boolean isDraft);
+    StreamingReport getReceiptFromFrontoffice(String applicationNumber, boolean isDraft);
 
-    FileInfo getInvoice(String username,Long id);
+    InvoiceFile getInvoice(String username,Long id);
 }
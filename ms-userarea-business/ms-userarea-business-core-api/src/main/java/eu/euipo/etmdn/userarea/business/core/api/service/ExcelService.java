@@ -13,6 +13,8 @@
 
 package eu.euipo.etmdn.userarea.business.core.api.service;
 
+import eu.euipo.etmdn.userarea.business.core.api.report.ReportFormat;
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReport;
 import eu.euipo.etmdn.userarea.common.domain.FileInfo;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationRequest;
 
@@ -32,4 +34,28 @@ public interface ExcelService {
      */
     FileInfo generateExcel(final ApplicationRequest applicationRequest, Set<String> roles);
 
+    /**
+     * Generate a streaming excel report. The applications are fetched eagerly, the workbook is
+     * only built while it is written, keeping a fixed window of rows in memory.
+     *
+     * @param applicationRequest the application request
+     * @param roles the logged in user's set of roles
+     * @return {@link StreamingReport} the excel report to be written, null if the application type is not supported
+     */
+    StreamingReport generateStreamingExcel(final ApplicationRequest applicationRequest, Set<String> roles);
+
+    /**
+     * Generate a streaming report in the given format, with the same columns as the excel report.
+     * The csv and ndjson formats only contain the data and are written with constant memory.
+     * The columns of the request label the cells of the report by position, as in the excel report: they must follow
+     * the cell layout of the application type, which for the trademarks and designs starts with the image, left empty
+     * in the csv and ndjson formats. The cells beyond the columns are not written to the ndjson objects.
+     *
+     * @param applicationRequest the application request
+     * @param roles the logged in user's set of roles
+     * @param reportFormat the report format
+     * @return {@link StreamingReport} the report to be written, null if the application type is not supported
+     */
+    StreamingReport generateStreamingReport(final ApplicationRequest applicationRequest, Set<String> roles, ReportFormat reportFormat);
+
 }
@@ -0,0 +1,28 @@
+/*
+ * $Id:: LockService.java 2021/10/26 10:10 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intellectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.api.service;
+
+import eu.euipo.etmdn.userarea.domain.lock.LockHolder;
+
+import java.util.List;
+
+public interface LockService {
+
+    /**
+     * Retrieve the current holders of the edit locks on applications, notes, messages and accounts.
+     *
+     * @return {@link List<LockHolder>} the lock holders
+     */
+    List<LockHolder> getLockHolders();
+}
@@ -60,5 +60,16 @@ public interface NoteService {
      */
     NoteApplicationEntity updateAndReleaseLock(String username, NoteApplicationEntity noteApplicationEntity, String note);
 
+    /**
+     * Update a note if it has not been changed since the given version was read.
+     *
+     * @param username the username
+     * @param applicationNumber the application number
+     * @param note the note string
+     * @param version the version of the note which was read
+     * @return {@link NoteApplicationEntity} the updated note application entity
+     */
+    NoteApplicationEntity updateIfUnchanged(String username, String applicationNumber, String note, Long version);
+
 
 }
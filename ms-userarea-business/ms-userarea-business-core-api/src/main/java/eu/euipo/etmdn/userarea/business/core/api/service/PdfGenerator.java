@@ -34,4 +34,24 @@ public interface PdfGenerator {
 
     Map<String, Object> getData();
 
+    /**
+     * Number of rows of the report, used to render large reports in slices.
+     *
+     * @return the number of rows, 0 if the report cannot be sliced
+     */
+    default int getRowCount() {
+        return 0;
+    }
+
+    /**
+     * Template model of a slice of the report.
+     *
+     * @param fromRow the first row of the slice, inclusive
+     * @param toRow   the last row of the slice, exclusive
+     * @return the template model of the slice
+     */
+    default Map<String, Object> getData(int fromRow, int toRow) {
+        return getData();
+    }
+
 }
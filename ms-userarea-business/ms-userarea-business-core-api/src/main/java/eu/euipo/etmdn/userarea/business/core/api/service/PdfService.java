@@ -13,8 +13,10 @@
 
 package eu.euipo.etmdn.userarea.business.core.api.service;
 
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReport;
 import eu.euipo.etmdn.userarea.common.domain.FileInfo;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationRequest;
+import eu.euipo.etmdn.userarea.domain.payment.InvoiceFile;
 
 import java.util.Set;
 
@@ -32,8 +34,37 @@ public interface PdfService {
      */
     FileInfo generatePdf(ApplicationRequest applicationRequest, Set<String> roles);
 
+    /**
+     * Generate a streaming pdf report. The applications are fetched and the pdf is rendered eagerly, a large
+     * report is rendered in slices which are only concatenated while it is written.
+     *
+     * @param applicationRequest the applicationRequest
+     * @param roles the logged in user's set of roles
+     * @return {@link StreamingReport} the pdf report to be written
+     */
+    StreamingReport generateStreamingPdf(ApplicationRequest applicationRequest, Set<String> roles);
+
     FileInfo generatePdf(String username, String messageId, boolean isDraft);
 
+    /**
+     * Generate the pdf of a message or draft, zipped with its attachments once the message is sent.
+     *
+     * @param username  the authenticated user
+     * @param messageId the message or draft id
+     * @param isDraft   if it is a draft
+     * @return {@link StreamingReport} the pdf or zip, written directly to the response
+     */
+    StreamingReport generateCorrespondence(String username, String messageId, boolean isDraft);
+
     FileInfo generatePdf(String username, String transactionId);
 
+    /**
+     * Get the pdf invoice of a payment, served from the invoice store once the payment is paid.
+     *
+     * @param username      the authenticated user
+     * @param transactionId the transaction id
+     * @return {@link InvoiceFile} the invoice with its etag if it is stored
+     */
+    InvoiceFile getInvoice(String username, String transactionId);
+
 }
@@ -20,8 +20,12 @@ import eu.euipo.etmdn.userarea.domain.signature.SignResource;
 import eu.euipo.etmdn.userarea.common.domain.signature.Signature;
 import eu.euipo.etmdn.userarea.domain.signature.SignatureCallbackResource;
 import eu.euipo.etmdn.userarea.domain.signature.SignatureSortingCriteriaRequest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -39,6 +43,18 @@ public interface SignatureService {
      */
     List<Signature> getSignatures(final String username, final Set<String> roles, final SignatureSortingCriteriaRequest signatureSortingCriteriaRequest);
 
+    /**
+     * Retrieve a page of signatures.
+     *
+     * @param username                        the username
+     * @param roles                           the set with account roles
+     * @param signatureSortingCriteriaRequest the signature sorting criteria request
+     * @param pageable                        the page to retrieve
+     * @return {@link Page<Signature>} the page of signatures
+     */
+    Page<Signature> getSignatures(final String username, final Set<String> roles, final SignatureSortingCriteriaRequest signatureSortingCriteriaRequest,
+                                  final Pageable pageable);
+
     /**
      * Retrieves a signature id from external signature service.
      *
@@ -88,6 +104,14 @@ public interface SignatureService {
      */
     List<String> getNonFullySignedApplicationDetailsBySignatureId(final String username, String signatureId);
 
+    /**
+     * Find, for each signature request, the applications that do not have the maximum number of signatures applied to them.
+     *
+     * @param signatureIds the signature ids
+     * @return the application numbers per signature id
+     */
+    Map<String, List<String>> getNonFullySignedApplicationNumbers(final Collection<String> signatureIds);
+
     /**
      * Deletes all signatures of a given application.
      *
@@ -0,0 +1,221 @@
+/*
+ * $Id:: ApplicationSearchCache.java 2021/10/04 10:12 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.cache;
+
+import eu.euipo.etmdn.userarea.domain.application.ApplicationSearchResult;
+import eu.euipo.etmdn.userarea.domain.application.SearchCriteriaApplication;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Short lived cache of the myApplications search results, keyed by main account and search criteria.
+ * Entries of an account are evicted whenever one of its applications or notes is modified.
+ */
+@Slf4j
+@Component
+public class ApplicationSearchCache {
+
+    private static final String METRIC_REQUESTS = "userarea.applications.cache.requests";
+    private static final String METRIC_EVICTIONS = "userarea.applications.cache.evictions";
+    private static final String METRIC_SIZE = "userarea.applications.cache.size";
+    private static final String RESULT = "result";
+
+    private final long ttlMillis;
+    private final boolean staleWhileRevalidate;
+    private final long staleMillis;
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Map<String, Map<SearchCriteriaApplication, CacheEntry>> entries = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong();
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "application-search-cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Instantiates the application search cache.
+     *
+     * @param meterRegistry        the meter registry
+     * @param ttl                  the time in seconds an entry is considered fresh, 0 disables the cache
+     * @param staleWhileRevalidate whether expired entries are served while being refreshed in the background
+     * @param staleTtl             the time in seconds after the ttl an expired entry may still be served
+     * @param maxEntries           the maximum number of cached search results
+     */
+    @Autowired
+    public ApplicationSearchCache(final MeterRegistry meterRegistry,
+                                  @Value("${userarea.applications.cache.ttl:30}") final long ttl,
+                                  @Value("${userarea.applications.cache.staleWhileRevalidate:false}") final boolean staleWhileRevalidate,
+                                  @Value("${userarea.applications.cache.staleTtl:60}") final long staleTtl,
+                                  @Value("${userarea.applications.cache.maxEntries:1000}") final int maxEntries) {
+        this.ttlMillis = ttl * 1000;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.staleMillis = staleTtl * 1000;
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder(METRIC_REQUESTS).tag(RESULT, "hit").register(meterRegistry);
+        this.staleHits = Counter.builder(METRIC_REQUESTS).tag(RESULT, "stale").register(meterRegistry);
+        this.misses = Counter.builder(METRIC_REQUESTS).tag(RESULT, "miss").register(meterRegistry);
+        this.evictions = Counter.builder(METRIC_EVICTIONS).register(meterRegistry);
+        Gauge.builder(METRIC_SIZE, size, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * Get the search result for the given criteria, loading it when it is not cached or has expired.
+     *
+     * @param criteria the search criteria, the user name being the main account
+     * @param loader   the loader calling the myApplications service
+     * @return {@link ApplicationSearchResult} the search result
+     */
+    public ApplicationSearchResult get(final SearchCriteriaApplication criteria, final Supplier<ApplicationSearchResult> loader) {
+        if (ttlMillis <= 0) {
+            return loader.get();
+        }
+        String account = normalizeAccount(criteria.getUserName());
+        SearchCriteriaApplication key = normalize(criteria);
+        long generation = generationOf(account).get();
+        CacheEntry entry = entries.getOrDefault(account, Collections.emptyMap()).get(key);
+        long now = System.currentTimeMillis();
+        if (entry != null && now - entry.loadedAt < ttlMillis) {
+            hits.increment();
+            return entry.result;
+        }
+        if (entry != null && staleWhileRevalidate && now - entry.loadedAt < ttlMillis + staleMillis) {
+            staleHits.increment();
+            if (entry.refreshing.compareAndSet(false, true)) {
+                refreshExecutor.execute(() -> refresh(account, key, generation, loader));
+            }
+            return entry.result;
+        }
+        misses.increment();
+        ApplicationSearchResult result = loader.get();
+        put(account, key, generation, result);
+        return result;
+    }
+
+    /**
+     * Evict all the cached search results of an account.
+     *
+     * @param mainAccount the main account username
+     */
+    public void evict(final String mainAccount) {
+        if (StringUtils.isBlank(mainAccount)) {
+            return;
+        }
+        String account = normalizeAccount(mainAccount);
+        generationOf(account).incrementAndGet();
+        Map<SearchCriteriaApplication, CacheEntry> removed = entries.remove(account);
+        if (removed != null && !removed.isEmpty()) {
+            log.debug("Evicting {} cached application searches of account {}", removed.size(), account);
+            size.addAndGet(-removed.size());
+            evictions.increment(removed.size());
+        }
+    }
+
+    private void refresh(final String account, final SearchCriteriaApplication key, final long generation,
+                         final Supplier<ApplicationSearchResult> loader) {
+        try {
+            put(account, key, generation, loader.get());
+        } catch (Exception e) {
+            log.warn("Could not refresh cached application search of account {}", account);
+            CacheEntry entry = entries.getOrDefault(account, Collections.emptyMap()).get(key);
+            if (entry != null) {
+                entry.refreshing.set(false);
+            }
+        }
+    }
+
+    private void put(final String account, final SearchCriteriaApplication key, final long generation,
+                     final ApplicationSearchResult result) {
+        if (result == null || generationOf(account).get() != generation) {
+            return;
+        }
+        if (size.get() >= maxEntries) {
+            purgeExpired();
+            if (size.get() >= maxEntries) {
+                return;
+            }
+        }
+        CacheEntry previous = entries.computeIfAbsent(account, k -> new ConcurrentHashMap<>()).put(key, new CacheEntry(result));
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+    }
+
+    private void purgeExpired() {
+        long expiredBefore = System.currentTimeMillis() - ttlMillis - (staleWhileRevalidate ? staleMillis : 0);
+        entries.values().forEach(accountEntries -> accountEntries.entrySet().removeIf(e -> {
+            boolean expired = e.getValue().loadedAt < expiredBefore;
+            if (expired) {
+                size.decrementAndGet();
+            }
+            return expired;
+        }));
+    }
+
+    private AtomicLong generationOf(final String account) {
+        return generations.computeIfAbsent(account, k -> new AtomicLong());
+    }
+
+    private static String normalizeAccount(final String account) {
+        return StringUtils.trimToEmpty(account).toLowerCase();
+    }
+
+    private static SearchCriteriaApplication normalize(final SearchCriteriaApplication criteria) {
+        SearchCriteriaApplication key = new SearchCriteriaApplication();
+        key.setUserName(normalizeAccount(criteria.getUserName()));
+        key.setApplicationType(StringUtils.lowerCase(criteria.getApplicationType()));
+        key.setIsDraft(Boolean.TRUE.equals(criteria.getIsDraft()));
+        key.setColumns(criteria.getColumns());
+        key.setPaginationData(criteria.getPaginationData());
+        key.setSortingData(criteria.getSortingData());
+        key.setFilteringData(criteria.getFilteringData());
+        key.setSearchingData(StringUtils.trimToNull(criteria.getSearchingData()));
+        if (criteria.getRoles() != null) {
+            ArrayList<String> roles = new ArrayList<>(criteria.getRoles());
+            Collections.sort(roles);
+            key.setRoles(roles);
+        }
+        return key;
+    }
+
+    private static final class CacheEntry {
+        private final ApplicationSearchResult result;
+        private final long loadedAt = System.currentTimeMillis();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private CacheEntry(final ApplicationSearchResult result) {
+            this.result = result;
+        }
+    }
+}
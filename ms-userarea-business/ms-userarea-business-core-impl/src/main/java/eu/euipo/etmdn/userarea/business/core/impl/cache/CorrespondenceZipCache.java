@@ -0,0 +1,288 @@
+/*
+ * $Id:: CorrespondenceZipCache.java 2021/10/19 10:05 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.cache;
+
+import eu.euipo.etmdn.userarea.common.domain.exception.UserAreaException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Size bounded cache, on disk, of the zips generated for the received messages, keyed by message id.
+ * A received message and its attachments never change, so its zip is kept until it expires or until it is the least
+ * recently downloaded one when the cache exceeds its byte budget. The cache does not check the access to the message,
+ * the caller must do it before serving a cached zip.
+ * The index is held in memory, the zips left by a previous run are deleted at startup.
+ */
+@Slf4j
+@Component
+public class CorrespondenceZipCache {
+
+    private static final String ZIP_EXTENSION = ".zip";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final LinkedHashMap<Long, CachedZip> zips = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * Instantiates the correspondence zip cache.
+     *
+     * @param path     the directory of the cache
+     * @param maxBytes the maximum size in bytes of all the cached zips, 0 disables the cache
+     * @param ttl      the time in seconds a zip is kept after it was generated
+     */
+    @Autowired
+    public CorrespondenceZipCache(@Value("${userarea.correspondence.cache.path:${java.io.tmpdir}/userarea/correspondence}") final String path,
+                                  @Value("${userarea.correspondence.cache.maxBytes:1073741824}") final long maxBytes,
+                                  @Value("${userarea.correspondence.cache.ttl:86400}") final long ttl) {
+        this.directory = Paths.get(path);
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttl * 1000;
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory)) {
+                for (Path file : stale) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UserAreaException("Cannot create the correspondence cache in " + path, e);
+        }
+    }
+
+    /**
+     * Check whether the zip of a message is cached, without opening it.
+     *
+     * @param messageId the message id
+     * @return true if the zip is cached and has not expired
+     */
+    public synchronized boolean contains(final Long messageId) {
+        final CachedZip cachedZip = zips.get(messageId);
+        if (cachedZip == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - cachedZip.createdAt >= ttlMillis) {
+            evict(messageId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Open the cached zip of a message.
+     * The zip is opened before it can be evicted, so it can be read to the end even if it is evicted meanwhile.
+     *
+     * @param messageId the message id
+     * @return the content of the cached zip, or empty if the zip is not cached
+     */
+    public synchronized Optional<InputStream> open(final Long messageId) {
+        final CachedZip cachedZip = zips.get(messageId);
+        if (cachedZip == null) {
+            return Optional.empty();
+        }
+        if (System.currentTimeMillis() - cachedZip.createdAt >= ttlMillis) {
+            evict(messageId);
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Files.newInputStream(cachedZip.file));
+        } catch (IOException e) {
+            log.warn("Failed to read the cached zip of message {}: {}", messageId, e.getMessage());
+            evict(messageId);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Write the zip of a message to the output stream, keeping a copy in the cache once it is complete.
+     * A failure of the cache does not fail the download, the zip is just not cached.
+     *
+     * @param messageId    the message id
+     * @param outputStream the output stream, left open
+     * @param zipWriter    the writer of the zip
+     * @throws IOException if the zip cannot be written to the output stream
+     */
+    public void writeThrough(final Long messageId, final OutputStream outputStream, final ZipWriter zipWriter) throws IOException {
+        if (maxBytes <= 0) {
+            zipWriter.write(outputStream);
+            return;
+        }
+        final Path temp;
+        try {
+            temp = Files.createTempFile(directory, "correspondence-", ".tmp");
+        } catch (IOException e) {
+            log.warn("Failed to cache the zip of message {}: {}", messageId, e.getMessage());
+            zipWriter.write(outputStream);
+            return;
+        }
+        try {
+            final CopyingOutputStream copyingOutputStream = new CopyingOutputStream(outputStream,
+                    new BufferedOutputStream(Files.newOutputStream(temp)));
+            try {
+                zipWriter.write(copyingOutputStream);
+            } finally {
+                copyingOutputStream.closeCopy();
+            }
+            if (copyingOutputStream.isCopied()) {
+                store(messageId, temp);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void store(final Long messageId, final Path temp) {
+        final Path file = directory.resolve(messageId + ZIP_EXTENSION);
+        try {
+            final long size = Files.size(temp);
+            synchronized (this) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                add(messageId, file, size);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to cache the zip of message {}: {}", messageId, e.getMessage());
+        }
+    }
+
+    private void add(final Long messageId, final Path file, final long size) {
+        final CachedZip previous = zips.put(messageId, new CachedZip(file, size, System.currentTimeMillis()));
+        if (previous != null) {
+            totalBytes -= previous.size;
+        }
+        totalBytes += size;
+        // the eldest entries are the least recently downloaded ones
+        final Iterator<Map.Entry<Long, CachedZip>> eldest = zips.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            final Map.Entry<Long, CachedZip> entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.getValue().size;
+            delete(entry.getValue().file);
+        }
+        log.info("Cached the zip of message {}, {} bytes, {} zips and {} bytes in the cache", messageId, size, zips.size(), totalBytes);
+    }
+
+    private void evict(final Long messageId) {
+        final CachedZip cachedZip = zips.remove(messageId);
+        if (cachedZip != null) {
+            totalBytes -= cachedZip.size;
+            delete(cachedZip.file);
+        }
+    }
+
+    private static void delete(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete the cached zip {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Writer of a zip.
+     */
+    @FunctionalInterface
+    public interface ZipWriter {
+
+        /**
+         * Write the zip.
+         *
+         * @param outputStream the output stream of the zip
+         * @throws IOException if the zip cannot be written
+         */
+        void write(OutputStream outputStream) throws IOException;
+    }
+
+    private static final class CachedZip {
+        private final Path file;
+        private final long size;
+        private final long createdAt;
+
+        private CachedZip(final Path file, final long size, final long createdAt) {
+            this.file = file;
+            this.size = size;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * Output stream writing to the download and to the cache copy; once the copy fails only the download is written.
+     */
+    private static final class CopyingOutputStream extends FilterOutputStream {
+        private final OutputStream copy;
+        private boolean copyFailed;
+
+        private CopyingOutputStream(final OutputStream outputStream, final OutputStream copy) {
+            super(outputStream);
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            if (!copyFailed) {
+                try {
+                    copy.write(b, off, len);
+                } catch (IOException e) {
+                    copyFailed("write", e);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            // the download is closed by its owner
+            flush();
+        }
+
+        private void closeCopy() {
+            try {
+                copy.close();
+            } catch (IOException e) {
+                copyFailed("close", e);
+            }
+        }
+
+        private boolean isCopied() {
+            return !copyFailed;
+        }
+
+        private void copyFailed(final String operation, final IOException e) {
+            copyFailed = true;
+            log.warn("Failed to {} the cache copy of a zip: {}", operation, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * $Id:: InvoiceStore.java 2021/10/15 14:32 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.cache;
+
+import eu.euipo.etmdn.userarea.common.domain.exception.UserAreaException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+
+/**
+ * Content addressed store of the invoices of paid payments, on disk.
+ * The pdf of an invoice is kept under the hash of its content and a reference file, named after the hash of the
+ * transaction id, points to it. Both are written once through an atomic move and never modified, since the invoice of a
+ * paid payment does not change. The content hash is used as the etag of the invoice.
+ * In a multi instance deployment the path must point to a shared volume.
+ */
+@Slf4j
+@Component
+public class InvoiceStore {
+
+    private static final String BLOBS = "blobs";
+    private static final String REFS = "refs";
+    private static final String PDF_EXTENSION = ".pdf";
+
+    private final Path blobs;
+    private final Path refs;
+
+    /**
+     * Instantiates the invoice store.
+     *
+     * @param path the directory of the store
+     */
+    @Autowired
+    public InvoiceStore(@Value("${userarea.invoices.store.path:${java.io.tmpdir}/userarea/invoices}") final String path) {
+        final Path root = Paths.get(path);
+        this.blobs = root.resolve(BLOBS);
+        this.refs = root.resolve(REFS);
+        try {
+            Files.createDirectories(blobs);
+            Files.createDirectories(refs);
+        } catch (IOException e) {
+            throw new UserAreaException("Cannot create the invoice store in " + path, e);
+        }
+    }
+
+    /**
+     * Check if the invoice of a transaction is stored.
+     *
+     * @param transactionId the transaction id
+     * @return true if the invoice is stored
+     */
+    public boolean contains(final String transactionId) {
+        return Files.exists(refs.resolve(hash(transactionId.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * Get the stored invoice of a transaction.
+     *
+     * @param transactionId the transaction id
+     * @return the stored invoice, or empty if the invoice is not stored
+     */
+    public Optional<StoredInvoice> get(final String transactionId) {
+        try {
+            final Path ref = refs.resolve(hash(transactionId.getBytes(StandardCharsets.UTF_8)));
+            final String contentHash = new String(Files.readAllBytes(ref), StandardCharsets.UTF_8).trim();
+            final byte[] content = Files.readAllBytes(blobs.resolve(contentHash + PDF_EXTENSION));
+            return Optional.of(new StoredInvoice(contentHash, content));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            log.warn("Failed to read the stored invoice of transaction {}: {}", transactionId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Store the invoice of a transaction. An invoice already stored for the transaction is kept.
+     *
+     * @param transactionId the transaction id
+     * @param content       the pdf of the invoice
+     * @return the stored invoice
+     */
+    public StoredInvoice put(final String transactionId, final byte[] content) {
+        final Optional<StoredInvoice> stored = get(transactionId);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+        final String contentHash = hash(content);
+        try {
+            final Path blob = blobs.resolve(contentHash + PDF_EXTENSION);
+            if (!Files.exists(blob)) {
+                write(blob, content);
+            }
+            write(refs.resolve(hash(transactionId.getBytes(StandardCharsets.UTF_8))), contentHash.getBytes(StandardCharsets.UTF_8));
+            log.info("Stored invoice of transaction {} as {}", transactionId, contentHash);
+        } catch (IOException e) {
+            // the invoice is served anyway, it is rendered again on the next download
+            log.warn("Failed to store the invoice of transaction {}: {}", transactionId, e.getMessage());
+        }
+        return new StoredInvoice(contentHash, content);
+    }
+
+    private static void write(final Path target, final byte[] content) throws IOException {
+        final Path temp = Files.createTempFile(target.getParent(), "invoice-", ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String hash(final byte[] value) {
+        try {
+            final StringBuilder hash = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(value)) {
+                hash.append(String.format("%02x", b));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new UserAreaException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * An invoice read from the store.
+     */
+    @Getter
+    public static final class StoredInvoice {
+        private final String hash;
+        private final byte[] content;
+
+        private StoredInvoice(final String hash, final byte[] content) {
+            this.hash = hash;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * $Id:: NoteCache.java 2021/10/06 11:05 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.cache;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size bounded near-cache of the application notes, keyed by application number.
+ * Application numbers without a note are cached as well, so that a page of applications only
+ * reaches the database for the numbers that have never been looked up.
+ */
+@Component
+public class NoteCache {
+
+    private final long ttlMillis;
+    private final Map<String, CachedNote> notes;
+
+    /**
+     * Instantiates the note cache.
+     *
+     * @param maxEntries the maximum number of cached application numbers
+     * @param ttl        the time in seconds a cached note is trusted, 0 disables the cache
+     */
+    @Autowired
+    public NoteCache(@Value("${userarea.notes.cache.maxEntries:10000}") final int maxEntries,
+                     @Value("${userarea.notes.cache.ttl:300}") final long ttl) {
+        this.ttlMillis = ttl * 1000;
+        this.notes = new LinkedHashMap<String, CachedNote>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedNote> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get the cached note of an application.
+     *
+     * @param applicationNumber the application number
+     * @return the cached note, whose text is null when the application has no note, or null when the application number is not cached
+     */
+    public synchronized CachedNote get(final String applicationNumber) {
+        CachedNote cachedNote = notes.get(applicationNumber);
+        if (cachedNote != null && System.currentTimeMillis() - cachedNote.cachedAt >= ttlMillis) {
+            notes.remove(applicationNumber);
+            return null;
+        }
+        return cachedNote;
+    }
+
+    /**
+     * Cache the note of an application.
+     *
+     * @param applicationNumber the application number
+     * @param note              the note, null when the application has no note
+     */
+    public synchronized void put(final String applicationNumber, final String note) {
+        if (ttlMillis > 0 && applicationNumber != null) {
+            notes.put(applicationNumber, new CachedNote(note));
+        }
+    }
+
+    /**
+     * A cached application note.
+     */
+    @Getter
+    public static final class CachedNote {
+        private final String note;
+        private final long cachedAt = System.currentTimeMillis();
+
+        private CachedNote(final String note) {
+            this.note = note;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * $Id:: PdfTemplateCache.java 2021/10/13 11:26 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.cache;
+
+import com.openhtmltopdf.extend.FSStream;
+import com.openhtmltopdf.extend.FSStreamFactory;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import eu.euipo.etmdn.userarea.common.business.config.PdfTemplateConfiguration;
+import eu.euipo.etmdn.userarea.common.domain.PdfTemplate;
+import eu.euipo.etmdn.userarea.common.domain.PdfTemplateType;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of the pdf templates per {@link PdfTemplateType} and of the resources they reference.
+ * The css, images and fonts under the resources base uri are preloaded at startup and served from memory to every render.
+ * Each template carries a version, the hash of its source and of the shared resources, which is stamped on the generated pdf
+ * and changes whenever the cache is reloaded with modified templates.
+ */
+@Slf4j
+@Component
+public class PdfTemplateCache {
+
+    private static final String[] PROTOCOLS = {"file", "jar", "http", "https"};
+    private static final String PRODUCER = "userarea pdf template ";
+
+    private final PdfTemplateConfiguration pdfTemplateConfiguration;
+    private final ResourceLoader resourceLoader;
+    private final String resourcesBaseUri;
+    private final String templatePath;
+    private final List<String> preloadedResources;
+    private final long refreshIntervalMillis;
+    private final Map<String, byte[]> resources = new ConcurrentHashMap<>();
+    private final Map<PdfTemplateType, CachedTemplate> templates = new EnumMap<>(PdfTemplateType.class);
+    private final FSStreamFactory streamFactory = new CachedStreamFactory();
+    private volatile long loadedAt;
+
+    /**
+     * Instantiates the pdf template cache.
+     *
+     * @param pdfTemplateConfiguration the pdf template configuration
+     * @param resourceLoader           the resource loader
+     * @param resourcesBaseUri         the base uri of the resources referenced by the templates
+     * @param templatePath             the location of the templates
+     * @param preloadedResources       the comma separated resources preloaded at startup, relative to the resources base uri
+     * @param refreshInterval          the time in seconds after which the templates and resources are reloaded, 0 never reloads
+     */
+    @Autowired
+    public PdfTemplateCache(final PdfTemplateConfiguration pdfTemplateConfiguration, final ResourceLoader resourceLoader,
+                            @Value("${userarea.resourcesBaseUri}") final String resourcesBaseUri,
+                            @Value("${userarea.template.path:classpath:templates}") final String templatePath,
+                            @Value("${userarea.pdf.cache.preload:static/css/pdf.css,static/css/correspondencepdf.css,static/logo.png}") final String preloadedResources,
+                            @Value("${userarea.pdf.cache.refreshInterval:0}") final long refreshInterval) {
+        this.pdfTemplateConfiguration = pdfTemplateConfiguration;
+        this.resourceLoader = resourceLoader;
+        this.resourcesBaseUri = resourcesBaseUri;
+        this.templatePath = templatePath;
+        this.preloadedResources = StringUtils.hasText(preloadedResources) ?
+                Arrays.asList(preloadedResources.split(",")) : Collections.emptyList();
+        this.refreshIntervalMillis = refreshInterval * 1000;
+    }
+
+    /**
+     * Preload the shared resources.
+     */
+    @PostConstruct
+    public synchronized void preload() {
+        resources.clear();
+        templates.clear();
+        for (String path : preloadedResources) {
+            final String url = resourcesBaseUri + path.trim();
+            final byte[] content = load(url);
+            if (content != null) {
+                resources.put(url, content);
+            } else {
+                log.warn("Pdf resource {} could not be preloaded", url);
+            }
+        }
+        loadedAt = System.currentTimeMillis();
+        log.info("Preloaded {} pdf resources from {}", resources.size(), resourcesBaseUri);
+    }
+
+    /**
+     * Get the cached template of a type, reloading the cache when the refresh interval has elapsed.
+     *
+     * @param pdfTemplateType the template type
+     * @return {@link CachedTemplate} the cached template
+     */
+    public synchronized CachedTemplate getTemplate(final PdfTemplateType pdfTemplateType) {
+        if (refreshIntervalMillis > 0 && System.currentTimeMillis() - loadedAt >= refreshIntervalMillis) {
+            preload();
+        }
+        return templates.computeIfAbsent(pdfTemplateType, type -> {
+            final PdfTemplate pdfTemplate = pdfTemplateConfiguration.getPdfTemplate(type);
+            return new CachedTemplate(pdfTemplate, version(pdfTemplate));
+        });
+    }
+
+    /**
+     * Configure a renderer to load the resources from the cache and to stamp the pdf with the template version.
+     *
+     * @param pdfRendererBuilder the renderer builder
+     * @param cachedTemplate     the cached template
+     * @return the renderer builder
+     */
+    public PdfRendererBuilder configure(final PdfRendererBuilder pdfRendererBuilder, final CachedTemplate cachedTemplate) {
+        pdfRendererBuilder.useProtocolsStreamImplementation(streamFactory, PROTOCOLS);
+        resources.forEach((url, content) -> {
+            final String lowerCaseUrl = url.toLowerCase();
+            if (lowerCaseUrl.endsWith(".ttf") || lowerCaseUrl.endsWith(".otf")) {
+                final String fileName = url.substring(url.lastIndexOf('/') + 1);
+                pdfRendererBuilder.useFont(() -> new ByteArrayInputStream(content), fileName.substring(0, fileName.lastIndexOf('.')));
+            }
+        });
+        pdfRendererBuilder.withProducer(PRODUCER + cachedTemplate.getVersion());
+        return pdfRendererBuilder;
+    }
+
+    private byte[] getResource(final String url) {
+        final byte[] cached = resources.get(url);
+        if (cached != null) {
+            return cached;
+        }
+        final byte[] content = load(url);
+        // only the resources of the templates are kept, any other url is loaded on every use
+        if (content != null && url.startsWith(resourcesBaseUri)) {
+            resources.put(url, content);
+        }
+        return content;
+    }
+
+    private static byte[] load(final String url) {
+        try (InputStream inputStream = new URL(url).openStream()) {
+            return StreamUtils.copyToByteArray(inputStream);
+        } catch (IOException e) {
+            log.warn("Failed to load pdf resource {}: {}", url, e.getMessage());
+            return null;
+        }
+    }
+
+    private String version(final PdfTemplate pdfTemplate) {
+        if (pdfTemplate == null || pdfTemplate.getPath() == null) {
+            return "unknown";
+        }
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            final Resource source = resourceLoader.getResource(templatePath + "/" + pdfTemplate.getPath());
+            if (source.exists()) {
+                try (InputStream inputStream = source.getInputStream()) {
+                    digest.update(StreamUtils.copyToByteArray(inputStream));
+                }
+            } else {
+                digest.update(pdfTemplate.getPath().getBytes(StandardCharsets.UTF_8));
+            }
+            // sorted, so that the version does not depend on the loading order
+            new TreeMap<>(resources).forEach((url, content) -> digest.update(content));
+            final StringBuilder version = new StringBuilder();
+            for (byte b : digest.digest()) {
+                version.append(String.format("%02x", b));
+            }
+            return version.substring(0, 12);
+        } catch (NoSuchAlgorithmException | IOException e) {
+            log.warn("Failed to compute the version of pdf template {}: {}", pdfTemplate.getPath(), e.getMessage());
+            return "unknown";
+        }
+    }
+
+    /**
+     * A pdf template with its version.
+     */
+    @Getter
+    public static final class CachedTemplate {
+        private final PdfTemplate pdfTemplate;
+        private final String version;
+
+        private CachedTemplate(final PdfTemplate pdfTemplate, final String version) {
+            this.pdfTemplate = pdfTemplate;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Stream factory serving the template resources from the cache.
+     */
+    private final class CachedStreamFactory implements FSStreamFactory {
+
+        @Override
+        public FSStream getUrl(final String url) {
+            final byte[] content = getResource(url);
+            return new FSStream() {
+                @Override
+                public InputStream getStream() {
+                    return content == null ? null : new ByteArrayInputStream(content);
+                }
+
+                @Override
+                public Reader getReader() {
+                    return content == null ? null : new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8);
+                }
+            };
+        }
+    }
+}
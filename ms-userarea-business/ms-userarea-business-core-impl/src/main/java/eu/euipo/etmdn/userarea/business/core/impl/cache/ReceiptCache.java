@@ -0,0 +1,95 @@
+/*
+ * $Id:: ReceiptCache.java 2021/10/20 11:40 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Size bounded cache of the frontoffice receipts of the submitted applications, keyed by application number.
+ * The receipt of a submitted application is final, so it is kept until it is the least recently downloaded one when
+ * the cache exceeds its byte budget. The receipts of draft applications change and are never cached.
+ */
+@Slf4j
+@Component
+public class ReceiptCache {
+
+    private final long maxBytes;
+    private final long maxReceiptBytes;
+    private final LinkedHashMap<String, byte[]> receipts = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * Instantiates the receipt cache.
+     *
+     * @param maxBytes        the maximum size in bytes of all the cached receipts, 0 disables the cache
+     * @param maxReceiptBytes the maximum size in bytes of a cached receipt, larger receipts are only streamed
+     */
+    @Autowired
+    public ReceiptCache(@Value("${userarea.signature.frontoffice.receiptCache.maxBytes:67108864}") final long maxBytes,
+                        @Value("${userarea.signature.frontoffice.receiptCache.maxReceiptBytes:2097152}") final long maxReceiptBytes) {
+        this.maxBytes = maxBytes;
+        this.maxReceiptBytes = Math.min(maxBytes, maxReceiptBytes);
+    }
+
+    /**
+     * Get the cached receipt of an application.
+     *
+     * @param applicationNumber the application number
+     * @return the receipt, or empty if it is not cached
+     */
+    public synchronized Optional<byte[]> get(final String applicationNumber) {
+        return Optional.ofNullable(receipts.get(applicationNumber));
+    }
+
+    /**
+     * Check if a receipt of the given size can be cached.
+     *
+     * @param size the size in bytes of the receipt, negative if unknown
+     * @return true if the receipt can be cached
+     */
+    public boolean accepts(final long size) {
+        return size <= maxReceiptBytes;
+    }
+
+    /**
+     * Cache the receipt of an application, evicting the least recently downloaded receipts over the byte budget.
+     *
+     * @param applicationNumber the application number
+     * @param receipt           the receipt
+     */
+    public synchronized void put(final String applicationNumber, final byte[] receipt) {
+        if (!accepts(receipt.length)) {
+            return;
+        }
+        final byte[] previous = receipts.put(applicationNumber, receipt);
+        if (previous != null) {
+            totalBytes -= previous.length;
+        }
+        totalBytes += receipt.length;
+        final Iterator<Map.Entry<String, byte[]>> eldest = receipts.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+        log.debug("Cached the receipt of application {}, {} receipts and {} bytes in the cache", applicationNumber, receipts.size(), totalBytes);
+    }
+}
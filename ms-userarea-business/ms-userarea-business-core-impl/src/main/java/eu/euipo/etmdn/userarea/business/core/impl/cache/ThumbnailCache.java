@@ -0,0 +1,144 @@
+/*
+ * $Id:: ThumbnailCache.java 2021/10/08 09:12 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.cache;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Base64Utils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size bounded cache of the report thumbnails, keyed by the content hash of the original image.
+ * Images are decoded and downscaled to the report anchor size once and the result is shared by all the exports.
+ */
+@Slf4j
+@Component
+public class ThumbnailCache {
+
+    private static final String THUMBNAIL_FORMAT = "jpg";
+
+    private final int maxWidth;
+    private final int maxHeight;
+    private final Map<String, Thumbnail> thumbnails;
+
+    /**
+     * Instantiates the thumbnail cache.
+     *
+     * @param maxEntries the maximum number of cached thumbnails
+     * @param maxWidth   the maximum thumbnail width in pixels
+     * @param maxHeight  the maximum thumbnail height in pixels
+     */
+    @Autowired
+    public ThumbnailCache(@Value("${userarea.excel.thumbnail.maxEntries:2000}") final int maxEntries,
+                          @Value("${userarea.excel.thumbnail.maxWidth:180}") final int maxWidth,
+                          @Value("${userarea.excel.thumbnail.maxHeight:135}") final int maxHeight) {
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+        this.thumbnails = new LinkedHashMap<String, Thumbnail>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Thumbnail> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get the thumbnail of a Base64 encoded image, creating it on the first request.
+     *
+     * @param base64Image the Base64 encoded image
+     * @return {@link Thumbnail} the thumbnail
+     */
+    public Thumbnail get(final String base64Image) {
+        final String hash = hash(base64Image);
+        synchronized (this) {
+            Thumbnail thumbnail = thumbnails.get(hash);
+            if (thumbnail != null) {
+                return thumbnail;
+            }
+        }
+        // scaling is done outside the lock, a concurrent miss for the same image only repeats the work
+        final Thumbnail thumbnail = new Thumbnail(hash, scale(Base64Utils.decodeFromString(base64Image)));
+        synchronized (this) {
+            thumbnails.put(hash, thumbnail);
+        }
+        return thumbnail;
+    }
+
+    private byte[] scale(final byte[] image) {
+        try {
+            final BufferedImage original = ImageIO.read(new ByteArrayInputStream(image));
+            if (original == null) {
+                log.warn("Unsupported image format, the original image is used as thumbnail");
+                return image;
+            }
+            final double ratio = Math.min(1d, Math.min((double) maxWidth / original.getWidth(), (double) maxHeight / original.getHeight()));
+            final int width = Math.max(1, (int) Math.round(original.getWidth() * ratio));
+            final int height = Math.max(1, (int) Math.round(original.getHeight() * ratio));
+            final BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            final Graphics2D graphics = scaled.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                // jpeg has no alpha channel, transparent areas are painted white
+                graphics.drawImage(original, 0, 0, width, height, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            final ByteArrayOutputStream os = new ByteArrayOutputStream();
+            ImageIO.write(scaled, THUMBNAIL_FORMAT, os);
+            return os.toByteArray();
+        } catch (IOException e) {
+            log.warn("Failed to scale image, the original image is used as thumbnail: {}", e.getMessage());
+            return image;
+        }
+    }
+
+    private static String hash(final String base64Image) {
+        try {
+            return Base64Utils.encodeToString(MessageDigest.getInstance("SHA-256").digest(base64Image.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * A report thumbnail.
+     */
+    @Getter
+    public static final class Thumbnail {
+        private final String hash;
+        private final byte[] content;
+
+        private Thumbnail(final String hash, final byte[] content) {
+            this.hash = hash;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * $Id:: FrontofficeReceiptClient.java 2021/10/20 11:02 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.client;
+
+import eu.euipo.etmdn.userarea.common.domain.exception.FrontofficeReceiptNotFoundException;
+import eu.euipo.etmdn.userarea.common.domain.exception.FrontofficeServerException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.DefaultHostnameVerifier;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.ssl.SSLContexts;
+import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The frontoffice receipt client.
+ * Receipts are requested over a pooled keep-alive connection manager with its own tls configuration, so the hostname
+ * verification of the other https clients of the jvm is not affected. The receipt is not buffered, the caller reads
+ * the body from the open connection.
+ */
+@Slf4j
+@Component
+public class FrontofficeReceiptClient implements DisposableBean {
+
+    private static final String IS_DRAFT = "isDraft";
+
+    private final String receiptUrl;
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * Instantiates the frontoffice receipt client.
+     *
+     * @param frontofficeUrl  the frontoffice url
+     * @param receiptEndpoint the receipt endpoint
+     * @param connectTimeout  the connect timeout in milliseconds
+     * @param readTimeout     the read timeout in milliseconds
+     * @param maxConnections  the size of the connection pool
+     * @param verifyHostname  whether the hostname of the frontoffice certificate is verified
+     */
+    @Autowired
+    public FrontofficeReceiptClient(@Value("${userarea.globals.ipo.fo.url}") final String frontofficeUrl,
+                                    @Value("${userarea.signature.frontoffice.receiptEndpoint}") final String receiptEndpoint,
+                                    @Value("${userarea.signature.frontoffice.client.connectTimeout:2000}") final int connectTimeout,
+                                    @Value("${userarea.signature.frontoffice.client.readTimeout:30000}") final int readTimeout,
+                                    @Value("${userarea.signature.frontoffice.client.maxConnections:20}") final int maxConnections,
+                                    @Value("${userarea.signature.frontoffice.client.verifyHostname:true}") final boolean verifyHostname) {
+        this.receiptUrl = frontofficeUrl + receiptEndpoint;
+        SSLConnectionSocketFactory sslSocketFactory = new SSLConnectionSocketFactory(SSLContexts.createSystemDefault(),
+                verifyHostname ? new DefaultHostnameVerifier() : NoopHostnameVerifier.INSTANCE);
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", sslSocketFactory)
+                        .build());
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        connectionManager.setValidateAfterInactivity(2000);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setConnectionRequestTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .build();
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .evictIdleConnections(30, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Request the receipt of an application from the frontoffice.
+     * The status of the response is checked before returning, the body must then be read and the receipt closed.
+     *
+     * @param applicationNumber the application number
+     * @param isDraft           whether the application is a draft
+     * @return {@link Receipt} the receipt, with its body still to be read
+     */
+    public Receipt getReceipt(final String applicationNumber, final boolean isDraft) {
+        final String uri = UriComponentsBuilder.fromHttpUrl(receiptUrl + applicationNumber)
+                .queryParam(IS_DRAFT, isDraft)
+                .toUriString();
+        final HttpGet request = new HttpGet(uri);
+        request.setHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_OCTET_STREAM_VALUE + ", " + MediaType.APPLICATION_PDF_VALUE);
+        final CloseableHttpResponse response;
+        try {
+            response = httpClient.execute(request);
+        } catch (IOException e) {
+            log.error(">>> Frontoffice could not be reached for applicationNumber: {}: {}", applicationNumber, e.getMessage());
+            throw new FrontofficeServerException("Could not get application receipt. Frontoffice Server Error");
+        }
+        final int status = response.getStatusLine().getStatusCode();
+        if (status == HttpStatus.SC_OK && response.getEntity() != null) {
+            return new Receipt(response);
+        }
+        close(response);
+        if (status >= HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+            log.error(">>> Frontoffice could not process the request for applicationNumber: {}, status {}", applicationNumber, status);
+            throw new FrontofficeServerException("Could not get application receipt. Frontoffice Server Error");
+        }
+        log.error(">>> Cannot find receipt for applicationNumber: {}, status {}", applicationNumber, status);
+        throw new FrontofficeReceiptNotFoundException("Could not get application receipt");
+    }
+
+    private static void close(final CloseableHttpResponse response) {
+        try {
+            EntityUtils.consumeQuietly(response.getEntity());
+            response.close();
+        } catch (IOException e) {
+            log.warn("Failed to close the frontoffice response: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        httpClient.close();
+    }
+
+    /**
+     * A receipt being received from the frontoffice. Closing it releases the connection to the pool.
+     */
+    public static class Receipt implements Closeable {
+        private final CloseableHttpResponse response;
+
+        private Receipt(final CloseableHttpResponse response) {
+            this.response = response;
+        }
+
+        /**
+         * Get the length of the receipt.
+         *
+         * @return the length in bytes, or a negative number if the frontoffice did not send it
+         */
+        public long getContentLength() {
+            return response.getEntity().getContentLength();
+        }
+
+        /**
+         * Get the body of the receipt.
+         *
+         * @return the body
+         * @throws IOException if the body cannot be read
+         */
+        public InputStream getBody() throws IOException {
+            final HttpEntity entity = response.getEntity();
+            return entity.getContent();
+        }
+
+        @Override
+        public void close() {
+            FrontofficeReceiptClient.close(response);
+        }
+    }
+}
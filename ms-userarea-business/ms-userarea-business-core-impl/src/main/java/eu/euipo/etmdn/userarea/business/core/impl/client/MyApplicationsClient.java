@@ -0,0 +1,195 @@
+/*
+ * $Id:: MyApplicationsClient.java 2021/10/05 09:40 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.client;
+
+import eu.euipo.etmdn.userarea.common.domain.exception.ServiceUnavailableException;
+import eu.euipo.etmdn.userarea.domain.application.ApplicationSearchResult;
+import eu.euipo.etmdn.userarea.domain.application.SearchCriteriaApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The myApplications client.
+ * Calls are executed over a pooled keep-alive connection manager on a bounded executor, which acts as a bulkhead:
+ * when all the workers are busy and the queue is full the call fails immediately instead of holding a request thread.
+ */
+@Slf4j
+@Component
+public class MyApplicationsClient implements DisposableBean {
+
+    private final String applicationsUrl;
+    private final long callTimeout;
+    private final CloseableHttpClient httpClient;
+    private final RestTemplate restTemplate;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Instantiates the myApplications client.
+     *
+     * @param service              the myApplications service url
+     * @param endpoint             the applications endpoint
+     * @param connectTimeout       the connect timeout in milliseconds
+     * @param readTimeout          the read timeout in milliseconds
+     * @param callTimeout          the overall deadline of a blocking call in milliseconds
+     * @param maxConnections       the size of the connection pool
+     * @param maxConcurrentCalls   the maximum number of calls in flight
+     * @param maxQueuedCalls       the maximum number of calls waiting for a free worker
+     */
+    @Autowired
+    public MyApplicationsClient(@Value("${userarea.applications.service}") final String service,
+                                @Value("${userarea.applications.applicationsEndPoint}") final String endpoint,
+                                @Value("${userarea.applications.client.connectTimeout:2000}") final int connectTimeout,
+                                @Value("${userarea.applications.client.readTimeout:10000}") final int readTimeout,
+                                @Value("${userarea.applications.client.callTimeout:15000}") final long callTimeout,
+                                @Value("${userarea.applications.client.maxConnections:50}") final int maxConnections,
+                                @Value("${userarea.applications.client.maxConcurrentCalls:20}") final int maxConcurrentCalls,
+                                @Value("${userarea.applications.client.maxQueuedCalls:50}") final int maxQueuedCalls) {
+        this.applicationsUrl = service + endpoint;
+        this.callTimeout = callTimeout;
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        connectionManager.setValidateAfterInactivity(2000);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setConnectionRequestTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .build();
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .evictIdleConnections(30, TimeUnit.SECONDS)
+                .build();
+        this.restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrentCalls, maxConcurrentCalls, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxQueuedCalls), runnable -> {
+                    Thread thread = new Thread(runnable, "my-applications-client-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Search the applications without blocking the caller.
+     * Cancelling the returned future cancels the call: a queued call is never sent and the worker of a call in flight
+     * is interrupted, which stops it waiting for a pooled connection; a response being read is bounded by the read
+     * timeout.
+     *
+     * @param searchCriteriaApplication the search criteria
+     * @return the future search result, completed exceptionally with {@link ServiceUnavailableException} on failure
+     */
+    public CompletableFuture<ApplicationSearchResult> searchAsync(final SearchCriteriaApplication searchCriteriaApplication) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<SearchCriteriaApplication> entity = new HttpEntity<>(searchCriteriaApplication, headers);
+        CompletableFuture<ApplicationSearchResult> result = new CompletableFuture<>();
+        Future<?> call;
+        try {
+            call = executor.submit(() -> {
+                try {
+                    result.complete(post(entity));
+                } catch (ServiceUnavailableException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.error("Rejecting call to myApplications ms, {} calls in flight and {} queued", executor.getActiveCount(), executor.getQueue().size());
+            result.completeExceptionally(new ServiceUnavailableException("Too many concurrent requests to " + applicationsUrl));
+            return result;
+        }
+        // a CompletableFuture does not interrupt anything when cancelled, the cancellation is passed to the worker task
+        result.whenComplete((searchResult, e) -> {
+            if (result.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Search the applications, waiting at most the configured call deadline.
+     *
+     * @param searchCriteriaApplication the search criteria
+     * @return {@link ApplicationSearchResult} the search result
+     */
+    public ApplicationSearchResult search(final SearchCriteriaApplication searchCriteriaApplication) {
+        CompletableFuture<ApplicationSearchResult> future = searchAsync(searchCriteriaApplication);
+        try {
+            return future.get(callTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.error("Call to myApplications ms exceeded the deadline of {} ms", callTimeout);
+            throw new ServiceUnavailableException("Timed out fetching data from " + applicationsUrl);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while fetching data from " + applicationsUrl);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ServiceUnavailableException) {
+                throw (ServiceUnavailableException) e.getCause();
+            }
+            throw new ServiceUnavailableException("Failed to fetch data from " + applicationsUrl);
+        }
+    }
+
+    private ApplicationSearchResult post(final HttpEntity<SearchCriteriaApplication> entity) {
+        try {
+            log.info("Calling myApplications ms to fetch application details");
+            return restTemplate.postForObject(applicationsUrl, entity, ApplicationSearchResult.class);
+        } catch (ResourceAccessException e) {
+            log.error("I/O error while calling myApplications ms: {}", e.getMessage());
+            throw new ServiceUnavailableException("Failed to connect to " + applicationsUrl);
+        } catch (HttpStatusCodeException e) {
+            log.error("myApplications ms responded with status {}", e.getRawStatusCode());
+            throw new ServiceUnavailableException("Failed to fetch data from " + applicationsUrl + ", status " + e.getRawStatusCode());
+        } catch (Exception e) {
+            log.error("Unexpected error while calling myApplications ms to fetch application details", e);
+            throw new ServiceUnavailableException("Failed to fetch data from " + applicationsUrl);
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        executor.shutdownNow();
+        httpClient.close();
+    }
+}
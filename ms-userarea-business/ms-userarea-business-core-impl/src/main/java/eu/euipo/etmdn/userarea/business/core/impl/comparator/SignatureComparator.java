@@ -13,18 +13,28 @@
 
 package eu.euipo.etmdn.userarea.business.core.impl.comparator;
 
-import eu.euipo.etmdn.userarea.common.domain.signature.Signature;
+import eu.euipo.etmdn.userarea.domain.signature.ApplicationSignatures;
 import eu.euipo.etmdn.userarea.domain.signature.SignatureSortColumn;
-import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.collections4.CollectionUtils;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
 
-public class SignatureComparator implements Comparator<Signature> {
+import static eu.euipo.etmdn.userarea.business.core.impl.utils.SignatureUtils.getApplicationType;
 
-    private SignatureSortColumn sortColumn;
-    private DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+/**
+ * Orders the applications shown in the signatures on typed keys: the application type, the application number or
+ * the date of the most recent signature, compared as read from the database.
+ */
+public class SignatureComparator implements Comparator<ApplicationSignatures> {
+
+    /**
+     * The most recent day first, then the earliest time of the day; no signature last.
+     */
+    private static final Comparator<LocalDateTime> SIGNED_AT = Comparator.nullsLast(
+            Comparator.comparing(LocalDateTime::toLocalDate).reversed().thenComparing(LocalDateTime::toLocalTime));
+
+    private final SignatureSortColumn sortColumn;
 
     public SignatureComparator(SignatureSortColumn sortColumn){
         this.sortColumn = sortColumn;
@@ -32,37 +42,22 @@ public class SignatureComparator implements Comparator<Signature> {
 
 
     @Override
-    public int compare(Signature signature1, Signature signature2) {
+    public int compare(ApplicationSignatures application1, ApplicationSignatures application2) {
         if(this.sortColumn.equals(SignatureSortColumn.APPLICATION)){
-            return signature1.getNumber().compareTo(signature2.getNumber());
+            return application1.getNumber().compareTo(application2.getNumber());
         }
         else if(this.sortColumn.equals(SignatureSortColumn.TYPE)){
-            return signature1.getType().compareTo(signature2.getType());
+            return getApplicationType(application1.getFoModule(), application1.getEserviceName())
+                    .compareTo(getApplicationType(application2.getFoModule(), application2.getEserviceName()));
         }
         else if(this.sortColumn.equals(SignatureSortColumn.SIGNEDAT)){
-            return sortOnDateSigned(signature1,signature2);
+            return SIGNED_AT.compare(getSignedAt(application1), getSignedAt(application2));
         }
         return 0;
     }
 
-    private int sortOnDateSigned(Signature signature1, Signature signature2){
-        if (StringUtils.isNotBlank(signature1.getDate()) && StringUtils.isNotBlank(signature2.getDate())) {
-            String date1 = signature1.getDate().split(",")[0];
-            String date2 = signature2.getDate().split(",")[0];
-            LocalDateTime dt1 = LocalDateTime.parse(date1, formatter);
-            LocalDateTime dt2 = LocalDateTime.parse(date2, formatter);
-            int result = dt1.toLocalDate().compareTo(dt2.toLocalDate()); // Consider only the date portion first.
-            result = ((-1) * result);
-            if (result == 0) {
-                result = dt1.toLocalTime().compareTo(dt2.toLocalTime());
-            }
-            return result;
-        } else if (StringUtils.isBlank(signature1.getDate())) {
-            return 1;
-        } else if (StringUtils.isBlank(signature2.getDate())) {
-            return -1;
-        }
-        return 0;
+    private static LocalDateTime getSignedAt(ApplicationSignatures application) {
+        return CollectionUtils.isEmpty(application.getDates()) ? null : application.getDates().get(0);
     }
 
 }
@@ -0,0 +1,29 @@
+/*
+ * $Id:: InvoicePaidEvent.java 2021/10/15 14:20 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Event published when the invoice of a paid payment is complete and can be pre-rendered.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class InvoicePaidEvent {
+
+    private final String transactionId;
+}
@@ -17,6 +17,7 @@ package eu.euipo.etmdn.userarea.business.core.impl.factory;
 import eu.euipo.etmdn.userarea.business.core.api.service.PdfGenerator;
 import eu.euipo.etmdn.userarea.business.core.impl.domain.CorrespondencePdfData;
 import eu.euipo.etmdn.userarea.business.core.impl.domain.InvoicePdfData;
+import eu.euipo.etmdn.userarea.business.core.impl.report.ReportRowPipeline;
 import eu.euipo.etmdn.userarea.business.core.impl.service.pdf.PdfGeneratorApplicationCorrespondenceImpl;
 import eu.euipo.etmdn.userarea.business.core.impl.service.pdf.PdfGeneratorApplicationDesignsImpl;
 import eu.euipo.etmdn.userarea.business.core.impl.service.pdf.PdfGeneratorApplicationEServicesImpl;
@@ -40,16 +41,18 @@ public class PdfGeneratorFactory {
      * @param applications the applications
      * @param roles the roles
      * @param isDraft is draft application
+     * @param reportRowPipeline the pipeline preparing the report rows
      * @return the pdf generator
      */
-    public static PdfGenerator getPdfDataGenerator(ApplicationType applicationType, ApplicationSearchResult applications, Set<String> roles, boolean isDraft){
+    public static PdfGenerator getPdfDataGenerator(ApplicationType applicationType, ApplicationSearchResult applications, Set<String> roles, boolean isDraft,
+                                                   ReportRowPipeline reportRowPipeline){
         switch (applicationType) {
             case TRADEMARK:
-                return new PdfGeneratorApplicationTrademarksImpl(applications,roles,isDraft);
+                return new PdfGeneratorApplicationTrademarksImpl(applications,roles,isDraft,reportRowPipeline);
             case DESIGN:
-                return new PdfGeneratorApplicationDesignsImpl(applications,roles,isDraft);
+                return new PdfGeneratorApplicationDesignsImpl(applications,roles,isDraft,reportRowPipeline);
             case ESERVICE:
-                return new PdfGeneratorApplicationEServicesImpl(applications,roles,isDraft);
+                return new PdfGeneratorApplicationEServicesImpl(applications,roles,isDraft,reportRowPipeline);
             default:
                 return null;
         }
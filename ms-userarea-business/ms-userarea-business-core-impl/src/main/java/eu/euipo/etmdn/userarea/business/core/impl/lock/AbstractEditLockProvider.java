@@ -0,0 +1,89 @@
+/*
+ * $Id:: AbstractEditLockProvider.java 2021/10/26 10:10 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.lock;
+
+import java.util.Optional;
+
+/**
+ * Base of the edit lock stores, recording the lock metrics around the acquisitions and releases.
+ */
+public abstract class AbstractEditLockProvider implements EditLockProvider {
+
+    private final LockMetrics lockMetrics;
+
+    protected AbstractEditLockProvider(final LockMetrics lockMetrics) {
+        this.lockMetrics = lockMetrics;
+    }
+
+    @Override
+    public final Optional<String> acquire(final EditLockType type, final String key, final String username) {
+        final Optional<String> holder = doAcquire(type, key, username);
+        if (holder.isPresent()) {
+            lockMetrics.conflict(toResource(type));
+        } else {
+            lockMetrics.acquired(toResource(type), key);
+        }
+        return holder;
+    }
+
+    @Override
+    public final Optional<String> release(final EditLockType type, final String key, final String username) {
+        final Optional<String> holder = doRelease(type, key, username);
+        if (holder.isPresent()) {
+            lockMetrics.conflict(toResource(type));
+        } else {
+            lockMetrics.released(toResource(type), key);
+        }
+        return holder;
+    }
+
+    /**
+     * Acquire a lock, or renew it if it is already held by the user.
+     *
+     * @param type     the lock type
+     * @param key      the locked key
+     * @param username the username
+     * @return the user holding the lock if it is held by another user, otherwise empty
+     */
+    protected abstract Optional<String> doAcquire(EditLockType type, String key, String username);
+
+    /**
+     * Release a lock held by the user.
+     *
+     * @param type     the lock type
+     * @param key      the locked key
+     * @param username the username
+     * @return the user holding the lock if it is held by another user, otherwise empty
+     */
+    protected abstract Optional<String> doRelease(EditLockType type, String key, String username);
+
+    /**
+     * Record a lock refused because it is held by another user, for the stores refusing it with an exception.
+     *
+     * @param type the lock type
+     */
+    protected void conflict(final EditLockType type) {
+        lockMetrics.conflict(toResource(type));
+    }
+
+    /**
+     * Get the resource type of a lock type, used to tag the metrics and the lock holders.
+     *
+     * @param type the lock type
+     * @return the resource type
+     */
+    protected static String toResource(final EditLockType type) {
+        return type == EditLockType.APPLICATION ? LockMetrics.APPLICATION : LockMetrics.NOTE;
+    }
+}
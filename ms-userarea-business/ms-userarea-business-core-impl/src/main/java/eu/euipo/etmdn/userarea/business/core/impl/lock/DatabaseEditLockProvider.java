@@ -0,0 +1,163 @@
+/*
+ * $Id:: DatabaseEditLockProvider.java 2021/10/25 09:40 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.lock;
+
+import eu.euipo.etmdn.userarea.common.domain.exception.ApplicationEntityLockedException;
+import eu.euipo.etmdn.userarea.common.domain.exception.NoteEntityLockedException;
+import eu.euipo.etmdn.userarea.domain.lock.LockHolder;
+import eu.euipo.etmdn.userarea.persistence.repository.application.ApplicationLockRepository;
+import eu.euipo.etmdn.userarea.persistence.repository.note.NoteApplicationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Edit locks kept in the LockedBy and LockedDate columns, acquired and released with conditional updates.
+ * A key is held only when all its rows are held by the user: an update reaching some rows of a key only, the others
+ * being held by another user, throws the lock exception so that the transaction is rolled back.
+ * The expired locks are released by the {@code LockReleaseScheduler}.
+ */
+@Component
+@ConditionalOnProperty(name = "userarea.lockStore", havingValue = "database", matchIfMissing = true)
+public class DatabaseEditLockProvider extends AbstractEditLockProvider {
+
+    private final ApplicationLockRepository applicationLockRepository;
+    private final NoteApplicationRepository noteApplicationRepository;
+    private final long lockTimeout;
+
+    /**
+     * Instantiates the database edit lock provider.
+     *
+     * @param applicationLockRepository the application lock repository
+     * @param noteApplicationRepository the note repository
+     * @param lockMetrics               the lock metrics
+     * @param lockTimeout               the lock timeout in seconds
+     */
+    @Autowired
+    public DatabaseEditLockProvider(final ApplicationLockRepository applicationLockRepository,
+                                    final NoteApplicationRepository noteApplicationRepository,
+                                    final LockMetrics lockMetrics,
+                                    @Value("${userarea.locktimeout:900}") final long lockTimeout) {
+        super(lockMetrics);
+        this.applicationLockRepository = applicationLockRepository;
+        this.noteApplicationRepository = noteApplicationRepository;
+        this.lockTimeout = lockTimeout;
+    }
+
+    @Override
+    protected Optional<String> doAcquire(final EditLockType type, final String key, final String username) {
+        final LocalDateTime now = LocalDateTime.now();
+        final int locked = type == EditLockType.APPLICATION ?
+                applicationLockRepository.lockByNumber(key, username, now) :
+                noteApplicationRepository.lockByApplicationNumber(key, username, now);
+        return checkAllRows(type, key, username, locked);
+    }
+
+    @Override
+    protected Optional<String> doRelease(final EditLockType type, final String key, final String username) {
+        final int released = type == EditLockType.APPLICATION ?
+                applicationLockRepository.releaseByNumber(key, username) :
+                noteApplicationRepository.releaseByApplicationNumber(key, username);
+        return checkAllRows(type, key, username, released);
+    }
+
+    @Override
+    public List<LockHolder> getHolders(final EditLockType type) {
+        final List<Object[]> locks = type == EditLockType.APPLICATION ?
+                applicationLockRepository.findLocks() :
+                noteApplicationRepository.findLocks();
+        return locks.stream()
+                .map(lock -> toLockHolder(toResource(type), lock, lockTimeout))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<String, String> findHolders(final EditLockType type, final Collection<String> keys) {
+        final Map<String, String> holders = new HashMap<>();
+        if (keys.isEmpty()) {
+            return holders;
+        }
+        final List<Object[]> locks = type == EditLockType.APPLICATION ?
+                applicationLockRepository.findLockHoldersByNumbers(keys) :
+                noteApplicationRepository.findLockHoldersByApplicationNumbers(keys);
+        locks.forEach(lock -> holders.putIfAbsent(String.valueOf(lock[0]), ((String) lock[1]).trim()));
+        return holders;
+    }
+
+    /**
+     * Convert a lock read from the database to a lock holder.
+     *
+     * @param resource    the resource type
+     * @param lock        the locked key, the lock holder and the lock date
+     * @param lockTimeout the lock timeout in seconds
+     * @return the lock holder
+     */
+    public static LockHolder toLockHolder(final String resource, final Object[] lock, final long lockTimeout) {
+        final LocalDateTime lockedDate = (LocalDateTime) lock[2];
+        return LockHolder.builder()
+                .resource(resource)
+                .key(String.valueOf(lock[0]))
+                .username((String) lock[1])
+                .expiresAt(lockedDate != null ? lockedDate.plusSeconds(lockTimeout) : null)
+                .build();
+    }
+
+    /**
+     * Check that no row of the key is held by another user after a conditional update.
+     * The rows of a key are only inspected when fewer rows were updated than the key has. When some rows were updated
+     * while others are held by another user, an exception is thrown, so that the transaction rolls back the rows
+     * updated.
+     *
+     * @param type     the lock type
+     * @param key      the locked key
+     * @param username the username
+     * @param updated  the number of rows updated
+     * @return the user holding the lock if no row was updated and it is held by another user, otherwise empty
+     */
+    private Optional<String> checkAllRows(final EditLockType type, final String key, final String username, final int updated) {
+        final long rows = type == EditLockType.APPLICATION ?
+                applicationLockRepository.countByNumber(key) :
+                noteApplicationRepository.countByApplicationNumber(key);
+        if (updated >= rows) {
+            return Optional.empty();
+        }
+        final Optional<String> holder = getOtherHolder(type, key, username);
+        if (holder.isPresent() && updated > 0) {
+            conflict(type);
+            throw type == EditLockType.APPLICATION ?
+                    new ApplicationEntityLockedException(holder.get()) :
+                    new NoteEntityLockedException(holder.get());
+        }
+        return holder;
+    }
+
+    private Optional<String> getOtherHolder(final EditLockType type, final String key, final String username) {
+        final List<String> holders = type == EditLockType.APPLICATION ?
+                applicationLockRepository.findLockHoldersByNumber(key) :
+                noteApplicationRepository.findLockHoldersByApplicationNumber(key);
+        return holders.stream()
+                .map(String::trim)
+                .filter(holder -> !holder.equalsIgnoreCase(username))
+                .findFirst();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * $Id:: EditLockProvider.java 2021/10/25 09:40 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.lock;
+
+import eu.euipo.etmdn.userarea.domain.lock.LockHolder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Store of the edit locks taken by the users on applications and notes.
+ * The store is selected with {@code userarea.lockStore}: {@code database} keeps the locks in the LockedBy and
+ * LockedDate columns, {@code redis} keeps them as leases expiring after {@code userarea.locktimeout}.
+ * The usernames are compared ignoring case.
+ */
+public interface EditLockProvider {
+
+    /**
+     * Acquire a lock, or renew it if it is already held by the user.
+     *
+     * @param type     the lock type
+     * @param key      the locked key
+     * @param username the username
+     * @return the user holding the lock if it is held by another user, otherwise empty
+     */
+    Optional<String> acquire(EditLockType type, String key, String username);
+
+    /**
+     * Release a lock held by the user.
+     *
+     * @param type     the lock type
+     * @param key      the locked key
+     * @param username the username
+     * @return the user holding the lock if it is held by another user, otherwise empty
+     */
+    Optional<String> release(EditLockType type, String key, String username);
+
+    /**
+     * Get the current holders of the locks of a type.
+     *
+     * @param type the lock type
+     * @return the lock holders
+     */
+    List<LockHolder> getHolders(EditLockType type);
+
+    /**
+     * Find the holders of the locks on the given keys.
+     *
+     * @param type the lock type
+     * @param keys the locked keys
+     * @return the lock holder per locked key, the keys which are not locked are absent
+     */
+    Map<String, String> findHolders(EditLockType type, Collection<String> keys);
+}
@@ -0,0 +1,22 @@
+/*
+ * $Id:: EditLockType.java 2021/10/25 09:40 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.lock;
+
+/**
+ * The types of the edit locks, both keyed by application number.
+ */
+public enum EditLockType {
+    APPLICATION,
+    NOTE
+}
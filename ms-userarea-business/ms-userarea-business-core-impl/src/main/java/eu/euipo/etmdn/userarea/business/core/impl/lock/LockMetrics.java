@@ -0,0 +1,139 @@
+/*
+ * $Id:: LockMetrics.java 2021/10/26 10:10 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.lock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of the edit locks, per resource type: acquisitions, conflicts, releases by reason and hold time.
+ * The hold time is measured from the first acquisition seen by this instance to the explicit release; the holds of
+ * the locks which expire are dropped after the lock timeout, on the expired lock releases and at most once a minute on
+ * the acquisitions. At most {@value #MAX_HOLDS} holds are tracked, the locks acquired beyond are not timed.
+ */
+@Component
+public class LockMetrics {
+
+    public static final String APPLICATION = "application";
+    public static final String NOTE = "note";
+    public static final String MESSAGE = "message";
+    public static final String ACCOUNT = "account";
+
+    private static final String METRIC_ACQUISITIONS = "userarea.locks.acquisitions";
+    private static final String METRIC_RELEASES = "userarea.locks.releases";
+    private static final String METRIC_HOLD = "userarea.locks.hold";
+    private static final String RESOURCE = "resource";
+    private static final long PRUNE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    static final int MAX_HOLDS = 10000;
+
+    private final MeterRegistry meterRegistry;
+    private final long lockTimeoutNanos;
+    private final Map<String, Long> acquiredAt = new ConcurrentHashMap<>();
+    private final AtomicLong prunedAt = new AtomicLong(System.nanoTime());
+
+    /**
+     * Instantiates the lock metrics.
+     *
+     * @param meterRegistry the meter registry
+     * @param lockTimeout   the lock timeout in seconds
+     */
+    @Autowired
+    public LockMetrics(final MeterRegistry meterRegistry, @Value("${userarea.locktimeout:900}") final long lockTimeout) {
+        this.meterRegistry = meterRegistry;
+        this.lockTimeoutNanos = TimeUnit.SECONDS.toNanos(lockTimeout);
+    }
+
+    /**
+     * Record an acquired or renewed lock.
+     *
+     * @param resource the resource type
+     * @param key      the locked key
+     */
+    public void acquired(final String resource, final String key) {
+        counter(METRIC_ACQUISITIONS, resource, "result", "acquired").increment();
+        final long now = System.nanoTime();
+        final long lastPruned = prunedAt.get();
+        if (now - lastPruned > PRUNE_INTERVAL_NANOS && prunedAt.compareAndSet(lastPruned, now)) {
+            prune(now);
+        }
+        if (acquiredAt.size() < MAX_HOLDS) {
+            acquiredAt.putIfAbsent(resource + ":" + key, now);
+        }
+    }
+
+    /**
+     * Record a lock refused because it is held by another user.
+     *
+     * @param resource the resource type
+     */
+    public void conflict(final String resource) {
+        counter(METRIC_ACQUISITIONS, resource, "result", "conflict").increment();
+    }
+
+    /**
+     * Record a lock released by its holder.
+     *
+     * @param resource the resource type
+     * @param key      the locked key
+     */
+    public void released(final String resource, final String key) {
+        counter(METRIC_RELEASES, resource, "reason", "explicit").increment();
+        final Long since = acquiredAt.remove(resource + ":" + key);
+        if (since != null) {
+            Timer.builder(METRIC_HOLD)
+                    .description("Time an edit lock is held until it is released")
+                    .tag(RESOURCE, resource)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - since, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Record the locks released because they expired, and drop the holds older than the lock timeout.
+     *
+     * @param resource the resource type
+     * @param count    the number of expired locks
+     */
+    public void expired(final String resource, final int count) {
+        counter(METRIC_RELEASES, resource, "reason", "expired").increment(count);
+        prune(System.nanoTime());
+    }
+
+    /**
+     * Get the number of lock holds being timed.
+     *
+     * @return the number of holds
+     */
+    int getHoldCount() {
+        return acquiredAt.size();
+    }
+
+    private void prune(final long now) {
+        acquiredAt.values().removeIf(since -> now - since > lockTimeoutNanos);
+    }
+
+    private Counter counter(final String name, final String resource, final String tag, final String value) {
+        return Counter.builder(name).tag(RESOURCE, resource).tag(tag, value).register(meterRegistry);
+    }
+}
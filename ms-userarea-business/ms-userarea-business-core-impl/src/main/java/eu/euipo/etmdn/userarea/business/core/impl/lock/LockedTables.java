@@ -0,0 +1,99 @@
+/*
+ * $Id:: LockedTables.java 2021/10/26 10:10 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.lock;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.repository.core.support.RepositoryFactoryInformation;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The tables holding the LockedBy and LockedDate columns, configured with {@code userarea.lockRepoProcess}.
+ * Each table is mapped to the repository of its entity and to the resource type used in the lock metrics.
+ */
+@Slf4j
+@Component
+public class LockedTables {
+
+    public static final String MESSAGES = "MESSAGES";
+    public static final String APPLICATIONS = "APPLICATIONS";
+    public static final String NOTES = "NOTES";
+    public static final String ACCOUNTS = "ACCOUNTS";
+
+    private static final Map<String, String> REPOSITORIES = new HashMap<>();
+    private static final Map<String, String> RESOURCES = new HashMap<>();
+
+    static {
+        REPOSITORIES.put(MESSAGES, "messageRepository");
+        REPOSITORIES.put(APPLICATIONS, "applicationRepository");
+        REPOSITORIES.put(NOTES, "noteApplicationRepository");
+        REPOSITORIES.put(ACCOUNTS, "accountRepository");
+        RESOURCES.put(MESSAGES, LockMetrics.MESSAGE);
+        RESOURCES.put(APPLICATIONS, LockMetrics.APPLICATION);
+        RESOURCES.put(NOTES, LockMetrics.NOTE);
+        RESOURCES.put(ACCOUNTS, LockMetrics.ACCOUNT);
+    }
+
+    private final ApplicationContext appContext;
+    private final String lockedTables;
+
+    /**
+     * Instantiates the locked tables.
+     *
+     * @param appContext   the application context
+     * @param lockedTables the comma separated locked tables
+     */
+    @Autowired
+    public LockedTables(final ApplicationContext appContext, @Value("${userarea.lockRepoProcess}") final String lockedTables) {
+        this.appContext = appContext;
+        this.lockedTables = lockedTables;
+    }
+
+    /**
+     * Get the entities of the configured locked tables.
+     *
+     * @return the entity class per table, in the configured order
+     */
+    public Map<String, Class<?>> getEntities() {
+        final Map<String, Class<?>> entities = new LinkedHashMap<>();
+        for (String table : lockedTables.split(",")) {
+            table = table.trim();
+            final String beanName = REPOSITORIES.get(table);
+            if (beanName == null) {
+                log.warn("No repository configured for locked table {}", table);
+                continue;
+            }
+            entities.put(table, appContext.getBean(BeanFactory.FACTORY_BEAN_PREFIX + beanName, RepositoryFactoryInformation.class)
+                    .getRepositoryInformation().getDomainType());
+        }
+        return entities;
+    }
+
+    /**
+     * Get the resource type of a table.
+     *
+     * @param table the table
+     * @return the resource type
+     */
+    public static String getResource(final String table) {
+        return RESOURCES.get(table);
+    }
+}
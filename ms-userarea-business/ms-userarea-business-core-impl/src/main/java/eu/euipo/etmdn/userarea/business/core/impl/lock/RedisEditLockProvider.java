@@ -0,0 +1,160 @@
+/*
+ * $Id:: RedisEditLockProvider.java 2021/10/25 09:40 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.lock;
+
+import eu.euipo.etmdn.userarea.common.domain.exception.UserAreaException;
+import eu.euipo.etmdn.userarea.domain.lock.LockHolder;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Edit locks kept in redis as leases.
+ * A lock is a key holding the username, set with the lock timeout as time to live, so an abandoned lock expires
+ * without any cleanup. The check of the holder and the write are done by a script, atomically.
+ * The LockedBy and LockedDate columns are not written in this mode.
+ */
+@Component
+@ConditionalOnProperty(name = "userarea.lockStore", havingValue = "redis")
+public class RedisEditLockProvider extends AbstractEditLockProvider {
+
+    private static final String KEY_PREFIX = "userarea:lock:";
+
+    /**
+     * Sets the lease if it is free or held by the user, otherwise returns the holder.
+     */
+    private static final RedisScript<String> ACQUIRE = new DefaultRedisScript<>(
+            "local holder = redis.call('get', KEYS[1]) "
+                    + "if not holder or string.lower(holder) == string.lower(ARGV[1]) then "
+                    + "redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2]) return '' end "
+                    + "return holder", String.class);
+
+    /**
+     * Deletes the lease if it is held by the user, otherwise returns the holder.
+     */
+    private static final RedisScript<String> RELEASE = new DefaultRedisScript<>(
+            "local holder = redis.call('get', KEYS[1]) "
+                    + "if not holder then return '' end "
+                    + "if string.lower(holder) == string.lower(ARGV[1]) then redis.call('del', KEYS[1]) return '' end "
+                    + "return holder", String.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String leaseMillis;
+
+    /**
+     * Instantiates the redis edit lock provider.
+     *
+     * @param redisTemplate the redis template
+     * @param lockMetrics   the lock metrics
+     * @param lockTimeout   the lock timeout in seconds, the time to live of a lease
+     */
+    @Autowired
+    public RedisEditLockProvider(final StringRedisTemplate redisTemplate, final LockMetrics lockMetrics,
+                                 @Value("${userarea.locktimeout}") final long lockTimeout) {
+        super(lockMetrics);
+        this.redisTemplate = redisTemplate;
+        this.leaseMillis = String.valueOf(lockTimeout * 1000);
+    }
+
+    @Override
+    protected Optional<String> doAcquire(final EditLockType type, final String key, final String username) {
+        return toHolder(redisTemplate.execute(ACQUIRE, Collections.singletonList(toKey(type, key)), username, leaseMillis));
+    }
+
+    @Override
+    protected Optional<String> doRelease(final EditLockType type, final String key, final String username) {
+        return toHolder(redisTemplate.execute(RELEASE, Collections.singletonList(toKey(type, key)), username));
+    }
+
+    @Override
+    public List<LockHolder> getHolders(final EditLockType type) {
+        final String prefix = toKey(type, "");
+        final List<String> keys = redisTemplate.execute((RedisCallback<List<String>>) connection -> {
+            final List<String> found = new ArrayList<>();
+            try (Cursor<byte[]> cursor = connection.scan(ScanOptions.scanOptions().match(prefix + "*").count(1000).build())) {
+                cursor.forEachRemaining(key -> found.add(new String(key, StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                throw new UserAreaException("Cannot list the edit locks", e);
+            }
+            return found;
+        });
+        final List<LockHolder> holders = new ArrayList<>();
+        if (keys == null || keys.isEmpty()) {
+            return holders;
+        }
+        final List<String> usernames = redisTemplate.opsForValue().multiGet(keys);
+        final LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < keys.size(); i++) {
+            final String username = usernames != null ? usernames.get(i) : null;
+            if (username == null) {
+                // expired since the scan
+                continue;
+            }
+            final Long ttl = redisTemplate.getExpire(keys.get(i), TimeUnit.MILLISECONDS);
+            holders.add(LockHolder.builder()
+                    .resource(toResource(type))
+                    .key(keys.get(i).substring(prefix.length()))
+                    .username(username)
+                    .expiresAt(ttl != null && ttl > 0 ? now.plusNanos(TimeUnit.MILLISECONDS.toNanos(ttl)) : null)
+                    .build());
+        }
+        return holders;
+    }
+
+    @Override
+    public Map<String, String> findHolders(final EditLockType type, final Collection<String> keys) {
+        final Map<String, String> holders = new HashMap<>();
+        if (keys.isEmpty()) {
+            return holders;
+        }
+        final List<String> lockedKeys = new ArrayList<>(keys);
+        final List<String> usernames = redisTemplate.opsForValue()
+                .multiGet(lockedKeys.stream().map(key -> toKey(type, key)).collect(Collectors.toList()));
+        for (int i = 0; usernames != null && i < lockedKeys.size(); i++) {
+            if (usernames.get(i) != null) {
+                holders.put(lockedKeys.get(i), usernames.get(i));
+            }
+        }
+        return holders;
+    }
+
+    private static String toKey(final EditLockType type, final String key) {
+        return KEY_PREFIX + type.name().toLowerCase() + ":" + key;
+    }
+
+    private static Optional<String> toHolder(final String result) {
+        return Optional.ofNullable(result).filter(StringUtils::isNotEmpty);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * $Id:: AttachmentFetcher.java 2021/10/18 09:15 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.report;
+
+import eu.euipo.etmdn.userarea.common.domain.exception.UserAreaException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Fetches the attachments of a download concurrently while they are written in their original order.
+ * Each download fetches at most a window of attachments ahead of the one being written, so the memory held by a download
+ * is bounded by the window and not by the number of attachments. The fetches of all the downloads share a bounded pool.
+ */
+@Slf4j
+@Component
+public class AttachmentFetcher implements DisposableBean {
+
+    private final ExecutorService executor;
+    private final int window;
+
+    /**
+     * Instantiates the attachment fetcher.
+     *
+     * @param threads the number of attachments fetched concurrently by all the downloads
+     * @param window  the number of attachments a download fetches ahead of the one being written
+     */
+    @Autowired
+    public AttachmentFetcher(@Value("${userarea.attachments.fetch.threads:8}") final int threads,
+                             @Value("${userarea.attachments.fetch.window:4}") final int window) {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            final Thread thread = new Thread(runnable, "attachment-fetch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.window = Math.max(1, window);
+    }
+
+    /**
+     * Fetch the content of the attachments and hand it to the writer in the order of the attachments.
+     *
+     * @param attachments the attachments
+     * @param fetcher     the fetcher of the content of an attachment, called concurrently
+     * @param writer      the writer of the attachments, called on the calling thread in the order of the attachments
+     * @param <T>         the attachment type
+     * @throws IOException if an attachment cannot be written
+     */
+    public <T> void fetchInOrder(final List<T> attachments, final Function<T, byte[]> fetcher, final AttachmentWriter<T> writer) throws IOException {
+        final Deque<Future<byte[]>> fetching = new ArrayDeque<>(window);
+        int next = 0;
+        try {
+            for (int i = 0; i < attachments.size(); i++) {
+                while (next < attachments.size() && next < i + window) {
+                    final T attachment = attachments.get(next++);
+                    fetching.add(executor.submit(() -> fetcher.apply(attachment)));
+                }
+                writer.write(attachments.get(i), await(fetching.poll()));
+            }
+        } finally {
+            // a failed download does not keep fetching the remaining attachments
+            fetching.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private static byte[] await(final Future<byte[]> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UserAreaException("Interrupted while fetching an attachment", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new UserAreaException("Error fetching an attachment", e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Writer of a fetched attachment.
+     *
+     * @param <T> the attachment type
+     */
+    @FunctionalInterface
+    public interface AttachmentWriter<T> {
+
+        /**
+         * Write an attachment.
+         *
+         * @param attachment the attachment
+         * @param content    the content of the attachment
+         * @throws IOException if the attachment cannot be written
+         */
+        void write(T attachment, byte[] content) throws IOException;
+    }
+}
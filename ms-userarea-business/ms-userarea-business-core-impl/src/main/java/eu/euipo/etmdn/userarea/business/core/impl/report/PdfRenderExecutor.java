@@ -0,0 +1,175 @@
+/*
+ * $Id:: PdfRenderExecutor.java 2021/10/14 10:12 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.report;
+
+import eu.euipo.etmdn.userarea.common.domain.exception.ServiceUnavailableException;
+import eu.euipo.etmdn.userarea.common.domain.exception.UserAreaException;
+import eu.euipo.etmdn.userarea.domain.pdf.exception.PdfRenderRejectedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated executor for the html to pdf rendering, which is cpu bound.
+ * A fixed number of workers renders the pdfs and a bounded queue absorbs bursts; when the queue is full the request
+ * fails immediately with a retry-after hint instead of competing with the rest of the api for the cpu.
+ */
+@Slf4j
+@Component
+public class PdfRenderExecutor implements DisposableBean {
+
+    private static final String RENDER_TIMER = "userarea.pdf.render";
+    private static final String WAIT_TIMER = "userarea.pdf.render.wait";
+    private static final String REJECTED_COUNTER = "userarea.pdf.render.rejected";
+
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor executor;
+    private final long renderTimeout;
+    private final long retryAfter;
+
+    /**
+     * Instantiates the pdf render executor.
+     *
+     * @param meterRegistry the meter registry
+     * @param workers       the number of pdfs rendered concurrently
+     * @param queueSize     the number of pdfs waiting for a free worker
+     * @param renderTimeout the maximum time in milliseconds a request waits for its pdf, queueing included
+     * @param retryAfter    the seconds a client is asked to wait before retrying a rejected request
+     */
+    @Autowired
+    public PdfRenderExecutor(final MeterRegistry meterRegistry,
+                             @Value("${userarea.pdf.render.workers:2}") final int workers,
+                             @Value("${userarea.pdf.render.queueSize:20}") final int queueSize,
+                             @Value("${userarea.pdf.render.timeout:60000}") final long renderTimeout,
+                             @Value("${userarea.pdf.render.retryAfter:5}") final long retryAfter) {
+        this.meterRegistry = meterRegistry;
+        this.renderTimeout = renderTimeout;
+        this.retryAfter = retryAfter;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), runnable -> {
+                    Thread thread = new Thread(runnable, "pdf-render-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        Gauge.builder("userarea.pdf.render.queue", executor, e -> e.getQueue().size())
+                .description("Number of pdfs waiting for a render worker")
+                .register(meterRegistry);
+        Gauge.builder("userarea.pdf.render.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Number of pdfs being rendered")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Render a pdf on the render workers, waiting for the result.
+     *
+     * @param template the template name, used to tag the metrics
+     * @param renderer the renderer producing the pdf content
+     * @param <T>      the type of the rendered content
+     * @return the pdf content
+     */
+    public <T> T render(final String template, final Supplier<T> renderer) {
+        final Timer renderTimer = Timer.builder(RENDER_TIMER)
+                .description("Time spent rendering a pdf")
+                .tag("template", template)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        final Timer waitTimer = waitTimer(template);
+        final long submittedAt = System.nanoTime();
+        final Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return renderTimer.record(renderer);
+            });
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter(REJECTED_COUNTER, "template", template).increment();
+            log.warn("Rejecting pdf {}, {} pdfs rendering and {} queued", template, executor.getActiveCount(), executor.getQueue().size());
+            throw new PdfRenderRejectedException("Too many pdfs are being generated, please retry later", retryAfter);
+        }
+        try {
+            return future.get(renderTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.error("Rendering pdf {} exceeded the deadline of {} ms", template, renderTimeout);
+            throw new ServiceUnavailableException("Timed out generating the pdf");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new UserAreaException("Interrupted while generating the pdf", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new UserAreaException("Error generating pdf report", e.getCause());
+        }
+    }
+
+    /**
+     * Run a background pdf task on the render workers, without waiting for it.
+     * The task renders its pdf on the worker directly. When the queue is full the task is not run and the returned
+     * future fails with the rejection.
+     *
+     * @param template the template name, used to tag the metrics
+     * @param task     the task
+     * @param <T>      the type of the task result
+     * @return the future of the task result
+     */
+    public <T> CompletableFuture<T> submit(final String template, final Supplier<T> task) {
+        final Timer waitTimer = waitTimer(template);
+        final long submittedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return task.get();
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter(REJECTED_COUNTER, "template", template).increment();
+            log.warn("Rejecting background pdf {}, {} pdfs rendering and {} queued", template, executor.getActiveCount(), executor.getQueue().size());
+            final CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+    }
+
+    private Timer waitTimer(final String template) {
+        return Timer.builder(WAIT_TIMER)
+                .description("Time a pdf waits for a render worker")
+                .tag("template", template)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * $Id:: PdfSliceWriter.java 2021/10/15 09:40 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.report;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writer of a pdf rendered in slices.
+ * Every slice is rendered as a separate document into a temporary file; once all the slices are rendered the pages are
+ * numbered across the whole report and the slices are concatenated page by page into the output stream.
+ * Only one slice is held in memory at a time, the pdfbox buffers are backed by temporary files.
+ */
+@Slf4j
+public class PdfSliceWriter implements Closeable {
+
+    private static final PDFont FOOTER_FONT = PDType1Font.HELVETICA;
+    private static final float FOOTER_FONT_SIZE = 10;
+    // the default page margin of the renderer is one inch, the footer is centered in the bottom margin
+    private static final float FOOTER_MARGIN = 72;
+    private static final float FOOTER_PADDING = 10;
+
+    private final List<File> slices = new ArrayList<>();
+    private final List<Integer> pageCounts = new ArrayList<>();
+    private final List<File> numberedSlices = new ArrayList<>();
+
+    /**
+     * Render a slice of the report.
+     *
+     * @param renderer the renderer writing the slice document
+     * @throws IOException if the slice cannot be written
+     */
+    public void addSlice(final SliceRenderer renderer) throws IOException {
+        final File slice = File.createTempFile("userarea-pdf-slice-", ".pdf");
+        slices.add(slice);
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(slice))) {
+            renderer.render(os);
+        }
+        try (PDDocument document = PDDocument.load(slice, MemoryUsageSetting.setupTempFileOnly())) {
+            pageCounts.add(document.getNumberOfPages());
+        }
+    }
+
+    /**
+     * Number the pages of the slices and concatenate them.
+     *
+     * @param outputStream the output stream of the report
+     * @throws IOException if the report cannot be written
+     */
+    public void writeTo(final OutputStream outputStream) throws IOException {
+        final int totalPages = pageCounts.stream().mapToInt(Integer::intValue).sum();
+        final PDFMergerUtility merger = new PDFMergerUtility();
+        int firstPage = 1;
+        for (int i = 0; i < pageCounts.size(); i++) {
+            final File numbered = File.createTempFile("userarea-pdf-slice-", ".pdf");
+            numberedSlices.add(numbered);
+            try (PDDocument document = PDDocument.load(slices.get(i), MemoryUsageSetting.setupTempFileOnly())) {
+                int pageNumber = firstPage;
+                for (PDPage page : document.getPages()) {
+                    writeFooter(document, page, "Page " + pageNumber++ + " of " + totalPages);
+                }
+                document.save(numbered);
+            }
+            merger.addSource(numbered);
+            firstPage += pageCounts.get(i);
+        }
+        merger.setDestinationStream(outputStream);
+        merger.mergeDocuments(MemoryUsageSetting.setupTempFileOnly());
+        log.info("Concatenated {} pdf slices, {} pages", pageCounts.size(), totalPages);
+    }
+
+    private static void writeFooter(final PDDocument document, final PDPage page, final String text) throws IOException {
+        final PDRectangle mediaBox = page.getMediaBox();
+        final float textWidth = FOOTER_FONT.getStringWidth(text) / 1000 * FOOTER_FONT_SIZE;
+        try (PDPageContentStream contentStream = new PDPageContentStream(document, page, PDPageContentStream.AppendMode.APPEND, true, true)) {
+            contentStream.beginText();
+            contentStream.setFont(FOOTER_FONT, FOOTER_FONT_SIZE);
+            contentStream.newLineAtOffset(mediaBox.getUpperRightX() - FOOTER_MARGIN - FOOTER_PADDING - textWidth,
+                    mediaBox.getLowerLeftY() + (FOOTER_MARGIN - FOOTER_FONT_SIZE) / 2);
+            contentStream.showText(text);
+            contentStream.endText();
+        }
+    }
+
+    @Override
+    public void close() {
+        slices.addAll(numberedSlices);
+        numberedSlices.clear();
+        for (File slice : slices) {
+            try {
+                Files.deleteIfExists(slice.toPath());
+            } catch (IOException e) {
+                log.warn("Failed to delete pdf slice {}: {}", slice, e.getMessage());
+            }
+        }
+        slices.clear();
+    }
+
+    /**
+     * Renderer of a slice document.
+     */
+    @FunctionalInterface
+    public interface SliceRenderer {
+
+        /**
+         * Write the slice document.
+         *
+         * @param outputStream the output stream of the slice
+         * @throws IOException if the slice cannot be written
+         */
+        void render(OutputStream outputStream) throws IOException;
+    }
+}
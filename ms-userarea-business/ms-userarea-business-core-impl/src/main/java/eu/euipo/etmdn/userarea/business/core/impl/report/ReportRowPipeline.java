@@ -0,0 +1,175 @@
+/*
+ * $Id:: ReportRowPipeline.java 2021/10/11 10:20 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.report;
+
+import eu.euipo.etmdn.userarea.common.domain.exception.UserAreaException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Two stage pipeline used to build the rows of the application reports.
+ * Rows are prepared (formatting, image decoding) in parallel on a bounded fork-join pool, chunk by chunk,
+ * while a single writer on the calling thread appends the previous chunk in the original order.
+ * Small reports are prepared on the calling thread, chunk by chunk as well, so that both stage timers
+ * record one sample per chunk whatever the path.
+ */
+@Slf4j
+@Component
+public class ReportRowPipeline implements DisposableBean {
+
+    private static final String STAGE_TIMER = "userarea.reports.rows.stage";
+    private static final String ROWS_COUNTER = "userarea.reports.rows";
+
+    private final MeterRegistry meterRegistry;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int parallelThreshold;
+
+    /**
+     * Instantiates the report row pipeline.
+     *
+     * @param meterRegistry     the meter registry
+     * @param parallelism       the number of threads preparing rows, 0 or less prepares the rows on the calling thread
+     * @param chunkSize         the number of rows prepared before they are handed to the writer
+     * @param parallelThreshold the minimum number of rows for which the rows are prepared in parallel
+     */
+    @Autowired
+    public ReportRowPipeline(final MeterRegistry meterRegistry,
+                             @Value("${userarea.reports.pipeline.parallelism:4}") final int parallelism,
+                             @Value("${userarea.reports.pipeline.chunkSize:256}") final int chunkSize,
+                             @Value("${userarea.reports.pipeline.parallelThreshold:64}") final int parallelThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.pool = parallelism > 0 ? new ForkJoinPool(parallelism) : null;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Prepare the rows of a report and hand them in order to the writer.
+     *
+     * @param report   the report name, used to tag the metrics
+     * @param items    the items of the report
+     * @param preparer the stateless function preparing the row of an item, called concurrently
+     * @param writer   the writer of the prepared rows, always called on the calling thread in the order of the items
+     * @param <T>      the item type
+     * @param <R>      the prepared row type
+     */
+    public <T, R> void process(final String report, final List<T> items, final Function<T, R> preparer, final Consumer<R> writer) {
+        final List<T> rows = items == null ? Collections.emptyList() : items;
+        final Timer prepareTimer = stageTimer(report, "prepare");
+        final Timer writeTimer = stageTimer(report, "write");
+        meterRegistry.counter(ROWS_COUNTER, "report", report).increment(rows.size());
+        if (pool == null || rows.size() < parallelThreshold) {
+            for (int from = 0; from < rows.size(); from += chunkSize) {
+                final List<T> chunk = chunk(rows, from);
+                final List<R> prepared = prepareTimer.record(() -> chunk.stream().map(preparer).collect(Collectors.toList()));
+                writeTimer.record(() -> prepared.forEach(writer));
+            }
+            return;
+        }
+        ForkJoinTask<List<R>> next = prepare(chunk(rows, 0), preparer, prepareTimer);
+        try {
+            for (int from = 0; from < rows.size(); from += chunkSize) {
+                final List<R> prepared = await(next);
+                final int nextFrom = from + chunkSize;
+                // the next chunk is prepared while the current one is written
+                next = nextFrom < rows.size() ? prepare(chunk(rows, nextFrom), preparer, prepareTimer) : null;
+                writeTimer.record(() -> prepared.forEach(writer));
+            }
+        } finally {
+            // a failing writer (e.g. a closed client connection) leaves the next chunk submitted
+            if (next != null) {
+                next.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Prepare the rows of a report in parallel, keeping the order of the items.
+     *
+     * @param report   the report name, used to tag the metrics
+     * @param items    the items of the report
+     * @param preparer the stateless function preparing the row of an item, called concurrently
+     * @param <T>      the item type
+     * @param <R>      the prepared row type
+     * @return the prepared rows
+     */
+    public <T, R> List<R> map(final String report, final List<T> items, final Function<T, R> preparer) {
+        final List<R> prepared = new ArrayList<>(items == null ? 0 : items.size());
+        process(report, items, preparer, prepared::add);
+        return prepared;
+    }
+
+    private <T> List<T> chunk(final List<T> rows, final int from) {
+        return rows.subList(from, Math.min(from + chunkSize, rows.size()));
+    }
+
+    private <T, R> ForkJoinTask<List<R>> prepare(final List<T> chunk, final Function<T, R> preparer, final Timer prepareTimer) {
+        // a parallel stream started from a task of the pool is executed by the workers of that pool
+        return pool.submit(() -> {
+            final long start = System.nanoTime();
+            try {
+                return chunk.parallelStream().map(preparer).collect(Collectors.toList());
+            } finally {
+                prepareTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    private static <R> List<R> await(final ForkJoinTask<List<R>> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new UserAreaException("Interrupted while preparing report rows", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new UserAreaException("Error preparing report rows", e.getCause());
+        }
+    }
+
+    private Timer stageTimer(final String report, final String stage) {
+        return Timer.builder(STAGE_TIMER)
+                .description("Time spent in each stage of the report row pipeline, per chunk of rows")
+                .tag("report", report)
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
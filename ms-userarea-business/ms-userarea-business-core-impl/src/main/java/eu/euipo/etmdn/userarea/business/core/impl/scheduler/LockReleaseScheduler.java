@@ -11,25 +11,23 @@
 
 package eu.euipo.etmdn.userarea.business.core.impl.scheduler;
 
-import lombok.SneakyThrows;
+import eu.euipo.etmdn.userarea.business.core.impl.lock.LockMetrics;
+import eu.euipo.etmdn.userarea.business.core.impl.lock.LockedTables;
+import eu.euipo.etmdn.userarea.persistence.repository.lock.ExpiredLockRepository;
 import lombok.extern.slf4j.Slf4j;
 import net.javacrumbs.shedlock.core.SchedulerLock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.ApplicationContext;
-import org.springframework.data.repository.CrudRepository;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.sql.Timestamp;
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
- * Class that checks tables for locked entities and releases the lock if the time has passed
+ * Class that checks tables for locked entities and releases the lock if the time has passed.
+ * The expired locks of each table are released with a single update on the lock date, and counted in the lock metrics.
  */
 @Component
 @Slf4j
@@ -37,50 +35,41 @@ public class LockReleaseScheduler {
 
 
     @Autowired
-    private ApplicationContext appContext;
-    @Value("${userarea.lockRepoProcess}")
-    private String lockedTables;
+    private LockedTables lockedTables;
+    @Autowired
+    private ExpiredLockRepository expiredLockRepository;
+    @Autowired
+    private LockMetrics lockMetrics;
     @Value("${userarea.locktimeout}")
     private String locktimeout;
-    private static HashMap<String,String> repoMap = new HashMap<>();
-
-    static {
-        repoMap.put("MESSAGES","messageRepository");
-        repoMap.put("APPLICATIONS","applicationRepository");
-        repoMap.put("NOTES","noteApplicationRepository");
-        repoMap.put("ACCOUNTS","accountRepository");
-    }
 
     /**
      * Releases the locks from the specified repositories
      */
-    @SneakyThrows
     @Scheduled(cron = "${userarea.lockscheduler}")
     @SchedulerLock(name = "LockReleaseScheduler_releaseLocks",
             lockAtLeastForString = "${userarea.lockschedulerMin}", lockAtMostForString = "${userarea.lockschedulerMax}")
     public void releaseLocks(){
+        Map<String, Integer> released = releaseExpiredLocks();
+        log.info("Released expired locks per table: {}", released);
+    }
 
-        List<String> alLockedTables = Arrays.asList(lockedTables.split(","));
-        for(String table:alLockedTables) {
-            String beanName = repoMap.get(table);
-            CrudRepository repo = (CrudRepository)appContext.getBean(beanName);
-            Iterable repoList = (Iterable)repo.getClass().getMethod("findByLockedByIsNotNull").invoke(repo);
-            for(Object object:repoList){
-                LocalDateTime lockedDate = (LocalDateTime)object.getClass().getMethod("getLockedDate").invoke(object);
-                Long id = (Long)object.getClass().getMethod("getId").invoke(object);
-                if(lockedDate!=null){
-                    long difference = System.currentTimeMillis() - Timestamp.valueOf(lockedDate).getTime();
-                    long minutes = TimeUnit.SECONDS.toMinutes(Long.parseLong(this.locktimeout) * 1000 - difference);
-                    if(minutes <= 0){
-                        log.debug("Releasing lock for object with id {} from table {}",id,table);
-                        object.getClass().getMethod("setLockedBy",String.class).invoke(object,new Object[]{ null });
-                        object.getClass().getMethod("setLockedDate",LocalDateTime.class).invoke(object,new Object[]{ null });
-                        repo.save(object);
-                        log.debug("Released lock for object with id {} from table {}",id,table);
-                    }
-                }
-            }
+    /**
+     * Releases the locks taken before the lock timeout, with one update per table.
+     *
+     * @return the number of released locks per table
+     */
+    public Map<String, Integer> releaseExpiredLocks() {
+        LocalDateTime lockedBefore = LocalDateTime.now().minusSeconds(Long.parseLong(locktimeout.trim()));
+        Map<String, Integer> released = new LinkedHashMap<>();
+        for (Map.Entry<String, Class<?>> entity : lockedTables.getEntities().entrySet()) {
+            String table = entity.getKey();
+            int count = expiredLockRepository.releaseLockedBefore(entity.getValue(), lockedBefore);
+            log.debug("Released {} locks taken before {} from table {}", count, lockedBefore, table);
+            lockMetrics.expired(LockedTables.getResource(table), count);
+            released.put(table, count);
         }
+        return released;
     }
 
 }
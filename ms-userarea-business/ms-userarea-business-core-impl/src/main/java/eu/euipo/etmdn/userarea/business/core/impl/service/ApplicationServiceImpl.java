@@ -15,26 +15,30 @@ package eu.euipo.etmdn.userarea.business.core.impl.service;
 
 
 import org.springframework.context.annotation.Lazy;
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReceipt;
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReport;
 import eu.euipo.etmdn.userarea.business.core.api.service.ApplicationService;
 import eu.euipo.etmdn.userarea.business.core.api.service.NoteService;
 import eu.euipo.etmdn.userarea.business.core.api.service.PaymentService;
 import eu.euipo.etmdn.userarea.business.core.api.service.PdfService;
+import eu.euipo.etmdn.userarea.business.core.impl.cache.ApplicationSearchCache;
+import eu.euipo.etmdn.userarea.business.core.impl.cache.ReceiptCache;
+import eu.euipo.etmdn.userarea.business.core.impl.client.FrontofficeReceiptClient;
+import eu.euipo.etmdn.userarea.business.core.impl.client.MyApplicationsClient;
+import eu.euipo.etmdn.userarea.business.core.impl.lock.EditLockProvider;
+import eu.euipo.etmdn.userarea.business.core.impl.lock.EditLockType;
 import eu.euipo.etmdn.userarea.business.core.impl.utils.ApplicationUtils;
 import eu.euipo.etmdn.userarea.common.business.config.ApplicationConfiguration;
 import eu.euipo.etmdn.userarea.common.business.config.IpoConfiguration;
 import eu.euipo.etmdn.userarea.common.business.event.AuditEventPublisher;
 import eu.euipo.etmdn.userarea.common.business.service.AccountService;
-import eu.euipo.etmdn.userarea.common.business.utils.LockUtils;
-import eu.euipo.etmdn.userarea.common.domain.FileInfo;
+import eu.euipo.etmdn.userarea.common.domain.DomainAccount;
 import eu.euipo.etmdn.userarea.common.domain.auditlog.AuditType;
-import eu.euipo.etmdn.userarea.common.domain.document.FileResponse;
+import eu.euipo.etmdn.userarea.common.domain.exception.ApplicationEntityLockedException;
 import eu.euipo.etmdn.userarea.common.domain.eservice.ValidateEServiceRequest;
 import eu.euipo.etmdn.userarea.common.domain.eservice.ValidateEServiceResponse;
 import eu.euipo.etmdn.userarea.common.domain.eservice.ValidationStatusEServiceType;
 import eu.euipo.etmdn.userarea.common.domain.exception.EntityNotFoundException;
-import eu.euipo.etmdn.userarea.common.domain.exception.FrontofficeReceiptNotFoundException;
-import eu.euipo.etmdn.userarea.common.domain.exception.FrontofficeServerException;
-import eu.euipo.etmdn.userarea.common.domain.exception.ServiceUnavailableException;
 import eu.euipo.etmdn.userarea.common.domain.exception.ValidateEserviceException;
 import eu.euipo.etmdn.userarea.common.persistence.entity.Application;
 import eu.euipo.etmdn.userarea.common.persistence.entity.QualifiedService;
@@ -44,12 +48,19 @@ import eu.euipo.etmdn.userarea.domain.ApplicationType;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationDetails;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationRequest;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationSearchResult;
+import eu.euipo.etmdn.userarea.domain.application.DraftBulkResult;
+import eu.euipo.etmdn.userarea.domain.application.DraftBulkStatus;
 import eu.euipo.etmdn.userarea.domain.application.SearchCriteriaApplication;
 import eu.euipo.etmdn.userarea.domain.note.NoteApplication;
+import eu.euipo.etmdn.userarea.domain.payment.InvoiceFile;
+import eu.euipo.etmdn.userarea.domain.signature.ApplicationSignatures;
 import eu.euipo.etmdn.userarea.persistence.entity.note.NoteApplicationEntity;
 import eu.euipo.etmdn.userarea.persistence.entity.payment.PaymentApplicationEntity;
 import eu.euipo.etmdn.userarea.persistence.entity.payment.PaymentEntity;
 import eu.euipo.etmdn.userarea.persistence.mapper.note.NoteApplicationMapper;
+import eu.euipo.etmdn.userarea.persistence.repository.application.ApplicationLockRepository;
+import eu.euipo.etmdn.userarea.persistence.repository.application.ApplicationReceiptRepository;
+import eu.euipo.etmdn.userarea.persistence.repository.signature.ApplicationSignaturesRepository;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -63,25 +74,23 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.converter.ByteArrayHttpMessageConverter;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
 
-import javax.net.ssl.HttpsURLConnection;
-import java.time.LocalDateTime;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -144,16 +153,28 @@ public class ApplicationServiceImpl implements ApplicationService {
     @Autowired
     @Lazy
     private PdfService pdfService;
+    @Autowired
+    private ApplicationSearchCache applicationSearchCache;
+    @Autowired
+    private MyApplicationsClient myApplicationsClient;
+    @Autowired
+    private FrontofficeReceiptClient frontofficeReceiptClient;
+    @Autowired
+    private ReceiptCache receiptCache;
+    @Autowired
+    private ApplicationReceiptRepository applicationReceiptRepository;
+    @Autowired
+    private EditLockProvider editLockProvider;
+    @Autowired
+    private ApplicationLockRepository applicationLockRepository;
+    @Autowired
+    private ApplicationSignaturesRepository applicationSignaturesRepository;
     @Value("${userarea.globals.ipo.fo.url}")
     private String frontofficeUrl;
-    @Value("${userarea.signature.frontoffice.receiptEndpoint}")
-    private String frontofficeReceiptEndpoint;
     @Value("${userarea.signature.frontoffice.deleteEndpoint}")
     private String frontofficeSignatureDeleteEndpoint;
-    @Value("${userarea.applications.service}")
-    private String myApplicationsService;
-    @Value("${userarea.applications.applicationsEndPoint}")
-    private String myApplicationsEndpoint;
+    @Value("${userarea.notes.concurrency:lock}")
+    private String noteConcurrency;
 
     /**
      * Save an application to the database
@@ -195,27 +216,17 @@ public class ApplicationServiceImpl implements ApplicationService {
         searchCriteriaApplication.setSortingData(applicationRequest.getSortingData());
         searchCriteriaApplication.setUserName(applicationRequest.getUserName());
         searchCriteriaApplication.setRoles(new ArrayList<>(roles));
-        ApplicationSearchResult applicationSearchResult;
-        //TODO: enable back once security is working
-//        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-//        String token = "";
-//        if(authentication!=null) {
-//            DefaultOidcUser principal = (DefaultOidcUser) authentication.getPrincipal();
-//            token = principal.getIdToken().getTokenValue();
-//        }
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        //TODO: enable back once security is working
-       // headers.setBearerAuth(token);
-        HttpEntity<SearchCriteriaApplication> entity = new HttpEntity<>(searchCriteriaApplication, headers);
-        try {
-            log.info("Calling myApplications ms to fetch application details");
-            applicationSearchResult = restTemplate.postForObject(myApplicationsService + myApplicationsEndpoint, entity, ApplicationSearchResult.class);
-        }
-        catch(Exception ex){
-            log.error("Service Unavailable Exception error while calling myApplications ms to fetch application details");
-            throw new ServiceUnavailableException("Failed to fetch data from "+myApplicationsService + myApplicationsEndpoint);
-        }
+        return applicationSearchCache.get(searchCriteriaApplication, () -> fetchApplications(searchCriteriaApplication));
+    }
+
+    /**
+     * Fetch the applications from the myApplications service and enrich them with the application notes.
+     *
+     * @param searchCriteriaApplication the search criteria
+     * @return {@link ApplicationSearchResult} the applications
+     */
+    private ApplicationSearchResult fetchApplications(final SearchCriteriaApplication searchCriteriaApplication) {
+        ApplicationSearchResult applicationSearchResult = myApplicationsClient.search(searchCriteriaApplication);
         if(applicationSearchResult != null  && applicationSearchResult.getContent() != null) {
             List<ApplicationDetails> applicationDetailsList = applicationSearchResult.getContent();
             List<NoteApplication> noteApplicationList;
@@ -260,36 +271,62 @@ public class ApplicationServiceImpl implements ApplicationService {
     @Override
     public String getReceipt(String username, final Long id) {
         log.info("Get application receipt from UA database with id=[{}]", id);
-        username = username.trim();
-        Application application = applicationRepository.findById(id).orElse(null);
-        return application != null && accountService.isAllowedToModifyApplication(username, application.getMainAccount().getUsername()) ?
-                application.getReceipt() : null;
+        return isReceiptAccessible(username.trim(), id) ? applicationReceiptRepository.findReceiptById(id).orElse(null) : null;
+    }
+
+    /**
+     * Get Application receipt, read lazily from the database once it is consumed.
+     * Only the owner of the application is loaded to check the access, the receipt is streamed from its column.
+     *
+     * @param username the username
+     * @param id       the applicationId
+     * @return {@link StreamingReceipt} the application receipt, or null if it does not exist or the user has no access
+     */
+    @Override
+    public StreamingReceipt getStreamingReceipt(String username, final Long id) {
+        log.info("Stream application receipt from UA database with id=[{}]", id);
+        if (!isReceiptAccessible(username.trim(), id)) {
+            return null;
+        }
+        return consumer -> {
+            if (!applicationReceiptRepository.readReceipt(id, consumer::accept)) {
+                throw new EntityNotFoundException("Application receipt not found");
+            }
+        };
+    }
+
+    private boolean isReceiptAccessible(String username, Long id) {
+        return applicationReceiptRepository.findReceiptOwnerById(id)
+                .map(owner -> accountService.isAllowedToModifyApplication(username, owner))
+                .orElse(false);
     }
 
     /**
-     * Lock Application note.
+     * Lock Application note, or only read it with its version when the notes are updated optimistically.
      *
      * @param username      the username
      * @param noteApplication the application note
-     * @return String the application note
+     * @return NoteApplication the application note and its version
      */
     @Override
-    public String lockNote(String username, final NoteApplication noteApplication) {
+    public NoteApplication lockNote(String username, final NoteApplication noteApplication) {
         log.info("Lock application note with application identifier=[{}] ", noteApplication.getApplicationIdentifier());
         username = username.trim();
-        NoteApplication noteApplicationToBeLocked = NoteApplicationMapper.MAPPER.map(noteService.getNoteByApplicationNumberAndLock(username, noteApplication.getApplicationIdentifier()));
-        return noteApplicationToBeLocked.getNote();
+        if (isOptimisticNoteConcurrency()) {
+            return NoteApplicationMapper.MAPPER.map(noteService.getNoteByApplicationNumber(noteApplication.getApplicationIdentifier()));
+        }
+        return NoteApplicationMapper.MAPPER.map(noteService.getNoteByApplicationNumberAndLock(username, noteApplication.getApplicationIdentifier()));
     }
 
     /**
      * Update Application note.
      *
      * @param username the username
-     * @param noteApplication the application note
-     * @return String the application note
+     * @param noteApplication the application note, with the version it was read at when the notes are updated optimistically
+     * @return NoteApplication the updated application note and its version
      */
     @Override
-    public String updateNote(String username, final NoteApplication noteApplication) {
+    public NoteApplication updateNote(String username, final NoteApplication noteApplication) {
         log.info("Update application note with application identifier=[{}] ", noteApplication.getApplicationIdentifier());
         username = username.trim();
         NoteApplication noteApplicationToBeUpdated;
@@ -303,10 +340,24 @@ public class ApplicationServiceImpl implements ApplicationService {
             noteApplicationEntity.setLastModifiedBy(username);
             noteApplicationEntity.setApplicationNumber(noteApplication.getApplicationIdentifier());
             noteService.save(noteApplicationEntity);
-            return noteApplication.getNote();
+            evictSearchCache(username);
+            return NoteApplicationMapper.MAPPER.map(noteApplicationEntity);
+        }
+        if (isOptimisticNoteConcurrency()) {
+            noteApplicationEntity = noteService.updateIfUnchanged(username, noteApplication.getApplicationIdentifier(),
+                    noteApplication.getNote(), noteApplication.getVersion());
+        } else {
+            noteApplicationEntity = noteService.updateAndReleaseLock(username, noteApplicationEntity, noteApplication.getNote());
         }
-        noteService.updateAndReleaseLock(username, noteApplicationEntity, noteApplication.getNote());
-        return noteApplicationToBeUpdated.getNote();
+        evictSearchCache(username);
+        return NoteApplicationMapper.MAPPER.map(noteApplicationEntity);
+    }
+
+    /**
+     * The notes are updated optimistically, checking their version, instead of being locked while they are edited.
+     */
+    private boolean isOptimisticNoteConcurrency() {
+        return "optimistic".equalsIgnoreCase(noteConcurrency);
     }
 
     /**
@@ -375,6 +426,7 @@ public class ApplicationServiceImpl implements ApplicationService {
                 List<Application> applicationList = applicationRepository.findByNumber(app.getNumber());
                 applicationList.forEach(application -> application.setDeleted(true));
                 applicationRepository.saveAll(applicationList);
+                applicationSearchCache.evict(app.getMainAccount().getUsername());
                 auditEventPublisher.publishCustomEvent("Delete draft application " + app.getNumber(),username, AuditType.APPLICATION.getValue());
                 return true;
             }
@@ -398,6 +450,7 @@ public class ApplicationServiceImpl implements ApplicationService {
             List<Application> applicationList = applicationRepository.findByNumber(draft.getNumber());
             applicationList.forEach(application -> application.setLocked(true));
             applicationRepository.saveAll(applicationList);
+            applicationSearchCache.evict(draft.getMainAccount().getUsername());
             return true;
         }
         return false;
@@ -419,11 +472,127 @@ public class ApplicationServiceImpl implements ApplicationService {
             List<Application> applicationList = applicationRepository.findByNumber(draft.getNumber());
             applicationList.forEach(application -> application.setLocked(false));
             applicationRepository.saveAll(applicationList);
+            applicationSearchCache.evict(draft.getMainAccount().getUsername());
             return true;
         }
         return false;
     }
 
+    /**
+     * Delete many draft applications.
+     * The drafts are locked for the user before they are deleted, the drafts locked by another user are not deleted.
+     *
+     * @param username the username
+     * @param ids      the draft ids
+     * @return the result for each draft id
+     */
+    @Override
+    @Transactional
+    public List<DraftBulkResult> deleteAll(String username, final List<Long> ids) {
+        log.info("Delete applications with ids={}", ids);
+        return updateDrafts(username.trim(), ids, DraftBulkStatus.DELETED);
+    }
+
+    /**
+     * Lock many draft applications.
+     *
+     * @param username the username
+     * @param ids      the draft ids
+     * @return the result for each draft id
+     */
+    @Override
+    public List<DraftBulkResult> lockAll(String username, final List<Long> ids) {
+        log.info("Lock applications with ids={}", ids);
+        return updateDrafts(username.trim(), ids, DraftBulkStatus.LOCKED);
+    }
+
+    /**
+     * Unlock many draft applications.
+     *
+     * @param username the username
+     * @param ids      the draft ids
+     * @return the result for each draft id
+     */
+    @Override
+    public List<DraftBulkResult> unlockAll(String username, final List<Long> ids) {
+        log.info("Unlock applications with ids={}", ids);
+        return updateDrafts(username.trim(), ids, DraftBulkStatus.UNLOCKED);
+    }
+
+    /**
+     * Apply a change to many drafts: the drafts and their owners are read with one query, the permission is checked
+     * once per main account and the change is applied with one update over all the application numbers.
+     * The drafts to delete are locked one application number at a time before the update and released after it; the
+     * drafts of a number held by another user, even partly, are reported as locked by that user and not deleted.
+     */
+    private List<DraftBulkResult> updateDrafts(final String username, final List<Long> ids, final DraftBulkStatus status) {
+        if (CollectionUtils.isEmpty(ids)) {
+            return new ArrayList<>();
+        }
+        Map<Long, DraftBulkResult> results = new LinkedHashMap<>();
+        ids.forEach(id -> results.putIfAbsent(id, DraftBulkResult.builder().id(id).status(DraftBulkStatus.NOT_FOUND).build()));
+        Map<Long, String> numbers = new HashMap<>();
+        Map<String, Boolean> allowedAccounts = new HashMap<>();
+        List<String> statuses = Arrays.asList(StringUtils.splitPreserveAllTokens(applicationConfiguration.getStatus().getDraft(), ","));
+        for (Object[] draft : applicationLockRepository.findDrafts(results.keySet(), statuses)) {
+            Long id = (Long) draft[0];
+            String mainAccount = (String) draft[2];
+            if (allowedAccounts.computeIfAbsent(mainAccount, account -> accountService.isAllowedToModifyApplication(username, account))) {
+                numbers.put(id, (String) draft[1]);
+            } else {
+                results.get(id).setStatus(DraftBulkStatus.NOT_ALLOWED);
+            }
+        }
+        if (status == DraftBulkStatus.DELETED && !numbers.isEmpty()) {
+            // the drafts are locked until they are deleted, so that no other user takes them in the meantime
+            Map<String, String> holders = new HashMap<>();
+            for (String number : new LinkedHashSet<>(numbers.values())) {
+                try {
+                    editLockProvider.acquire(EditLockType.APPLICATION, number, username).ifPresent(holder -> holders.put(number, holder));
+                } catch (ApplicationEntityLockedException e) {
+                    // some rows of the number are held by another user, the rows taken here are given back
+                    applicationLockRepository.releaseByNumber(number, username);
+                    holders.put(number, e.getMessage());
+                }
+            }
+            numbers.entrySet().removeIf(draft -> {
+                String holder = holders.get(draft.getValue());
+                if (holder != null && !holder.equalsIgnoreCase(username)) {
+                    results.get(draft.getKey()).setStatus(DraftBulkStatus.LOCKED_BY_OTHER);
+                    results.get(draft.getKey()).setLockedBy(holder);
+                    return true;
+                }
+                return false;
+            });
+        }
+        Set<String> updatedNumbers = new LinkedHashSet<>(numbers.values());
+        if (updatedNumbers.isEmpty()) {
+            return new ArrayList<>(results.values());
+        }
+        if (status == DraftBulkStatus.DELETED) {
+            applicationLockRepository.deleteByNumbers(updatedNumbers);
+            updatedNumbers.forEach(number -> editLockProvider.release(EditLockType.APPLICATION, number, username));
+        } else {
+            applicationLockRepository.updateLockedByNumbers(updatedNumbers, status == DraftBulkStatus.LOCKED);
+        }
+        numbers.keySet().forEach(id -> results.get(id).setStatus(status));
+        allowedAccounts.forEach((account, allowed) -> {
+            if (allowed) {
+                applicationSearchCache.evict(account);
+            }
+        });
+        auditEventPublisher.publishCustomEvent(getBulkAuditMessage(status) + String.join(",", updatedNumbers), username,
+                AuditType.APPLICATION.getValue());
+        return new ArrayList<>(results.values());
+    }
+
+    private static String getBulkAuditMessage(final DraftBulkStatus status) {
+        if (status == DraftBulkStatus.DELETED) {
+            return "Delete draft applications ";
+        }
+        return status == DraftBulkStatus.LOCKED ? "Lock draft applications " : "Unlock draft applications ";
+    }
+
     /**
      * Validate initiate eService request
      *
@@ -525,6 +694,25 @@ public class ApplicationServiceImpl implements ApplicationService {
     @Override
     public List<Application> getApplicationsForSignatures(String username, final Set<String> roles) {
         log.info("Retrieve applications for signatures");
+        return applicationRepository.findAll(getSignaturesFilter(username, roles));
+    }
+
+    /**
+     * Retrieve the applications shown in the signatures with their completed signatures, in one query.
+     *
+     * @param username the logged in username
+     * @param roles    the logged in user's set of roles
+     * @return {@link List<ApplicationSignatures>} the applications with their completed signatures
+     */
+    @Override
+    public List<ApplicationSignatures> getApplicationSignatures(String username, final Set<String> roles) {
+        log.info("Retrieve application signatures");
+        List<String> completedStatuses = Arrays.asList(applicationConfiguration.getSignature().getStatus().getCompleted(),
+                applicationConfiguration.getSignature().getStatus().getCompletedUpdateFoFailed());
+        return applicationSignaturesRepository.findApplicationSignatures(getSignaturesFilter(username, roles), completedStatuses);
+    }
+
+    private Specification<Application> getSignaturesFilter(String username, final Set<String> roles) {
         username = username.trim();
         List<String> modules = new ArrayList<>();
         List<String> ipRightTypes = new ArrayList<>();
@@ -541,7 +729,7 @@ public class ApplicationServiceImpl implements ApplicationService {
         Specification<Application> filterSpecs = Specification.where(filterByUsername(accountService.getMainAccount(username).getUsername())
                 .and(filterByStatuses(Arrays.asList(applicationConfiguration.getStatus().getSignature(), applicationConfiguration.getStatus().getPayment()))
                         .and(filterSignatures(modules, ipRightTypes))));
-        return applicationRepository.findAll(filterSpecs);
+        return filterSpecs;
     }
 
     /**
@@ -594,51 +782,106 @@ public class ApplicationServiceImpl implements ApplicationService {
 
     /**
      * Retrieve application receipt from frontoffice.
+     * The receipt is streamed from the frontoffice to the caller; the receipt of a submitted application is final and
+     * is kept in the receipt cache, the receipt of a draft is always requested again. Whether the application is
+     * submitted is decided on its stored status, a draft requested as final is not cached.
      *
      * @param applicationNumber the application number
      * @param isDraft flag that indicates if the application is in draft status or not.
-     * @return a list of applications
+     * @return {@link StreamingReport} the receipt in pdf format
      */
     @Override
-    public FileResponse getReceiptFromFrontoffice(String applicationNumber, boolean isDraft) {
+    public StreamingReport getReceiptFromFrontoffice(String applicationNumber, boolean isDraft) {
         log.info(">>> Requesting receipt from frontoffice...");
-        FileResponse fileResponse = new FileResponse();
-        String url = frontofficeUrl + frontofficeReceiptEndpoint + applicationNumber;
-        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(url).queryParam("isDraft", isDraft);
-        RestTemplate restTemplate = new RestTemplate();
-        restTemplate.getMessageConverters().add(new ByteArrayHttpMessageConverter());
-        try {
-            HttpsURLConnection.setDefaultHostnameVerifier ((hostname, session) -> true);
-            ResponseEntity<byte[]> response = restTemplate.getForEntity(builder.toUriString(), byte[].class);
-            fileResponse.setFileName(applicationNumber + "_receipt" + ".pdf");
-            fileResponse.setBytes(response.getBody());
-            fileResponse.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
-            log.info(">>> Received {}_receipt.pdf", applicationNumber);
-        } catch (HttpClientErrorException ex) {
-            log.error(">>> Cannot find receipt for applicationNumber: {}", applicationNumber);
-            log.error(ex.getLocalizedMessage());
-            throw new FrontofficeReceiptNotFoundException("Could not get application receipt");
-        } catch (HttpServerErrorException ex) {
-            log.error(">>> Frontoffice could not process the request for applicationNumber: {}", applicationNumber);
-            log.error(ex.getLocalizedMessage());
-            throw new FrontofficeServerException("Could not get application receipt. Frontoffice Server Error");
-        }
-
-        return fileResponse;
+        String fileName = applicationNumber + "_receipt" + ".pdf";
+        boolean isFinal = !isDraft && isSubmitted(applicationNumber);
+        if (isFinal) {
+            Optional<byte[]> cachedReceipt = receiptCache.get(applicationNumber);
+            if (cachedReceipt.isPresent()) {
+                log.info(">>> Served {} from the receipt cache", fileName);
+                return toReceipt(fileName, outputStream -> outputStream.write(cachedReceipt.get()));
+            }
+        }
+        FrontofficeReceiptClient.Receipt receipt = frontofficeReceiptClient.getReceipt(applicationNumber, isDraft);
+        return toReceipt(fileName, outputStream -> {
+            try (FrontofficeReceiptClient.Receipt frontofficeReceipt = receipt;
+                 InputStream inputStream = frontofficeReceipt.getBody()) {
+                if (!isFinal || !receiptCache.accepts(frontofficeReceipt.getContentLength())) {
+                    StreamUtils.copy(inputStream, outputStream);
+                } else {
+                    copyAndCache(applicationNumber, inputStream, outputStream);
+                }
+            }
+            log.info(">>> Received {}", fileName);
+        });
+    }
+
+    /**
+     * whether an application is stored and none of its records is a draft
+     */
+    private boolean isSubmitted(String applicationNumber) {
+        List<String> draftStatuses = Arrays.asList(StringUtils.splitPreserveAllTokens(applicationConfiguration.getStatus().getDraft(), ","));
+        List<Application> applications = applicationRepository.findByNumber(applicationNumber);
+        return !CollectionUtils.isEmpty(applications)
+                && applications.stream().noneMatch(application -> draftStatuses.contains(application.getStatus()));
+    }
+
+    /**
+     * copies a receipt to the output stream, keeping it in the receipt cache unless it is too large
+     */
+    private void copyAndCache(String applicationNumber, InputStream inputStream, OutputStream outputStream) throws IOException {
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+            if (copy != null && receiptCache.accepts(copy.size() + (long) read)) {
+                copy.write(buffer, 0, read);
+            } else {
+                copy = null;
+            }
+        }
+        if (copy != null) {
+            receiptCache.put(applicationNumber, copy.toByteArray());
+        }
+    }
+
+    private static StreamingReport toReceipt(String fileName, ReceiptWriter receiptWriter) {
+        return new StreamingReport() {
+            @Override
+            public String getFileName() {
+                return fileName;
+            }
+
+            @Override
+            public String getContentType() {
+                return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+            }
+
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                receiptWriter.writeTo(outputStream);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface ReceiptWriter {
+        void writeTo(OutputStream outputStream) throws IOException;
     }
 
     /**
      * @param username the logged in username
      * @param id the application id
-     * @return FileInfo the pdf
+     * @return InvoiceFile the pdf
      */
     @Override
-    public FileInfo getInvoice(String username,Long id) {
+    public InvoiceFile getInvoice(String username,Long id) {
         PaymentApplicationEntity paymentApplication = paymentService.getPaymentApplicationByApplicationId(id);
         if(paymentApplication != null){
             PaymentEntity payment = paymentApplication.getPayment();
             if(payment != null && StringUtils.isNotEmpty(payment.getTransactionId())) {
-                return pdfService.generatePdf(username, payment.getTransactionId());
+                return pdfService.getInvoice(username, payment.getTransactionId());
             }
         }
         return null;
@@ -666,6 +909,7 @@ public class ApplicationServiceImpl implements ApplicationService {
             }
         }
         applicationRepository.saveAll(ret);
+        ret.forEach(application -> applicationSearchCache.evict(application.getMainAccount().getUsername()));
         auditEventPublisher.publishCustomEvent("Delete application " + ret.get(0).getNumber(), username, AuditType.APPLICATION.getValue());
     }
 
@@ -692,6 +936,7 @@ public class ApplicationServiceImpl implements ApplicationService {
             }
         }
         applicationRepository.saveAll(ret);
+        ret.forEach(application -> applicationSearchCache.evict(application.getMainAccount().getUsername()));
         auditEventPublisher.publishCustomEvent("Modify application " + ret.get(0).getNumber(), username, AuditType.APPLICATION.getValue());
         // Deletes all signatures from xml saved in frontoffice
         deleteSignaturesInFO(number, restTemplate, frontofficeUrl, frontofficeSignatureDeleteEndpoint);
@@ -701,6 +946,7 @@ public class ApplicationServiceImpl implements ApplicationService {
 
     /**
      * Retrieves an application by id and locks the application.
+     * The lock is taken on the application number, through the configured {@link EditLockProvider}.
      *
      * @param id       the application id
      * @param userName the authenticated username
@@ -710,18 +956,14 @@ public class ApplicationServiceImpl implements ApplicationService {
     @Transactional
     public Application getByIdAndLock(Long id, String userName) {
         log.info("Lock an application with id=[{}] by username=[{}]", id, userName);
-        Application application = applicationRepository.getApplicationById(id);
         userName = userName.trim();
-        if (application != null) {
-            if (StringUtils.isEmpty(application.getLockedBy()) || (application.getLockedBy() != null && userName.equalsIgnoreCase(application.getLockedBy().trim()))) {
-                application.setLockedBy(userName);
-                application.setLockedDate(LocalDateTime.now());
-                application = applicationRepository.save(application);
-            } else {
-                LockUtils.checkApplicationLockedAndThrowException(application, userName);
-            }
+        Application application = applicationRepository.getApplicationById(id);
+        if (application == null) {
+            return null;
         }
-        return application;
+        acquireLock(application.getNumber(), userName);
+        // read again, the database lock store clears the persistence context
+        return applicationRepository.getApplicationById(id);
     }
 
     /**
@@ -737,14 +979,16 @@ public class ApplicationServiceImpl implements ApplicationService {
         log.info("Releasing application lock with id=[{}] for user=[{}]", id, username);
         username = username.trim();
         Application application = applicationRepository.getApplicationById(id);
-        LockUtils.checkApplicationLockedAndThrowException(application, username);
-        application.setLockedBy(null);
-        application.setLockedDate(null);
-        return applicationRepository.save(application);
+        if (application == null) {
+            return null;
+        }
+        releaseLock(application.getNumber(), username);
+        return applicationRepository.getApplicationById(id);
     }
 
     /**
      * Retrieves a list of applications locked
+     * All the applications sharing the number are locked at once, through the configured {@link EditLockProvider}.
      *
      * @param applicationNumber the application number
      * @param username          the authenticated user
@@ -755,22 +999,13 @@ public class ApplicationServiceImpl implements ApplicationService {
     public List<Application> getApplicationsByNumberAndLock(String applicationNumber, String username) {
         log.info("Finding all applications with number {} and lock them", applicationNumber);
         username = username.trim();
-        List<Application> ret = new ArrayList<>();
-        List<Application> applications = applicationRepository.findByNumber(applicationNumber);
-        for (Application application : applications) {
-            if (StringUtils.isEmpty(application.getLockedBy()) || (application.getLockedBy() != null && username.equalsIgnoreCase(application.getLockedBy().trim()))) {
-                application.setLockedBy(username);
-                application.setLockedDate(LocalDateTime.now());
-                ret.add(applicationRepository.save(application));
-            } else {
-                LockUtils.checkApplicationLockedAndThrowException(application, username);
-            }
-        }
-        return ret;
+        acquireLock(applicationNumber, username);
+        return applicationRepository.findByNumber(applicationNumber);
     }
 
     /**
      * save and releases the lock for a list of applications
+     * The pending changes of the applications are saved, then the lock of each application number is released.
      *
      * @param applications the application list
      * @param username     the authenticated user
@@ -781,14 +1016,38 @@ public class ApplicationServiceImpl implements ApplicationService {
     public List<Application> updateAndReleaseApplicationsLock(List<Application> applications, String username) {
         log.info("Releasing application locks for user {}", username);
         username = username.trim();
-        List<Application> ret = new ArrayList<>();
-        for (Application application : applications) {
-            LockUtils.checkApplicationLockedAndThrowException(application, username);
-            application.setLockedBy(null);
-            application.setLockedDate(null);
-            ret.add(applicationRepository.save(application));
+        if (CollectionUtils.isEmpty(applications)) {
+            return new ArrayList<>();
+        }
+        applicationRepository.saveAll(applications);
+        for (String number : applications.stream().map(Application::getNumber).collect(Collectors.toCollection(LinkedHashSet::new))) {
+            releaseLock(number, username);
         }
-        return ret;
+        return applicationRepository.findByIdIsIn(applications.stream().map(Application::getId).collect(Collectors.toList()));
+    }
+
+    private void acquireLock(String applicationNumber, String username) {
+        Optional<String> holder = editLockProvider.acquire(EditLockType.APPLICATION, applicationNumber, username);
+        if (holder.isPresent()) {
+            throw new ApplicationEntityLockedException(holder.get());
+        }
+    }
+
+    private void releaseLock(String applicationNumber, String username) {
+        Optional<String> holder = editLockProvider.release(EditLockType.APPLICATION, applicationNumber, username);
+        if (holder.isPresent()) {
+            throw new ApplicationEntityLockedException(holder.get());
+        }
+    }
+
+    /**
+     * Evict the cached application searches of the main account the given user belongs to.
+     *
+     * @param username the username
+     */
+    private void evictSearchCache(String username) {
+        DomainAccount mainAccount = accountService.getMainAccount(username);
+        applicationSearchCache.evict(mainAccount != null ? mainAccount.getUsername() : username);
     }
 
-}
\ No newline at end of file
+}
@@ -13,6 +13,7 @@
 
 package eu.euipo.etmdn.userarea.business.core.impl.service;
 
+import eu.euipo.etmdn.userarea.business.core.impl.lock.LockMetrics;
 import eu.euipo.etmdn.userarea.common.business.service.AccountService;
 import eu.euipo.etmdn.userarea.common.business.service.AuthorityService;
 import eu.euipo.etmdn.userarea.common.business.service.ChildService;
@@ -27,6 +28,7 @@ import eu.euipo.etmdn.userarea.common.domain.ChildUpdateDetailsRequest;
 import eu.euipo.etmdn.userarea.common.domain.DomainAuthority;
 import eu.euipo.etmdn.userarea.common.domain.DomainUser;
 import eu.euipo.etmdn.userarea.common.domain.constants.LiteralConstants;
+import eu.euipo.etmdn.userarea.common.domain.exception.AccountEntityLockedException;
 import eu.euipo.etmdn.userarea.common.persistence.entity.ChildAccount;
 import eu.euipo.etmdn.userarea.common.persistence.repository.ChildAccountRepository;
 import lombok.extern.slf4j.Slf4j;
@@ -55,6 +57,7 @@ public class ChildServiceImpl implements ChildService {
     private final RegistrationService registrationService;
     private final AuthorityService authorityService;
     private final AccountService accountService;
+    private final LockMetrics lockMetrics;
 
     /**
      * Instantiates Child service.
@@ -63,15 +66,18 @@ public class ChildServiceImpl implements ChildService {
      * @param registrationService the registration service
      * @param authorityService the authority service
      * @param accountService
+     * @param lockMetrics the lock metrics
      */
     @Autowired
     public ChildServiceImpl(final ChildAccountRepository childAccountRepository, final UserService userService,
-                            final RegistrationService registrationService, final AuthorityService authorityService, AccountService accountService) {
+                            final RegistrationService registrationService, final AuthorityService authorityService, AccountService accountService,
+                            final LockMetrics lockMetrics) {
         this.childAccountRepository = childAccountRepository;
         this.userService = userService;
         this.registrationService = registrationService;
         this.authorityService = authorityService;
         this.accountService = accountService;
+        this.lockMetrics = lockMetrics;
     }
 
     /**
@@ -133,10 +139,16 @@ public class ChildServiceImpl implements ChildService {
     }
 
     private void releaseLockAndSaveAccount(ChildAccount existingChildAccount,String userName){
-        LockUtils.checkAccountLockedAndThrowException(existingChildAccount.getLockedBy(), userName);
+        try {
+            LockUtils.checkAccountLockedAndThrowException(existingChildAccount.getLockedBy(), userName);
+        } catch (AccountEntityLockedException e) {
+            lockMetrics.conflict(LockMetrics.ACCOUNT);
+            throw e;
+        }
         existingChildAccount.setLockedBy(null);
         existingChildAccount.setLockedDate(null);
         childAccountRepository.save(existingChildAccount);
+        lockMetrics.released(LockMetrics.ACCOUNT, existingChildAccount.getUsername());
     }
 
 }
@@ -13,39 +13,60 @@
 
 package eu.euipo.etmdn.userarea.business.core.impl.service;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import eu.euipo.etmdn.userarea.business.core.api.report.ReportFormat;
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReport;
 import eu.euipo.etmdn.userarea.business.core.api.service.ApplicationService;
 import eu.euipo.etmdn.userarea.business.core.api.service.ExcelService;
+import eu.euipo.etmdn.userarea.business.core.impl.cache.ThumbnailCache;
+import eu.euipo.etmdn.userarea.business.core.impl.report.ReportRowPipeline;
 import eu.euipo.etmdn.userarea.common.domain.exception.UserAreaException;
 import eu.euipo.etmdn.userarea.domain.ApplicationType;
 import eu.euipo.etmdn.userarea.common.domain.FileInfo;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationDetails;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationRequest;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationSearchResult;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.ClientAnchor;
+import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.Drawing;
 import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
 import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Picture;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.VerticalAlignment;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFClientAnchor;
-import org.apache.poi.xssf.usermodel.XSSFCreationHelper;
-import org.apache.poi.xssf.usermodel.XSSFDrawing;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFPicture;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.util.Base64Utils;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 
 import static eu.euipo.etmdn.userarea.business.core.impl.utils.ApplicationUtils.NOT_APPLICABLE;
 import static eu.euipo.etmdn.userarea.business.core.impl.utils.ApplicationUtils.convertBooleanToStringAnswer;
@@ -60,25 +81,41 @@ import static eu.euipo.etmdn.userarea.business.core.impl.utils.ApplicationUtils.
 @Service
 public class ExcelServiceImpl implements ExcelService {
 
-    private static final String TRADEMARK_FILENAME = "trademarks.xlsx";
+    private static final String TRADEMARK_FILENAME = "trademarks";
     private static final String TRADEMARK_SHEET = "Trademarks";
 
-    private static final String DESIGN_FILENAME = "designs.xlsx";
+    private static final String DESIGN_FILENAME = "designs";
     private static final String DESIGN_SHEET = "Designs";
 
-    private static final String ESERVICE_FILENAME = "eservices.xlsx";
+    private static final String ESERVICE_FILENAME = "eservices";
     private static final String ESERVICE_SHEET = "Eservices";
 
+    private static final String EXCEL_REPORT = "excel-";
+    private static final String CSV_REPORT = "csv-";
+    private static final String NDJSON_REPORT = "ndjson-";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
     private final ApplicationService applicationService;
+    private final ThumbnailCache thumbnailCache;
+    private final ReportRowPipeline reportRowPipeline;
+    private final int rowWindowSize;
 
     /**
      * Instantiates Application controller.
      *
      * @param applicationService  the application service
+     * @param thumbnailCache the cache of the downscaled report images
+     * @param reportRowPipeline the pipeline preparing the report rows
+     * @param rowWindowSize the number of rows kept in memory by a streaming workbook
      */
     @Autowired
-    public ExcelServiceImpl(final ApplicationService applicationService) {
+    public ExcelServiceImpl(final ApplicationService applicationService, final ThumbnailCache thumbnailCache,
+                            final ReportRowPipeline reportRowPipeline,
+                            @Value("${userarea.excel.rowWindowSize:100}") final int rowWindowSize) {
         this.applicationService = applicationService;
+        this.thumbnailCache = thumbnailCache;
+        this.reportRowPipeline = reportRowPipeline;
+        this.rowWindowSize = rowWindowSize;
     }
 
     /**
@@ -90,152 +127,272 @@ public class ExcelServiceImpl implements ExcelService {
      */
     @Override
     public FileInfo generateExcel(final ApplicationRequest applicationRequest, Set<String> roles) {
-        switch (ApplicationType.getApplicationType(applicationRequest.getApplicationType())) {
+        final ApplicationType applicationType = ApplicationType.getApplicationType(applicationRequest.getApplicationType());
+        final String fileName = getFileName(applicationType, ReportFormat.XLSX);
+        if (fileName == null) {
+            return null;
+        }
+        final ApplicationSearchResult applications = applicationService.getApplications(applicationRequest, roles);
+        final Workbook workbook = fillWorkbook(new XSSFWorkbook(), applicationType, applications.getContent(),
+                applicationRequest.getColumns(), applicationRequest.getIsDraft());
+        final byte[] fileContent = Optional.of(writeExcel(workbook)).map(ByteArrayOutputStream::toByteArray).orElse(new byte[]{});
+        return new FileInfo(fileContent, fileName);
+    }
+
+    /**
+     * Generate a streaming excel report backed by temporary files.
+     *
+     * @param applicationRequest the applicationRequest
+     * @param roles the logged in user's set of roles
+     * @return {@link StreamingReport} the excel report to be written
+     */
+    @Override
+    public StreamingReport generateStreamingExcel(final ApplicationRequest applicationRequest, Set<String> roles) {
+        return generateStreamingReport(applicationRequest, roles, ReportFormat.XLSX);
+    }
+
+    /**
+     * Generate a streaming report in the given format.
+     *
+     * @param applicationRequest the applicationRequest
+     * @param roles the logged in user's set of roles
+     * @param reportFormat the report format
+     * @return {@link StreamingReport} the report to be written
+     */
+    @Override
+    public StreamingReport generateStreamingReport(final ApplicationRequest applicationRequest, Set<String> roles, final ReportFormat reportFormat) {
+        final ApplicationType applicationType = ApplicationType.getApplicationType(applicationRequest.getApplicationType());
+        final String fileName = getFileName(applicationType, reportFormat);
+        if (fileName == null) {
+            return null;
+        }
+        final ApplicationSearchResult applications = applicationService.getApplications(applicationRequest, roles);
+        final List<String> columns = applicationRequest.getColumns();
+        final boolean isDraft = applicationRequest.getIsDraft();
+        return new StreamingReport() {
+            @Override
+            public String getFileName() {
+                return fileName;
+            }
+
+            @Override
+            public String getContentType() {
+                return reportFormat.getContentType();
+            }
+
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                switch (reportFormat) {
+                    case CSV:
+                        writeCsv(outputStream, applicationType, applications.getContent(), columns, isDraft);
+                        break;
+                    case NDJSON:
+                        writeNdjson(outputStream, applicationType, applications.getContent(), columns, isDraft);
+                        break;
+                    default:
+                        writeStreamingExcel(outputStream, applicationType, applications.getContent(), columns, isDraft);
+                }
+            }
+        };
+    }
+
+    private static String getFileName(final ApplicationType applicationType, final ReportFormat reportFormat) {
+        if (applicationType == null || reportFormat == null) {
+            return null;
+        }
+        switch (applicationType) {
             case TRADEMARK:
-                    return this.trademarkToExcel(applicationService.getApplications(applicationRequest, roles), applicationRequest.getColumns(), applicationRequest.getIsDraft());
+                return TRADEMARK_FILENAME + "." + reportFormat.getExtension();
             case DESIGN:
-                    return this.designToExcel(applicationService.getApplications(applicationRequest, roles), applicationRequest.getColumns(), applicationRequest.getIsDraft());
+                return DESIGN_FILENAME + "." + reportFormat.getExtension();
             case ESERVICE:
-                    return this.eserviceToExcel(applicationService.getApplications(applicationRequest, roles), applicationRequest.getColumns(), applicationRequest.getIsDraft());
+                return ESERVICE_FILENAME + "." + reportFormat.getExtension();
             default:
                 return null;
         }
     }
 
+    private static String getSheetName(final ApplicationType applicationType) {
+        switch (applicationType) {
+            case TRADEMARK:
+                return TRADEMARK_SHEET;
+            case DESIGN:
+                return DESIGN_SHEET;
+            default:
+                return ESERVICE_SHEET;
+        }
+    }
+
     /**
-     * Generate excel report for trademarks.
+     * Get the function preparing the report row of an application, shared by all the report formats.
+     * The cells of a row have a fixed layout per application type and draft flag, the columns of the request label
+     * them by position.
      *
-     * @param applications the trademark applications
-     * @param columns the list of columns to be used
+     * @param applicationType the application type
      * @param isDraft the flag that indicates if the application is draft or not
-     * @return {@link FileInfo} the generated excel report with trademarks
+     * @return the row preparer
      */
-    private FileInfo trademarkToExcel(ApplicationSearchResult applications, List<String> columns, boolean isDraft) {
-        final Workbook workbook = isDraft ? generateExcelForTrademarkDrafts(applications.getContent(), columns) :
-                generateExcelForTrademarks(applications.getContent(), columns);
-        final byte[] fileContent = Optional.of(writeExcel(workbook)).map(ByteArrayOutputStream::toByteArray).orElse(new byte[]{});
-        return new FileInfo(fileContent, TRADEMARK_FILENAME);
+    private Function<ApplicationDetails, ExcelRow> getRowPreparer(final ApplicationType applicationType, final boolean isDraft) {
+        switch (applicationType) {
+            case TRADEMARK:
+                return isDraft ? this::toTrademarkDraftRow : this::toTrademarkRow;
+            case DESIGN:
+                return isDraft ? this::toDesignDraftRow : this::toDesignRow;
+            default:
+                return isDraft ? this::toEserviceDraftRow : this::toEserviceRow;
+        }
     }
 
     /**
-     * Generate excel report for designs.
+     * Fill the workbook with the applications of the given type.
      *
-     * @param applications the design applications
+     * @param workbook the workbook, either in memory or streaming
+     * @param applicationType the application type
+     * @param applications the applications
      * @param columns the list of columns to be used
      * @param isDraft the flag that indicates if the application is draft or not
-     * @return {@link FileInfo} the generated excel report with designs
+     * @return {@link Workbook} the filled workbook
      */
-    private FileInfo designToExcel(ApplicationSearchResult applications, List<String> columns,  boolean isDraft) {
-        final Workbook workbook = isDraft ? generateExcelForDesignDrafts(applications.getContent(), columns) :
-                generateExcelForDesigns(applications.getContent(), columns);
-        final byte[] fileContent = Optional.of(writeExcel(workbook)).map(ByteArrayOutputStream::toByteArray).orElse(new byte[]{});
-        return new FileInfo(fileContent, DESIGN_FILENAME);
+    private Workbook fillWorkbook(final Workbook workbook, final ApplicationType applicationType, final List<ApplicationDetails> applications,
+                                  final List<String> columns, final boolean isDraft) {
+        return generateSheet(workbook, getSheetName(applicationType), applications, columns, getRowPreparer(applicationType, isDraft));
+    }
+
+    private void writeStreamingExcel(final OutputStream outputStream, final ApplicationType applicationType, final List<ApplicationDetails> applications,
+                                     final List<String> columns, final boolean isDraft) throws IOException {
+        final SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindowSize);
+        workbook.setCompressTempFiles(true);
+        try {
+            fillWorkbook(workbook, applicationType, applications, columns, isDraft).write(outputStream);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
     }
 
     /**
-     * Generate excel report for eservices.
+     * Write the applications as csv, with the columns as header and one line per application.
      *
-     * @param applications the eservice applications
+     * @param outputStream the output stream
+     * @param applicationType the application type
+     * @param applications the applications
      * @param columns the list of columns to be used
      * @param isDraft the flag that indicates if the application is draft or not
-     * @return {@link FileInfo} the generated excel file reports with eservices
+     * @throws IOException if the report cannot be written
      */
-    private FileInfo eserviceToExcel(ApplicationSearchResult applications, List<String> columns,  boolean isDraft) {
-        final Workbook workbook = isDraft ? generateExcelForEserviceDrafts(applications.getContent(), columns) :
-                generateExcelForEservices(applications.getContent(), columns);
-        final byte[] fileContent = Optional.of(writeExcel(workbook)).map(ByteArrayOutputStream::toByteArray).orElse(new byte[]{});
-        return new FileInfo(fileContent, ESERVICE_FILENAME);
-    }
-
-    private Workbook generateExcelForTrademarks(final List<ApplicationDetails> applications, List<String> columns) {
-        final Workbook workbook = new XSSFWorkbook();
-        final CellStyle headerStyle = createHeaderStyle(workbook);
-        final CellStyle cellStyle = createCellStyle(workbook);
-        final Sheet sheet = workbook.createSheet(TRADEMARK_SHEET);
-        int rowCount = 0;
-        insertHeader(sheet, rowCount, headerStyle, columns);
-        rowCount++;
-        for (final ApplicationDetails application : applications) {
-            final Row row = sheet.createRow(rowCount++);
-            insertRowImage(workbook, sheet, row, getStringValue(application.getGraphicalRepresentation()), rowCount);
-            insertTrademark(row, application, cellStyle);
+    private void writeCsv(final OutputStream outputStream, final ApplicationType applicationType, final List<ApplicationDetails> applications,
+                          final List<String> columns, final boolean isDraft) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        // the byte order mark lets spreadsheet applications detect the encoding
+        writer.write('\ufeff');
+        writeCsvLine(writer, columns.toArray(new String[0]));
+        try {
+            reportRowPipeline.process(CSV_REPORT + getSheetName(applicationType).toLowerCase(), applications, getRowPreparer(applicationType, isDraft), row -> {
+                try {
+                    writeCsvLine(writer, row.getValues());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        return workbook;
+        writer.flush();
     }
 
-    private Workbook generateExcelForTrademarkDrafts(final List<ApplicationDetails> applications, List<String> columns) {
-        final Workbook workbook = new XSSFWorkbook();
-        final CellStyle headerStyle = createHeaderStyle(workbook);
-        final CellStyle cellStyle = createCellStyle(workbook);
-        final Sheet sheet = workbook.createSheet(TRADEMARK_SHEET);
-        int rowCount = 0;
-        insertHeader(sheet, rowCount, headerStyle, columns);
-        rowCount++;
-        for (final ApplicationDetails application : applications) {
-            final Row row = sheet.createRow(rowCount++);
-            insertTrademarkDraft(row, application, cellStyle);
+    private static void writeCsvLine(final Writer writer, final String[] values) throws IOException {
+        for (int col = 0; col < values.length; col++) {
+            if (col > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(values[col]));
         }
-        return workbook;
+        writer.write("\r\n");
     }
 
-    private Workbook generateExcelForDesigns(final List<ApplicationDetails> applications, List<String> columns) {
-        final Workbook workbook = new XSSFWorkbook();
-        final CellStyle headerStyle = createHeaderStyle(workbook);
-        final CellStyle cellStyle = createCellStyle(workbook);
-        final Sheet sheet = workbook.createSheet(DESIGN_SHEET);
-        int rowCount = 0;
-        insertHeader(sheet, rowCount, headerStyle, columns);
-        rowCount++;
-        for (final ApplicationDetails application : applications) {
-            final Row row = sheet.createRow(rowCount++);
-            insertRowImage(workbook, sheet, row, getStringValue(application.getGraphicalRepresentation()), rowCount);
-            insertDesign(row, application, cellStyle);
+    private static String escapeCsv(final String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
         }
-        return workbook;
-    }
-
-    private Workbook generateExcelForDesignDrafts(final List<ApplicationDetails> applications, List<String> columns) {
-        final Workbook workbook = new XSSFWorkbook();
-        final CellStyle headerStyle = createHeaderStyle(workbook);
-        final CellStyle cellStyle = createCellStyle(workbook);
-        final Sheet sheet = workbook.createSheet(DESIGN_SHEET);
-        int rowCount = 0;
-        insertHeader(sheet, rowCount, headerStyle, columns);
-        rowCount++;
-        for (final ApplicationDetails application : applications) {
-            final Row row = sheet.createRow(rowCount++);
-            insertDesignDraft(row, application, cellStyle);
+        String escaped = value;
+        // values starting with a formula character would be evaluated by spreadsheet applications
+        if ("=+-@".indexOf(escaped.charAt(0)) >= 0) {
+            escaped = "'" + escaped;
         }
-        return workbook;
+        if (escaped.indexOf(',') >= 0 || escaped.indexOf('"') >= 0 || escaped.indexOf('\n') >= 0 || escaped.indexOf('\r') >= 0) {
+            escaped = '"' + escaped.replace("\"", "\"\"") + '"';
+        }
+        return escaped;
     }
 
-    private Workbook generateExcelForEservices(final List<ApplicationDetails> applications, List<String> columns) {
-        final Workbook workbook = new XSSFWorkbook();
-        final CellStyle headerStyle = createHeaderStyle(workbook);
-        final CellStyle cellStyle = createCellStyle(workbook);
-        final Sheet sheet = workbook.createSheet(ESERVICE_SHEET);
-        int rowCount = 0;
-        insertHeader(sheet, rowCount, headerStyle, columns);
-        rowCount++;
-        for (final ApplicationDetails application : applications) {
-            final Row row = sheet.createRow(rowCount++);
-            insertEservice(row, application, cellStyle);
+    /**
+     * Write the applications as newline delimited json, one object per application keyed by the columns.
+     * The columns are matched to the cells by position, the image cell of the trademarks and designs is null.
+     *
+     * @param outputStream the output stream
+     * @param applicationType the application type
+     * @param applications the applications
+     * @param columns the list of columns to be used
+     * @param isDraft the flag that indicates if the application is draft or not
+     * @throws IOException if the report cannot be written
+     */
+    private void writeNdjson(final OutputStream outputStream, final ApplicationType applicationType, final List<ApplicationDetails> applications,
+                             final List<String> columns, final boolean isDraft) throws IOException {
+        final JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // each object is followed by its own line separator instead of the default root value separator
+        generator.setRootValueSeparator(null);
+        try {
+            reportRowPipeline.process(NDJSON_REPORT + getSheetName(applicationType).toLowerCase(), applications, getRowPreparer(applicationType, isDraft), row -> {
+                try {
+                    final String[] values = row.getValues();
+                    generator.writeStartObject();
+                    for (int col = 0; col < columns.size(); col++) {
+                        generator.writeStringField(columns.get(col), col < values.length ? values[col] : null);
+                    }
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            generator.close();
         }
-        return workbook;
     }
 
-    private Workbook generateExcelForEserviceDrafts(final List<ApplicationDetails> applications, List<String> columns) {
-        final Workbook workbook = new XSSFWorkbook();
+    /**
+     * Generate a sheet with one row per application. The rows are prepared in parallel and written in order.
+     *
+     * @param workbook the workbook
+     * @param sheetName the sheet name
+     * @param applications the applications
+     * @param columns the list of columns to be used
+     * @param preparer the function preparing the row of an application
+     * @return {@link Workbook} the filled workbook
+     */
+    private Workbook generateSheet(final Workbook workbook, final String sheetName, final List<ApplicationDetails> applications,
+                                   final List<String> columns, final Function<ApplicationDetails, ExcelRow> preparer) {
         final CellStyle headerStyle = createHeaderStyle(workbook);
         final CellStyle cellStyle = createCellStyle(workbook);
-        final Sheet sheet = workbook.createSheet(ESERVICE_SHEET);
-        int rowCount = 0;
-        insertHeader(sheet, rowCount, headerStyle, columns);
-        rowCount++;
-        for (final ApplicationDetails application : applications) {
-            final Row row = sheet.createRow(rowCount++);
-            insertEserviceDraft(row, application, cellStyle);
-        }
+        final Sheet sheet = workbook.createSheet(sheetName);
+        insertHeader(sheet, 0, headerStyle, columns);
+        final Map<String, Integer> pictures = new HashMap<>();
+        final int[] rowCount = {1};
+        reportRowPipeline.process(EXCEL_REPORT + sheetName.toLowerCase(), applications, application -> withThumbnail(preparer.apply(application), application), excelRow -> {
+            final Row row = sheet.createRow(rowCount[0]++);
+            if (excelRow.isWithImage()) {
+                insertRowImage(workbook, sheet, row, excelRow.getThumbnail(), rowCount[0], pictures);
+            }
+            final String[] values = excelRow.getValues();
+            for (int col = 0; col < values.length; col++) {
+                if (values[col] != null) {
+                    createCell(row, col, values[col], cellStyle);
+                }
+            }
+        });
         return workbook;
     }
 
@@ -249,122 +406,164 @@ public class ExcelServiceImpl implements ExcelService {
         }
     }
 
-    private void insertRowImage(final Workbook workbook, final Sheet sheet, final Row row, final String graphicalRepresentation, int rowIndex) {
+    private void insertRowImage(final Workbook workbook, final Sheet sheet, final Row row, final ThumbnailCache.Thumbnail thumbnail, int rowIndex,
+                                final Map<String, Integer> pictures) {
         row.setHeight((short)2000);
-        if(NOT_APPLICABLE.equals(graphicalRepresentation)) {
+        if (thumbnail == null) {
             return;
         }
-        //Get the contents of an InputStream as a byte[].
-        byte[] image = Base64Utils.decodeFromString(graphicalRepresentation);
-        //Adds a picture to the workbook
-        int pictureIdx = workbook.addPicture(image, Workbook.PICTURE_TYPE_JPEG);
+        //Adds a picture to the workbook, identical images share the same picture
+        int pictureIdx = pictures.computeIfAbsent(thumbnail.getHash(),
+                hash -> workbook.addPicture(thumbnail.getContent(), Workbook.PICTURE_TYPE_JPEG));
         //Returns an object that handles instantiating concrete classes
-        XSSFCreationHelper helper = (XSSFCreationHelper) workbook.getCreationHelper();
+        CreationHelper helper = workbook.getCreationHelper();
         //Creates the top-level drawing patriarch.
-        XSSFDrawing drawing = (XSSFDrawing) sheet.createDrawingPatriarch();
+        Drawing<?> drawing = createDrawing(workbook, sheet);
         //Create an anchor that is attached to the worksheet
-        XSSFClientAnchor anchor = helper.createClientAnchor();
+        ClientAnchor anchor = helper.createClientAnchor();
         //create an anchor with upper left cell
         anchor.setCol1(0);
         anchor.setCol2(1);
         anchor.setRow1(rowIndex-1);
         anchor.setRow2(rowIndex);
         //Creates a picture
-        XSSFPicture pic = drawing.createPicture(anchor, pictureIdx);
-        // 0 indicates solid line
-        pic.setLineStyle(0);
-        // rgb color code for black line
-        pic.setLineStyleColor(0, 0, 0);
-        // double number for line width
-        pic.setLineWidth(1.5);
+        Picture picture = drawing.createPicture(anchor, pictureIdx);
+        if (picture instanceof XSSFPicture) {
+            XSSFPicture pic = (XSSFPicture) picture;
+            // 0 indicates solid line
+            pic.setLineStyle(0);
+            // rgb color code for black line
+            pic.setLineStyleColor(0, 0, 0);
+            // double number for line width
+            pic.setLineWidth(1.5);
+        }
+    }
+
+    /**
+     * The drawing of a sheet. The pictures of a streamed sheet are drawn on its xssf sheet, which holds them anyway,
+     * so that they are created as {@link XSSFPicture} and get the same border as in the in-memory report.
+     */
+    private static Drawing<?> createDrawing(final Workbook workbook, final Sheet sheet) {
+        if (workbook instanceof SXSSFWorkbook) {
+            return ((SXSSFWorkbook) workbook).getXSSFWorkbook().getSheet(sheet.getSheetName()).createDrawingPatriarch();
+        }
+        return sheet.createDrawingPatriarch();
     }
 
-    private void insertTrademark(final Row row, final ApplicationDetails application, CellStyle cellStyle) {
-        createCell(row, 1, getStringValue(application.getNumber()), cellStyle);
-        createCell(row, 2, convertDateToString(application.getApplicationDate()), cellStyle);
-        createCell(row, 3, getStringValue(application.getType()), cellStyle);
-        createCell(row, 4, getStringValue(application.getKind()), cellStyle);
-        createCell(row, 5, getStringValue(application.getDenomination()), cellStyle);
-        createCell(row, 6, getStringValue(application.getNiceClass()), cellStyle);
-        createCell(row, 7, getStringValue(application.getStatus()), cellStyle);
-        createCell(row, 8, convertDateToString(application.getStatusDate()), cellStyle);
-        createCell(row, 9, getStringValue(application.getRegistrationNumber()), cellStyle);
-        createCell(row, 10, convertDateToString(application.getRegistrationDate()), cellStyle);
-        createCell(row, 11, convertDateToString(application.getExpirationDate()),cellStyle);
-        createCell(row, 12, convertDateToString(application.getPublicationDate()), cellStyle);
-        createCell(row, 13, getStringValue(application.getApplicant()), cellStyle);
-        createCell(row, 14, getStringValue(application.getRepresentative()),cellStyle);
+    private ExcelRow withThumbnail(final ExcelRow row, final ApplicationDetails application) {
+        final String graphicalRepresentation = getStringValue(application.getGraphicalRepresentation());
+        if (!row.isWithImage() || NOT_APPLICABLE.equals(graphicalRepresentation)) {
+            return row;
+        }
+        //Get the image downscaled to the anchor size
+        return new ExcelRow(row.getValues(), true, thumbnailCache.get(graphicalRepresentation));
+    }
+
+    private static ExcelRow toImageRow(final String... values) {
+        return new ExcelRow(values, true, null);
     }
 
-    private void insertTrademarkDraft(final Row row, final ApplicationDetails application, CellStyle cellStyle) {
-        createCell(row, 0, getStringValue(application.getDenomination()), cellStyle);
-        createCell(row, 1, getStringValue(application.getNumber()), cellStyle);
-        createCell(row, 2, convertDateToString(application.getCreationDate()), cellStyle);
-        createCell(row, 3, getStringValue(application.getRepresentative()),cellStyle);
-        createCell(row, 4, getStringValue(application.getApplicant()), cellStyle);
-        createCell(row, 5, getStringValue(application.getNiceClass()), cellStyle);
-        createCell(row, 6, convertDateToString(application.getLastModifiedDate()), cellStyle);
-        createCell(row, 7, getStringValue(application.getLastModifiedBy()), cellStyle);
+    private ExcelRow toTrademarkRow(final ApplicationDetails application) {
+        return toImageRow(
+                null,
+                getStringValue(application.getNumber()),
+                convertDateToString(application.getApplicationDate()),
+                getStringValue(application.getType()),
+                getStringValue(application.getKind()),
+                getStringValue(application.getDenomination()),
+                getStringValue(application.getNiceClass()),
+                getStringValue(application.getStatus()),
+                convertDateToString(application.getStatusDate()),
+                getStringValue(application.getRegistrationNumber()),
+                convertDateToString(application.getRegistrationDate()),
+                convertDateToString(application.getExpirationDate()),
+                convertDateToString(application.getPublicationDate()),
+                getStringValue(application.getApplicant()),
+                getStringValue(application.getRepresentative()));
     }
 
-    private void insertDesign(final Row row, final ApplicationDetails application, CellStyle cellStyle) {
-        createCell(row, 1, getStringValue(application.getDesignNumber()), cellStyle);
-        createCell(row, 2, convertDateToString(application.getApplicationDate()), cellStyle);
-        createCell(row, 3, getStringValue(application.getIndication()), cellStyle);
-        createCell(row, 4, convertLocarnoClassesToString(application.getLocarnos()), cellStyle);
-        createCell(row, 5, convertBooleanToStringAnswer(application.getDeferPublication()), cellStyle);
-        createCell(row, 6, getStringValue(application.getDesigner()),cellStyle);
-        createCell(row, 7, getStringValue(application.getNumber()), cellStyle);
-        createCell(row, 8, getStringValue(application.getStatus()), cellStyle);
-        createCell(row, 9, convertDateToString(application.getStatusDate()), cellStyle);
-        createCell(row, 10, getStringValue(application.getRegistrationNumber()), cellStyle);
-        createCell(row, 11, convertDateToString(application.getRegistrationDate()), cellStyle);
-        createCell(row, 12, convertDateToString(application.getExpirationDate()),cellStyle);
-        createCell(row, 13, convertDateToString(application.getPublicationDate()), cellStyle);
-        createCell(row, 14, getStringValue(application.getApplicant()), cellStyle);
-        createCell(row, 15, getStringValue(application.getRepresentative()),cellStyle);
+    private ExcelRow toTrademarkDraftRow(final ApplicationDetails application) {
+        return new ExcelRow(new String[]{
+                getStringValue(application.getDenomination()),
+                getStringValue(application.getNumber()),
+                convertDateToString(application.getCreationDate()),
+                getStringValue(application.getRepresentative()),
+                getStringValue(application.getApplicant()),
+                getStringValue(application.getNiceClass()),
+                convertDateToString(application.getLastModifiedDate()),
+                getStringValue(application.getLastModifiedBy())}, false, null);
     }
 
-    private void insertDesignDraft(final Row row, final ApplicationDetails application, CellStyle cellStyle) {
-        createCell(row, 0, getStringValue(String.valueOf(application.getAssociatedDesignNumber())), cellStyle);
-        createCell(row, 1, getStringValue(application.getNumber()), cellStyle);
-        createCell(row, 2, convertDateToString(application.getCreationDate()), cellStyle);
-        createCell(row, 3, getStringValue(application.getRepresentative()),cellStyle);
-        createCell(row, 4, getStringValue(application.getApplicant()), cellStyle);
-        createCell(row, 5, convertDateToString(application.getLastModifiedDate()), cellStyle);
-        createCell(row, 6, getStringValue(application.getLastModifiedBy()), cellStyle);
+    private ExcelRow toDesignRow(final ApplicationDetails application) {
+        return toImageRow(
+                null,
+                getStringValue(application.getDesignNumber()),
+                convertDateToString(application.getApplicationDate()),
+                getStringValue(application.getIndication()),
+                convertLocarnoClassesToString(application.getLocarnos()),
+                convertBooleanToStringAnswer(application.getDeferPublication()),
+                getStringValue(application.getDesigner()),
+                getStringValue(application.getNumber()),
+                getStringValue(application.getStatus()),
+                convertDateToString(application.getStatusDate()),
+                getStringValue(application.getRegistrationNumber()),
+                convertDateToString(application.getRegistrationDate()),
+                convertDateToString(application.getExpirationDate()),
+                convertDateToString(application.getPublicationDate()),
+                getStringValue(application.getApplicant()),
+                getStringValue(application.getRepresentative()));
     }
 
-    private void insertEservice(final Row row, final ApplicationDetails application, CellStyle cellStyle) {
-        createCell(row, 0, getStringValue(application.getEserviceName()), cellStyle);
-        createCell(row, 1, getStringValue(application.getAssociatedRight()), cellStyle);
-        createCell(row, 2, getStringValue(application.getNumber()), cellStyle);
-        createCell(row, 3, convertDateToString(application.getApplicationDate()), cellStyle);
-        createCell(row, 4, getStringValue(application.getStatus()), cellStyle);
-        createCell(row, 5, convertDateToString(application.getStatusDate()), cellStyle);
-        createCell(row, 6, getStringValue(application.getApplicant()), cellStyle);
-        createCell(row, 7, getStringValue(application.getRepresentative()),cellStyle);
+    private ExcelRow toDesignDraftRow(final ApplicationDetails application) {
+        return new ExcelRow(new String[]{
+                getStringValue(String.valueOf(application.getAssociatedDesignNumber())),
+                getStringValue(application.getNumber()),
+                convertDateToString(application.getCreationDate()),
+                getStringValue(application.getRepresentative()),
+                getStringValue(application.getApplicant()),
+                convertDateToString(application.getLastModifiedDate()),
+                getStringValue(application.getLastModifiedBy())}, false, null);
     }
 
-    private void insertEserviceDraft(final Row row, final ApplicationDetails application, CellStyle cellStyle) {
-        createCell(row, 0, getStringValue(application.getEserviceName()), cellStyle);
-        createCell(row, 1, getStringValue(application.getNumber()), cellStyle);
-        createCell(row, 2, getStringValue(application.getAssociatedRight()), cellStyle);
-        createCell(row, 3, convertDateToString(application.getCreationDate()), cellStyle);
-        createCell(row, 4, getStringValue(application.getRepresentative()), cellStyle);
-        createCell(row, 5, getStringValue(application.getApplicant()), cellStyle);
-        createCell(row, 6, convertDateToString(application.getLastModifiedDate()), cellStyle);
-        createCell(row, 7, getStringValue(application.getLastModifiedBy()), cellStyle);
+    private ExcelRow toEserviceRow(final ApplicationDetails application) {
+        return new ExcelRow(new String[]{
+                getStringValue(application.getEserviceName()),
+                getStringValue(application.getAssociatedRight()),
+                getStringValue(application.getNumber()),
+                convertDateToString(application.getApplicationDate()),
+                getStringValue(application.getStatus()),
+                convertDateToString(application.getStatusDate()),
+                getStringValue(application.getApplicant()),
+                getStringValue(application.getRepresentative())}, false, null);
+    }
+
+    private ExcelRow toEserviceDraftRow(final ApplicationDetails application) {
+        return new ExcelRow(new String[]{
+                getStringValue(application.getEserviceName()),
+                getStringValue(application.getNumber()),
+                getStringValue(application.getAssociatedRight()),
+                convertDateToString(application.getCreationDate()),
+                getStringValue(application.getRepresentative()),
+                getStringValue(application.getApplicant()),
+                convertDateToString(application.getLastModifiedDate()),
+                getStringValue(application.getLastModifiedBy())}, false, null);
     }
 
     private void insertHeader(final Sheet sheet, final int rowCount, final CellStyle headerStyle, List<String> headers) {
         final Row rowHeader = sheet.createRow(rowCount);
+        // the columns are sized on the header only, a streamed sheet tracks their widths just while it is written
+        if (sheet instanceof SXSSFSheet) {
+            ((SXSSFSheet) sheet).trackAllColumnsForAutoSizing();
+        }
         for (int col = 0; col < headers.size(); col++) {
             Cell cell = rowHeader.createCell(col);
             cell.setCellStyle(headerStyle);
             cell.setCellValue(headers.get(col));
             sheet.autoSizeColumn(col);
         }
+        if (sheet instanceof SXSSFSheet) {
+            ((SXSSFSheet) sheet).untrackAllColumnsForAutoSizing();
+        }
     }
 
     private void createCell(final Row row, final Integer columnIndex, final String value, final CellStyle style) {
@@ -394,4 +593,15 @@ public class ExcelServiceImpl implements ExcelService {
         cellStyle.setWrapText(true);
         return cellStyle;
     }
-}
\ No newline at end of file
+
+    /**
+     * A prepared excel row, the cell values by column index and the row image.
+     */
+    @Getter
+    @AllArgsConstructor
+    private static final class ExcelRow {
+        private final String[] values;
+        private final boolean withImage;
+        private final ThumbnailCache.Thumbnail thumbnail;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * $Id:: LockServiceImpl.java 2021/10/26 10:10 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.service;
+
+import eu.euipo.etmdn.userarea.business.core.api.service.LockService;
+import eu.euipo.etmdn.userarea.business.core.impl.lock.DatabaseEditLockProvider;
+import eu.euipo.etmdn.userarea.business.core.impl.lock.EditLockProvider;
+import eu.euipo.etmdn.userarea.business.core.impl.lock.EditLockType;
+import eu.euipo.etmdn.userarea.business.core.impl.lock.LockedTables;
+import eu.euipo.etmdn.userarea.domain.lock.LockHolder;
+import eu.euipo.etmdn.userarea.persistence.repository.lock.ExpiredLockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Lock service.
+ * The application and note locks are read from the edit lock store, the locks of the other tables from their
+ * LockedBy and LockedDate columns.
+ */
+@Slf4j
+@Service
+public class LockServiceImpl implements LockService {
+
+    private final EditLockProvider editLockProvider;
+    private final LockedTables lockedTables;
+    private final ExpiredLockRepository expiredLockRepository;
+    private final long lockTimeout;
+
+    /**
+     * Instantiates the lock service.
+     *
+     * @param editLockProvider      the edit lock store
+     * @param lockedTables          the locked tables
+     * @param expiredLockRepository the lock repository
+     * @param lockTimeout           the lock timeout in seconds
+     */
+    @Autowired
+    public LockServiceImpl(final EditLockProvider editLockProvider, final LockedTables lockedTables,
+                           final ExpiredLockRepository expiredLockRepository,
+                           @Value("${userarea.locktimeout:900}") final long lockTimeout) {
+        this.editLockProvider = editLockProvider;
+        this.lockedTables = lockedTables;
+        this.expiredLockRepository = expiredLockRepository;
+        this.lockTimeout = lockTimeout;
+    }
+
+    /**
+     * Get the current lock holders.
+     *
+     * @return the lock holders of all the resource types
+     */
+    @Override
+    public List<LockHolder> getLockHolders() {
+        final List<LockHolder> holders = new ArrayList<>(editLockProvider.getHolders(EditLockType.APPLICATION));
+        holders.addAll(editLockProvider.getHolders(EditLockType.NOTE));
+        for (Map.Entry<String, Class<?>> entity : lockedTables.getEntities().entrySet()) {
+            if (LockedTables.APPLICATIONS.equals(entity.getKey()) || LockedTables.NOTES.equals(entity.getKey())) {
+                continue;
+            }
+            final String resource = LockedTables.getResource(entity.getKey());
+            expiredLockRepository.findLocks(entity.getValue())
+                    .forEach(lock -> holders.add(DatabaseEditLockProvider.toLockHolder(resource, lock, lockTimeout)));
+        }
+        log.debug("Found {} lock holders", holders.size());
+        return holders;
+    }
+}
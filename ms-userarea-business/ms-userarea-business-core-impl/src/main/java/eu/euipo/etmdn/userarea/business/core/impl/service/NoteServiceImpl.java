@@ -14,18 +14,29 @@
 package eu.euipo.etmdn.userarea.business.core.impl.service;
 
 import eu.euipo.etmdn.userarea.business.core.api.service.NoteService;
+import eu.euipo.etmdn.userarea.business.core.impl.cache.NoteCache;
+import eu.euipo.etmdn.userarea.business.core.impl.lock.EditLockProvider;
+import eu.euipo.etmdn.userarea.business.core.impl.lock.EditLockType;
 import eu.euipo.etmdn.userarea.common.domain.exception.NoteEntityLockedException;
 import eu.euipo.etmdn.userarea.domain.note.NoteApplication;
+import eu.euipo.etmdn.userarea.domain.note.exception.NoteVersionConflictException;
+import eu.euipo.etmdn.userarea.domain.note.exception.NoteVersionMissingException;
 import eu.euipo.etmdn.userarea.persistence.entity.note.NoteApplicationEntity;
+import eu.euipo.etmdn.userarea.persistence.mapper.note.NoteApplicationMapper;
 import eu.euipo.etmdn.userarea.persistence.repository.note.NoteApplicationRepository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-
-import java.time.LocalDateTime;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * The Note service.
@@ -37,6 +48,8 @@ import java.time.LocalDateTime;
 public class NoteServiceImpl implements NoteService {
 
     private NoteApplicationRepository noteApplicationRepository;
+    private NoteCache noteCache;
+    private EditLockProvider editLockProvider;
 
     /**
      * Save a note.
@@ -45,6 +58,7 @@ public class NoteServiceImpl implements NoteService {
      */
     public void save(NoteApplicationEntity noteApplicationEntity) {
         noteApplicationRepository.save(noteApplicationEntity);
+        cacheNote(noteApplicationEntity.getApplicationNumber(), noteApplicationEntity.getNote());
     }
 
     /**
@@ -65,7 +79,29 @@ public class NoteServiceImpl implements NoteService {
      */
     @Override
     public List<NoteApplicationEntity> getNotesByApplicationNumbers(List<String> applicationNumbers) {
-        return noteApplicationRepository.findByApplicationNumberIsIn(applicationNumbers);
+        List<NoteApplicationEntity> notes = new ArrayList<>();
+        List<String> missingApplicationNumbers = new ArrayList<>();
+        for (String applicationNumber : new LinkedHashSet<>(applicationNumbers)) {
+            NoteCache.CachedNote cachedNote = noteCache.get(applicationNumber);
+            if (cachedNote == null) {
+                missingApplicationNumbers.add(applicationNumber);
+            } else if (cachedNote.getNote() != null) {
+                notes.add(NoteApplicationEntity.builder().applicationNumber(applicationNumber).note(cachedNote.getNote()).build());
+            }
+        }
+        if (!missingApplicationNumbers.isEmpty()) {
+            log.debug("Loading notes of {} application numbers not found in cache", missingApplicationNumbers.size());
+            List<NoteApplicationEntity> loadedNotes = noteApplicationRepository.findByApplicationNumberIsIn(missingApplicationNumbers);
+            Set<String> loadedApplicationNumbers = loadedNotes.stream()
+                    .map(NoteApplicationEntity::getApplicationNumber)
+                    .collect(Collectors.toSet());
+            loadedNotes.forEach(note -> noteCache.put(note.getApplicationNumber(), note.getNote()));
+            missingApplicationNumbers.stream()
+                    .filter(applicationNumber -> !loadedApplicationNumbers.contains(applicationNumber))
+                    .forEach(applicationNumber -> noteCache.put(applicationNumber, null));
+            notes.addAll(loadedNotes);
+        }
+        return notes;
     }
 
 
@@ -81,16 +117,43 @@ public class NoteServiceImpl implements NoteService {
     @Transactional
     public NoteApplicationEntity updateAndReleaseLock(String username, NoteApplicationEntity noteApplicationEntity, String note) {
         username = username.trim();
-        if (!StringUtils.isEmpty(noteApplicationEntity.getLockedBy())) {
-            if (!noteApplicationEntity.getLockedBy().equalsIgnoreCase(username)) {
-                throw new NoteEntityLockedException(noteApplicationEntity.getLockedBy());
-            }
+        Optional<String> holder = editLockProvider.release(EditLockType.NOTE, noteApplicationEntity.getApplicationNumber(), username);
+        if (holder.isPresent()) {
+            throw new NoteEntityLockedException(holder.get());
         }
         noteApplicationEntity.setNote(note);
         noteApplicationEntity.setLastModifiedBy(username);
         noteApplicationEntity.setLockedBy(null);
         noteApplicationEntity.setLockedDate(null);
-        return noteApplicationRepository.saveAndFlush(noteApplicationEntity);
+        NoteApplicationEntity savedNote = noteApplicationRepository.save(noteApplicationEntity);
+        cacheNote(noteApplicationEntity.getApplicationNumber(), note);
+        return savedNote;
+    }
+
+    /**
+     * Update a note if it has not been changed since the given version was read, without taking the note lock.
+     *
+     * @param username the username
+     * @param applicationNumber the application number
+     * @param note the note string
+     * @param version the version of the note which was read, required
+     * @return {@link NoteApplicationEntity} the updated note application entity
+     */
+    @Override
+    @Transactional
+    public NoteApplicationEntity updateIfUnchanged(String username, String applicationNumber, String note, Long version) {
+        if (version == null) {
+            throw new NoteVersionMissingException("The version of the note which was read is required");
+        }
+        username = username.trim();
+        int updated = noteApplicationRepository.updateNoteIfVersion(applicationNumber, note, username, LocalDateTime.now(), version);
+        NoteApplicationEntity current = noteApplicationRepository.findByApplicationNumber(applicationNumber);
+        if (updated == 0) {
+            log.info("Note of application {} changed since version {}", applicationNumber, version);
+            throw new NoteVersionConflictException("The note has been changed by another user", NoteApplicationMapper.MAPPER.map(current));
+        }
+        cacheNote(applicationNumber, note);
+        return current;
     }
 
     /**
@@ -105,19 +168,30 @@ public class NoteServiceImpl implements NoteService {
     public NoteApplicationEntity getNoteByApplicationNumberAndLock(String username, String applicationNumber) {
         log.info("Retrieving note with application number {}", applicationNumber);
         username = username.trim();
-        NoteApplicationEntity noteApplication = noteApplicationRepository.findByApplicationNumber(applicationNumber);
-        if (StringUtils.isEmpty(noteApplication.getLockedBy()) || (noteApplication.getLockedBy() != null && username.equalsIgnoreCase(noteApplication.getLockedBy().trim()))) {
-            noteApplication.setLockedBy(username);
-            noteApplication.setLockedDate(LocalDateTime.now());
-            noteApplicationRepository.saveAndFlush(noteApplication);
-        } else {
-            if (!StringUtils.isEmpty(noteApplication.getLockedBy())) {
-                if (!noteApplication.getLockedBy().equalsIgnoreCase(username)) {
-                    throw new NoteEntityLockedException(noteApplication.getLockedBy());
+        Optional<String> holder = editLockProvider.acquire(EditLockType.NOTE, applicationNumber, username);
+        if (holder.isPresent()) {
+            throw new NoteEntityLockedException(holder.get());
+        }
+        return noteApplicationRepository.findByApplicationNumber(applicationNumber);
+    }
+
+    /**
+     * Write a note through to the note cache once the current transaction commits.
+     *
+     * @param applicationNumber the application number
+     * @param note              the note
+     */
+    private void cacheNote(String applicationNumber, String note) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    noteCache.put(applicationNumber, note);
                 }
-            }
+            });
+        } else {
+            noteCache.put(applicationNumber, note);
         }
-        return noteApplication;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,185 @@
+/*
+ * $Id:: SignatureCallbackProcessor.java 2021/10/29 10:20 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.service;
+
+import eu.euipo.etmdn.userarea.business.core.api.service.ApplicationService;
+import eu.euipo.etmdn.userarea.business.core.api.service.ShoppingCartService;
+import eu.euipo.etmdn.userarea.common.business.config.ApplicationConfiguration;
+import eu.euipo.etmdn.userarea.common.persistence.entity.Application;
+import eu.euipo.etmdn.userarea.common.persistence.entity.signature.SignatureEntity;
+import eu.euipo.etmdn.userarea.common.persistence.repository.SignatureRepository;
+import eu.euipo.etmdn.userarea.domain.signature.FOSignatureResource;
+import eu.euipo.etmdn.userarea.domain.signature.SignatureCallbackResource;
+import eu.euipo.etmdn.userarea.persistence.repository.signature.SignatureCallbackRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.net.ssl.HttpsURLConnection;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Processor of the callbacks of the external signature platform.
+ * The signing is recorded on all the signatures of the request with one update, which also drops a callback repeated
+ * by the platform: a signature already carrying the signing id and the status of the callback is not updated. The signed applications
+ * are read and saved together, and the frontoffice is notified once per callback, after the commit.
+ */
+@Slf4j
+@Component
+public class SignatureCallbackProcessor {
+
+    private final SignatureCallbackRepository signatureCallbackRepository;
+    private final SignatureRepository signatureRepository;
+    private final ApplicationService applicationService;
+    private final ShoppingCartService shoppingCartService;
+    private final ApplicationConfiguration applicationConfiguration;
+    private final RestTemplate restTemplate;
+    private final String frontofficeUrl;
+    private final String frontofficeUpdateEndpoint;
+
+    /**
+     * Instantiates the signature callback processor.
+     *
+     * @param signatureCallbackRepository the signature callback repository
+     * @param signatureRepository         the signature repository
+     * @param applicationService          the application service
+     * @param shoppingCartService         the shopping cart service
+     * @param applicationConfiguration    the application configuration
+     * @param restTemplate                the rest template
+     * @param frontofficeUrl              the frontoffice url
+     * @param frontofficeUpdateEndpoint   the frontoffice signature update endpoint
+     */
+    @Autowired
+    public SignatureCallbackProcessor(final SignatureCallbackRepository signatureCallbackRepository,
+                                      final SignatureRepository signatureRepository,
+                                      final ApplicationService applicationService,
+                                      @Lazy final ShoppingCartService shoppingCartService,
+                                      final ApplicationConfiguration applicationConfiguration,
+                                      final RestTemplate restTemplate,
+                                      @Value("${userarea.globals.ipo.fo.url}") final String frontofficeUrl,
+                                      @Value("${userarea.signature.frontoffice.updateEndpoint}") final String frontofficeUpdateEndpoint) {
+        this.signatureCallbackRepository = signatureCallbackRepository;
+        this.signatureRepository = signatureRepository;
+        this.applicationService = applicationService;
+        this.shoppingCartService = shoppingCartService;
+        this.applicationConfiguration = applicationConfiguration;
+        this.restTemplate = restTemplate;
+        this.frontofficeUrl = frontofficeUrl;
+        this.frontofficeUpdateEndpoint = frontofficeUpdateEndpoint;
+    }
+
+    /**
+     * Process a callback of the signature platform.
+     *
+     * @param signatureCallbackResource the signature and its status
+     * @return false if the callback was already processed and is dropped
+     */
+    @Transactional
+    public boolean process(final SignatureCallbackResource signatureCallbackResource) {
+        final String reference = signatureCallbackResource.getSignatureId();
+        final String signingId = signatureCallbackResource.getSigningId();
+        final int updated = signatureCallbackRepository.updateSigning(reference, signingId,
+                signatureCallbackResource.getStatus(), signatureCallbackResource.getSignedAt());
+        if (updated == 0) {
+            log.info("Signature callback already processed or without signatures, dropped: signatureId: {} signingId: {}",
+                    reference, signingId);
+            return false;
+        }
+        final List<SignatureEntity> signatureEntities = signatureRepository.findAllByReferenceAndDeleted(reference, false);
+        if (isCompleted(signatureCallbackResource.getStatus())) {
+            updateApplications(signatureEntities);
+        }
+        log.info("Confirmation of {} signatures saved to local db", signatureEntities.size());
+        afterCommit(() -> CompletableFuture
+                .supplyAsync(() -> notifySignatureToFrontoffice(signatureEntities))
+                .thenAccept(result -> {
+                    // If we cannot notify frontoffice update signature status (the status is considered completed)
+                    if (!result) {
+                        signatureCallbackRepository.updateStatusBySigning(reference, signingId,
+                                applicationConfiguration.getSignature().getStatus().getCompletedUpdateFoFailed());
+                    }
+                }));
+        return true;
+    }
+
+    private boolean isCompleted(final String status) {
+        return applicationConfiguration.getSignature().getStatus().getCompleted().equalsIgnoreCase(status)
+                || applicationConfiguration.getSignature().getStatus().getCompletedUpdateFoFailed().equalsIgnoreCase(status);
+    }
+
+    private void updateApplications(final List<SignatureEntity> signatureEntities) {
+        final List<Long> applicationIds = signatureEntities.stream()
+                .map(signature -> signature.getApplication().getId())
+                .distinct()
+                .collect(Collectors.toList());
+        final List<Application> applications = applicationService.getApplicationsByIds(applicationIds);
+        final LocalDateTime now = LocalDateTime.now();
+        applications.forEach(application -> {
+            application.setStatus(applicationConfiguration.getStatus().getPayment());
+            application.setLastModifiedDate(now);
+        });
+        applicationService.saveAll(applications);
+        log.info("Updating shopping cart by adding {} applications", applications.size());
+        final String lastModifiedBy = signatureEntities.get(0).getUsername();
+        applications.forEach(application ->
+                shoppingCartService.checkAndAddApplicationToShoppingCart(application.getMainAccount(), application, lastModifiedBy));
+    }
+
+    private static void afterCommit(final Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private boolean notifySignatureToFrontoffice(final List<SignatureEntity> signatures) {
+        FOSignatureResource payload = new FOSignatureResource();
+        List<String> applicationNumbers = signatures.stream().map(SignatureEntity::getNumber).collect(Collectors.toList());
+        SignatureEntity firstSignature = signatures.get(0);
+
+        payload.setFullName(firstSignature.getName());
+        payload.setCapacity(firstSignature.getCapacity());
+        payload.setEmail(firstSignature.getEmail());
+        payload.setSignatureId(firstSignature.getSigningId());
+        payload.setApplicationNumbers(applicationNumbers);
+        // Update signature in frontoffice
+        try {
+            log.info(">>> Notifying signatures to frontoffice for applicationNumbers: " + String.join(",", applicationNumbers));
+            HttpsURLConnection.setDefaultHostnameVerifier ((hostname, session) -> true);
+            restTemplate.postForObject(frontofficeUrl + frontofficeUpdateEndpoint, payload, String.class);
+        } catch (RestClientException ex) {
+            log.error(">>> Could not notify new signature to frontoffice: " + ex.getLocalizedMessage());
+            return false;
+        }
+
+        log.info(">>> Frontoffice updated");
+        return true;
+    }
+}
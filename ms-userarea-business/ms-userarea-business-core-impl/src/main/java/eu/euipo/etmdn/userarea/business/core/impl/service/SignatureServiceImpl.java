@@ -25,13 +25,14 @@ import eu.euipo.etmdn.userarea.common.persistence.entity.Application;
 import eu.euipo.etmdn.userarea.common.persistence.entity.signature.SignatureEntity;
 import eu.euipo.etmdn.userarea.common.persistence.repository.SignatureRepository;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationDetails;
-import eu.euipo.etmdn.userarea.domain.signature.FOSignatureResource;
+import eu.euipo.etmdn.userarea.domain.signature.ApplicationSignatures;
 import eu.euipo.etmdn.userarea.domain.signature.PlatformSignatureDetails;
 import eu.euipo.etmdn.userarea.domain.signature.SignRequest;
 import eu.euipo.etmdn.userarea.domain.signature.SignResource;
 import eu.euipo.etmdn.userarea.domain.signature.SignatureCallbackResource;
 import eu.euipo.etmdn.userarea.domain.signature.SignatureSortingCriteriaRequest;
 import eu.euipo.etmdn.userarea.external.signature.api.client.SignatureClient;
+import eu.euipo.etmdn.userarea.persistence.repository.signature.SignatureCountRepository;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -40,18 +41,21 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
-import javax.net.ssl.HttpsURLConnection;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static eu.euipo.etmdn.userarea.business.core.impl.utils.SignatureUtils.deleteSignaturesInFO;
@@ -82,6 +86,10 @@ public class SignatureServiceImpl implements SignatureService {
     private ShoppingCartService shoppingCartService;
     @Autowired
     private RestTemplate restTemplate;
+    @Autowired
+    private SignatureCountRepository signatureCountRepository;
+    @Autowired
+    private SignatureCallbackProcessor signatureCallbackProcessor;
 
     @Value("${userarea.signature.platform.url}")
     private String platformUrl;
@@ -89,13 +97,12 @@ public class SignatureServiceImpl implements SignatureService {
     private String callbackUrl;
     @Value("${userarea.globals.ipo.fo.url}")
     private String frontofficeUrl;
-    @Value("${userarea.signature.frontoffice.updateEndpoint}")
-    private String frontofficeUpdateEndpoint;
     @Value("${userarea.signature.frontoffice.deleteEndpoint}")
     private String frontofficeSignatureDeleteEndpoint;
 
     /**
      * Retrieve signatures.
+     * Only the page given by the page and size of the criteria is returned, if they are set.
      *
      * @param username                        the username
      * @param roles                           the set with account roles
@@ -104,28 +111,54 @@ public class SignatureServiceImpl implements SignatureService {
      */
     @Override
     public List<Signature> getSignatures(final String username, final Set<String> roles, final SignatureSortingCriteriaRequest signatureSortingCriteriaRequest) {
-        List<Application> applicationList = applicationService.getApplicationsForSignatures(username, roles);
-        List<Signature> signatureList = new ArrayList<>();
+        return getSignatures(username, roles, signatureSortingCriteriaRequest, signatureSortingCriteriaRequest.toPageable()).getContent();
+    }
+
+    /**
+     * Retrieve a page of signatures.
+     * The applications and their completed signatures are read in one query and sorted on their typed values;
+     * the signatures are built for the requested page only.
+     *
+     * @param username                        the username
+     * @param roles                           the set with account roles
+     * @param signatureSortingCriteriaRequest the signature sorting criteria request
+     * @param pageable                        the page to retrieve
+     * @return {@link Page<Signature>} the page of signatures
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Signature> getSignatures(final String username, final Set<String> roles, final SignatureSortingCriteriaRequest signatureSortingCriteriaRequest,
+                                         final Pageable pageable) {
+        List<ApplicationSignatures> applicationList = applicationService.getApplicationSignatures(username, roles);
+        List<ApplicationSignatures> displayedList = new ArrayList<>();
         if (!CollectionUtils.isEmpty(applicationList)) {
-            for (Application application : applicationList) {
-                List<SignatureEntity> signatureEntities = application.getSignatures().stream()
-                        .filter(signature -> applicationConfiguration.getSignature().getStatus().getCompleted().equalsIgnoreCase(signature.getStatus())
-                        || applicationConfiguration.getSignature().getStatus().getCompletedUpdateFoFailed().equalsIgnoreCase(signature.getStatus()))
-                        .collect(Collectors.toList());
-                if (shouldBeDisplayedInSignatures(applicationConfiguration, application.getStatus(), signatureEntities.size())) {
-                    Collections.reverse(signatureEntities);
-                    Signature signature = new Signature();
-                    signature.setType(getApplicationType(application));
-                    signature.setNumber(application.getNumber());
-                    signature.setName(signatureEntities.stream().map(SignatureEntity::getName).collect(Collectors.joining(",")));
-                    signature.setCapacity(signatureEntities.stream().map(SignatureEntity::getCapacity).collect(Collectors.joining(",")));
-                    signature.setDate(signatureEntities.stream().map(SignatureEntity::getDate).map(LocalDateTime::toString).collect(Collectors.joining(",")));
-                    signatureList.add(signature);
+            for (ApplicationSignatures application : applicationList) {
+                if (shouldBeDisplayedInSignatures(applicationConfiguration, application.getStatus(), application.getNames().size())) {
+                    displayedList.add(application);
                 }
             }
-            sortSignatures(signatureSortingCriteriaRequest, signatureList);
+            sortSignatures(signatureSortingCriteriaRequest, displayedList);
+        }
+        return toPage(displayedList, pageable).map(SignatureServiceImpl::toSignature);
+    }
+
+    private static Page<ApplicationSignatures> toPage(final List<ApplicationSignatures> applicationList, final Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(applicationList);
         }
-        return signatureList;
+        int from = (int) Math.min(pageable.getOffset(), applicationList.size());
+        int to = Math.min(from + pageable.getPageSize(), applicationList.size());
+        return new PageImpl<>(applicationList.subList(from, to), pageable, applicationList.size());
+    }
+
+    private static Signature toSignature(final ApplicationSignatures application) {
+        Signature signature = new Signature();
+        signature.setType(getApplicationType(application.getFoModule(), application.getEserviceName()));
+        signature.setNumber(application.getNumber());
+        signature.setName(String.join(",", application.getNames()));
+        signature.setCapacity(String.join(",", application.getCapacities()));
+        signature.setDate(application.getDates().stream().map(LocalDateTime::toString).collect(Collectors.joining(",")));
+        return signature;
     }
 
     /**
@@ -236,65 +269,9 @@ public class SignatureServiceImpl implements SignatureService {
         log.info("Confirmation from signature platform: signatureId: " + signatureCallbackResource.getSignatureId() +
                 " signingId: " + signatureCallbackResource.getSigningId() +
                 " status: " + signatureCallbackResource.getStatus());
-        List<SignatureEntity> signatureEntities = signatureRepository.findAllByReferenceAndDeleted(signatureCallbackResource.getSignatureId(), false);
-
-        if (signatureEntities != null && !signatureEntities.isEmpty()) {
-            signatureEntities.forEach(e -> {
-                Application application = e.getApplication();
-                e.setStatus(signatureCallbackResource.getStatus());
-                e.setSigningId(signatureCallbackResource.getSigningId());
-                e.setDate(signatureCallbackResource.getSignedAt());
-                signatureRepository.save(e);
-                if (applicationConfiguration.getSignature().getStatus().getCompleted().equalsIgnoreCase(e.getStatus())
-                        || applicationConfiguration.getSignature().getStatus().getCompletedUpdateFoFailed().equalsIgnoreCase(e.getStatus())) {
-                    application.setStatus(applicationConfiguration.getStatus().getPayment());
-                    application.setLastModifiedDate(LocalDateTime.now());
-                    applicationService.save(application);
-                }
-                log.info("Updating shopping cart by adding application");
-                shoppingCartService.checkAndAddApplicationToShoppingCart(application.getMainAccount(), application, signatureEntities.get(0).getUsername());
-                log.info("Confirmation saved to local db");
-
-                CompletableFuture
-                        .supplyAsync(() -> notifySignatureToFrontoffice(signatureEntities))
-                        .thenAccept(result -> {
-                            // If we cannot notify frontoffice update signature status (the status is considered completed)
-                            if (!result) {
-                                signatureEntities.forEach(signature -> {
-                                    signature.setStatus(applicationConfiguration.getSignature().getStatus().getCompletedUpdateFoFailed());
-                                    signatureRepository.save(signature);
-                                });
-                            }
-                        });
-            });
-        }
+        signatureCallbackProcessor.process(signatureCallbackResource);
     }
 
-    private boolean notifySignatureToFrontoffice(List<SignatureEntity> signatures) {
-        FOSignatureResource payload = new FOSignatureResource();
-        List<String> applicationNumbers = signatures.stream().map(SignatureEntity::getNumber).collect(Collectors.toList());
-        SignatureEntity firstSignature = signatures.get(0);
-
-        payload.setFullName(firstSignature.getName());
-        payload.setCapacity(firstSignature.getCapacity());
-        payload.setEmail(firstSignature.getEmail());
-        payload.setSignatureId(firstSignature.getSigningId());
-        payload.setApplicationNumbers(applicationNumbers);
-        // Update signature in frontoffice
-        try {
-            log.info(">>> Notifying signatures to frontoffice for applicationNumbers: " + String.join(",", applicationNumbers));
-            HttpsURLConnection.setDefaultHostnameVerifier ((hostname, session) -> true);
-            restTemplate.postForObject(frontofficeUrl + frontofficeUpdateEndpoint, payload, String.class);
-        } catch (RestClientException ex) {
-            log.error(">>> Could not notify new signature to frontoffice: " + ex.getLocalizedMessage());
-            return false;
-        }
-
-        log.info(">>> Frontoffice updated");
-        return true;
-    }
-
-
     /**
      * Retrieve all applications that have the same signature
      *
@@ -323,22 +300,34 @@ public class SignatureServiceImpl implements SignatureService {
      */
     @Override
     public List<String> getNonFullySignedApplicationDetailsBySignatureId(final String username, String signatureId) {
-        List<Application> applications = getApplicationsBySignatureId(signatureId);
-        return applications.stream()
-                .filter(a -> getCompletedSignaturesFor(a.getId()).size() < applicationConfiguration.getSignature().getMaxSignatories())
-                .map(Application::getNumber)
-                .collect(Collectors.toList());
+        return getNonFullySignedApplicationNumbers(Collections.singletonList(signatureId))
+                .getOrDefault(signatureId, new ArrayList<>());
     }
 
-    private List<Signature> getCompletedSignaturesFor(Long applicationId) {
-        List<SignatureEntity> signatureEntities = signatureRepository.findAllByApplicationIdAndStatusAndDeleted(applicationId,
-                applicationConfiguration.getSignature().getStatus().getCompleted(), false);
-        return signatureEntities.stream().map(signatureEntity -> Signature.builder()
-                .name(signatureEntity.getName())
-                .capacity(signatureEntity.getCapacity())
-                .number(signatureEntity.getCapacity())
-                .date(signatureEntity.getDate().toString())
-                .build()).collect(Collectors.toList());
+    /**
+     * Find, for each signature request, the applications that do not have the maximum number of signatures applied to them.
+     * The completed signatures of all the applications are counted in one grouped query.
+     *
+     * @param signatureIds the signature ids
+     * @return the numbers of the applications that can have more signatures added, per signature id
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, List<String>> getNonFullySignedApplicationNumbers(final Collection<String> signatureIds) {
+        Map<String, List<String>> applicationNumbers = new LinkedHashMap<>();
+        if (CollectionUtils.isEmpty(signatureIds)) {
+            return applicationNumbers;
+        }
+        signatureIds.forEach(signatureId -> applicationNumbers.put(signatureId, new ArrayList<>()));
+        List<Object[]> counts = signatureCountRepository.countSignaturesByReferences(signatureIds,
+                applicationConfiguration.getSignature().getStatus().getCompleted());
+        int maxSignatories = applicationConfiguration.getSignature().getMaxSignatories();
+        for (Object[] count : counts) {
+            if (((Number) count[2]).intValue() < maxSignatories) {
+                applicationNumbers.computeIfAbsent((String) count[0], signatureId -> new ArrayList<>()).add((String) count[1]);
+            }
+        }
+        return applicationNumbers;
     }
 
     /**
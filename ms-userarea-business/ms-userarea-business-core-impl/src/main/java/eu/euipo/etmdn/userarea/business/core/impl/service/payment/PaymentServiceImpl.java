@@ -16,6 +16,7 @@ package eu.euipo.etmdn.userarea.business.core.impl.service.payment;
 import eu.euipo.etmdn.userarea.business.core.api.service.ApplicationService;
 import eu.euipo.etmdn.userarea.business.core.api.service.PaymentService;
 import eu.euipo.etmdn.userarea.business.core.api.service.ShoppingCartService;
+import eu.euipo.etmdn.userarea.business.core.impl.domain.InvoicePaidEvent;
 import eu.euipo.etmdn.userarea.business.core.impl.mapper.ApplicationMapper;
 import eu.euipo.etmdn.userarea.common.business.config.ApplicationConfiguration;
 import eu.euipo.etmdn.userarea.common.business.service.AccountService;
@@ -50,6 +51,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -92,6 +94,7 @@ public class PaymentServiceImpl implements PaymentService {
     private final ShoppingCartService shoppingCartService;
     private final ApplicationConfiguration applicationConfiguration;
     private final RestTemplate restTemplate;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     @Value("${userarea.globals.ipo.fo.url}")
     private String frontofficeUrl;
@@ -190,6 +193,7 @@ public class PaymentServiceImpl implements PaymentService {
             paymentApplicationEntityList.add(paymentApplicationEntity);
         }
         paymentApplicationRepository.saveAll(paymentApplicationEntityList);
+        publishInvoicePaid(paymentEntity, paymentApplicationEntityList);
         List<ShoppingCartApplication> groupedByNumberShoppingCartApplications = shoppingCartApplications.stream()
                 .collect(collectingAndThen(toCollection(() -> new TreeSet<>(Comparator.comparing(ShoppingCartApplication::getNumber))), ArrayList::new));
         updateApplicationStatusAndShoppingCart(paymentEntity);
@@ -347,6 +351,7 @@ public class PaymentServiceImpl implements PaymentService {
             paymentEntity.setErrorMessage(paymentCallbackResource.getErrorMessage());
             paymentRepository.save(paymentEntity);
             asyncNotifyFrontoffice(paymentEntity);
+            publishInvoicePaid(paymentEntity, paymentEntity.getPaymentApplications());
             // Release lock for applications after confirmation from external platform
             List<Long> applicationIdList = Stream.of(paymentEntity.getApplicationIds().split(","))
                     .map(Long::parseLong)
@@ -377,6 +382,20 @@ public class PaymentServiceImpl implements PaymentService {
         }
     }
 
+    /**
+     * Publishes the invoice of a paid payment so that it is pre-rendered. The invoice is only complete once the
+     * applications of the payment are recorded, which happens with the confirmation.
+     *
+     * @param paymentEntity       the payment
+     * @param paymentApplications the applications of the payment
+     */
+    protected void publishInvoicePaid(PaymentEntity paymentEntity, List<PaymentApplicationEntity> paymentApplications) {
+        if ((paymentEntity.getStatus().equals(PaymentStatus.PAID) || paymentEntity.getStatus().equals(PaymentStatus.PAID_UPDATE_FO_FAILED))
+                && CollectionUtils.isNotEmpty(paymentApplications)) {
+            applicationEventPublisher.publishEvent(new InvoicePaidEvent(paymentEntity.getTransactionId()));
+        }
+    }
+
     protected void removeApplicationFromShoppingCart(Long applicationId) {
         // Remove the application from shopping cart
         log.info("Updating shopping cart by removing paid application");
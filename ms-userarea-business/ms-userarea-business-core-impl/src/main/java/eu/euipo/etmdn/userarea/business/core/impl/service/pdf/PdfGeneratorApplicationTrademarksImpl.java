@@ -17,8 +17,10 @@ package eu.euipo.etmdn.userarea.business.core.impl.service.pdf;
 import eu.euipo.etmdn.userarea.business.core.api.service.PdfGenerator;
 import eu.euipo.etmdn.userarea.business.core.impl.domain.ApplicationReportDetails;
 import eu.euipo.etmdn.userarea.business.core.impl.mapper.ReportApplicationMapper;
+import eu.euipo.etmdn.userarea.business.core.impl.report.ReportRowPipeline;
 import eu.euipo.etmdn.userarea.common.domain.PdfTemplateType;
 import eu.euipo.etmdn.userarea.common.persistence.entity.Application;
+import eu.euipo.etmdn.userarea.domain.application.ApplicationDetails;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationSearchResult;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -28,7 +30,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Trademark implementation for the PDF
@@ -39,9 +40,11 @@ public class PdfGeneratorApplicationTrademarksImpl implements PdfGenerator {
 
     private static final String FILENAME = "trademarks.pdf";
     private static final String DATA_NAME = "applications";
+    private static final String PDF_REPORT = "pdf-trademarks";
     private ApplicationSearchResult applications;
     private Set<String> roles;
     private boolean isDraft;
+    private ReportRowPipeline reportRowPipeline;
 
 
     @Override
@@ -74,9 +77,23 @@ public class PdfGeneratorApplicationTrademarksImpl implements PdfGenerator {
 
     @Override
     public Map<String, Object> getData() {
-        List<ApplicationReportDetails> reportDetails = getApplications().getContent().stream()
-                .map(ReportApplicationMapper.MAPPER::toApplicationReportDetails)
-                .collect(Collectors.toList());
+        return toData(getApplications().getContent());
+    }
+
+    @Override
+    public int getRowCount() {
+        List<ApplicationDetails> content = getApplications().getContent();
+        return content == null ? 0 : content.size();
+    }
+
+    @Override
+    public Map<String, Object> getData(int fromRow, int toRow) {
+        return toData(getApplications().getContent().subList(fromRow, toRow));
+    }
+
+    private Map<String, Object> toData(List<ApplicationDetails> applicationDetails) {
+        List<ApplicationReportDetails> reportDetails = reportRowPipeline.map(PDF_REPORT, applicationDetails,
+                ReportApplicationMapper.MAPPER::toApplicationReportDetails);
         Map<String, Object> map = new HashMap<>();
         map.put(DATA_NAME, reportDetails);
         return map;
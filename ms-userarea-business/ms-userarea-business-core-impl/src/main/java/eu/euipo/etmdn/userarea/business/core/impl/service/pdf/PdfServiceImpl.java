@@ -15,15 +15,24 @@
 package eu.euipo.etmdn.userarea.business.core.impl.service.pdf;
 
 import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReport;
 import eu.euipo.etmdn.userarea.business.core.api.service.ApplicationService;
 import eu.euipo.etmdn.userarea.business.core.api.service.PaymentService;
 import eu.euipo.etmdn.userarea.business.core.api.service.PdfGenerator;
 import eu.euipo.etmdn.userarea.business.core.api.service.PdfService;
+import eu.euipo.etmdn.userarea.business.core.impl.cache.CorrespondenceZipCache;
+import eu.euipo.etmdn.userarea.business.core.impl.cache.InvoiceStore;
+import eu.euipo.etmdn.userarea.business.core.impl.cache.PdfTemplateCache;
 import eu.euipo.etmdn.userarea.business.core.impl.domain.CorrespondencePdfData;
+import eu.euipo.etmdn.userarea.business.core.impl.domain.InvoicePaidEvent;
 import eu.euipo.etmdn.userarea.business.core.impl.domain.InvoicePdfData;
 import eu.euipo.etmdn.userarea.business.core.impl.factory.PdfGeneratorFactory;
 import eu.euipo.etmdn.userarea.business.core.impl.mapper.CorrespondencePdfDataMapper;
 import eu.euipo.etmdn.userarea.business.core.impl.mapper.InvoicePdfDataMapper;
+import eu.euipo.etmdn.userarea.business.core.impl.report.AttachmentFetcher;
+import eu.euipo.etmdn.userarea.business.core.impl.report.PdfRenderExecutor;
+import eu.euipo.etmdn.userarea.business.core.impl.report.PdfSliceWriter;
+import eu.euipo.etmdn.userarea.business.core.impl.report.ReportRowPipeline;
 import eu.euipo.etmdn.userarea.common.business.config.IpoConfiguration;
 import eu.euipo.etmdn.userarea.common.business.config.PdfTemplateConfiguration;
 import eu.euipo.etmdn.userarea.common.business.correspondence.MessageAttachmentService;
@@ -31,12 +40,9 @@ import eu.euipo.etmdn.userarea.common.business.helper.PdfTemplateHelper;
 import eu.euipo.etmdn.userarea.common.business.service.AccountService;
 import eu.euipo.etmdn.userarea.common.domain.DomainAccount;
 import eu.euipo.etmdn.userarea.common.domain.FileInfo;
-import eu.euipo.etmdn.userarea.common.domain.PdfTemplate;
-import eu.euipo.etmdn.userarea.common.domain.correspondence.Attachment;
-import eu.euipo.etmdn.userarea.common.domain.correspondence.DraftAttachment;
+import eu.euipo.etmdn.userarea.common.domain.PdfTemplateType;
 import eu.euipo.etmdn.userarea.common.domain.correspondence.MessageMediaTypes;
 import eu.euipo.etmdn.userarea.common.domain.correspondence.MessageStatus;
-import eu.euipo.etmdn.userarea.common.domain.document.FileResponse;
 import eu.euipo.etmdn.userarea.common.domain.exception.InvalidDownloadAttachmentUserException;
 import eu.euipo.etmdn.userarea.common.domain.exception.UserAreaException;
 import eu.euipo.etmdn.userarea.common.persistence.document.DocumentClient;
@@ -47,23 +53,35 @@ import eu.euipo.etmdn.userarea.common.persistence.repository.correspondence.Mess
 import eu.euipo.etmdn.userarea.domain.ApplicationType;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationRequest;
 import eu.euipo.etmdn.userarea.domain.payment.InvoiceDetails;
+import eu.euipo.etmdn.userarea.domain.payment.InvoiceFile;
+import eu.euipo.etmdn.userarea.domain.payment.PaymentStatus;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StreamUtils;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -79,6 +97,11 @@ import static eu.euipo.etmdn.userarea.common.business.utils.AccountUtils.validat
 @Service
 public class PdfServiceImpl implements PdfService {
 
+    private static final String CHUNKED = "chunked";
+    private static final String FIRST_SLICE = "firstSlice";
+    private static final String INVOICE_FILENAME = "invoice.pdf";
+    private static final String CORRESPONDENCE_ZIP = "correspondence.zip";
+
     @Autowired
     private PdfTemplateConfiguration pdfTemplateConfiguration;
     @Autowired
@@ -99,9 +122,25 @@ public class PdfServiceImpl implements PdfService {
     private PaymentService paymentService;
     @Autowired
     private DocumentClient documentClient;
+    @Autowired
+    private ReportRowPipeline reportRowPipeline;
+    @Autowired
+    private PdfTemplateCache pdfTemplateCache;
+    @Autowired
+    private PdfRenderExecutor pdfRenderExecutor;
+    @Autowired
+    private InvoiceStore invoiceStore;
+    @Autowired
+    private AttachmentFetcher attachmentFetcher;
+    @Autowired
+    private CorrespondenceZipCache correspondenceZipCache;
 
     @Value("${userarea.resourcesBaseUri}")
     private String resourcesBaseUri;
+    @Value("${userarea.pdf.chunk.rows:200}")
+    private int chunkRows;
+    @Value("${userarea.pdf.chunk.threshold:1000}")
+    private int chunkThreshold;
 
     /**
      * Generate pdf file.
@@ -112,9 +151,40 @@ public class PdfServiceImpl implements PdfService {
      */
     @Override
     public FileInfo generatePdf(ApplicationRequest applicationRequest, Set<String> roles) {
-        PdfGenerator pdfGenerator = PdfGeneratorFactory.getPdfDataGenerator(ApplicationType.getApplicationType(applicationRequest.getApplicationType()),
-                applicationService.getApplications(applicationRequest, roles), roles, applicationRequest.getIsDraft());
-        return toPdf(pdfGenerator);
+        return toPdf(toPdfGenerator(applicationRequest, roles));
+    }
+
+    /**
+     * Generate pdf report, written directly to the response.
+     * A report rendered in slices is rendered on the render workers into temporary files, the slices are only
+     * concatenated while the response is written, so the memory used is bounded by the size of a slice.
+     *
+     * @param applicationRequest the applicationRequest
+     * @param roles              the logged in user's set of roles
+     * @return {@link StreamingReport} the pdf report to be written
+     */
+    @Override
+    public StreamingReport generateStreamingPdf(ApplicationRequest applicationRequest, Set<String> roles) {
+        PdfGenerator pdfGenerator = toPdfGenerator(applicationRequest, roles);
+        int rowCount = pdfGenerator.getRowCount();
+        if (!isChunked(rowCount)) {
+            FileInfo pdfInfo = toPdf(pdfGenerator);
+            return toStreamingReport(pdfInfo.getFileName(), MediaType.APPLICATION_PDF_VALUE,
+                    outputStream -> outputStream.write(pdfInfo.getFileContent()));
+        }
+        PdfTemplateCache.CachedTemplate cachedTemplate = this.pdfTemplateCache.getTemplate(pdfGenerator.getPdfTemplateType());
+        PdfSliceWriter pdfSliceWriter = this.pdfRenderExecutor.render(pdfGenerator.getPdfTemplateType().name(),
+                () -> renderSlices(pdfGenerator, cachedTemplate, rowCount));
+        return toStreamingReport(pdfGenerator.getFileName(), MediaType.APPLICATION_PDF_VALUE, outputStream -> {
+            try (PdfSliceWriter slices = pdfSliceWriter) {
+                slices.writeTo(outputStream);
+            }
+        });
+    }
+
+    private PdfGenerator toPdfGenerator(ApplicationRequest applicationRequest, Set<String> roles) {
+        return PdfGeneratorFactory.getPdfDataGenerator(ApplicationType.getApplicationType(applicationRequest.getApplicationType()),
+                applicationService.getApplications(applicationRequest, roles), roles, applicationRequest.getIsDraft(), reportRowPipeline);
     }
 
     /**
@@ -128,109 +198,248 @@ public class PdfServiceImpl implements PdfService {
     @Override
     @SneakyThrows
     public FileInfo generatePdf(String username, String messageId, boolean isDraft) {
+        StreamingReport correspondence = generateCorrespondence(username, messageId, isDraft);
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        correspondence.writeTo(byteArrayOutputStream);
+        return new FileInfo(byteArrayOutputStream.toByteArray(), correspondence.getFileName());
+    }
+
+    /**
+     * generates an incoming message pdf, zipped with the message attachments once the message is sent.
+     * The access check and the pdf rendering happen before the download starts; the attachments are fetched concurrently
+     * while the zip is written, so that the first bytes are sent without waiting for all of them. A cached zip is only
+     * looked up before the download starts, it is opened when it is written.
+     *
+     * @param username  the authenticated user
+     * @param messageId the message id
+     * @param isDraft   if its a draft request
+     * @return {@link StreamingReport} the pdf or zip to be written
+     */
+    @Override
+    @SneakyThrows
+    public StreamingReport generateCorrespondence(String username, String messageId, boolean isDraft) {
         log.info("generatePdf({},{}) (ENTER)", messageId, isDraft);
-        CorrespondencePdfData pdfData;
-        DomainAccount account;
-        boolean statusSent = false;
         if (!isDraft) {
             MessageEntity messageEntity = this.messageRepository.getOne(Long.parseLong(messageId));
             if(!validateAccountAccess(username, messageEntity.getRecipientId(), accountService)){
                 throw new InvalidDownloadAttachmentUserException("Not allowed to download other user's draft attachment");
             }
-            pdfData = CorrespondencePdfDataMapper.MAPPER.map(messageEntity);
-            account = this.accountService.getMainAccount(messageEntity.getRecipientId());
-        } else {
-            DraftEntity draftEntity = this.draftRepository.getOne(Long.parseLong(messageId));
-            if(!validateAccountAccess(username, draftEntity.getUser(), accountService)) {
-                throw new InvalidDownloadAttachmentUserException("Not allowed to download other user's draft attachment");
+            if (correspondenceZipCache.contains(Long.parseLong(messageId))) {
+                log.info("Zip of message {} served from the correspondence cache", messageId);
+                return toStreamingReport(CORRESPONDENCE_ZIP, outputStream -> {
+                    Optional<InputStream> cachedZip = correspondenceZipCache.open(Long.parseLong(messageId));
+                    if (!cachedZip.isPresent()) {
+                        // evicted since it was looked up, the zip is generated instead
+                        getMessageZipWriter(messageEntity, messageId).writeTo(outputStream);
+                        return;
+                    }
+                    try (InputStream inputStream = cachedZip.get()) {
+                        StreamUtils.copy(inputStream, outputStream);
+                    }
+                });
             }
-            pdfData = CorrespondencePdfDataMapper.MAPPER.map(draftEntity);
-            account = this.accountService.getMainAccount(draftEntity.getUser());
-            statusSent = draftEntity.getDraftStatus().equalsIgnoreCase(MessageStatus.SENT.getValue());
+            return toStreamingReport(CORRESPONDENCE_ZIP, getMessageZipWriter(messageEntity, messageId));
         }
-        PdfGenerator pdfGenerator = PdfGeneratorFactory.getPdfDataGenerator(ipoConfiguration, account, pdfData, isDraft);
-        FileInfo pdfInfo = toPdf(pdfGenerator);
-        if (isDraft && !statusSent) {
-            pdfInfo.setFileName(pdfGenerator.getFileName());
-            return pdfInfo;
+        DraftEntity draftEntity = this.draftRepository.getOne(Long.parseLong(messageId));
+        if(!validateAccountAccess(username, draftEntity.getUser(), accountService)) {
+            throw new InvalidDownloadAttachmentUserException("Not allowed to download other user's draft attachment");
         }
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        ZipOutputStream zipOut = new ZipOutputStream(byteArrayOutputStream);
-        ZipEntry entry = new ZipEntry(pdfInfo.getFileName());
-        entry.setSize(pdfInfo.getFileContent().length);
-        zipOut.putNextEntry(entry);
-        zipOut.write(pdfInfo.getFileContent());
-        zipOut.closeEntry();
-        if (!isDraft) {
-            addZipForAttachments(zipOut, messageId);
-        } else {
-            addZipForDraftAttachments(zipOut, messageId);
+        CorrespondencePdfData pdfData = CorrespondencePdfDataMapper.MAPPER.map(draftEntity);
+        DomainAccount account = this.accountService.getMainAccount(draftEntity.getUser());
+        boolean statusSent = draftEntity.getDraftStatus().equalsIgnoreCase(MessageStatus.SENT.getValue());
+        PdfGenerator pdfGenerator = PdfGeneratorFactory.getPdfDataGenerator(ipoConfiguration, account, pdfData, true);
+        FileInfo pdfInfo = toPdf(pdfGenerator);
+        if (!statusSent) {
+            return toStreamingReport(pdfGenerator.getFileName(), outputStream -> outputStream.write(pdfInfo.getFileContent()));
         }
-        zipOut.close();
-        return new FileInfo(byteArrayOutputStream.toByteArray(), "correspondence.zip");
+        List<ZipAttachment> attachments = getDraftAttachments(messageId);
+        return toStreamingReport(CORRESPONDENCE_ZIP, outputStream -> writeZip(outputStream, pdfInfo, attachments));
+    }
+
+    /**
+     * renders the pdf of a received message and prepares its zip, kept in the correspondence cache once written
+     * as a received message never changes
+     *
+     * @param messageEntity the message
+     * @param messageId     the message id
+     * @return the writer of the zip
+     */
+    private ContentWriter getMessageZipWriter(MessageEntity messageEntity, String messageId) {
+        CorrespondencePdfData pdfData = CorrespondencePdfDataMapper.MAPPER.map(messageEntity);
+        DomainAccount account = this.accountService.getMainAccount(messageEntity.getRecipientId());
+        PdfGenerator pdfGenerator = PdfGeneratorFactory.getPdfDataGenerator(ipoConfiguration, account, pdfData, false);
+        FileInfo pdfInfo = toPdf(pdfGenerator);
+        List<ZipAttachment> attachments = getMessageAttachments(messageId);
+        return outputStream -> correspondenceZipCache.writeThrough(Long.parseLong(messageId),
+                outputStream, zipOutputStream -> writeZip(zipOutputStream, pdfInfo, attachments));
     }
 
     @Override
     public FileInfo generatePdf(String username, String transactionId) {
+        InvoiceFile invoiceFile = getInvoice(username, transactionId);
+        return new FileInfo(invoiceFile.getFileContent(), invoiceFile.getFileName());
+    }
+
+    /**
+     * Get the pdf invoice of a payment, served from the invoice store once the payment is paid.
+     *
+     * @param username      the authenticated user
+     * @param transactionId the transaction id
+     * @return {@link InvoiceFile} the invoice with its etag if it is stored
+     */
+    @Override
+    public InvoiceFile getInvoice(String username, String transactionId) {
+        Optional<InvoiceStore.StoredInvoice> storedInvoice = invoiceStore.get(transactionId);
+        if (storedInvoice.isPresent()) {
+            log.info("Shopping Cart payment invoice of {} served from the invoice store", transactionId);
+            return toInvoiceFile(storedInvoice.get());
+        }
+        return renderInvoice(transactionId);
+    }
+
+    /**
+     * pre-renders the invoice of a paid payment once the payment is committed, so that the downloads are served from
+     * the invoice store. The invoice is read and rendered on the render workers; when they are saturated the invoice
+     * is rendered on its first download instead.
+     *
+     * @param invoicePaidEvent the invoice paid event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInvoicePaid(InvoicePaidEvent invoicePaidEvent) {
+        String transactionId = invoicePaidEvent.getTransactionId();
+        if (invoiceStore.contains(transactionId)) {
+            return;
+        }
+        pdfRenderExecutor
+                .submit(PdfTemplateType.INVOICE.name(), () -> {
+                    InvoiceDetails invoiceDetails = paymentService.getInvoice(transactionId);
+                    PdfGenerator pdfGenerator = PdfGeneratorFactory.getPdfDataGenerator(InvoicePdfDataMapper.MAPPER.map(invoiceDetails));
+                    byte[] pdfBytes = toRenderer(pdfGenerator).get();
+                    return toInvoiceFile(transactionId, invoiceDetails, new FileInfo(pdfBytes, pdfGenerator.getFileName()));
+                })
+                .exceptionally(e -> {
+                    // the invoice is rendered on its first download instead
+                    log.warn("Failed to pre-render the invoice of transaction {}: {}", transactionId, e.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * renders the invoice of a payment and keeps it in the invoice store if the payment is paid
+     *
+     * @param transactionId the transaction id
+     * @return the invoice
+     */
+    private InvoiceFile renderInvoice(String transactionId) {
         log.info("Shopping Cart payment invoice: generatePdf({}) (ENTER)", transactionId);
         InvoiceDetails invoiceDetails = paymentService.getInvoice(transactionId);
         InvoicePdfData invoicePdfData = InvoicePdfDataMapper.MAPPER.map(invoiceDetails);
         PdfGenerator pdfGenerator = PdfGeneratorFactory.getPdfDataGenerator(invoicePdfData);
-        FileInfo pdfInfo = toPdf(pdfGenerator);
-        pdfInfo.setFileName(pdfGenerator.getFileName());
-        return pdfInfo;
+        return toInvoiceFile(transactionId, invoiceDetails, toPdf(pdfGenerator));
     }
 
     /**
-     * adds the message  attachments
-     * @param zipOut the zipoutputstream
-     * @param messageId the messageId
+     * keeps a rendered invoice in the invoice store if the payment is paid
+     *
+     * @param transactionId  the transaction id
+     * @param invoiceDetails the invoice details
+     * @param pdfInfo        the rendered invoice
+     * @return the invoice, with its etag if it is stored
      */
-    @SneakyThrows
-    private void addZipForAttachments(ZipOutputStream zipOut, String messageId) {
-        Set<String> names = new HashSet<>();
-        //find the attachments
-        List<Attachment> attachments = messageAttachmentService.getMessageAttachments(Long.parseLong(messageId));
-        for (Attachment attachment : attachments) {
-            String fileName = attachment.getName();
-            if (!names.add(attachment.getName())) {
-                String name = attachment.getName().substring(0, attachment.getName().lastIndexOf(".")) + "_" + LocalDateTime.now();
-                String fileType = getFileType(attachment.getMimeType());
-                fileName = name + "." + fileType;
-            }
-            FileResponse fileResponse = documentClient.getDocument(attachment.getUri(), attachment.getName());
-            ZipEntry entry = new ZipEntry(fileName);
-            entry.setSize(fileResponse.getBytes().length);
-            zipOut.putNextEntry(entry);
-            zipOut.write(fileResponse.getBytes());
-            zipOut.closeEntry();
+    private InvoiceFile toInvoiceFile(String transactionId, InvoiceDetails invoiceDetails, FileInfo pdfInfo) {
+        // the applications of the payment are recorded with the confirmation, an invoice without them is not final
+        boolean paid = PaymentStatus.PAID.equals(invoiceDetails.getPaymentStatus())
+                || PaymentStatus.PAID_UPDATE_FO_FAILED.equals(invoiceDetails.getPaymentStatus());
+        if (paid && invoiceDetails.getApplicationsCount() > 0) {
+            return toInvoiceFile(invoiceStore.put(transactionId, pdfInfo.getFileContent()));
         }
+        return InvoiceFile.builder().fileContent(pdfInfo.getFileContent()).fileName(pdfInfo.getFileName()).build();
+    }
+
+    private static InvoiceFile toInvoiceFile(InvoiceStore.StoredInvoice storedInvoice) {
+        return InvoiceFile.builder()
+                .fileContent(storedInvoice.getContent())
+                .fileName(INVOICE_FILENAME)
+                .etag(storedInvoice.getHash())
+                .build();
     }
 
     /**
-     * adds the draft attachments
-     * @param zipOut the zipoutputstream
-     * @param messageId the messageId
+     * writes the correspondence zip, the pdf first and then the attachments in their order
+     * @param outputStream the output stream, left open
+     * @param pdfInfo the message pdf
+     * @param attachments the attachments
+     * @throws IOException if the zip cannot be written
      */
-    @SneakyThrows
-    private void addZipForDraftAttachments(ZipOutputStream zipOut, String messageId) {
+    private void writeZip(OutputStream outputStream, FileInfo pdfInfo, List<ZipAttachment> attachments) throws IOException {
+        ZipOutputStream zipOut = new ZipOutputStream(outputStream);
+        putZipEntry(zipOut, pdfInfo.getFileName(), pdfInfo.getFileContent());
         Set<String> names = new HashSet<>();
-        //find the attachments
-        List<DraftAttachment> attachments = messageAttachmentService.getDraftAttachments(Long.parseLong(messageId));
-        for (DraftAttachment attachment : attachments) {
-            String fileName = attachment.getName();
-            if (!names.add(attachment.getName())) {
-                String name = attachment.getName().substring(0, attachment.getName().lastIndexOf(".")) + "_" + LocalDateTime.now();
-                String fileType = getFileType(attachment.getMimeType());
-                fileName = name + "." + fileType;
+        attachmentFetcher.fetchInOrder(attachments,
+                attachment -> documentClient.getDocument(attachment.getUri(), attachment.getName()).getBytes(),
+                (attachment, content) -> {
+                    String fileName = attachment.getName();
+                    if (!names.add(attachment.getName())) {
+                        String name = attachment.getName().substring(0, attachment.getName().lastIndexOf(".")) + "_" + LocalDateTime.now();
+                        String fileType = getFileType(attachment.getMimeType());
+                        fileName = name + "." + fileType;
+                    }
+                    putZipEntry(zipOut, fileName, content);
+                });
+        zipOut.finish();
+    }
+
+    private static void putZipEntry(ZipOutputStream zipOut, String fileName, byte[] content) throws IOException {
+        ZipEntry entry = new ZipEntry(fileName);
+        entry.setSize(content.length);
+        zipOut.putNextEntry(entry);
+        zipOut.write(content);
+        zipOut.closeEntry();
+    }
+
+    /**
+     * gets the message attachments
+     * @param messageId the messageId
+     * @return the attachments
+     */
+    private List<ZipAttachment> getMessageAttachments(String messageId) {
+        return messageAttachmentService.getMessageAttachments(Long.parseLong(messageId)).stream()
+                .map(attachment -> new ZipAttachment(attachment.getName(), attachment.getMimeType(), attachment.getUri()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * gets the draft attachments
+     * @param messageId the messageId
+     * @return the attachments
+     */
+    private List<ZipAttachment> getDraftAttachments(String messageId) {
+        return messageAttachmentService.getDraftAttachments(Long.parseLong(messageId)).stream()
+                .map(attachment -> new ZipAttachment(attachment.getName(), attachment.getMimeType(), attachment.getUri()))
+                .collect(Collectors.toList());
+    }
+
+    private static StreamingReport toStreamingReport(String fileName, ContentWriter contentWriter) {
+        return toStreamingReport(fileName, MediaType.APPLICATION_OCTET_STREAM_VALUE, contentWriter);
+    }
+
+    private static StreamingReport toStreamingReport(String fileName, String contentType, ContentWriter contentWriter) {
+        return new StreamingReport() {
+            @Override
+            public String getFileName() {
+                return fileName;
             }
-            FileResponse fileResponse = documentClient.getDocument(attachment.getUri(), attachment.getName());
-            ZipEntry entry = new ZipEntry(fileName);
-            entry.setSize(fileResponse.getBytes().length);
-            zipOut.putNextEntry(entry);
-            zipOut.write(fileResponse.getBytes());
-            zipOut.closeEntry();
-        }
+
+            @Override
+            public String getContentType() {
+                return contentType;
+            }
+
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                contentWriter.writeTo(outputStream);
+            }
+        };
     }
 
     /**
@@ -256,23 +465,118 @@ public class PdfServiceImpl implements PdfService {
      * @return a fileInfo object
      */
     private FileInfo toPdf(PdfGenerator pdfGenerator) {
-        PdfTemplate pdfTemplate = this.pdfTemplateConfiguration.getPdfTemplate(pdfGenerator.getPdfTemplateType());
-        Map<String, Object> data = pdfGenerator.getData();
-        String content = this.pdfTemplateHelper.processTemplate(pdfTemplate, data, Locale.getDefault());
-        byte[] pdfBytes = Optional.of(writePdf(content, new PdfRendererBuilder())).map(ByteArrayOutputStream::toByteArray).orElse(new byte[]{});
+        byte[] pdfBytes = this.pdfRenderExecutor.render(pdfGenerator.getPdfTemplateType().name(), toRenderer(pdfGenerator));
         return new FileInfo(pdfBytes, pdfGenerator.getFileName());
     }
 
-    private ByteArrayOutputStream writePdf(final String content, final PdfRendererBuilder pdfRendererBuilder) {
+    /**
+     * prepares the rendering of a pdf, run on the render workers as template processing and rendering are cpu bound
+     *
+     * @param pdfGenerator pdf implementation class
+     * @return the renderer producing the pdf content
+     */
+    private Supplier<byte[]> toRenderer(PdfGenerator pdfGenerator) {
+        PdfTemplateCache.CachedTemplate cachedTemplate = this.pdfTemplateCache.getTemplate(pdfGenerator.getPdfTemplateType());
+        int rowCount = pdfGenerator.getRowCount();
+        if (isChunked(rowCount)) {
+            return () -> writeChunkedPdf(pdfGenerator, cachedTemplate, rowCount);
+        }
+        Map<String, Object> data = pdfGenerator.getData();
+        return () -> {
+            String content = this.pdfTemplateHelper.processTemplate(cachedTemplate.getPdfTemplate(), data, Locale.getDefault());
+            PdfRendererBuilder pdfRendererBuilder = this.pdfTemplateCache.configure(new PdfRendererBuilder(), cachedTemplate);
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            writePdf(content, pdfRendererBuilder, os);
+            return os.toByteArray();
+        };
+    }
+
+    private boolean isChunked(int rowCount) {
+        return chunkRows > 0 && rowCount > chunkThreshold;
+    }
+
+    /**
+     * renders a large report in slices of rows and concatenates them.
+     *
+     * @param pdfGenerator   pdf implementation class
+     * @param cachedTemplate the template of the report
+     * @param rowCount       the number of rows of the report
+     * @return the pdf content
+     */
+    private byte[] writeChunkedPdf(PdfGenerator pdfGenerator, PdfTemplateCache.CachedTemplate cachedTemplate, int rowCount) {
+        try (PdfSliceWriter pdfSliceWriter = renderSlices(pdfGenerator, cachedTemplate, rowCount)) {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            pdfSliceWriter.writeTo(os);
+            return os.toByteArray();
+        } catch (final IOException ex) {
+            throw new UserAreaException("Error generating pdf report", ex);
+        }
+    }
+
+    /**
+     * renders a large report in slices of rows, so that the layout of only one slice is held in memory.
+     * The title is rendered on the first slice only and the pages are numbered across the slices once they are
+     * concatenated. The slices are deleted when the returned writer is closed, or here if the rendering fails.
+     *
+     * @param pdfGenerator   pdf implementation class
+     * @param cachedTemplate the template of the report
+     * @param rowCount       the number of rows of the report
+     * @return the writer of the rendered slices
+     */
+    private PdfSliceWriter renderSlices(PdfGenerator pdfGenerator, PdfTemplateCache.CachedTemplate cachedTemplate, int rowCount) {
+        log.info("Rendering pdf {} with {} rows in slices of {}", pdfGenerator.getFileName(), rowCount, chunkRows);
+        PdfSliceWriter pdfSliceWriter = new PdfSliceWriter();
+        boolean rendered = false;
+        try {
+            for (int fromRow = 0; fromRow < rowCount; fromRow += chunkRows) {
+                // a render past its deadline is interrupted, its remaining slices are not rendered
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new UserAreaException("Interrupted while generating the pdf", new InterruptedException());
+                }
+                Map<String, Object> data = new HashMap<>(pdfGenerator.getData(fromRow, Math.min(fromRow + chunkRows, rowCount)));
+                data.put(CHUNKED, true);
+                data.put(FIRST_SLICE, fromRow == 0);
+                String content = this.pdfTemplateHelper.processTemplate(cachedTemplate.getPdfTemplate(), data, Locale.getDefault());
+                pdfSliceWriter.addSlice(os -> writePdf(content, this.pdfTemplateCache.configure(new PdfRendererBuilder(), cachedTemplate), os));
+            }
+            rendered = true;
+            return pdfSliceWriter;
+        } catch (final IOException ex) {
+            throw new UserAreaException("Error generating pdf report", ex);
+        } finally {
+            if (!rendered) {
+                pdfSliceWriter.close();
+            }
+        }
+    }
+
+    private void writePdf(final String content, final PdfRendererBuilder pdfRendererBuilder, final OutputStream os) {
         try {
-            final ByteArrayOutputStream os = new ByteArrayOutputStream();
             pdfRendererBuilder.withHtmlContent(content, resourcesBaseUri);
             pdfRendererBuilder.toStream(os);
             pdfRendererBuilder.run();
-            return os;
         } catch (final IOException ex) {
             throw new UserAreaException("Error generating pdf report", ex);
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * writer of the content of a correspondence download
+     */
+    @FunctionalInterface
+    private interface ContentWriter {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+    /**
+     * an attachment of a message or draft to be added to the zip
+     */
+    @Getter
+    @AllArgsConstructor
+    private static final class ZipAttachment {
+        private final String name;
+        private final String mimeType;
+        private final String uri;
+    }
+
+}
@@ -92,12 +92,9 @@ public class ApplicationUtils {
      */
     public static String convertLocarnoClassesToString(List<LocarnoDetails> locarnoList) {
         if (!CollectionUtils.isEmpty(locarnoList)) {
-            List<String> locarnos = locarnoList.stream()
+            return locarnoList.stream()
                     .map(loc -> StringUtils.join(loc.getMainClass(), ".", loc.getSubClass()))
-                    .collect(Collectors.toList());
-            return locarnos.stream()
-                .map(String::valueOf)
-                .collect(Collectors.joining(", "));
+                    .collect(Collectors.joining(", "));
         }
         return NOT_APPLICABLE;
     }
@@ -15,9 +15,9 @@ package eu.euipo.etmdn.userarea.business.core.impl.utils;
 
 import eu.euipo.etmdn.userarea.business.core.impl.comparator.SignatureComparator;
 import eu.euipo.etmdn.userarea.common.business.config.ApplicationConfiguration;
-import eu.euipo.etmdn.userarea.common.domain.signature.Signature;
 import eu.euipo.etmdn.userarea.common.persistence.entity.Application;
 import eu.euipo.etmdn.userarea.domain.ApplicationType;
+import eu.euipo.etmdn.userarea.domain.signature.ApplicationSignatures;
 import eu.euipo.etmdn.userarea.domain.signature.FOSignatureResource;
 import eu.euipo.etmdn.userarea.domain.signature.SignatureSortColumn;
 import eu.euipo.etmdn.userarea.domain.signature.SignatureSortingCriteriaRequest;
@@ -47,7 +47,7 @@ public class SignatureUtils {
 
     private SignatureUtils() { }
 
-    public static void sortSignatures(SignatureSortingCriteriaRequest signatureSortingCriteriaRequest, List<Signature> signatureList) {
+    public static void sortSignatures(SignatureSortingCriteriaRequest signatureSortingCriteriaRequest, List<ApplicationSignatures> signatureList) {
         if (signatureSortingCriteriaRequest.getSortColumn() == SignatureSortColumn.TYPE) {
             if(signatureSortingCriteriaRequest.getSortType().equalsIgnoreCase(ASCENDING) ) {
                 signatureList.sort(new SignatureComparator(SignatureSortColumn.TYPE));
@@ -70,10 +70,14 @@ public class SignatureUtils {
     }
 
     public static String getApplicationType(Application application) {
-        if (ApplicationType.ESERVICE.value.equalsIgnoreCase(application.getFoModule())) {
-            return application.getEserviceName();
+        return getApplicationType(application.getFoModule(), application.getEserviceName());
+    }
+
+    public static String getApplicationType(String foModule, String eserviceName) {
+        if (ApplicationType.ESERVICE.value.equalsIgnoreCase(foModule)) {
+            return eserviceName;
         } else {
-            return application.getFoModule().equalsIgnoreCase(TRADEMARK) ? UA_TM_EFILING : UA_DS_EFILING;
+            return foModule.equalsIgnoreCase(TRADEMARK) ? UA_TM_EFILING : UA_DS_EFILING;
         }
     }
 
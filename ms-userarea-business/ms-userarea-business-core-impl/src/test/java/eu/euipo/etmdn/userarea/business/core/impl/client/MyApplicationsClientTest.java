@@ -0,0 +1,165 @@
+/*
+ * $Id:: MyApplicationsClientTest.java 2021/10/29 17:40 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import eu.euipo.etmdn.userarea.common.domain.exception.ServiceUnavailableException;
+import eu.euipo.etmdn.userarea.domain.application.ApplicationSearchResult;
+import eu.euipo.etmdn.userarea.domain.application.SearchCriteriaApplication;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MyApplicationsClientTest {
+
+    private static final String ENDPOINT = "/applications";
+
+    private HttpServer server;
+    private MyApplicationsClient client;
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile int status = 200;
+    private volatile boolean blocking;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(ENDPOINT, this::respond);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        release.countDown();
+        if (client != null) {
+            client.destroy();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    public void testSearch() {
+        client = client(5000, 2, 2);
+        ApplicationSearchResult result = client.search(new SearchCriteriaApplication());
+        assertEquals(Long.valueOf(1), result.getTotalResults());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testSearchDeadline() {
+        blocking = true;
+        client = client(200, 2, 2);
+        assertUnavailable(() -> client.search(new SearchCriteriaApplication()), "Timed out");
+    }
+
+    @Test
+    public void testSearchErrorStatus() {
+        status = 500;
+        client = client(5000, 2, 2);
+        assertUnavailable(() -> client.search(new SearchCriteriaApplication()), "status 500");
+    }
+
+    @Test
+    public void testSearchConnectionRefused() throws IOException {
+        int port;
+        try (ServerSocket closedSocket = new ServerSocket(0)) {
+            port = closedSocket.getLocalPort();
+        }
+        client = new MyApplicationsClient("http://localhost:" + port, ENDPOINT, 500, 500, 5000, 2, 2, 2);
+        assertUnavailable(() -> client.search(new SearchCriteriaApplication()), "Failed to connect");
+    }
+
+    @Test
+    public void testSearchRejectedWhenBulkheadIsFull() throws InterruptedException {
+        blocking = true;
+        client = client(5000, 1, 1);
+        CompletableFuture<ApplicationSearchResult> inFlight = client.searchAsync(new SearchCriteriaApplication());
+        CompletableFuture<ApplicationSearchResult> queued = client.searchAsync(new SearchCriteriaApplication());
+        CompletableFuture<ApplicationSearchResult> rejected = client.searchAsync(new SearchCriteriaApplication());
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.get();
+            fail("The call should be rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ServiceUnavailableException);
+            assertTrue(e.getCause().getMessage().contains("Too many concurrent requests"));
+        }
+        release.countDown();
+        inFlight.join();
+        queued.join();
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testCancelledQueuedCallIsNotSent() throws InterruptedException {
+        blocking = true;
+        client = client(5000, 1, 1);
+        CompletableFuture<ApplicationSearchResult> inFlight = client.searchAsync(new SearchCriteriaApplication());
+        CompletableFuture<ApplicationSearchResult> queued = client.searchAsync(new SearchCriteriaApplication());
+        queued.cancel(true);
+        release.countDown();
+        inFlight.join();
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(1, calls.get());
+    }
+
+    private MyApplicationsClient client(long callTimeout, int maxConcurrentCalls, int maxQueuedCalls) {
+        return new MyApplicationsClient("http://localhost:" + server.getAddress().getPort(), ENDPOINT,
+                1000, 5000, callTimeout, 5, maxConcurrentCalls, maxQueuedCalls);
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        calls.incrementAndGet();
+        try {
+            if (blocking) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = "{\"content\":[],\"totalResults\":1}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private static void assertUnavailable(Runnable call, String message) {
+        try {
+            call.run();
+            fail("The call should fail");
+        } catch (ServiceUnavailableException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+}
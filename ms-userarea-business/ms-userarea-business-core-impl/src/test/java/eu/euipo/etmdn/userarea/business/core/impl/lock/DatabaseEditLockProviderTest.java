@@ -0,0 +1,164 @@
+/*
+ * $Id:: DatabaseEditLockProviderTest.java 2021/10/29 16:30 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.lock;
+
+import eu.euipo.etmdn.userarea.common.domain.exception.ApplicationEntityLockedException;
+import eu.euipo.etmdn.userarea.common.domain.exception.NoteEntityLockedException;
+import eu.euipo.etmdn.userarea.domain.lock.LockHolder;
+import eu.euipo.etmdn.userarea.persistence.repository.application.ApplicationLockRepository;
+import eu.euipo.etmdn.userarea.persistence.repository.note.NoteApplicationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DatabaseEditLockProviderTest {
+
+    private static final String NUMBER = "EFEM202100000001";
+    private static final String USERNAME = "user";
+    private static final String OTHER = "other";
+
+    @Mock
+    private ApplicationLockRepository applicationLockRepository;
+    @Mock
+    private NoteApplicationRepository noteApplicationRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DatabaseEditLockProvider databaseEditLockProvider;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        databaseEditLockProvider = new DatabaseEditLockProvider(applicationLockRepository, noteApplicationRepository,
+                new LockMetrics(meterRegistry, 900), 900);
+    }
+
+    @Test
+    public void testAcquireAllRows() {
+        when(applicationLockRepository.lockByNumber(eq(NUMBER), eq(USERNAME), any(LocalDateTime.class))).thenReturn(2);
+        when(applicationLockRepository.countByNumber(NUMBER)).thenReturn(2L);
+
+        assertFalse(databaseEditLockProvider.acquire(EditLockType.APPLICATION, NUMBER, USERNAME).isPresent());
+
+        verify(applicationLockRepository, never()).findLockHoldersByNumber(anyString());
+        assertEquals(1, count("acquired"), 0);
+    }
+
+    @Test
+    public void testAcquireHeldByOther() {
+        when(applicationLockRepository.lockByNumber(eq(NUMBER), eq(USERNAME), any(LocalDateTime.class))).thenReturn(0);
+        when(applicationLockRepository.countByNumber(NUMBER)).thenReturn(2L);
+        when(applicationLockRepository.findLockHoldersByNumber(NUMBER)).thenReturn(Collections.singletonList(OTHER + " "));
+
+        assertEquals(Optional.of(OTHER), databaseEditLockProvider.acquire(EditLockType.APPLICATION, NUMBER, USERNAME));
+
+        assertEquals(1, count("conflict"), 0);
+    }
+
+    @Test(expected = ApplicationEntityLockedException.class)
+    public void testAcquirePartiallyHeldByOther() {
+        when(applicationLockRepository.lockByNumber(eq(NUMBER), eq(USERNAME), any(LocalDateTime.class))).thenReturn(1);
+        when(applicationLockRepository.countByNumber(NUMBER)).thenReturn(2L);
+        when(applicationLockRepository.findLockHoldersByNumber(NUMBER)).thenReturn(Arrays.asList("USER", OTHER));
+
+        try {
+            databaseEditLockProvider.acquire(EditLockType.APPLICATION, NUMBER, USERNAME);
+        } finally {
+            assertEquals(1, count("conflict"), 0);
+            assertEquals(0, count("acquired"), 0);
+        }
+    }
+
+    @Test
+    public void testAcquireWithoutRows() {
+        when(noteApplicationRepository.lockByApplicationNumber(eq(NUMBER), eq(USERNAME), any(LocalDateTime.class))).thenReturn(0);
+        when(noteApplicationRepository.countByApplicationNumber(NUMBER)).thenReturn(0L);
+
+        assertFalse(databaseEditLockProvider.acquire(EditLockType.NOTE, NUMBER, USERNAME).isPresent());
+    }
+
+    @Test
+    public void testReleaseNotHeld() {
+        when(noteApplicationRepository.releaseByApplicationNumber(NUMBER, USERNAME)).thenReturn(0);
+        when(noteApplicationRepository.countByApplicationNumber(NUMBER)).thenReturn(1L);
+        when(noteApplicationRepository.findLockHoldersByApplicationNumber(NUMBER)).thenReturn(Collections.emptyList());
+
+        assertFalse(databaseEditLockProvider.release(EditLockType.NOTE, NUMBER, USERNAME).isPresent());
+    }
+
+    @Test
+    public void testReleaseHeldByOther() {
+        when(noteApplicationRepository.releaseByApplicationNumber(NUMBER, USERNAME)).thenReturn(0);
+        when(noteApplicationRepository.countByApplicationNumber(NUMBER)).thenReturn(1L);
+        when(noteApplicationRepository.findLockHoldersByApplicationNumber(NUMBER)).thenReturn(Collections.singletonList(OTHER));
+
+        assertEquals(Optional.of(OTHER), databaseEditLockProvider.release(EditLockType.NOTE, NUMBER, USERNAME));
+    }
+
+    @Test(expected = NoteEntityLockedException.class)
+    public void testReleasePartiallyHeldByOther() {
+        when(noteApplicationRepository.releaseByApplicationNumber(NUMBER, USERNAME)).thenReturn(1);
+        when(noteApplicationRepository.countByApplicationNumber(NUMBER)).thenReturn(2L);
+        when(noteApplicationRepository.findLockHoldersByApplicationNumber(NUMBER)).thenReturn(Collections.singletonList(OTHER));
+
+        databaseEditLockProvider.release(EditLockType.NOTE, NUMBER, USERNAME);
+    }
+
+    @Test
+    public void testFindHolders() {
+        when(applicationLockRepository.findLockHoldersByNumbers(Arrays.asList(NUMBER, "EFEM202100000002")))
+                .thenReturn(Collections.singletonList(new Object[]{NUMBER, " " + OTHER}));
+
+        Map<String, String> holders = databaseEditLockProvider.findHolders(EditLockType.APPLICATION,
+                Arrays.asList(NUMBER, "EFEM202100000002"));
+
+        assertEquals(Collections.singletonMap(NUMBER, OTHER), holders);
+        assertTrue(databaseEditLockProvider.findHolders(EditLockType.APPLICATION, Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    public void testToLockHolder() {
+        LocalDateTime lockedDate = LocalDateTime.of(2021, 10, 29, 16, 30);
+        LockHolder holder = DatabaseEditLockProvider.toLockHolder(LockMetrics.NOTE, new Object[]{NUMBER, OTHER, lockedDate}, 900);
+        assertEquals(NUMBER, holder.getKey());
+        assertEquals(OTHER, holder.getUsername());
+        assertEquals(lockedDate.plusMinutes(15), holder.getExpiresAt());
+    }
+
+    private double count(String result) {
+        Counter counter = meterRegistry.find("userarea.locks.acquisitions")
+                .tags("resource", "application", "result", result).counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * $Id:: LockMetricsTest.java 2021/10/26 10:10 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intellectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.lock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LockMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LockMetrics lockMetrics;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lockMetrics = new LockMetrics(meterRegistry, 900);
+    }
+
+    @Test
+    public void testAcquiredAndReleased() {
+        lockMetrics.acquired(LockMetrics.APPLICATION, "EFEM202100000001");
+        lockMetrics.acquired(LockMetrics.APPLICATION, "EFEM202100000001");
+        lockMetrics.released(LockMetrics.APPLICATION, "EFEM202100000001");
+        assertEquals(2, meterRegistry.get("userarea.locks.acquisitions")
+                .tags("resource", "application", "result", "acquired").counter().count(), 0);
+        assertEquals(1, meterRegistry.get("userarea.locks.releases")
+                .tags("resource", "application", "reason", "explicit").counter().count(), 0);
+        assertEquals(1, meterRegistry.get("userarea.locks.hold").tag("resource", "application").timer().count());
+    }
+
+    @Test
+    public void testConflict() {
+        lockMetrics.conflict(LockMetrics.NOTE);
+        assertEquals(1, meterRegistry.get("userarea.locks.acquisitions")
+                .tags("resource", "note", "result", "conflict").counter().count(), 0);
+    }
+
+    @Test
+    public void testExpired() {
+        lockMetrics.expired(LockMetrics.MESSAGE, 3);
+        lockMetrics.released(LockMetrics.MESSAGE, "1");
+        assertEquals(3, meterRegistry.get("userarea.locks.releases")
+                .tags("resource", "message", "reason", "expired").counter().count(), 0);
+        assertNull(meterRegistry.find("userarea.locks.hold").timer());
+    }
+
+    @Test
+    public void testHoldsBounded() {
+        for (int i = 0; i < LockMetrics.MAX_HOLDS + 10; i++) {
+            lockMetrics.acquired(LockMetrics.NOTE, String.valueOf(i));
+        }
+        assertEquals(LockMetrics.MAX_HOLDS, lockMetrics.getHoldCount());
+    }
+
+    @Test
+    public void testExpiredHoldsPruned() throws InterruptedException {
+        lockMetrics = new LockMetrics(meterRegistry, 0);
+        lockMetrics.acquired(LockMetrics.NOTE, "1");
+        Thread.sleep(1);
+        lockMetrics.expired(LockMetrics.NOTE, 0);
+        assertEquals(0, lockMetrics.getHoldCount());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * $Id:: RedisEditLockProviderTest.java 2021/10/29 16:30 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.lock;
+
+import eu.euipo.etmdn.userarea.domain.lock.LockHolder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.GenericContainer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the lock scripts against a redis started in a container, skipped when docker is not available.
+ */
+public class RedisEditLockProviderTest {
+
+    private static final String NUMBER = "EFEM202100000001";
+    private static final String LOCK_KEY = "userarea:lock:application:" + NUMBER;
+    private static final String USERNAME = "user";
+    private static final String OTHER = "other";
+
+    private static GenericContainer<?> redis;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private RedisEditLockProvider redisEditLockProvider;
+
+    @BeforeClass
+    public static void startRedis() {
+        Assume.assumeTrue("docker is not available", DockerClientFactory.instance().isDockerAvailable());
+        redis = new GenericContainer<>("redis:6-alpine").withExposedPorts(6379);
+        redis.start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterClass
+    public static void stopRedis() {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+        if (redis != null) {
+            redis.stop();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.flushDb();
+            return null;
+        });
+        redisEditLockProvider = new RedisEditLockProvider(redisTemplate, new LockMetrics(new SimpleMeterRegistry(), 900), 900);
+    }
+
+    @Test
+    public void testAcquireSetsLease() {
+        assertFalse(redisEditLockProvider.acquire(EditLockType.APPLICATION, NUMBER, USERNAME).isPresent());
+
+        assertEquals(USERNAME, redisTemplate.opsForValue().get(LOCK_KEY));
+        Long ttl = redisTemplate.getExpire(LOCK_KEY, TimeUnit.SECONDS);
+        assertTrue(ttl != null && ttl > 0 && ttl <= 900);
+    }
+
+    @Test
+    public void testAcquireRenewsLeaseIgnoringCase() {
+        redisTemplate.opsForValue().set(LOCK_KEY, "USER", 10, TimeUnit.SECONDS);
+
+        assertFalse(redisEditLockProvider.acquire(EditLockType.APPLICATION, NUMBER, USERNAME).isPresent());
+
+        assertTrue(redisTemplate.getExpire(LOCK_KEY, TimeUnit.SECONDS) > 10);
+    }
+
+    @Test
+    public void testAcquireHeldByOther() {
+        redisEditLockProvider.acquire(EditLockType.APPLICATION, NUMBER, OTHER);
+
+        assertEquals(Optional.of(OTHER), redisEditLockProvider.acquire(EditLockType.APPLICATION, NUMBER, USERNAME));
+        assertEquals(OTHER, redisTemplate.opsForValue().get(LOCK_KEY));
+    }
+
+    @Test
+    public void testRelease() {
+        redisEditLockProvider.acquire(EditLockType.APPLICATION, NUMBER, USERNAME);
+
+        assertFalse(redisEditLockProvider.release(EditLockType.APPLICATION, NUMBER, USERNAME).isPresent());
+        assertNull(redisTemplate.opsForValue().get(LOCK_KEY));
+        assertFalse(redisEditLockProvider.release(EditLockType.APPLICATION, NUMBER, USERNAME).isPresent());
+    }
+
+    @Test
+    public void testReleaseHeldByOther() {
+        redisEditLockProvider.acquire(EditLockType.APPLICATION, NUMBER, OTHER);
+
+        assertEquals(Optional.of(OTHER), redisEditLockProvider.release(EditLockType.APPLICATION, NUMBER, USERNAME));
+        assertEquals(OTHER, redisTemplate.opsForValue().get(LOCK_KEY));
+    }
+
+    @Test
+    public void testHolders() {
+        redisEditLockProvider.acquire(EditLockType.APPLICATION, NUMBER, USERNAME);
+        redisEditLockProvider.acquire(EditLockType.NOTE, NUMBER, OTHER);
+
+        List<LockHolder> holders = redisEditLockProvider.getHolders(EditLockType.APPLICATION);
+        assertEquals(1, holders.size());
+        assertEquals(NUMBER, holders.get(0).getKey());
+        assertEquals(USERNAME, holders.get(0).getUsername());
+        assertEquals(Collections.singletonMap(NUMBER, OTHER),
+                redisEditLockProvider.findHolders(EditLockType.NOTE, Arrays.asList(NUMBER, "EFEM202100000002")));
+    }
+}
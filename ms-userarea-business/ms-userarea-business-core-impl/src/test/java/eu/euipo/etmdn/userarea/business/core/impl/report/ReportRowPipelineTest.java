@@ -0,0 +1,96 @@
+/*
+ * $Id:: ReportRowPipelineTest.java 2021/10/29 19:10 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.report;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ReportRowPipelineTest {
+
+    private static final String REPORT = "xlsx";
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReportRowPipeline reportRowPipeline;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @After
+    public void tearDown() {
+        reportRowPipeline.destroy();
+    }
+
+    @Test
+    public void testProcessSerialRecordsOneSamplePerChunk() {
+        reportRowPipeline = new ReportRowPipeline(meterRegistry, 0, 2, 64);
+        List<String> rows = reportRowPipeline.map(REPORT, items(5), String::valueOf);
+        assertEquals(Arrays.asList("0", "1", "2", "3", "4"), rows);
+        assertEquals(3, stageTimer("prepare").count());
+        assertEquals(3, stageTimer("write").count());
+        assertEquals(5, meterRegistry.get("userarea.reports.rows").counter().count(), 0);
+    }
+
+    @Test
+    public void testProcessParallelRecordsOneSamplePerChunk() {
+        reportRowPipeline = new ReportRowPipeline(meterRegistry, 2, 2, 1);
+        List<String> rows = reportRowPipeline.map(REPORT, items(5), String::valueOf);
+        assertEquals(Arrays.asList("0", "1", "2", "3", "4"), rows);
+        assertEquals(3, stageTimer("prepare").count());
+        assertEquals(3, stageTimer("write").count());
+    }
+
+    @Test
+    public void testProcessParallelWriterFailure() {
+        reportRowPipeline = new ReportRowPipeline(meterRegistry, 2, 2, 1);
+        List<String> written = new ArrayList<>();
+        try {
+            reportRowPipeline.process(REPORT, items(6), String::valueOf, row -> {
+                if ("2".equals(row)) {
+                    throw new UncheckedIOException(new IOException("Broken pipe"));
+                }
+                written.add(row);
+            });
+            fail("The writer failure is not propagated");
+        } catch (UncheckedIOException e) {
+            assertEquals("Broken pipe", e.getCause().getMessage());
+        }
+        assertEquals(Arrays.asList("0", "1"), written);
+        // the pipeline is still usable once the aborted report is given up
+        assertEquals(Arrays.asList("0", "1", "2"), reportRowPipeline.map(REPORT, items(3), String::valueOf));
+    }
+
+    private Timer stageTimer(final String stage) {
+        return meterRegistry.get("userarea.reports.rows.stage").tag("report", REPORT).tag("stage", stage).timer();
+    }
+
+    private static List<Integer> items(final int size) {
+        return IntStream.range(0, size).boxed().collect(Collectors.toList());
+    }
+}
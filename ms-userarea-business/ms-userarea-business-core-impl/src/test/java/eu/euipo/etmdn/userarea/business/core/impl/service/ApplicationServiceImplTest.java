@@ -13,23 +13,33 @@
 
 package eu.euipo.etmdn.userarea.business.core.impl.service;
 
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReceipt;
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReport;
 import eu.euipo.etmdn.userarea.business.core.api.service.NoteService;
 import eu.euipo.etmdn.userarea.business.core.api.service.PaymentService;
 import eu.euipo.etmdn.userarea.business.core.api.service.PdfService;
+import eu.euipo.etmdn.userarea.business.core.impl.cache.ApplicationSearchCache;
+import eu.euipo.etmdn.userarea.business.core.impl.cache.ReceiptCache;
+import eu.euipo.etmdn.userarea.business.core.impl.client.FrontofficeReceiptClient;
+import eu.euipo.etmdn.userarea.business.core.impl.client.MyApplicationsClient;
+import eu.euipo.etmdn.userarea.business.core.impl.lock.EditLockProvider;
+import eu.euipo.etmdn.userarea.business.core.impl.lock.EditLockType;
 import eu.euipo.etmdn.userarea.common.business.config.ApplicationConfiguration;
 import eu.euipo.etmdn.userarea.common.business.config.IpoConfiguration;
 import eu.euipo.etmdn.userarea.common.business.event.AuditEventPublisher;
 import eu.euipo.etmdn.userarea.common.business.service.AccountService;
+import eu.euipo.etmdn.userarea.common.domain.ApplicationSignature;
 import eu.euipo.etmdn.userarea.common.domain.ApplicationStatus;
 import eu.euipo.etmdn.userarea.common.domain.DomainAccount;
-import eu.euipo.etmdn.userarea.common.domain.FileInfo;
 import eu.euipo.etmdn.userarea.common.domain.FilteringData;
 import eu.euipo.etmdn.userarea.common.domain.FilteringDate;
 import eu.euipo.etmdn.userarea.common.domain.PaginationData;
+import eu.euipo.etmdn.userarea.common.domain.SignatureStatus;
 import eu.euipo.etmdn.userarea.common.domain.SortingData;
 import eu.euipo.etmdn.userarea.common.domain.eservice.ValidateEServiceRequest;
 import eu.euipo.etmdn.userarea.common.domain.eservice.ValidateEServiceResponse;
 import eu.euipo.etmdn.userarea.common.domain.eservice.ValidationStatusEServiceType;
+import eu.euipo.etmdn.userarea.common.domain.exception.ApplicationEntityLockedException;
 import eu.euipo.etmdn.userarea.common.domain.exception.EntityNotFoundException;
 import eu.euipo.etmdn.userarea.common.domain.exception.ServiceUnavailableException;
 import eu.euipo.etmdn.userarea.common.domain.exception.ValidateEserviceException;
@@ -42,10 +52,19 @@ import eu.euipo.etmdn.userarea.domain.ApplicationType;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationDetails;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationRequest;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationSearchResult;
+import eu.euipo.etmdn.userarea.domain.application.DraftBulkResult;
+import eu.euipo.etmdn.userarea.domain.application.DraftBulkStatus;
 import eu.euipo.etmdn.userarea.domain.note.NoteApplication;
+import eu.euipo.etmdn.userarea.domain.payment.InvoiceFile;
+import eu.euipo.etmdn.userarea.domain.signature.ApplicationSignatures;
 import eu.euipo.etmdn.userarea.persistence.entity.note.NoteApplicationEntity;
 import eu.euipo.etmdn.userarea.persistence.entity.payment.PaymentApplicationEntity;
 import eu.euipo.etmdn.userarea.persistence.entity.payment.PaymentEntity;
+import eu.euipo.etmdn.userarea.persistence.repository.application.ApplicationLockRepository;
+import eu.euipo.etmdn.userarea.persistence.repository.application.ApplicationReceiptRepository;
+import eu.euipo.etmdn.userarea.persistence.repository.signature.ApplicationSignaturesRepository;
+import eu.euipo.etmdn.userarea.persistence.repository.application.ApplicationReceiptRepositoryCustom;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -58,8 +77,14 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.FileCopyUtils;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
@@ -68,10 +93,14 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -104,6 +133,20 @@ public class ApplicationServiceImplTest {
     private PdfService pdfService;
     @Mock
     private PaymentService paymentService;
+    @Mock
+    private MyApplicationsClient myApplicationsClient;
+    @Mock
+    private FrontofficeReceiptClient frontofficeReceiptClient;
+    @Mock
+    private FrontofficeReceiptClient.Receipt frontofficeReceipt;
+    @Mock
+    private ApplicationReceiptRepository applicationReceiptRepository;
+    @Mock
+    private EditLockProvider editLockProvider;
+    @Mock
+    private ApplicationLockRepository applicationLockRepository;
+    @Mock
+    private ApplicationSignaturesRepository applicationSignaturesRepository;
 
     private Page<Application> pageableApplicationTrademark;
     private ApplicationRequest applicationRequestTrademark;
@@ -120,7 +163,10 @@ public class ApplicationServiceImplTest {
 
     @Before
     public void setUp() {
-        applicationService = new ApplicationServiceImpl(applicationRepository, accountService, qualifiedServiceRepository, noteService, applicationConfiguration, ipoConfiguration, env, restTemplate, auditEventPublisher,paymentService,pdfService, "", "", "","","");
+        applicationService = new ApplicationServiceImpl(applicationRepository, accountService, qualifiedServiceRepository, noteService, applicationConfiguration, ipoConfiguration, env, restTemplate, auditEventPublisher,paymentService,pdfService,
+                new ApplicationSearchCache(new SimpleMeterRegistry(), 30, false, 60, 1000), myApplicationsClient,
+                frontofficeReceiptClient, new ReceiptCache(1024, 512), applicationReceiptRepository, editLockProvider, applicationLockRepository,
+                applicationSignaturesRepository, "", "", "lock");
         Application applicationTrademark = Application.builder().number(NUMBER).foModule("Trademark").type("Word")
                 .kind("Individual").status("Submitted").build();
         pageableApplicationTrademark = new PageImpl<>(Collections.singletonList(applicationTrademark));
@@ -171,7 +217,7 @@ public class ApplicationServiceImplTest {
     public void testGetServiceUnavailableException() {
         ApplicationSearchResult result = new ApplicationSearchResult();
         result.setContent(Collections.singletonList(ApplicationDetails.builder().number(NUMBER).build()));
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenThrow(new ServiceUnavailableException(""));
+        when(myApplicationsClient.search(any())).thenThrow(new ServiceUnavailableException(""));
         applicationService.getApplications(applicationRequestTrademark, roles);
     }
 
@@ -179,17 +225,40 @@ public class ApplicationServiceImplTest {
     public void testGetTrademarksWithoutFilters() {
         ApplicationSearchResult result = new ApplicationSearchResult();
         result.setContent(Collections.singletonList(ApplicationDetails.builder().number(NUMBER).build()));
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestTrademark, roles);
         assertNotNull(applicationSearchResult);
     }
 
+    @Test
+    public void testGetApplicationsFromCache() {
+        ApplicationSearchResult result = new ApplicationSearchResult();
+        when(myApplicationsClient.search(any())).thenReturn(result);
+        applicationService.getApplications(applicationRequestTrademark, roles);
+        ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestTrademark, roles);
+        assertNotNull(applicationSearchResult);
+        verify(myApplicationsClient, times(1)).search(any());
+    }
+
+    @Test
+    public void testGetApplicationsCacheEvictedOnLock() {
+        Application draft = Application.builder().id(1L).number(NUMBER).foModule("Trademark").type("Word")
+                .kind("Individual").status("Initialized").mainAccount(MainAccount.builder().username(USERNAME).build()).build();
+        when(accountService.isAllowedToModifyApplication(USERNAME, USERNAME)).thenReturn(true);
+        when(applicationRepository.findByIdAndStatusIsIn(1L, Collections.singletonList("Initialized"))).thenReturn(draft);
+        when(myApplicationsClient.search(any())).thenReturn(new ApplicationSearchResult());
+        applicationService.getApplications(applicationRequestTrademark, roles);
+        applicationService.lock(USERNAME, 1L);
+        applicationService.getApplications(applicationRequestTrademark, roles);
+        verify(myApplicationsClient, times(2)).search(any());
+    }
+
     @Test
     public void testGetTrademarksFilteringType() {
         applicationRequestTrademark.getFilteringData().setTypes(Arrays.asList("Word", "Sound"));
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestTrademark, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -199,7 +268,7 @@ public class ApplicationServiceImplTest {
         applicationRequestTrademark.getFilteringData().setKinds(Arrays.asList("Individual", "Collective"));
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestTrademark, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -209,7 +278,7 @@ public class ApplicationServiceImplTest {
         applicationRequestTrademark.getFilteringData().setStatuses(Arrays.asList("Submitted", "Expired"));
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestTrademark, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -219,7 +288,7 @@ public class ApplicationServiceImplTest {
         applicationRequestTrademark.getFilteringData().setClasses(Arrays.asList("1", "2", "3"));
         ApplicationSearchResult result = new ApplicationSearchResult();
 
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestTrademark, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -233,7 +302,7 @@ public class ApplicationServiceImplTest {
         applicationRequestTrademark.setSearchingData("5678");
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestTrademark, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -245,7 +314,7 @@ public class ApplicationServiceImplTest {
                 FilteringDate.builder().date("statusDate").dateFrom(LocalDateTime.now().minusMonths(6L)).dateTo(LocalDateTime.now()).build()));
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestTrademark, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -255,7 +324,7 @@ public class ApplicationServiceImplTest {
         applicationRequestTrademark.setSearchingData("5678");
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestTrademark, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -264,7 +333,7 @@ public class ApplicationServiceImplTest {
     public void testGetDesignsWithoutFilters() {
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestDesign, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -274,7 +343,7 @@ public class ApplicationServiceImplTest {
         applicationRequestDesign.getFilteringData().setStatuses(Arrays.asList("Word", "Sound"));
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestDesign, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -284,7 +353,7 @@ public class ApplicationServiceImplTest {
         applicationRequestDesign.getFilteringData().setLocarno("01");
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestDesign, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -296,7 +365,7 @@ public class ApplicationServiceImplTest {
                 FilteringDate.builder().date("statusDate").dateFrom(LocalDateTime.now().minusMonths(6L)).dateTo(LocalDateTime.now()).build()));
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestDesign, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -306,7 +375,7 @@ public class ApplicationServiceImplTest {
         applicationRequestDesign.setSearchingData("5678");
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestDesign, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -318,7 +387,7 @@ public class ApplicationServiceImplTest {
                 FilteringDate.builder().date("creationDate").dateFrom(LocalDateTime.now().minusMonths(6L)).dateTo(LocalDateTime.now()).build()));
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestDesign, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -328,7 +397,7 @@ public class ApplicationServiceImplTest {
         applicationRequestEservice.getFilteringData().setFormTypes(Arrays.asList("TM_TRANSFER", "TM_LIMITATION"));
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestEservice, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -338,7 +407,7 @@ public class ApplicationServiceImplTest {
         applicationRequestEservice.getFilteringData().setStatuses(Arrays.asList("Submitted", "Expired"));
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestEservice, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -350,7 +419,7 @@ public class ApplicationServiceImplTest {
         applicationRequestEservice.getFilteringData().setIpRightType("Trademarks");
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestEservice, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -360,7 +429,7 @@ public class ApplicationServiceImplTest {
         roles.add("ROLE_TRADEMARKS");
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestEservice, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -370,7 +439,7 @@ public class ApplicationServiceImplTest {
         roles.add("ROLE_DESIGNS");
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestEservice, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -382,7 +451,7 @@ public class ApplicationServiceImplTest {
                 FilteringDate.builder().date("statusDate").dateFrom(LocalDateTime.now().minusMonths(6L)).dateTo(LocalDateTime.now()).build()));
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestEservice, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -392,7 +461,7 @@ public class ApplicationServiceImplTest {
         applicationRequestEservice.setSearchingData("5678");
 
         ApplicationSearchResult result = new ApplicationSearchResult();
-        when(restTemplate.postForObject(any(String.class),any(Object.class),any(Class.class),any(Object.class))).thenReturn(result);
+        when(myApplicationsClient.search(any())).thenReturn(result);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequestEservice, roles);
         assertNotNull(applicationSearchResult);
     }
@@ -405,7 +474,6 @@ public class ApplicationServiceImplTest {
         when(applicationRepository.findByIdAndStatusIsIn(1L, Collections.singletonList("Initialized"))).thenReturn(draft);
         when(applicationRepository.getApplicationById(1L)).thenReturn(draft);
         when(applicationRepository.findByNumber(draft.getNumber())).thenReturn(Collections.singletonList(draft));
-        when(applicationRepository.save(any())).thenReturn(draft);
         when(accountService.isAllowedToModifyApplication(USERNAME, USERNAME)).thenReturn(true);
         boolean isDeleted = applicationService.delete(USERNAME, 1L);
         Assert.assertTrue(isDeleted);
@@ -458,27 +526,216 @@ public class ApplicationServiceImplTest {
         Assert.assertFalse(isLocked);
     }
 
+    @Test
+    public void testDeleteAllDrafts() {
+        when(applicationLockRepository.findDrafts(any(), eq(Collections.singletonList("Initialized")))).thenReturn(Arrays.asList(
+                new Object[]{1L, "N1", USERNAME}, new Object[]{2L, "N2", "other@xyz.com"}, new Object[]{4L, "N4", USERNAME}));
+        when(accountService.isAllowedToModifyApplication(USERNAME, USERNAME)).thenReturn(true);
+        when(accountService.isAllowedToModifyApplication(USERNAME, "other@xyz.com")).thenReturn(false);
+        when(editLockProvider.acquire(EditLockType.APPLICATION, "N1", USERNAME)).thenReturn(Optional.empty());
+        when(editLockProvider.acquire(EditLockType.APPLICATION, "N4", USERNAME)).thenReturn(Optional.of("someone@xyz.com"));
+        List<DraftBulkResult> results = applicationService.deleteAll(" " + USERNAME, Arrays.asList(1L, 2L, 3L, 4L, 1L));
+        assertEquals(4, results.size());
+        assertEquals(DraftBulkStatus.DELETED, results.get(0).getStatus());
+        assertEquals(DraftBulkStatus.NOT_ALLOWED, results.get(1).getStatus());
+        assertEquals(DraftBulkStatus.NOT_FOUND, results.get(2).getStatus());
+        assertEquals(DraftBulkStatus.LOCKED_BY_OTHER, results.get(3).getStatus());
+        assertEquals("someone@xyz.com", results.get(3).getLockedBy());
+        verify(applicationLockRepository).deleteByNumbers(Collections.singleton("N1"));
+        verify(editLockProvider).release(EditLockType.APPLICATION, "N1", USERNAME);
+        verify(editLockProvider, never()).release(EditLockType.APPLICATION, "N4", USERNAME);
+        verify(auditEventPublisher, times(1)).publishCustomEvent(any(), eq(USERNAME), any());
+    }
+
+    @Test
+    public void testDeleteAllDraftsPartlyLockedByOther() {
+        when(applicationLockRepository.findDrafts(any(), eq(Collections.singletonList("Initialized")))).thenReturn(Arrays.asList(
+                new Object[]{1L, "N1", USERNAME}, new Object[]{2L, "N2", USERNAME}));
+        when(accountService.isAllowedToModifyApplication(USERNAME, USERNAME)).thenReturn(true);
+        when(editLockProvider.acquire(EditLockType.APPLICATION, "N1", USERNAME)).thenThrow(new ApplicationEntityLockedException("someone@xyz.com"));
+        when(editLockProvider.acquire(EditLockType.APPLICATION, "N2", USERNAME)).thenReturn(Optional.empty());
+        List<DraftBulkResult> results = applicationService.deleteAll(USERNAME, Arrays.asList(1L, 2L));
+        assertEquals(DraftBulkStatus.LOCKED_BY_OTHER, results.get(0).getStatus());
+        assertEquals("someone@xyz.com", results.get(0).getLockedBy());
+        assertEquals(DraftBulkStatus.DELETED, results.get(1).getStatus());
+        verify(applicationLockRepository).releaseByNumber("N1", USERNAME);
+        verify(applicationLockRepository).deleteByNumbers(Collections.singleton("N2"));
+        verify(editLockProvider).release(EditLockType.APPLICATION, "N2", USERNAME);
+    }
+
+    @Test
+    public void testLockAllDrafts() {
+        when(applicationLockRepository.findDrafts(any(), eq(Collections.singletonList("Initialized")))).thenReturn(Arrays.asList(
+                new Object[]{1L, "N1", USERNAME}, new Object[]{2L, "N1", USERNAME}));
+        when(accountService.isAllowedToModifyApplication(USERNAME, USERNAME)).thenReturn(true);
+        List<DraftBulkResult> results = applicationService.lockAll(USERNAME, Arrays.asList(1L, 2L));
+        assertEquals(DraftBulkStatus.LOCKED, results.get(0).getStatus());
+        assertEquals(DraftBulkStatus.LOCKED, results.get(1).getStatus());
+        verify(applicationLockRepository).updateLockedByNumbers(Collections.singleton("N1"), true);
+        verify(accountService, times(1)).isAllowedToModifyApplication(USERNAME, USERNAME);
+        verify(editLockProvider, never()).acquire(any(), any(), any());
+    }
+
+    @Test
+    public void testUnlockAllDraftsNotFound() {
+        List<DraftBulkResult> results = applicationService.unlockAll(USERNAME, Collections.singletonList(1L));
+        assertEquals(DraftBulkStatus.NOT_FOUND, results.get(0).getStatus());
+        verify(applicationLockRepository, never()).updateLockedByNumbers(any(), eq(false));
+        verify(auditEventPublisher, never()).publishCustomEvent(any(), any(), any());
+    }
+
+    @Test
+    public void testGetApplicationsByNumberAndLock() {
+        Application application = Application.builder().id(1L).number(NUMBER).lockedBy(USERNAME).build();
+        Application otherApplication = Application.builder().id(2L).number(NUMBER).lockedBy(USERNAME).build();
+        when(editLockProvider.acquire(EditLockType.APPLICATION, NUMBER, USERNAME)).thenReturn(Optional.empty());
+        when(applicationRepository.findByNumber(NUMBER)).thenReturn(Arrays.asList(application, otherApplication));
+        List<Application> applications = applicationService.getApplicationsByNumberAndLock(NUMBER, " " + USERNAME);
+        assertEquals(2, applications.size());
+        verify(applicationRepository, never()).save(any());
+    }
+
+    @Test(expected = ApplicationEntityLockedException.class)
+    public void testGetApplicationsByNumberAndLockLockedByOther() {
+        when(editLockProvider.acquire(EditLockType.APPLICATION, NUMBER, USERNAME)).thenReturn(Optional.of("test"));
+        applicationService.getApplicationsByNumberAndLock(NUMBER, USERNAME);
+    }
+
+    @Test
+    public void testGetByIdAndLock() {
+        Application application = Application.builder().id(1L).number(NUMBER).build();
+        when(applicationRepository.getApplicationById(1L)).thenReturn(application);
+        Application lockedApplication = applicationService.getByIdAndLock(1L, USERNAME);
+        assertNotNull(lockedApplication);
+        verify(editLockProvider, times(1)).acquire(EditLockType.APPLICATION, NUMBER, USERNAME);
+    }
+
+    @Test(expected = ApplicationEntityLockedException.class)
+    public void testGetByIdAndLockLockedByOther() {
+        Application application = Application.builder().id(1L).number(NUMBER).build();
+        when(applicationRepository.getApplicationById(1L)).thenReturn(application);
+        when(editLockProvider.acquire(EditLockType.APPLICATION, NUMBER, USERNAME)).thenReturn(Optional.of("test"));
+        applicationService.getByIdAndLock(1L, USERNAME);
+    }
+
+    @Test
+    public void testUpdateAndReleaseApplicationsLock() {
+        Application application = Application.builder().id(1L).number(NUMBER).build();
+        Application otherApplication = Application.builder().id(2L).number(NUMBER).build();
+        List<Application> applications = Arrays.asList(application, otherApplication);
+        when(applicationRepository.findByIdIsIn(Arrays.asList(1L, 2L))).thenReturn(applications);
+        List<Application> released = applicationService.updateAndReleaseApplicationsLock(applications, USERNAME);
+        assertEquals(2, released.size());
+        verify(applicationRepository, times(1)).saveAll(applications);
+        verify(editLockProvider, times(1)).release(EditLockType.APPLICATION, NUMBER, USERNAME);
+    }
+
+    @Test(expected = ApplicationEntityLockedException.class)
+    public void testUpdateAndReleaseLockLockedByOther() {
+        Application application = Application.builder().id(1L).number(NUMBER).build();
+        when(applicationRepository.getApplicationById(1L)).thenReturn(application);
+        when(editLockProvider.release(EditLockType.APPLICATION, NUMBER, USERNAME)).thenReturn(Optional.of("test"));
+        applicationService.updateAndReleaseLock(1L, USERNAME);
+    }
+
     @Test
     public void testGetApplicationReceipt() {
-        Application application = Application.builder().id(1L).number("12345678").foModule("Trademark").type("Word")
-                .kind("Individual").status("Submitted").mainAccount(MainAccount.builder().username(USERNAME).build())
-                .receipt("e04fd020ea3a6910a2d808002b30309d").build();
         when(accountService.isAllowedToModifyApplication(USERNAME, USERNAME)).thenReturn(true);
-        when(applicationRepository.findById(1L)).thenReturn(Optional.of(application));
+        when(applicationReceiptRepository.findReceiptOwnerById(1L)).thenReturn(Optional.of(USERNAME));
+        when(applicationReceiptRepository.findReceiptById(1L)).thenReturn(Optional.of("e04fd020ea3a6910a2d808002b30309d"));
         String receipt = applicationService.getReceipt(USERNAME, 1L);
         assertNotNull(receipt);
+        verify(applicationRepository, times(0)).findById(1L);
     }
 
     @Test
     public void testGetApplicationReceiptNull() {
-        Application application = Application.builder().id(1L).number("12345678").foModule("Trademark").type("Word")
-                .kind("Individual").status("Submitted").mainAccount(MainAccount.builder().username(USERNAME).build()).receipt(null).build();
-        when(applicationRepository.findById(1L)).thenReturn(Optional.of(application));
-        when(accountService.isAllowedToModifyApplication(USERNAME, USERNAME)).thenReturn(true);
+        when(applicationReceiptRepository.findReceiptOwnerById(1L)).thenReturn(Optional.empty());
         String receipt = applicationService.getReceipt(USERNAME, 1L);
         Assert.assertNull(receipt);
     }
 
+    @Test
+    public void testGetStreamingReceipt() throws IOException {
+        when(accountService.isAllowedToModifyApplication(USERNAME, USERNAME)).thenReturn(true);
+        when(applicationReceiptRepository.findReceiptOwnerById(1L)).thenReturn(Optional.of(USERNAME));
+        when(applicationReceiptRepository.readReceipt(eq(1L), any())).thenAnswer(invocation -> {
+            invocation.<ApplicationReceiptRepositoryCustom.ReceiptConsumer>getArgument(1).accept(new StringReader("e04fd020ea3a6910a2d808002b30309d"));
+            return true;
+        });
+        StreamingReceipt receipt = applicationService.getStreamingReceipt(USERNAME, 1L);
+        assertNotNull(receipt);
+        StringWriter writer = new StringWriter();
+        receipt.read(reader -> FileCopyUtils.copy(reader, writer));
+        assertEquals("e04fd020ea3a6910a2d808002b30309d", writer.toString());
+    }
+
+    @Test
+    public void testGetStreamingReceiptOfOtherUser() {
+        when(accountService.isAllowedToModifyApplication(USERNAME, "other@xyz.com")).thenReturn(false);
+        when(applicationReceiptRepository.findReceiptOwnerById(1L)).thenReturn(Optional.of("other@xyz.com"));
+        Assert.assertNull(applicationService.getStreamingReceipt(USERNAME, 1L));
+    }
+
+    @Test
+    public void testGetReceiptFromFrontofficeIsCached() throws IOException {
+        byte[] content = {4, 8, 15, 16, 23, 42};
+        when(applicationRepository.findByNumber(NUMBER)).thenReturn(Collections.singletonList(applicationSignatureTrademark));
+        when(frontofficeReceiptClient.getReceipt(NUMBER, false)).thenReturn(frontofficeReceipt);
+        when(frontofficeReceipt.getContentLength()).thenReturn((long) content.length);
+        when(frontofficeReceipt.getBody()).thenReturn(new ByteArrayInputStream(content));
+        StreamingReport receipt = applicationService.getReceiptFromFrontoffice(NUMBER, false);
+        assertEquals(NUMBER + "_receipt.pdf", receipt.getFileName());
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        receipt.writeTo(received);
+        assertArrayEquals(content, received.toByteArray());
+        verify(frontofficeReceipt).close();
+        ByteArrayOutputStream cached = new ByteArrayOutputStream();
+        applicationService.getReceiptFromFrontoffice(NUMBER, false).writeTo(cached);
+        assertArrayEquals(content, cached.toByteArray());
+        verify(frontofficeReceiptClient, times(1)).getReceipt(NUMBER, false);
+    }
+
+    @Test
+    public void testGetDraftReceiptFromFrontofficeIsNotCached() throws IOException {
+        byte[] content = {4, 8, 15, 16, 23, 42};
+        when(frontofficeReceiptClient.getReceipt(NUMBER, true)).thenReturn(frontofficeReceipt);
+        when(frontofficeReceipt.getBody()).thenAnswer(invocation -> new ByteArrayInputStream(content));
+        applicationService.getReceiptFromFrontoffice(NUMBER, true).writeTo(new ByteArrayOutputStream());
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        applicationService.getReceiptFromFrontoffice(NUMBER, true).writeTo(received);
+        assertArrayEquals(content, received.toByteArray());
+        verify(frontofficeReceiptClient, times(2)).getReceipt(NUMBER, true);
+    }
+
+    @Test
+    public void testGetStoredDraftReceiptRequestedAsFinalIsNotCached() throws IOException {
+        byte[] content = {4, 8, 15, 16, 23, 42};
+        Application draft = Application.builder().number(NUMBER).status("Initialized").build();
+        when(applicationRepository.findByNumber(NUMBER)).thenReturn(Collections.singletonList(draft));
+        when(frontofficeReceiptClient.getReceipt(NUMBER, false)).thenReturn(frontofficeReceipt);
+        when(frontofficeReceipt.getBody()).thenAnswer(invocation -> new ByteArrayInputStream(content));
+        applicationService.getReceiptFromFrontoffice(NUMBER, false).writeTo(new ByteArrayOutputStream());
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        applicationService.getReceiptFromFrontoffice(NUMBER, false).writeTo(received);
+        assertArrayEquals(content, received.toByteArray());
+        verify(frontofficeReceiptClient, times(2)).getReceipt(NUMBER, false);
+    }
+
+    @Test
+    public void testGetLargeReceiptFromFrontofficeIsNotCached() throws IOException {
+        byte[] content = new byte[1000];
+        when(applicationRepository.findByNumber(NUMBER)).thenReturn(Collections.singletonList(applicationSignatureTrademark));
+        when(frontofficeReceiptClient.getReceipt(NUMBER, false)).thenReturn(frontofficeReceipt);
+        when(frontofficeReceipt.getContentLength()).thenReturn(-1L);
+        when(frontofficeReceipt.getBody()).thenAnswer(invocation -> new ByteArrayInputStream(content));
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        applicationService.getReceiptFromFrontoffice(NUMBER, false).writeTo(received);
+        assertArrayEquals(content, received.toByteArray());
+        applicationService.getReceiptFromFrontoffice(NUMBER, false).writeTo(new ByteArrayOutputStream());
+        verify(frontofficeReceiptClient, times(2)).getReceipt(NUMBER, false);
+    }
+
     @Test(expected = EntityNotFoundException.class)
     public void shouldNotReturnDraftResumeUrlWhenEntityNotFound() {
         when(applicationRepository.findByIdAndStatusIsIn(anyLong(), anyList())).thenReturn(null);
@@ -491,7 +748,6 @@ public class ApplicationServiceImplTest {
                 .kind("Individual").status("Initialized").mainAccount(MainAccount.builder().username(USERNAME).build()).build();
         when(applicationRepository.findByIdAndStatusIsIn(1L, Collections.singletonList("Initialized"))).thenReturn(application);
         when(applicationRepository.getApplicationById(1L)).thenReturn(application);
-        when(applicationRepository.save(application)).thenReturn(application);
         when(applicationService.getByIdAndLock(1L,USERNAME)).thenReturn(application);
         when(accountService.isAllowedToModifyApplication(USERNAME, USERNAME)).thenReturn(true);
         Optional<String> resumeDraftUrl = applicationService.getResumeDraftUrl(USERNAME, 1L);
@@ -503,7 +759,6 @@ public class ApplicationServiceImplTest {
         Application application = Application.builder().id(1L).number("12345678").foModule("design").status("Initialized")
                 .mainAccount(MainAccount.builder().username(USERNAME).build()).build();
         when(applicationRepository.getApplicationById(1L)).thenReturn(application);
-        when(applicationRepository.save(application)).thenReturn(application);
         when(applicationService.getByIdAndLock(1L,USERNAME)).thenReturn(application);
         when(accountService.isAllowedToModifyApplication(USERNAME, USERNAME)).thenReturn(true);
         when(applicationRepository.findByIdAndStatusIsIn(1L, Collections.singletonList("Initialized"))).thenReturn(application);
@@ -516,7 +771,6 @@ public class ApplicationServiceImplTest {
         Application application = Application.builder().id(1L).number("12345678").foModule("eservice").eserviceCode("TM_TRANSFER")
                 .status("Initialized").mainAccount(MainAccount.builder().username(USERNAME).build()).build();
         when(applicationRepository.getApplicationById(1L)).thenReturn(application);
-        when(applicationRepository.save(application)).thenReturn(application);
         when(applicationService.getByIdAndLock(1L,USERNAME)).thenReturn(application);
         when(accountService.isAllowedToModifyApplication(USERNAME, USERNAME)).thenReturn(true);
         when(applicationRepository.findByIdAndStatusIsIn(1L, Collections.singletonList("Initialized"))).thenReturn(application);
@@ -529,7 +783,6 @@ public class ApplicationServiceImplTest {
         Application application = Application.builder().id(1L).number("12345678").foModule("eservice").eserviceCode("TM_TRANSFER")
                 .status("Initialized").mainAccount(MainAccount.builder().username(USERNAME).build()).build();
         when(applicationRepository.getApplicationById(1L)).thenReturn(application);
-        when(applicationRepository.save(application)).thenReturn(application);
         when(applicationService.getByIdAndLock(1L,USERNAME)).thenReturn(application);
         when(accountService.isAllowedToModifyApplication(USERNAME, USERNAME)).thenReturn(false);
         when(applicationRepository.findByIdAndStatusIsIn(1L, Collections.singletonList("Initialized"))).thenReturn(application);
@@ -554,16 +807,35 @@ public class ApplicationServiceImplTest {
     public void testLockApplicationNote() {
         Application application = Application.builder().id(1L).number("12345678").foModule("Trademark").type("Word")
                 .kind("Individual").status("Initialized").mainAccount(MainAccount.builder().username(USERNAME).build()).build();
-        String note = applicationService.lockNote(USERNAME, noteApplication);
+        NoteApplication note = applicationService.lockNote(USERNAME, noteApplication);
         assertNotNull(note);
     }
 
+    @Test
+    public void testLockApplicationNoteOptimistic() {
+        NoteApplication note = optimisticNoteService().lockNote(USERNAME, noteApplication);
+        assertEquals("test", note.getNote());
+        verify(noteService, never()).getNoteByApplicationNumberAndLock(any(), any());
+    }
+
     @Test
     public void testUpdateApplicationNote() {
         Application application = Application.builder().id(1L).number("12345678").foModule("Trademark").type("Word")
                 .kind("Individual").status("Initialized").mainAccount(MainAccount.builder().username(USERNAME).build()).build();
-        String note = applicationService.updateNote(USERNAME, noteApplication);
-        assertNotNull(note);
+        when(noteService.updateAndReleaseLock(eq(USERNAME), any(), eq(NOTE))).thenReturn(NoteApplicationEntity.builder().note(NOTE).build());
+        NoteApplication note = applicationService.updateNote(USERNAME, noteApplication);
+        assertEquals(NOTE, note.getNote());
+    }
+
+    @Test
+    public void testUpdateApplicationNoteOptimistic() {
+        noteApplication.setVersion(3L);
+        when(noteService.updateIfUnchanged(USERNAME, NUMBER, NOTE, 3L))
+                .thenReturn(NoteApplicationEntity.builder().applicationNumber(NUMBER).note(NOTE).version(4L).build());
+        NoteApplication note = optimisticNoteService().updateNote(USERNAME, noteApplication);
+        assertEquals(NOTE, note.getNote());
+        assertEquals(Long.valueOf(4L), note.getVersion());
+        verify(noteService, never()).updateAndReleaseLock(any(), any(), any());
     }
 
     @Test
@@ -571,10 +843,17 @@ public class ApplicationServiceImplTest {
         Application application = Application.builder().id(1L).number("12345678").foModule("Trademark").type("Word")
                 .kind("Individual").status("Initialized").mainAccount(MainAccount.builder().username(USERNAME).build()).build();
         when(noteService.getNoteByApplicationNumber(application.getNumber())).thenReturn(null);
-        String note = applicationService.updateNote(USERNAME, noteApplication);
+        NoteApplication note = applicationService.updateNote(USERNAME, noteApplication);
         assertNotNull(note);
     }
 
+    private ApplicationServiceImpl optimisticNoteService() {
+        return new ApplicationServiceImpl(applicationRepository, accountService, qualifiedServiceRepository, noteService, applicationConfiguration, ipoConfiguration, env, restTemplate, auditEventPublisher, paymentService, pdfService,
+                new ApplicationSearchCache(new SimpleMeterRegistry(), 30, false, 60, 1000), myApplicationsClient,
+                frontofficeReceiptClient, new ReceiptCache(1024, 512), applicationReceiptRepository, editLockProvider, applicationLockRepository,
+                applicationSignaturesRepository, "", "", "optimistic");
+    }
+
     @Test
     public void testDuplicateTrademarkApplicationUrl() {
         Application application = Application.builder().id(1L).number("12345678").foModule("Trademark").type("Word")
@@ -793,6 +1072,23 @@ public class ApplicationServiceImplTest {
         assertNotNull(applications);
     }
 
+    @Test
+    public void testGetApplicationSignatures() {
+        roles.add("ROLE_TRADEMARKS");
+        when(accountService.getMainAccount(USERNAME)).thenReturn(DomainAccount.builder().username(USERNAME).build());
+        when(applicationConfiguration.getSignature()).thenReturn(ApplicationSignature.builder()
+                .status(SignatureStatus.builder().completed("COMPLETED").completedUpdateFoFailed("COMPLETED_UPDATE_FO_FAILED").build())
+                .build());
+        ApplicationSignatures applicationSignatures = ApplicationSignatures.builder().number(NUMBER).foModule("trademark")
+                .status("Pending Signature").names(Collections.singletonList("Name")).build();
+        when(applicationSignaturesRepository.findApplicationSignatures(any(Specification.class),
+                eq(Arrays.asList("COMPLETED", "COMPLETED_UPDATE_FO_FAILED")))).thenReturn(Collections.singletonList(applicationSignatures));
+        List<ApplicationSignatures> applications = applicationService.getApplicationSignatures(USERNAME, roles);
+        assertEquals(1, applications.size());
+        assertEquals(NUMBER, applications.get(0).getNumber());
+        verify(applicationRepository, never()).findAll(any(Specification.class));
+    }
+
     @Test
     public void testGetInvoice(){
         PaymentApplicationEntity paymentApplication = new PaymentApplicationEntity();
@@ -800,7 +1096,7 @@ public class ApplicationServiceImplTest {
         payment.setTransactionId("transactionId");
         paymentApplication.setPayment(payment);
         when(paymentService.getPaymentApplicationByApplicationId(1L)).thenReturn(paymentApplication);
-        when(pdfService.generatePdf(USERNAME,"transactionId")).thenReturn(new FileInfo());
+        when(pdfService.getInvoice(USERNAME,"transactionId")).thenReturn(new InvoiceFile());
         assertNotNull(applicationService.getInvoice(USERNAME,1L));
     }
 
@@ -833,7 +1129,6 @@ public class ApplicationServiceImplTest {
         Application application = Application.builder().id(1L).number("12345678").foModule("Trademark").type("Word")
                 .kind("Individual").status("Initialized").mainAccount(MainAccount.builder().username(USERNAME).build()).build();
         when(applicationRepository.findByNumber(application.getNumber())).thenReturn(Collections.singletonList(application));
-        when(applicationRepository.save(application)).thenReturn(application);
         when(accountService.isAllowedToModifyApplication(USERNAME, USERNAME)).thenReturn(true);
         applicationService.deleteApplication(USERNAME, application.getNumber());
     }
@@ -860,7 +1155,6 @@ public class ApplicationServiceImplTest {
         Application application = Application.builder().id(1L).number("12345678").foModule("Trademark").type("Word")
                 .kind("Individual").status("Initialized").mainAccount(MainAccount.builder().username(USERNAME).build()).build();
         when(applicationRepository.findByNumber(application.getNumber())).thenReturn(Collections.singletonList(application));
-        when(applicationRepository.save(application)).thenReturn(application);
         when(accountService.isAllowedToModifyApplication(USERNAME, USERNAME)).thenReturn(true);
         String resume = applicationService.modifyApplication(USERNAME, application.getNumber());
         assertNotNull(resume);
@@ -13,6 +13,7 @@
 
 package eu.euipo.etmdn.userarea.business.core.impl.service;
 
+import eu.euipo.etmdn.userarea.business.core.impl.lock.LockMetrics;
 import eu.euipo.etmdn.userarea.common.business.service.AccountService;
 import eu.euipo.etmdn.userarea.common.business.service.AuthorityService;
 import eu.euipo.etmdn.userarea.common.business.service.RegistrationService;
@@ -66,6 +67,8 @@ public class ChildServiceImplTest {
     private AuthorityService authorityService;
     @Mock
     private AccountService accountService;
+    @Mock
+    private LockMetrics lockMetrics;
 
     private DomainUser user;
     private DomainUser childUser;
@@ -82,7 +85,7 @@ public class ChildServiceImplTest {
 
     @Before
     public void setUp() {
-        childService = new ChildServiceImpl(childAccountRepository, userService, registrationService, authorityService, accountService);
+        childService = new ChildServiceImpl(childAccountRepository, userService, registrationService, authorityService, accountService, lockMetrics);
         child = ChildAccount.builder().mainAccountName(username).username(username).firstName("John").surName("Cool").email(email)
                 .roles("ROLE_TRADEMARKS,ROLE_APPLICATION_SUBMIT").build();
         DomainAuthority authorityTrademark = DomainAuthority.builder().role("ROLE_APPLICATION_SUBMIT").dependency("ROLE_TRADEMARKS").build();
@@ -13,6 +13,8 @@
 
 package eu.euipo.etmdn.userarea.business.core.impl.service;
 
+import eu.euipo.etmdn.userarea.business.core.api.report.ReportFormat;
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReport;
 import eu.euipo.etmdn.userarea.business.core.api.service.ApplicationService;
 import eu.euipo.etmdn.userarea.common.domain.FileInfo;
 import eu.euipo.etmdn.userarea.common.domain.FilteringData;
@@ -22,25 +24,42 @@ import eu.euipo.etmdn.userarea.domain.ApplicationType;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationDetails;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationRequest;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationSearchResult;
+import eu.euipo.etmdn.userarea.business.core.impl.cache.ThumbnailCache;
+import eu.euipo.etmdn.userarea.business.core.impl.report.ReportRowPipeline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.poi.xssf.usermodel.XSSFPicture;
+import org.apache.poi.xssf.usermodel.XSSFPictureData;
+import org.apache.poi.xssf.usermodel.XSSFShape;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.util.Base64Utils;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ExcelServiceImplTest {
 
-    @InjectMocks
     private ExcelServiceImpl excelService;
 
     @Mock
@@ -58,7 +77,8 @@ public class ExcelServiceImplTest {
 
     @Before
     public void setUp() {
-        excelService = new ExcelServiceImpl(applicationService);
+        excelService = new ExcelServiceImpl(applicationService, new ThumbnailCache(100, 180, 135),
+                new ReportRowPipeline(new SimpleMeterRegistry(), 2, 4, 2), 10);
         ApplicationDetails applicationTrademark = ApplicationDetails.builder().type("Word").kind("Individual").status("Submitted").build();
         pageableApplicationTrademark = new ApplicationSearchResult();
         pageableApplicationTrademark.setContent(Collections.singletonList(applicationTrademark));
@@ -146,4 +166,113 @@ public class ExcelServiceImplTest {
         assertNotNull(fileInfo);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testGenerateStreamingTrademarkExcel() throws IOException {
+        applicationRequestTrademark.setIsDraft(false);
+        when(applicationService.getApplications(applicationRequestTrademark, roles)).thenReturn(pageableApplicationTrademark);
+        StreamingReport report = excelService.generateStreamingExcel(applicationRequestTrademark, roles);
+        assertNotNull(report);
+        assertEquals("trademarks.xlsx", report.getFileName());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        report.writeTo(outputStream);
+        assertTrue(outputStream.size() > 0);
+    }
+
+    @Test
+    public void testGenerateStreamingDraftEserviceExcel() throws IOException {
+        applicationRequestEservice.setIsDraft(true);
+        when(applicationService.getApplications(applicationRequestEservice, roles)).thenReturn(pageableApplicationEservice);
+        StreamingReport report = excelService.generateStreamingExcel(applicationRequestEservice, roles);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        report.writeTo(outputStream);
+        assertTrue(outputStream.size() > 0);
+    }
+
+    @Test
+    public void testGenerateTrademarkExcelDeduplicatesImages() throws IOException {
+        final BufferedImage image = new BufferedImage(1200, 900, BufferedImage.TYPE_INT_RGB);
+        final ByteArrayOutputStream imageStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", imageStream);
+        final String graphicalRepresentation = Base64Utils.encodeToString(imageStream.toByteArray());
+        ApplicationSearchResult applications = new ApplicationSearchResult();
+        applications.setContent(Arrays.asList(
+                ApplicationDetails.builder().number("1").graphicalRepresentation(graphicalRepresentation).build(),
+                ApplicationDetails.builder().number("2").graphicalRepresentation(graphicalRepresentation).build()));
+        applicationRequestTrademark.setIsDraft(false);
+        when(applicationService.getApplications(applicationRequestTrademark, roles)).thenReturn(applications);
+        FileInfo fileInfo = excelService.generateExcel(applicationRequestTrademark, roles);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(fileInfo.getFileContent()))) {
+            List<XSSFPictureData> pictures = workbook.getAllPictures();
+            assertEquals(1, pictures.size());
+            BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(pictures.get(0).getData()));
+            assertEquals(180, thumbnail.getWidth());
+            assertEquals(135, thumbnail.getHeight());
+        }
+    }
+
+    @Test
+    public void testGenerateStreamingTrademarkExcelImageBorder() throws IOException {
+        final BufferedImage image = new BufferedImage(1200, 900, BufferedImage.TYPE_INT_RGB);
+        final ByteArrayOutputStream imageStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", imageStream);
+        ApplicationSearchResult applications = new ApplicationSearchResult();
+        applications.setContent(Collections.singletonList(ApplicationDetails.builder().number("1")
+                .graphicalRepresentation(Base64Utils.encodeToString(imageStream.toByteArray())).build()));
+        applicationRequestTrademark.setIsDraft(false);
+        when(applicationService.getApplications(applicationRequestTrademark, roles)).thenReturn(applications);
+        StreamingReport report = excelService.generateStreamingExcel(applicationRequestTrademark, roles);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        report.writeTo(outputStream);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            List<XSSFShape> shapes = workbook.getSheetAt(0).getDrawingPatriarch().getShapes();
+            assertEquals(1, shapes.size());
+            assertTrue(((XSSFPicture) shapes.get(0)).getCTPicture().getSpPr().isSetLn());
+        }
+    }
+
+    @Test
+    public void testGenerateEserviceExcelKeepsRowOrder() throws IOException {
+        ApplicationSearchResult applications = new ApplicationSearchResult();
+        applications.setContent(IntStream.range(0, 50)
+                .mapToObj(i -> ApplicationDetails.builder().eserviceName("eservice").number(String.valueOf(i)).build())
+                .collect(Collectors.toList()));
+        applicationRequestEservice.setIsDraft(false);
+        when(applicationService.getApplications(applicationRequestEservice, roles)).thenReturn(applications);
+        FileInfo fileInfo = excelService.generateExcel(applicationRequestEservice, roles);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(fileInfo.getFileContent()))) {
+            for (int i = 0; i < 50; i++) {
+                assertEquals(String.valueOf(i), workbook.getSheetAt(0).getRow(i + 1).getCell(2).getStringCellValue());
+            }
+        }
+    }
+
+    @Test
+    public void testGenerateEserviceCsv() throws IOException {
+        ApplicationSearchResult applications = new ApplicationSearchResult();
+        applications.setContent(Collections.singletonList(ApplicationDetails.builder()
+                .eserviceName("TM Generic, \"quoted\"").associatedRight("=1+1").number("123").build()));
+        applicationRequestEservice.setIsDraft(false);
+        when(applicationService.getApplications(applicationRequestEservice, roles)).thenReturn(applications);
+        StreamingReport report = excelService.generateStreamingReport(applicationRequestEservice, roles, ReportFormat.CSV);
+        assertEquals("eservices.csv", report.getFileName());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        report.writeTo(outputStream);
+        String[] lines = new String(outputStream.toByteArray(), StandardCharsets.UTF_8).split("\r\n");
+        assertEquals("\ufeffNumber,EserviceName", lines[0]);
+        assertTrue(lines[1].startsWith("\"TM Generic, \"\"quoted\"\"\",'=1+1,123,"));
+    }
+
+    @Test
+    public void testGenerateTrademarkNdjson() throws IOException {
+        applicationRequestTrademark.setIsDraft(false);
+        applicationRequestTrademark.setColumns(Arrays.asList("Image", "Number", "Application date", "Type", "Kind"));
+        when(applicationService.getApplications(applicationRequestTrademark, roles)).thenReturn(pageableApplicationTrademark);
+        StreamingReport report = excelService.generateStreamingReport(applicationRequestTrademark, roles, ReportFormat.NDJSON);
+        assertEquals("trademarks.ndjson", report.getFileName());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        report.writeTo(outputStream);
+        assertEquals("{\"Image\":null,\"Number\":\"N/A\",\"Application date\":\"N/A\",\"Type\":\"Word\",\"Kind\":\"Individual\"}\n",
+                new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * $Id:: ExportFormatBenchmark.java 2021/10/29 18:40 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.service;
+
+import eu.euipo.etmdn.userarea.business.core.api.report.ReportFormat;
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReport;
+import eu.euipo.etmdn.userarea.business.core.api.service.ApplicationService;
+import eu.euipo.etmdn.userarea.business.core.impl.cache.ThumbnailCache;
+import eu.euipo.etmdn.userarea.business.core.impl.report.ReportRowPipeline;
+import eu.euipo.etmdn.userarea.domain.ApplicationType;
+import eu.euipo.etmdn.userarea.domain.application.ApplicationDetails;
+import eu.euipo.etmdn.userarea.domain.application.ApplicationRequest;
+import eu.euipo.etmdn.userarea.domain.application.ApplicationSearchResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.util.Base64Utils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Benchmark of the streamed application export formats against the in-memory xlsx report, on a generated trademark list.
+ * Its name does not match the tests run by the test phase, run it with {@code mvn test -Dtest=ExportFormatBenchmark},
+ * optionally with {@code -Dbenchmark.applications=<number of applications>}.
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class ExportFormatBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int ITERATIONS = 5;
+    private static final int IMAGES = 10;
+
+    @Mock
+    private ApplicationService applicationService;
+
+    private ExcelServiceImpl excelService;
+    private ApplicationRequest applicationRequest;
+    private final Set<String> roles = Collections.singleton("ROLE_TRADEMARKS");
+
+    @Before
+    public void setUp() throws IOException {
+        final int size = Integer.getInteger("benchmark.applications", 5000);
+        final ApplicationSearchResult applications = new ApplicationSearchResult();
+        applications.setContent(createApplications(size));
+        when(applicationService.getApplications(any(), any())).thenReturn(applications);
+        excelService = new ExcelServiceImpl(applicationService, new ThumbnailCache(2000, 180, 135),
+                new ReportRowPipeline(new SimpleMeterRegistry(), 4, 256, 64), 100);
+        applicationRequest = ApplicationRequest.builder()
+                .applicationType(ApplicationType.TRADEMARK.value)
+                .isDraft(false)
+                .columns(Arrays.asList("Image", "Number", "Application date", "Type", "Kind", "Denomination", "Nice classes",
+                        "Status", "Status date", "Registration number", "Registration date", "Expiration date", "Publication date",
+                        "Applicant", "Representative"))
+                .build();
+        log.info("Export of {} trademark applications, average of {} runs", size, ITERATIONS);
+    }
+
+    @Test
+    public void benchmarkExportFormats() throws IOException {
+        measure("xlsx (in memory)", outputStream -> outputStream.write(excelService.generateExcel(applicationRequest, roles).getFileContent()));
+        for (ReportFormat reportFormat : ReportFormat.values()) {
+            measure(reportFormat.getValue() + " (streamed)", outputStream -> {
+                StreamingReport report = excelService.generateStreamingReport(applicationRequest, roles, reportFormat);
+                report.writeTo(outputStream);
+            });
+        }
+    }
+
+    private static void measure(final String name, final Export export) throws IOException {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            export.writeTo(new CountingOutputStream());
+        }
+        final CountingOutputStream outputStream = new CountingOutputStream();
+        final long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            outputStream.count = 0;
+            export.writeTo(outputStream);
+        }
+        final long elapsed = (System.nanoTime() - start) / ITERATIONS / 1_000_000;
+        assertTrue(outputStream.count > 0);
+        log.info(String.format("%-20s %8d ms %12d bytes", name, elapsed, outputStream.count));
+    }
+
+    private static List<ApplicationDetails> createApplications(final int size) throws IOException {
+        final String[] images = new String[IMAGES];
+        for (int i = 0; i < images.length; i++) {
+            final BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+            image.setRGB(i, i, 0xFFFFFF);
+            final ByteArrayOutputStream os = new ByteArrayOutputStream();
+            ImageIO.write(image, "jpg", os);
+            images[i] = Base64Utils.encodeToString(os.toByteArray());
+        }
+        return IntStream.range(0, size)
+                .mapToObj(i -> ApplicationDetails.builder()
+                        .number(String.valueOf(18000000 + i))
+                        .applicationDate(LocalDateTime.now())
+                        .type("Word")
+                        .kind("Individual")
+                        .denomination("Denomination " + i)
+                        .niceClass("9, 35, 42")
+                        .status("Submitted")
+                        .statusDate(LocalDateTime.now())
+                        .applicant("Applicant " + i)
+                        .representative("Representative " + i)
+                        .graphicalRepresentation(images[i % images.length])
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    @FunctionalInterface
+    private interface Export {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
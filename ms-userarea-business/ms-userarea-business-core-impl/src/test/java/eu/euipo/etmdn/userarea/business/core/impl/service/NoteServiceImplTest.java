@@ -13,12 +13,19 @@
 
 package eu.euipo.etmdn.userarea.business.core.impl.service;
 
+import eu.euipo.etmdn.userarea.business.core.impl.cache.NoteCache;
+import eu.euipo.etmdn.userarea.business.core.impl.lock.EditLockProvider;
+import eu.euipo.etmdn.userarea.business.core.impl.lock.EditLockType;
 import eu.euipo.etmdn.userarea.common.domain.exception.NoteEntityLockedException;
+import eu.euipo.etmdn.userarea.domain.note.exception.NoteVersionConflictException;
+import eu.euipo.etmdn.userarea.domain.note.exception.NoteVersionMissingException;
 import eu.euipo.etmdn.userarea.persistence.entity.note.NoteApplicationEntity;
 import eu.euipo.etmdn.userarea.persistence.repository.note.NoteApplicationRepository;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -26,8 +33,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -40,6 +51,8 @@ public class NoteServiceImplTest {
 
     @Mock
     private NoteApplicationRepository noteApplicationRepository;
+    @Mock
+    private EditLockProvider editLockProvider;
 
     private NoteApplicationEntity noteApplicationEntity;
     private NoteApplicationEntity noteApplication;
@@ -49,6 +62,7 @@ public class NoteServiceImplTest {
 
     @Before
     public void setUp() {
+        noteService = new NoteServiceImpl(noteApplicationRepository, new NoteCache(100, 300), editLockProvider);
         noteApplicationEntity = NoteApplicationEntity.builder().applicationNumber(APPLICATION_NUMBER).note(NOTE).build();
         noteApplication = NoteApplicationEntity.builder().applicationNumber(APPLICATION_NUMBER).note(NOTE).build();
     }
@@ -73,8 +87,28 @@ public class NoteServiceImplTest {
         assertNotNull(noteApplicationList);
     }
 
+    @Test
+    public void testGetNoteByApplicationNumbersFromCache() {
+        when(noteApplicationRepository.findByApplicationNumberIsIn(Collections.singletonList(APPLICATION_NUMBER))).thenReturn(Collections.singletonList(noteApplicationEntity));
+        noteService.getNotesByApplicationNumbers(Collections.singletonList(APPLICATION_NUMBER));
+        List<NoteApplicationEntity> noteApplicationList = noteService.getNotesByApplicationNumbers(Arrays.asList(APPLICATION_NUMBER, "67890"));
+        assertEquals(1, noteApplicationList.size());
+        assertEquals(NOTE, noteApplicationList.get(0).getNote());
+        verify(noteApplicationRepository, times(1)).findByApplicationNumberIsIn(Collections.singletonList(APPLICATION_NUMBER));
+        verify(noteApplicationRepository, times(1)).findByApplicationNumberIsIn(Collections.singletonList("67890"));
+    }
+
+    @Test
+    public void testSaveNoteWritesThroughCache() {
+        noteService.save(noteApplicationEntity);
+        List<NoteApplicationEntity> noteApplicationList = noteService.getNotesByApplicationNumbers(Collections.singletonList(APPLICATION_NUMBER));
+        assertEquals(NOTE, noteApplicationList.get(0).getNote());
+        verify(noteApplicationRepository, times(0)).findByApplicationNumberIsIn(any());
+    }
+
     @Test
     public void testGetNoteAndLock() {
+        when(editLockProvider.acquire(EditLockType.NOTE, APPLICATION_NUMBER, USERNAME)).thenReturn(Optional.empty());
         when(noteApplicationRepository.findByApplicationNumber(any(String.class))).thenReturn(noteApplicationEntity);
         NoteApplicationEntity noteApplication = noteService.getNoteByApplicationNumberAndLock(USERNAME, APPLICATION_NUMBER);
         assertNotNull(noteApplication);
@@ -82,23 +116,55 @@ public class NoteServiceImplTest {
 
     @Test(expected = NoteEntityLockedException.class)
     public void testGetNoteAndLockLocked() {
-        noteApplicationEntity.setLockedBy("test");
-        when(noteApplicationRepository.findByApplicationNumber(any(String.class))).thenReturn(noteApplicationEntity);
+        when(editLockProvider.acquire(EditLockType.NOTE, APPLICATION_NUMBER, USERNAME)).thenReturn(Optional.of("test"));
         noteService.getNoteByApplicationNumberAndLock(USERNAME, APPLICATION_NUMBER);
     }
 
     @Test
     public void testReleaseLock() {
         noteApplicationEntity.setLockedBy(USERNAME);
-        when(noteApplicationRepository.saveAndFlush(noteApplicationEntity)).thenReturn(noteApplication);
+        when(editLockProvider.release(EditLockType.NOTE, APPLICATION_NUMBER, USERNAME)).thenReturn(Optional.empty());
+        when(noteApplicationRepository.save(noteApplicationEntity)).thenReturn(noteApplication);
         NoteApplicationEntity noteApplication = noteService.updateAndReleaseLock(USERNAME, noteApplicationEntity, NOTE);
         assertNotNull(noteApplication);
-        verify(noteApplicationRepository, times(1)).saveAndFlush(any(NoteApplicationEntity.class));
+        verify(noteApplicationRepository, times(1)).save(any(NoteApplicationEntity.class));
+    }
+
+    @Test
+    public void testUpdateIfUnchanged() {
+        when(noteApplicationRepository.updateNoteIfVersion(eq(APPLICATION_NUMBER), eq(NOTE), eq(USERNAME), any(), eq(1L))).thenReturn(1);
+        when(noteApplicationRepository.findByApplicationNumber(APPLICATION_NUMBER)).thenReturn(noteApplicationEntity);
+        NoteApplicationEntity noteApplication = noteService.updateIfUnchanged(" " + USERNAME, APPLICATION_NUMBER, NOTE, 1L);
+        assertNotNull(noteApplication);
+        verify(editLockProvider, never()).acquire(any(), any(), any());
+    }
+
+    @Test
+    public void testUpdateIfUnchangedConflict() {
+        noteApplicationEntity.setVersion(2L);
+        when(noteApplicationRepository.updateNoteIfVersion(eq(APPLICATION_NUMBER), eq(NOTE), eq(USERNAME), any(), eq(1L))).thenReturn(0);
+        when(noteApplicationRepository.findByApplicationNumber(APPLICATION_NUMBER)).thenReturn(noteApplicationEntity);
+        try {
+            noteService.updateIfUnchanged(USERNAME, APPLICATION_NUMBER, NOTE, 1L);
+            fail("Expected a version conflict");
+        } catch (NoteVersionConflictException e) {
+            assertEquals(Long.valueOf(2L), e.getCurrent().getVersion());
+        }
+    }
+
+    @Test
+    public void testUpdateIfUnchangedWithoutVersion() {
+        try {
+            noteService.updateIfUnchanged(USERNAME, APPLICATION_NUMBER, NOTE, null);
+            fail("Expected the version to be required");
+        } catch (NoteVersionMissingException e) {
+            verify(noteApplicationRepository, never()).updateNoteIfVersion(any(), any(), any(), any(), any());
+        }
     }
 
     @Test(expected = NoteEntityLockedException.class)
     public void testReleasedLockNotAllowed() {
-        noteApplicationEntity.setLockedBy("test");
+        when(editLockProvider.release(EditLockType.NOTE, APPLICATION_NUMBER, USERNAME)).thenReturn(Optional.of("test"));
         noteService.updateAndReleaseLock(USERNAME, noteApplicationEntity, NOTE);
     }
 
@@ -0,0 +1,161 @@
+/*
+ * $Id:: SignatureCallbackProcessorTest.java 2021/10/29 10:20 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.business.core.impl.service;
+
+import eu.euipo.etmdn.userarea.business.core.api.service.ApplicationService;
+import eu.euipo.etmdn.userarea.business.core.api.service.ShoppingCartService;
+import eu.euipo.etmdn.userarea.common.business.config.ApplicationConfiguration;
+import eu.euipo.etmdn.userarea.common.domain.ApplicationSignature;
+import eu.euipo.etmdn.userarea.common.domain.ApplicationStatus;
+import eu.euipo.etmdn.userarea.common.domain.SignatureStatus;
+import eu.euipo.etmdn.userarea.common.persistence.entity.Application;
+import eu.euipo.etmdn.userarea.common.persistence.entity.signature.SignatureEntity;
+import eu.euipo.etmdn.userarea.common.persistence.repository.SignatureRepository;
+import eu.euipo.etmdn.userarea.domain.signature.FOSignatureResource;
+import eu.euipo.etmdn.userarea.domain.signature.SignatureCallbackResource;
+import eu.euipo.etmdn.userarea.persistence.repository.signature.SignatureCallbackRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SignatureCallbackProcessorTest {
+
+    private static final String SIGNATURE_ID = "signatureId";
+    private static final String SIGNING_ID = "signingId";
+    private static final String URL = "http://frontoffice/signatures";
+
+    @Mock
+    private SignatureCallbackRepository signatureCallbackRepository;
+    @Mock
+    private SignatureRepository signatureRepository;
+    @Mock
+    private ApplicationService applicationService;
+    @Mock
+    private ShoppingCartService shoppingCartService;
+    @Mock
+    private ApplicationConfiguration applicationConfiguration;
+    @Mock
+    private RestTemplate restTemplate;
+
+    private SignatureCallbackProcessor signatureCallbackProcessor;
+    private List<Application> applications;
+    private List<SignatureEntity> signatures;
+
+    @Before
+    public void setUp() {
+        signatureCallbackProcessor = new SignatureCallbackProcessor(signatureCallbackRepository, signatureRepository,
+                applicationService, shoppingCartService, applicationConfiguration, restTemplate, "http://frontoffice", "/signatures");
+        when(applicationConfiguration.getSignature()).thenReturn(ApplicationSignature.builder()
+                .status(SignatureStatus.builder().completed("COMPLETED").completedUpdateFoFailed("COMPLETED_UPDATE_FO_FAILED").build())
+                .build());
+        when(applicationConfiguration.getStatus()).thenReturn(ApplicationStatus.builder().payment("Pending Payment").build());
+        applications = Arrays.asList(Application.builder().id(1L).number("12345678").status("Pending Signature").build(),
+                Application.builder().id(2L).number("87654321").status("Pending Signature").build());
+        signatures = Arrays.asList(
+                SignatureEntity.builder().id(1L).application(applications.get(0)).number("12345678").username("user")
+                        .reference(SIGNATURE_ID).signingId(SIGNING_ID).status("COMPLETED").build(),
+                SignatureEntity.builder().id(2L).application(applications.get(1)).number("87654321").username("user")
+                        .reference(SIGNATURE_ID).signingId(SIGNING_ID).status("COMPLETED").build());
+    }
+
+    @Test
+    public void testProcessCompleted() {
+        SignatureCallbackResource callback = callback("COMPLETED");
+        when(signatureCallbackRepository.updateSigning(SIGNATURE_ID, SIGNING_ID, "COMPLETED", callback.getSignedAt())).thenReturn(2);
+        when(signatureRepository.findAllByReferenceAndDeleted(SIGNATURE_ID, false)).thenReturn(signatures);
+        when(applicationService.getApplicationsByIds(Arrays.asList(1L, 2L))).thenReturn(applications);
+
+        assertTrue(signatureCallbackProcessor.process(callback));
+
+        applications.forEach(application -> assertEquals("Pending Payment", application.getStatus()));
+        verify(applicationService, times(1)).saveAll(applications);
+        verify(shoppingCartService, times(2)).checkAndAddApplicationToShoppingCart(any(), any(Application.class), eq("user"));
+        verify(restTemplate, timeout(1000).times(1)).postForObject(eq(URL), any(FOSignatureResource.class), eq(String.class));
+    }
+
+    @Test
+    public void testProcessDuplicateDropped() {
+        SignatureCallbackResource callback = callback("COMPLETED");
+        when(signatureCallbackRepository.updateSigning(SIGNATURE_ID, SIGNING_ID, "COMPLETED", callback.getSignedAt())).thenReturn(0);
+
+        assertFalse(signatureCallbackProcessor.process(callback));
+
+        verifyNoInteractions(signatureRepository, applicationService, shoppingCartService, restTemplate);
+    }
+
+    @Test
+    public void testProcessStatusChangeOfSameSigning() {
+        SignatureCallbackResource pending = callback("PENDING");
+        SignatureCallbackResource completed = callback("COMPLETED");
+        when(signatureCallbackRepository.updateSigning(SIGNATURE_ID, SIGNING_ID, "PENDING", pending.getSignedAt())).thenReturn(2);
+        when(signatureCallbackRepository.updateSigning(SIGNATURE_ID, SIGNING_ID, "COMPLETED", completed.getSignedAt())).thenReturn(2);
+        when(signatureRepository.findAllByReferenceAndDeleted(SIGNATURE_ID, false)).thenReturn(signatures);
+        when(applicationService.getApplicationsByIds(Arrays.asList(1L, 2L))).thenReturn(applications);
+
+        assertTrue(signatureCallbackProcessor.process(pending));
+        verify(applicationService, never()).saveAll(any());
+        assertTrue(signatureCallbackProcessor.process(completed));
+
+        applications.forEach(application -> assertEquals("Pending Payment", application.getStatus()));
+        verify(applicationService, times(1)).saveAll(applications);
+        verify(shoppingCartService, times(2)).checkAndAddApplicationToShoppingCart(any(), any(Application.class), eq("user"));
+        verify(restTemplate, timeout(1000).times(2)).postForObject(eq(URL), any(FOSignatureResource.class), eq(String.class));
+    }
+
+    @Test
+    public void testProcessFrontofficeFailure() {
+        SignatureCallbackResource callback = callback("FAILED");
+        when(signatureCallbackRepository.updateSigning(SIGNATURE_ID, SIGNING_ID, "FAILED", callback.getSignedAt())).thenReturn(2);
+        when(signatureRepository.findAllByReferenceAndDeleted(SIGNATURE_ID, false)).thenReturn(signatures);
+        when(restTemplate.postForObject(eq(URL), any(FOSignatureResource.class), eq(String.class)))
+                .thenThrow(new RestClientException("unavailable"));
+
+        assertTrue(signatureCallbackProcessor.process(callback));
+
+        verify(applicationService, never()).saveAll(any());
+        verify(shoppingCartService, never()).checkAndAddApplicationToShoppingCart(any(), any(Application.class), anyString());
+        verify(signatureCallbackRepository, timeout(1000)).updateStatusBySigning(SIGNATURE_ID, SIGNING_ID, "COMPLETED_UPDATE_FO_FAILED");
+    }
+
+    private static SignatureCallbackResource callback(String status) {
+        return SignatureCallbackResource.builder()
+                .signatureId(SIGNATURE_ID)
+                .signingId(SIGNING_ID)
+                .status(status)
+                .signedAt(LocalDateTime.of(2021, 10, 29, 10, 20))
+                .build();
+    }
+}
@@ -26,19 +26,24 @@ import eu.euipo.etmdn.userarea.common.persistence.entity.Application;
 import eu.euipo.etmdn.userarea.common.persistence.entity.signature.SignatureEntity;
 import eu.euipo.etmdn.userarea.common.persistence.repository.SignatureRepository;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationDetails;
+import eu.euipo.etmdn.userarea.domain.signature.ApplicationSignatures;
 import eu.euipo.etmdn.userarea.domain.signature.PlatformSignatureDetails;
 import eu.euipo.etmdn.userarea.domain.signature.SignRequest;
 import eu.euipo.etmdn.userarea.domain.signature.SignResource;
 import eu.euipo.etmdn.userarea.domain.signature.SignatoryDetails;
+import eu.euipo.etmdn.userarea.domain.signature.SignatureCallbackResource;
 import eu.euipo.etmdn.userarea.domain.signature.SignatureSortColumn;
 import eu.euipo.etmdn.userarea.domain.signature.SignatureSortingCriteriaRequest;
 import eu.euipo.etmdn.userarea.external.signature.api.client.SignatureClient;
+import eu.euipo.etmdn.userarea.persistence.repository.signature.SignatureCountRepository;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
@@ -47,12 +52,14 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -82,7 +89,14 @@ public class SignatureServiceImplTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Mock
+    private SignatureCountRepository signatureCountRepository;
+
+    @Mock
+    private SignatureCallbackProcessor signatureCallbackProcessor;
+
     private Application applicationTrademark;
+    private ApplicationSignatures applicationSignatures;
     private SignatureSortingCriteriaRequest signatureSortingCriteriaRequest;
     private final Set<String> roles = new HashSet<>();
     private static final String USERNAME = "abc@xyz.com";
@@ -92,7 +106,7 @@ public class SignatureServiceImplTest {
     public void setUp() {
         signatureSortingCriteriaRequest = new SignatureSortingCriteriaRequest();
         signatureService = new SignatureServiceImpl(applicationService, applicationConfiguration, signatureClient, signatureRepository,
-                shoppingCartService, restTemplate, "", "", "", "", "");
+                shoppingCartService, restTemplate, signatureCountRepository, signatureCallbackProcessor, "", "", "", "");
 
         ApplicationSignature applicationSignature = ApplicationSignature.builder()
                 .maxSignatories(5)
@@ -104,6 +118,12 @@ public class SignatureServiceImplTest {
         applicationTrademark = Application.builder().number("12345678").foModule("trademark").type("Word")
                 .kind("Individual").status("Pending Signature")
                 .signatures(new ArrayList<>(Arrays.asList(signatureTrademark))).build();
+        applicationSignatures = ApplicationSignatures.builder().applicationId(1L).number("12345678").foModule("trademark")
+                .status("Pending Signature")
+                .names(Collections.singletonList("Name"))
+                .capacities(Collections.singletonList("Capacity"))
+                .dates(Collections.singletonList(LocalDateTime.now()))
+                .build();
         roles.addAll(Arrays.asList("ROLE_TRADEMARKS", "ROLE_SIGNATURES"));
         ApplicationStatus applicationStatus = ApplicationStatus.builder()
                 .signature("Pending Signature")
@@ -114,7 +134,7 @@ public class SignatureServiceImplTest {
 
     @Test
     public void testTrademarkApplicationWithSignatures() {
-        when(applicationService.getApplicationsForSignatures(USERNAME, roles)).thenReturn(Collections.singletonList(applicationTrademark));
+        when(applicationService.getApplicationSignatures(USERNAME, roles)).thenReturn(Collections.singletonList(applicationSignatures));
         List<Signature> signatures = signatureService.getSignatures(USERNAME, roles, signatureSortingCriteriaRequest);
         assertNotNull(signatures);
         assertFalse(signatures.isEmpty());
@@ -122,7 +142,7 @@ public class SignatureServiceImplTest {
 
     @Test
     public void testTrademarkApplicationWithSignaturesNotValidUser() {
-        when(applicationService.getApplicationsForSignatures(USERNAME, roles)).thenReturn(null);
+        when(applicationService.getApplicationSignatures(USERNAME, roles)).thenReturn(null);
         List<Signature> signatures = signatureService.getSignatures(USERNAME, roles, signatureSortingCriteriaRequest);
         assertEquals(0, signatures.size());
     }
@@ -131,7 +151,7 @@ public class SignatureServiceImplTest {
     public void testSortAscendingSignatureSortColumnType() {
         signatureSortingCriteriaRequest.setSortType("ASC");
         signatureSortingCriteriaRequest.setSortColumn(SignatureSortColumn.TYPE);
-        when(applicationService.getApplicationsForSignatures(USERNAME, roles)).thenReturn(Collections.singletonList(applicationTrademark));
+        when(applicationService.getApplicationSignatures(USERNAME, roles)).thenReturn(Collections.singletonList(applicationSignatures));
         List<Signature> signatures = signatureService.getSignatures(USERNAME, roles, signatureSortingCriteriaRequest);
         assertNotNull(signatures);
         assertFalse(signatures.isEmpty());
@@ -141,7 +161,7 @@ public class SignatureServiceImplTest {
     public void testSortAscendingSignatureSortColumnApplication() {
         signatureSortingCriteriaRequest.setSortType("ASC");
         signatureSortingCriteriaRequest.setSortColumn(SignatureSortColumn.APPLICATION);
-        when(applicationService.getApplicationsForSignatures(USERNAME, roles)).thenReturn(Collections.singletonList(applicationTrademark));
+        when(applicationService.getApplicationSignatures(USERNAME, roles)).thenReturn(Collections.singletonList(applicationSignatures));
         List<Signature> signatures = signatureService.getSignatures(USERNAME, roles, signatureSortingCriteriaRequest);
         assertNotNull(signatures);
         assertFalse(signatures.isEmpty());
@@ -151,7 +171,7 @@ public class SignatureServiceImplTest {
     public void testSortAscendingSignatureSortColumnSignedat() {
         signatureSortingCriteriaRequest.setSortType("ASC");
         signatureSortingCriteriaRequest.setSortColumn(SignatureSortColumn.SIGNEDAT);
-        when(applicationService.getApplicationsForSignatures(USERNAME, roles)).thenReturn(Collections.singletonList(applicationTrademark));
+        when(applicationService.getApplicationSignatures(USERNAME, roles)).thenReturn(Collections.singletonList(applicationSignatures));
         List<Signature> signatures = signatureService.getSignatures(USERNAME, roles, signatureSortingCriteriaRequest);
         assertNotNull(signatures);
         assertFalse(signatures.isEmpty());
@@ -161,7 +181,7 @@ public class SignatureServiceImplTest {
     public void testSortDescendingSignatureSortColumnType() {
         signatureSortingCriteriaRequest.setSortType("DESC");
         signatureSortingCriteriaRequest.setSortColumn(SignatureSortColumn.TYPE);
-        when(applicationService.getApplicationsForSignatures(USERNAME, roles)).thenReturn(Collections.singletonList(applicationTrademark));
+        when(applicationService.getApplicationSignatures(USERNAME, roles)).thenReturn(Collections.singletonList(applicationSignatures));
         List<Signature> signatures = signatureService.getSignatures(USERNAME, roles, signatureSortingCriteriaRequest);
         assertNotNull(signatures);
         assertFalse(signatures.isEmpty());
@@ -172,7 +192,7 @@ public class SignatureServiceImplTest {
     public void testSortDescendingSignatureSortColumnApplication() {
         signatureSortingCriteriaRequest.setSortType("DESC");
         signatureSortingCriteriaRequest.setSortColumn(SignatureSortColumn.APPLICATION);
-        when(applicationService.getApplicationsForSignatures(USERNAME, roles)).thenReturn(Collections.singletonList(applicationTrademark));
+        when(applicationService.getApplicationSignatures(USERNAME, roles)).thenReturn(Collections.singletonList(applicationSignatures));
         List<Signature> signatures = signatureService.getSignatures(USERNAME, roles, signatureSortingCriteriaRequest);
         assertNotNull(signatures);
         assertFalse(signatures.isEmpty());
@@ -182,12 +202,92 @@ public class SignatureServiceImplTest {
     public void testSortDescendingSignatureSortColumnSignedDate() {
         signatureSortingCriteriaRequest.setSortType("DESC");
         signatureSortingCriteriaRequest.setSortColumn(SignatureSortColumn.SIGNEDAT);
-        when(applicationService.getApplicationsForSignatures(USERNAME, roles)).thenReturn(Collections.singletonList(applicationTrademark));
+        when(applicationService.getApplicationSignatures(USERNAME, roles)).thenReturn(Collections.singletonList(applicationSignatures));
         List<Signature> signatures = signatureService.getSignatures(USERNAME, roles, signatureSortingCriteriaRequest);
         assertNotNull(signatures);
         assertFalse(signatures.isEmpty());
     }
 
+    @Test
+    public void testSignaturesPage() {
+        ApplicationSignatures other = ApplicationSignatures.builder().applicationId(2L).number("87654321").foModule("design")
+                .status("Pending Signature")
+                .names(Arrays.asList("Second", "First"))
+                .capacities(Arrays.asList("Applicant", "Representative"))
+                .dates(Arrays.asList(LocalDateTime.of(2021, 10, 2, 10, 0), LocalDateTime.of(2021, 10, 1, 10, 0)))
+                .build();
+        signatureSortingCriteriaRequest.setSortType("ASC");
+        signatureSortingCriteriaRequest.setSortColumn(SignatureSortColumn.APPLICATION);
+        when(applicationService.getApplicationSignatures(USERNAME, roles)).thenReturn(Arrays.asList(other, applicationSignatures));
+        Page<Signature> signatures = signatureService.getSignatures(USERNAME, roles, signatureSortingCriteriaRequest, PageRequest.of(1, 1));
+        assertEquals(2, signatures.getTotalElements());
+        assertEquals(1, signatures.getContent().size());
+        Signature signature = signatures.getContent().get(0);
+        assertEquals("87654321", signature.getNumber());
+        assertEquals("Second,First", signature.getName());
+        assertEquals("Applicant,Representative", signature.getCapacity());
+        assertEquals("2021-10-02T10:00,2021-10-01T10:00", signature.getDate());
+    }
+
+    @Test
+    public void testSignaturesPageOfCriteria() {
+        ApplicationSignatures other = ApplicationSignatures.builder().applicationId(2L).number("87654321").foModule("design")
+                .status("Pending Signature")
+                .names(Collections.singletonList("Second"))
+                .capacities(Collections.singletonList("Applicant"))
+                .dates(Collections.singletonList(LocalDateTime.of(2021, 10, 2, 10, 0)))
+                .build();
+        signatureSortingCriteriaRequest.setSortType("ASC");
+        signatureSortingCriteriaRequest.setSortColumn(SignatureSortColumn.APPLICATION);
+        signatureSortingCriteriaRequest.setPage(1);
+        signatureSortingCriteriaRequest.setSize(1);
+        when(applicationService.getApplicationSignatures(USERNAME, roles)).thenReturn(Arrays.asList(other, applicationSignatures));
+        List<Signature> signatures = signatureService.getSignatures(USERNAME, roles, signatureSortingCriteriaRequest);
+        assertEquals(1, signatures.size());
+        assertEquals("87654321", signatures.get(0).getNumber());
+    }
+
+    @Test
+    public void testSortSignedAtOnTypedDates() {
+        ApplicationSignatures signedLater = ApplicationSignatures.builder().applicationId(2L).number("87654321").foModule("design")
+                .status("Pending Signature")
+                .names(Collections.singletonList("Name"))
+                .capacities(Collections.singletonList("Capacity"))
+                .dates(Collections.singletonList(LocalDateTime.of(2021, 10, 2, 10, 0)))
+                .build();
+        ApplicationSignatures notSigned = ApplicationSignatures.builder().applicationId(3L).number("11111111").foModule("trademark")
+                .status("Pending Signature")
+                .names(Collections.emptyList())
+                .capacities(Collections.emptyList())
+                .dates(Collections.emptyList())
+                .build();
+        applicationSignatures.setDates(Collections.singletonList(LocalDateTime.of(2021, 10, 1, 10, 0)));
+        signatureSortingCriteriaRequest.setSortType("DESC");
+        signatureSortingCriteriaRequest.setSortColumn(SignatureSortColumn.SIGNEDAT);
+        when(applicationService.getApplicationSignatures(USERNAME, roles))
+                .thenReturn(Arrays.asList(notSigned, applicationSignatures, signedLater));
+        List<Signature> signatures = signatureService.getSignatures(USERNAME, roles, signatureSortingCriteriaRequest);
+        assertEquals(Arrays.asList("87654321", "12345678", "11111111"),
+                Arrays.asList(signatures.get(0).getNumber(), signatures.get(1).getNumber(), signatures.get(2).getNumber()));
+    }
+
+    @Test
+    public void testSignaturesPageOfCriteria() {
+        signatureSortingCriteriaRequest.setPage(3);
+        signatureSortingCriteriaRequest.setSize(10);
+        when(applicationService.getApplicationSignatures(USERNAME, roles)).thenReturn(Collections.singletonList(applicationSignatures));
+        List<Signature> signatures = signatureService.getSignatures(USERNAME, roles, signatureSortingCriteriaRequest);
+        assertTrue(signatures.isEmpty());
+    }
+
+    @Test
+    public void testConfirm() {
+        SignatureCallbackResource callback = SignatureCallbackResource.builder().signatureId("signatureId").signingId("signingId")
+                .status("COMPLETED").signedAt(LocalDateTime.now()).build();
+        signatureService.confirm(callback);
+        verify(signatureCallbackProcessor).process(callback);
+    }
+
     @Test
     public void testDeleteApplicationFromSignatures() {
         doNothing().when(applicationService).deleteApplication(USERNAME, NUMBER);
@@ -293,14 +393,23 @@ public class SignatureServiceImplTest {
 
     @Test
     public void getNonFullySignedApplicationDetailsBySignatureId() {
-        applicationTrademark.getSignatures().get(0).setApplication(applicationTrademark);
-        when(signatureRepository.findAllByReferenceAndDeleted("signatureId",false))
-                .thenReturn(applicationTrademark.getSignatures());
-        when(signatureRepository.findAllByApplicationIdAndStatusAndDeleted(applicationTrademark.getId(),
-                applicationConfiguration.getSignature().getStatus().getCompleted(), false))
-                .thenReturn(applicationTrademark.getSignatures());
+        when(signatureCountRepository.countSignaturesByReferences(Collections.singletonList("signatureId"), "COMPLETED"))
+                .thenReturn(Collections.singletonList(new Object[]{"signatureId", "12345678", 1L}));
         List<String> list = signatureService.getNonFullySignedApplicationDetailsBySignatureId(USERNAME,"signatureId");
-        assertFalse(list.isEmpty());
+        assertEquals(Collections.singletonList("12345678"), list);
+    }
+
+    @Test
+    public void testGetNonFullySignedApplicationNumbers() {
+        List<String> signatureIds = Arrays.asList("signatureId", "otherSignatureId", "emptySignatureId");
+        when(signatureCountRepository.countSignaturesByReferences(signatureIds, "COMPLETED"))
+                .thenReturn(Arrays.asList(new Object[]{"signatureId", "12345678", 5L},
+                        new Object[]{"signatureId", "87654321", 4L},
+                        new Object[]{"otherSignatureId", "12345678", 5L}));
+        Map<String, List<String>> applicationNumbers = signatureService.getNonFullySignedApplicationNumbers(signatureIds);
+        assertEquals(Collections.singletonList("87654321"), applicationNumbers.get("signatureId"));
+        assertTrue(applicationNumbers.get("otherSignatureId").isEmpty());
+        assertTrue(applicationNumbers.get("emptySignatureId").isEmpty());
     }
 
     @Test
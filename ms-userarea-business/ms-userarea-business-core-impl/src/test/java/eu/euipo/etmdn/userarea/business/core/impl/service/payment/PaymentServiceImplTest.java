@@ -15,6 +15,7 @@ package eu.euipo.etmdn.userarea.business.core.impl.service.payment;
 
 import eu.euipo.etmdn.userarea.business.core.api.service.ApplicationService;
 import eu.euipo.etmdn.userarea.business.core.api.service.ShoppingCartService;
+import eu.euipo.etmdn.userarea.business.core.impl.domain.InvoicePaidEvent;
 import eu.euipo.etmdn.userarea.common.business.config.ApplicationConfiguration;
 import eu.euipo.etmdn.userarea.common.business.service.AccountService;
 import eu.euipo.etmdn.userarea.common.domain.ApplicationSearch;
@@ -50,6 +51,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -98,6 +100,8 @@ public class PaymentServiceImplTest {
     private AccountService accountService;
     @Mock
     private ApplicationConfiguration applicationConfiguration;
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
 
     private ShoppingCartApplication shoppingCartApplication;
 
@@ -243,6 +247,7 @@ public class PaymentServiceImplTest {
         paymentService.confirm(callbackResource);
         verify(paymentRepository, times(1)).save(eq(paymentEntity));
         verify(paymentService, times(1)).asyncNotifyFrontoffice(eq(paymentEntity));
+        verify(applicationEventPublisher, times(1)).publishEvent(any(InvoicePaidEvent.class));
     }
 
     @Test
@@ -254,6 +259,7 @@ public class PaymentServiceImplTest {
         paymentService.confirm(callbackResource);
         verify(paymentRepository, times(0)).save(any());
         verify(paymentService, times(0)).asyncNotifyFrontoffice(any());
+        verify(applicationEventPublisher, times(0)).publishEvent(any(Object.class));
     }
 
     @Test
@@ -13,8 +13,16 @@
 
 package eu.euipo.etmdn.userarea.business.core.impl.service.pdf;
 
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReport;
 import eu.euipo.etmdn.userarea.business.core.api.service.ApplicationService;
 import eu.euipo.etmdn.userarea.business.core.api.service.PaymentService;
+import eu.euipo.etmdn.userarea.business.core.impl.cache.CorrespondenceZipCache;
+import eu.euipo.etmdn.userarea.business.core.impl.cache.InvoiceStore;
+import eu.euipo.etmdn.userarea.business.core.impl.cache.PdfTemplateCache;
+import eu.euipo.etmdn.userarea.business.core.impl.domain.InvoicePaidEvent;
+import eu.euipo.etmdn.userarea.business.core.impl.report.AttachmentFetcher;
+import eu.euipo.etmdn.userarea.business.core.impl.report.PdfRenderExecutor;
+import eu.euipo.etmdn.userarea.business.core.impl.report.ReportRowPipeline;
 import eu.euipo.etmdn.userarea.common.business.config.IpoConfiguration;
 import eu.euipo.etmdn.userarea.common.business.config.PdfTemplateConfiguration;
 import eu.euipo.etmdn.userarea.common.business.correspondence.MessageAttachmentService;
@@ -30,7 +38,10 @@ import eu.euipo.etmdn.userarea.common.domain.PaginationData;
 import eu.euipo.etmdn.userarea.common.domain.PdfTemplate;
 import eu.euipo.etmdn.userarea.common.domain.PdfTemplateType;
 import eu.euipo.etmdn.userarea.common.domain.SortingData;
+import eu.euipo.etmdn.userarea.common.domain.correspondence.Attachment;
+import eu.euipo.etmdn.userarea.common.domain.correspondence.DraftAttachment;
 import eu.euipo.etmdn.userarea.common.domain.correspondence.MessageStatus;
+import eu.euipo.etmdn.userarea.common.domain.document.FileResponse;
 import eu.euipo.etmdn.userarea.common.domain.exception.InvalidDownloadAttachmentUserException;
 import eu.euipo.etmdn.userarea.common.persistence.document.DocumentClient;
 import eu.euipo.etmdn.userarea.common.persistence.entity.correspondence.DraftEntity;
@@ -41,28 +52,67 @@ import eu.euipo.etmdn.userarea.domain.ApplicationType;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationDetails;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationRequest;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationSearchResult;
+import eu.euipo.etmdn.userarea.domain.payment.InvoiceDetails;
+import eu.euipo.etmdn.userarea.domain.payment.InvoiceFile;
+import eu.euipo.etmdn.userarea.domain.payment.PaidApplication;
+import eu.euipo.etmdn.userarea.domain.payment.PaymentStatus;
+import eu.euipo.etmdn.userarea.domain.payment.PaymentType;
+import eu.euipo.etmdn.userarea.domain.pdf.exception.PdfRenderRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.core.io.DefaultResourceLoader;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class PdfServiceImplTest {
 
+    @Rule
+    public TemporaryFolder invoiceFolder = new TemporaryFolder();
+    @Rule
+    public TemporaryFolder correspondenceFolder = new TemporaryFolder();
+
     @InjectMocks
     private PdfServiceImpl pdfService;
 
@@ -97,6 +147,7 @@ public class PdfServiceImplTest {
     private DomainAccount currentAccount;
     private DraftEntity draftEntity;
     private PdfTemplate pdfTemplate;
+    private SimpleMeterRegistry meterRegistry;
     private final Set<String> roles = new HashSet<>();
     private static final String USERNAME = "abc@xyz.com";
     private static final String accountUsername = "johnDoe@doe.com";
@@ -104,7 +155,13 @@ public class PdfServiceImplTest {
 
     @Before
     public void setUp() {
-        pdfService = new PdfServiceImpl(pdfTemplateConfiguration, pdfTemplateHelper, applicationService,messageRepository,draftRepository,accountService,ipoConfiguration,messageAttachmentService, paymentService, documentClient, "");
+        meterRegistry = new SimpleMeterRegistry();
+        pdfService = new PdfServiceImpl(pdfTemplateConfiguration, pdfTemplateHelper, applicationService,messageRepository,draftRepository,accountService,ipoConfiguration,messageAttachmentService, paymentService, documentClient,
+                new ReportRowPipeline(new SimpleMeterRegistry(), 2, 4, 2),
+                new PdfTemplateCache(pdfTemplateConfiguration, new DefaultResourceLoader(), "file:///config/", "classpath:templates", "", 0),
+                new PdfRenderExecutor(meterRegistry, 1, 1, 60000, 5),
+                new InvoiceStore(invoiceFolder.getRoot().getPath()), new AttachmentFetcher(2, 2),
+                new CorrespondenceZipCache(correspondenceFolder.getRoot().getPath(), 1024 * 1024, 60), "", 2, 4);
         ApplicationDetails applicationTrademark = ApplicationDetails.builder().type("Word").kind("Individual").status("Submitted").build();
         pageableApplicationTrademark = new ApplicationSearchResult();
         pageableApplicationTrademark.setContent(Collections.singletonList(applicationTrademark));
@@ -177,6 +234,138 @@ public class PdfServiceImplTest {
         assertNotNull(fileInfo);
     }
 
+    @Test
+    public void testGeneratePdfStampedWithTemplateVersion() throws IOException {
+        applicationRequestTrademark.setIsDraft(false);
+        when(applicationService.getApplications(applicationRequestTrademark, roles)).thenReturn(pageableApplicationTrademark);
+        when(pdfTemplateConfiguration.getPdfTemplate(PdfTemplateType.TRADEMARK)).thenReturn(pdfTemplate);
+        when(pdfTemplateHelper.processTemplate(any(), any(), eq(Locale.getDefault()))).thenReturn(content);
+        FileInfo fileInfo = pdfService.generatePdf(applicationRequestTrademark, roles);
+        pdfService.generatePdf(applicationRequestTrademark, roles);
+        verify(pdfTemplateConfiguration, times(1)).getPdfTemplate(PdfTemplateType.TRADEMARK);
+        try (PDDocument document = PDDocument.load(fileInfo.getFileContent())) {
+            assertTrue(document.getDocumentInformation().getProducer().startsWith("userarea pdf template "));
+        }
+    }
+
+    @Test
+    public void testGeneratePdfRejectedWhenRenderQueueIsFull() throws Exception {
+        applicationRequestTrademark.setIsDraft(false);
+        when(applicationService.getApplications(applicationRequestTrademark, roles)).thenReturn(pageableApplicationTrademark);
+        when(pdfTemplateConfiguration.getPdfTemplate(PdfTemplateType.TRADEMARK)).thenReturn(pdfTemplate);
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(pdfTemplateHelper.processTemplate(any(), any(), eq(Locale.getDefault()))).thenAnswer(invocation -> {
+            rendering.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return content;
+        });
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<FileInfo> first = callers.submit(() -> pdfService.generatePdf(applicationRequestTrademark, roles));
+            assertTrue(rendering.await(10, TimeUnit.SECONDS));
+            Future<FileInfo> second = callers.submit(() -> pdfService.generatePdf(applicationRequestTrademark, roles));
+            long deadline = System.currentTimeMillis() + 10000;
+            while (meterRegistry.get("userarea.pdf.render.queue").gauge().value() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            try {
+                pdfService.generatePdf(applicationRequestTrademark, roles);
+                fail("Expected the render to be rejected");
+            } catch (PdfRenderRejectedException e) {
+                assertEquals(5, e.getRetryAfter());
+            }
+            release.countDown();
+            assertNotNull(first.get(10, TimeUnit.SECONDS));
+            assertNotNull(second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, meterRegistry.get("userarea.pdf.render.rejected").counter().count(), 0);
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testGenerateChunkedPdf() throws IOException {
+        ApplicationDetails applicationTrademark = ApplicationDetails.builder().type("Word").kind("Individual").status("Submitted").build();
+        ApplicationSearchResult applications = new ApplicationSearchResult();
+        applications.setContent(Collections.nCopies(5, applicationTrademark));
+        applicationRequestTrademark.setIsDraft(false);
+        when(applicationService.getApplications(applicationRequestTrademark, roles)).thenReturn(applications);
+        when(pdfTemplateConfiguration.getPdfTemplate(PdfTemplateType.TRADEMARK)).thenReturn(pdfTemplate);
+        when(pdfTemplateHelper.processTemplate(any(), any(), eq(Locale.getDefault()))).thenReturn(content);
+        FileInfo fileInfo = pdfService.generatePdf(applicationRequestTrademark, roles);
+        verify(pdfTemplateHelper, times(3)).processTemplate(any(), any(), eq(Locale.getDefault()));
+        try (PDDocument document = PDDocument.load(fileInfo.getFileContent())) {
+            assertEquals(3, document.getNumberOfPages());
+            PDFTextStripper textStripper = new PDFTextStripper();
+            textStripper.setStartPage(3);
+            textStripper.setEndPage(3);
+            assertTrue(textStripper.getText(document).contains("Page 3 of 3"));
+        }
+    }
+
+    @Test
+    public void testGenerateStreamingChunkedPdf() throws IOException {
+        ApplicationDetails applicationTrademark = ApplicationDetails.builder().type("Word").kind("Individual").status("Submitted").build();
+        ApplicationSearchResult applications = new ApplicationSearchResult();
+        applications.setContent(Collections.nCopies(5, applicationTrademark));
+        applicationRequestTrademark.setIsDraft(false);
+        when(applicationService.getApplications(applicationRequestTrademark, roles)).thenReturn(applications);
+        when(pdfTemplateConfiguration.getPdfTemplate(PdfTemplateType.TRADEMARK)).thenReturn(pdfTemplate);
+        when(pdfTemplateHelper.processTemplate(any(), any(), eq(Locale.getDefault()))).thenReturn(content);
+        StreamingReport report = pdfService.generateStreamingPdf(applicationRequestTrademark, roles);
+        verify(pdfTemplateHelper, times(3)).processTemplate(any(), any(), eq(Locale.getDefault()));
+        assertEquals("application/pdf", report.getContentType());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        report.writeTo(outputStream);
+        try (PDDocument document = PDDocument.load(outputStream.toByteArray())) {
+            assertEquals(3, document.getNumberOfPages());
+        }
+    }
+
+    @Test
+    public void testGetInvoiceStoredOncePaid() {
+        InvoiceDetails invoiceDetails = createInvoiceDetails(PaymentStatus.PAID);
+        when(paymentService.getInvoice("transactionId")).thenReturn(invoiceDetails);
+        when(pdfTemplateConfiguration.getPdfTemplate(PdfTemplateType.INVOICE)).thenReturn(pdfTemplate);
+        when(pdfTemplateHelper.processTemplate(any(), any(), eq(Locale.getDefault()))).thenReturn(content);
+        InvoiceFile invoiceFile = pdfService.getInvoice(USERNAME, "transactionId");
+        assertNotNull(invoiceFile.getEtag());
+        InvoiceFile storedInvoiceFile = pdfService.getInvoice(USERNAME, "transactionId");
+        assertEquals(invoiceFile.getEtag(), storedInvoiceFile.getEtag());
+        assertArrayEquals(invoiceFile.getFileContent(), storedInvoiceFile.getFileContent());
+        verify(paymentService, times(1)).getInvoice("transactionId");
+        verify(pdfTemplateHelper, times(1)).processTemplate(any(), any(), eq(Locale.getDefault()));
+    }
+
+    @Test
+    public void testInvoicePreRenderedOncePaid() throws InterruptedException {
+        InvoiceDetails invoiceDetails = createInvoiceDetails(PaymentStatus.PAID);
+        when(paymentService.getInvoice("transactionId")).thenReturn(invoiceDetails);
+        when(pdfTemplateConfiguration.getPdfTemplate(PdfTemplateType.INVOICE)).thenReturn(pdfTemplate);
+        when(pdfTemplateHelper.processTemplate(any(), any(), eq(Locale.getDefault()))).thenReturn(content);
+        pdfService.onInvoicePaid(new InvoicePaidEvent("transactionId"));
+        InvoiceStore invoiceStore = new InvoiceStore(invoiceFolder.getRoot().getPath());
+        for (int i = 0; i < 100 && !invoiceStore.contains("transactionId"); i++) {
+            Thread.sleep(50);
+        }
+        assertNotNull(pdfService.getInvoice(USERNAME, "transactionId").getEtag());
+        verify(paymentService, times(1)).getInvoice("transactionId");
+    }
+
+    @Test
+    public void testGetInvoiceNotStoredWhenNotPaid() {
+        InvoiceDetails invoiceDetails = createInvoiceDetails(PaymentStatus.PENDING);
+        when(paymentService.getInvoice("transactionId")).thenReturn(invoiceDetails);
+        when(pdfTemplateConfiguration.getPdfTemplate(PdfTemplateType.INVOICE)).thenReturn(pdfTemplate);
+        when(pdfTemplateHelper.processTemplate(any(), any(), eq(Locale.getDefault()))).thenReturn(content);
+        InvoiceFile invoiceFile = pdfService.getInvoice(USERNAME, "transactionId");
+        assertNull(invoiceFile.getEtag());
+        pdfService.generatePdf(USERNAME, "transactionId");
+        verify(paymentService, times(2)).getInvoice("transactionId");
+    }
+
     @Test
     public void testGenerateDesignToPdf() {
         applicationRequestDesign.setIsDraft(false);
@@ -236,6 +425,92 @@ public class PdfServiceImplTest {
         assertNotNull(info);
     }
 
+    @Test
+    public void testGenerateCorrespondenceZipKeepsAttachmentOrder() throws IOException {
+        this.draftEntity.setDraftStatus(MessageStatus.SENT.getValue());
+        when(draftRepository.getOne(eq(1L))).thenReturn(this.draftEntity);
+        when(accountService.getMainAccount(USERNAME)).thenReturn(account);
+        when(pdfTemplateHelper.processTemplate(any(), any(), eq(Locale.getDefault()))).thenReturn(content);
+        when(messageAttachmentService.getDraftAttachments(1L)).thenReturn(Arrays.asList(
+                createDraftAttachment("first.pdf"), createDraftAttachment("second.pdf"), createDraftAttachment("third.pdf")));
+        // the first attachment is the slowest to fetch
+        when(documentClient.getDocument(anyString(), anyString())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(1);
+            if ("first.pdf".equals(name)) {
+                Thread.sleep(200);
+            }
+            FileResponse fileResponse = new FileResponse();
+            fileResponse.setBytes(name.getBytes(StandardCharsets.UTF_8));
+            return fileResponse;
+        });
+        StreamingReport correspondence = pdfService.generateCorrespondence(USERNAME, "1", true);
+        assertEquals("correspondence.zip", correspondence.getFileName());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        correspondence.writeTo(outputStream);
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            for (ZipEntry entry = zipInputStream.getNextEntry(); entry != null; entry = zipInputStream.getNextEntry()) {
+                entries.add(entry.getName());
+            }
+        }
+        assertEquals(Arrays.asList("correspondence.pdf", "first.pdf", "second.pdf", "third.pdf"), entries);
+    }
+
+    @Test
+    public void testGenerateCorrespondenceZipServedFromCache() throws IOException {
+        MessageEntity messageEntity = this.draftEntity.getMessage();
+        messageEntity.setRecipientId(USERNAME);
+        when(messageRepository.getOne(eq(1L))).thenReturn(messageEntity);
+        when(accountService.getMainAccount(USERNAME)).thenReturn(account);
+        when(pdfTemplateHelper.processTemplate(any(), any(), eq(Locale.getDefault()))).thenReturn(content);
+        Attachment attachment = new Attachment();
+        attachment.setName("attachment.pdf");
+        attachment.setMimeType("application/pdf");
+        attachment.setUri("http://documents/attachment.pdf");
+        when(messageAttachmentService.getMessageAttachments(1L)).thenReturn(Collections.singletonList(attachment));
+        FileResponse fileResponse = new FileResponse();
+        fileResponse.setBytes(new byte[]{1, 2, 3});
+        when(documentClient.getDocument(anyString(), anyString())).thenReturn(fileResponse);
+        ByteArrayOutputStream generated = new ByteArrayOutputStream();
+        pdfService.generateCorrespondence(USERNAME, "1", false).writeTo(generated);
+        ByteArrayOutputStream cached = new ByteArrayOutputStream();
+        StreamingReport correspondence = pdfService.generateCorrespondence(USERNAME, "1", false);
+        assertEquals("correspondence.zip", correspondence.getFileName());
+        correspondence.writeTo(cached);
+        assertArrayEquals(generated.toByteArray(), cached.toByteArray());
+        verify(pdfTemplateHelper, times(1)).processTemplate(any(), any(), eq(Locale.getDefault()));
+        verify(documentClient, times(1)).getDocument(anyString(), anyString());
+    }
+
+    @Test
+    public void testGenerateCorrespondenceZipEvictedBeforeWrite() throws IOException {
+        testGenerateCorrespondenceZipServedFromCache();
+        StreamingReport correspondence = pdfService.generateCorrespondence(USERNAME, "1", false);
+        File[] cachedZips = correspondenceFolder.getRoot().listFiles();
+        assertNotNull(cachedZips);
+        for (File cachedZip : cachedZips) {
+            assertTrue(cachedZip.delete());
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        correspondence.writeTo(outputStream);
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            for (ZipEntry entry = zipInputStream.getNextEntry(); entry != null; entry = zipInputStream.getNextEntry()) {
+                entries.add(entry.getName());
+            }
+        }
+        assertEquals(Arrays.asList("correspondence.pdf", "attachment.pdf"), entries);
+        verify(pdfTemplateHelper, times(2)).processTemplate(any(), any(), eq(Locale.getDefault()));
+    }
+
+    @Test(expected = InvalidDownloadAttachmentUserException.class)
+    public void testGenerateCachedCorrespondenceZipChecksAccess() throws IOException {
+        testGenerateCorrespondenceZipServedFromCache();
+        when(accountService.getAccountByUsername(accountUsername)).thenReturn(currentAccount);
+        when(accountService.getAccountByUsername(USERNAME)).thenReturn(account);
+        pdfService.generateCorrespondence(accountUsername, "1", false);
+    }
+
     @Test(expected = InvalidDownloadAttachmentUserException.class)
     public void testGenerateDownloadPdfException() {
         when(draftRepository.getOne(eq(1L))).thenReturn(this.draftEntity);
@@ -243,4 +518,25 @@ public class PdfServiceImplTest {
         when(accountService.getAccountByUsername(USERNAME)).thenReturn(account);
         pdfService.generatePdf(accountUsername, "1", true);
     }
-}
\ No newline at end of file
+
+    private static InvoiceDetails createInvoiceDetails(PaymentStatus paymentStatus) {
+        return InvoiceDetails.builder()
+                .transactionId("transactionId")
+                .confirmationId("confirmationId")
+                .paymentMethod(PaymentType.CREDIT_CARD)
+                .paymentStatus(paymentStatus)
+                .dateTimeOfSubmission(LocalDateTime.now())
+                .applications(Collections.singletonList(PaidApplication.builder().number("EM500000001").fees("850").build()))
+                .applicationsCount(1)
+                .total("850")
+                .build();
+    }
+
+    private static DraftAttachment createDraftAttachment(String name) {
+        DraftAttachment draftAttachment = new DraftAttachment();
+        draftAttachment.setName(name);
+        draftAttachment.setMimeType("application/pdf");
+        draftAttachment.setUri("http://documents/" + name);
+        return draftAttachment;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * $Id:: DraftBulkResult.java 2021/10/27 09:30 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intellectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.domain.application;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The result of a bulk draft operation for one draft id
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DraftBulkResult {
+
+    private Long id;
+    private DraftBulkStatus status;
+    private String lockedBy;
+
+}
@@ -0,0 +1,26 @@
+/*
+ * $Id:: DraftBulkStatus.java 2021/10/27 09:30 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intellectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.domain.application;
+
+/**
+ * The outcome of a bulk draft operation for one draft id
+ */
+public enum DraftBulkStatus {
+    DELETED,
+    LOCKED,
+    UNLOCKED,
+    NOT_FOUND,
+    NOT_ALLOWED,
+    LOCKED_BY_OTHER
+}
@@ -26,5 +26,6 @@ public class NoteApplication {
 
     private String applicationIdentifier;
     private String note;
+    private Long version;
 
 }
@@ -0,0 +1,32 @@
+/*
+ * $Id:: NoteVersionConflictException.java 2021/10/28 10:15 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intellectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.domain.note.exception;
+
+import eu.euipo.etmdn.userarea.domain.note.NoteApplication;
+import lombok.Getter;
+
+/**
+ * exception that is thrown when a note is updated from a version which has been changed by another user in the meantime
+ */
+@Getter
+public class NoteVersionConflictException extends RuntimeException {
+
+    private final NoteApplication current;
+
+    public NoteVersionConflictException(String message, NoteApplication current){
+        super(message);
+        this.current = current;
+    }
+
+}
@@ -0,0 +1,25 @@
+/*
+ * $Id:: NoteVersionMissingException.java 2021/10/29 18:05 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intellectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.domain.note.exception;
+
+/**
+ * exception that is thrown when a note is updated without the version which was read
+ */
+public class NoteVersionMissingException extends RuntimeException {
+
+    public NoteVersionMissingException(String message){
+        super(message);
+    }
+
+}
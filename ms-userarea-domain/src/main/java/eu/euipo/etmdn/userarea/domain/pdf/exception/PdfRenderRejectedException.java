@@ -0,0 +1,32 @@
+/*
+ * $Id:: PdfRenderRejectedException.java 2021/10/14 10:05 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ *
+ */
+
+package eu.euipo.etmdn.userarea.domain.pdf.exception;
+
+import lombok.Getter;
+
+/**
+ * exception that is thrown when a pdf cannot be rendered because all the render workers are busy and the queue is full
+ */
+@Getter
+public class PdfRenderRejectedException extends RuntimeException {
+
+    private final long retryAfter;
+
+    public PdfRenderRejectedException(String message, long retryAfter){
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+}
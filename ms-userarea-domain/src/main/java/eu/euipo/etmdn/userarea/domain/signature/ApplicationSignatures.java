@@ -0,0 +1,43 @@
+/*
+ * $Id:: ApplicationSignatures.java 2021/10/28 11:15 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intellectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.domain.signature;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * An application shown in the signatures, with the names, capacities and dates of its signatures,
+ * the most recent signature first.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApplicationSignatures {
+
+    private Long applicationId;
+    private String number;
+    private String foModule;
+    private String eserviceName;
+    private String status;
+    private List<String> names;
+    private List<String> capacities;
+    private List<LocalDateTime> dates;
+
+}
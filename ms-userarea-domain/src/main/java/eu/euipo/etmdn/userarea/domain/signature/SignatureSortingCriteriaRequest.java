@@ -17,6 +17,10 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import javax.validation.constraints.Min;
 
 @Data
 @Builder
@@ -26,5 +30,18 @@ public class SignatureSortingCriteriaRequest {
 
     private String sortType;
     private SignatureSortColumn sortColumn;
+    @Min(0)
+    private Integer page;
+    @Min(1)
+    private Integer size;
+
+    /**
+     * The page requested by the criteria.
+     *
+     * @return the page of the page and size, unpaged if either is not set
+     */
+    public Pageable toPageable() {
+        return page != null && size != null ? PageRequest.of(page, size) : Pageable.unpaged();
+    }
 
 }
@@ -27,6 +27,7 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.time.LocalDateTime;
 
 @Getter
@@ -66,4 +67,8 @@ public class NoteApplicationEntity {
     @Column(name = "LockedDate")
     private LocalDateTime lockedDate;
 
+    @Version
+    @Column(name = "Version")
+    private Long version;
+
 }
@@ -0,0 +1,128 @@
+/*
+ * $Id:: ApplicationLockRepository.java 2021/10/22 10:15 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intellectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.persistence.repository.application;
+
+import eu.euipo.etmdn.userarea.common.persistence.entity.Application;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Atomic acquisition and release of the application locks, and set based changes of many drafts.
+ * Each operation is a single conditional update, so the check of the current lock holder and the write cannot be
+ * interleaved with another user. The pending changes are flushed before the update and the persistence context is
+ * cleared after it, so the applications read afterwards carry the new lock.
+ */
+@Transactional
+@Repository
+public interface ApplicationLockRepository extends org.springframework.data.repository.Repository<Application, Long> {
+
+    /**
+     * Lock all the applications with the given number which are not locked by another user.
+     *
+     * @param number     the application number
+     * @param username   the username
+     * @param lockedDate the lock date
+     * @return the number of locked applications
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Application a set a.lockedBy = :username, a.lockedDate = :lockedDate where a.number = :number"
+            + " and (a.lockedBy is null or trim(a.lockedBy) = '' or lower(trim(a.lockedBy)) = lower(:username))")
+    int lockByNumber(@Param("number") String number, @Param("username") String username, @Param("lockedDate") LocalDateTime lockedDate);
+
+    /**
+     * Release the locks held by a user on all the applications with the given number.
+     *
+     * @param number   the application number
+     * @param username the username
+     * @return the number of released applications
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Application a set a.lockedBy = null, a.lockedDate = null where a.number = :number"
+            + " and lower(trim(a.lockedBy)) = lower(:username)")
+    int releaseByNumber(@Param("number") String number, @Param("username") String username);
+
+    /**
+     * Count the applications with the given number.
+     *
+     * @param number the application number
+     * @return the number of applications
+     */
+    @Query("select count(a) from Application a where a.number = :number")
+    long countByNumber(@Param("number") String number);
+
+    /**
+     * Find the users holding a lock on the applications with the given number.
+     *
+     * @param number the application number
+     * @return the lock holders
+     */
+    @Query("select distinct a.lockedBy from Application a where a.number = :number and trim(a.lockedBy) <> ''")
+    List<String> findLockHoldersByNumber(@Param("number") String number);
+
+    /**
+     * Find the locked application numbers.
+     *
+     * @return the application number, the lock holder and the lock date of each locked application number
+     */
+    @Query("select a.number, a.lockedBy, max(a.lockedDate) from Application a where trim(a.lockedBy) <> ''"
+            + " group by a.number, a.lockedBy")
+    List<Object[]> findLocks();
+
+    /**
+     * Find the users holding a lock on the applications with the given numbers.
+     *
+     * @param numbers the application numbers
+     * @return the application number and the lock holder of each locked application
+     */
+    @Query("select distinct a.number, a.lockedBy from Application a where a.number in :numbers and trim(a.lockedBy) <> ''")
+    List<Object[]> findLockHoldersByNumbers(@Param("numbers") Collection<String> numbers);
+
+    /**
+     * Find the drafts with the given ids.
+     *
+     * @param ids      the application ids
+     * @param statuses the draft statuses
+     * @return the id, the application number and the main account username of each draft
+     */
+    @Query("select a.id, a.number, a.mainAccount.username from Application a where a.id in :ids and a.status in :statuses")
+    List<Object[]> findDrafts(@Param("ids") Collection<Long> ids, @Param("statuses") Collection<String> statuses);
+
+    /**
+     * Mark as locked or unlocked all the applications with the given numbers.
+     *
+     * @param numbers the application numbers
+     * @param locked  true to lock the drafts, false to unlock them
+     * @return the number of updated applications
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Application a set a.locked = :locked where a.number in :numbers")
+    int updateLockedByNumbers(@Param("numbers") Collection<String> numbers, @Param("locked") boolean locked);
+
+    /**
+     * Mark as deleted all the applications with the given numbers.
+     *
+     * @param numbers the application numbers
+     * @return the number of deleted applications
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Application a set a.deleted = true where a.number in :numbers")
+    int deleteByNumbers(@Param("numbers") Collection<String> numbers);
+}
@@ -0,0 +1,49 @@
+/*
+ * $Id:: ApplicationReceiptRepository.java 2021/10/21 09:30 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intellectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.persistence.repository.application;
+
+import eu.euipo.etmdn.userarea.common.persistence.entity.Application;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Access to the stored receipt of an application, without loading the application entity.
+ */
+@Transactional(readOnly = true)
+@Repository
+public interface ApplicationReceiptRepository extends org.springframework.data.repository.Repository<Application, Long>,
+        ApplicationReceiptRepositoryCustom {
+
+    /**
+     * Find the owner of an application which has a stored receipt.
+     *
+     * @param id the application id
+     * @return the username of the main account of the application, or empty if the application has no receipt
+     */
+    @Query("select a.mainAccount.username from Application a where a.id = :id and a.receipt is not null")
+    Optional<String> findReceiptOwnerById(@Param("id") Long id);
+
+    /**
+     * Find the stored receipt of an application.
+     *
+     * @param id the application id
+     * @return the receipt, or empty if the application has no receipt
+     */
+    @Query("select a.receipt from Application a where a.id = :id and a.receipt is not null")
+    Optional<String> findReceiptById(@Param("id") Long id);
+}
@@ -0,0 +1,49 @@
+/*
+ * $Id:: ApplicationReceiptRepositoryCustom.java 2021/10/21 09:30 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intellectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.persistence.repository.application;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streamed read of the stored receipt of an application.
+ */
+public interface ApplicationReceiptRepositoryCustom {
+
+    /**
+     * Read the stored receipt of an application as a character stream, without loading it in memory.
+     * The reader is only valid while the consumer runs.
+     *
+     * @param id       the application id
+     * @param consumer the consumer of the receipt
+     * @return false if the application has no receipt
+     * @throws IOException if the consumer fails
+     */
+    boolean readReceipt(Long id, ReceiptConsumer consumer) throws IOException;
+
+    /**
+     * Consumer of a receipt.
+     */
+    @FunctionalInterface
+    interface ReceiptConsumer {
+
+        /**
+         * Consume the receipt.
+         *
+         * @param receipt the receipt
+         * @throws IOException if the receipt cannot be consumed
+         */
+        void accept(Reader receipt) throws IOException;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * $Id:: ApplicationReceiptRepositoryImpl.java 2021/10/21 09:30 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intellectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.persistence.repository.application;
+
+import eu.euipo.etmdn.userarea.common.persistence.entity.Application;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Streamed read of the stored receipt of an application.
+ * The receipt column is read through jdbc as a character stream; the table and column names are taken from the
+ * mapping of the {@link Application} entity.
+ */
+public class ApplicationReceiptRepositoryImpl implements ApplicationReceiptRepositoryCustom {
+
+    private static final String RECEIPT = "receipt";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile String receiptQuery;
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean readReceipt(final Long id, final ReceiptConsumer consumer) throws IOException {
+        final String query = getReceiptQuery();
+        try {
+            return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(query)) {
+                    statement.setLong(1, id);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        if (!resultSet.next()) {
+                            return false;
+                        }
+                        try (Reader receipt = resultSet.getCharacterStream(1)) {
+                            if (receipt == null) {
+                                return false;
+                            }
+                            consumer.accept(receipt);
+                            return true;
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private String getReceiptQuery() {
+        if (receiptQuery == null) {
+            final AbstractEntityPersister persister = (AbstractEntityPersister) entityManager.getEntityManagerFactory()
+                    .unwrap(SessionFactoryImplementor.class)
+                    .getMetamodel()
+                    .entityPersister(Application.class);
+            receiptQuery = "select " + persister.getPropertyColumnNames(RECEIPT)[0] + " from " + persister.getTableName()
+                    + " where " + persister.getIdentifierColumnNames()[0] + " = ?";
+        }
+        return receiptQuery;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * $Id:: ExpiredLockRepository.java 2021/10/22 14:20 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intellectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.persistence.repository.lock;
+
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Set based release of the expired locks of the lockable entities, and listing of their current locks.
+ * A lockable entity has the {@code lockedBy} and {@code lockedDate} attributes; the locks are released with one update
+ * per entity, bounded by the lock date so that an index on the lock date column can be used.
+ */
+@Repository
+public class ExpiredLockRepository {
+
+    private static final String LOCKS_QUERY = "select e.id, e.lockedBy, e.lockedDate from %s e where trim(e.lockedBy) <> ''";
+    private static final String RELEASE_QUERY = "update %s e set e.lockedBy = null, e.lockedDate = null"
+            + " where e.lockedDate < :lockedBefore";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Release the locks of an entity taken before the given date.
+     *
+     * @param entityClass  the lockable entity
+     * @param lockedBefore the date before which the locks are expired
+     * @return the number of released locks
+     */
+    @Transactional
+    public int releaseLockedBefore(final Class<?> entityClass, final LocalDateTime lockedBefore) {
+        return entityManager.createQuery(String.format(RELEASE_QUERY, getEntityName(entityClass)))
+                .setParameter("lockedBefore", lockedBefore)
+                .executeUpdate();
+    }
+
+    /**
+     * Find the current locks of an entity.
+     *
+     * @param entityClass the lockable entity
+     * @return the id, the lock holder and the lock date of each locked entity
+     */
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findLocks(final Class<?> entityClass) {
+        return entityManager.createQuery(String.format(LOCKS_QUERY, getEntityName(entityClass))).getResultList();
+    }
+
+    private String getEntityName(final Class<?> entityClass) {
+        return entityManager.getMetamodel().entity(entityClass).getName();
+    }
+}
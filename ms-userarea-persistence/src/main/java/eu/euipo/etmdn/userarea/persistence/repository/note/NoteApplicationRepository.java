@@ -16,12 +16,13 @@ package eu.euipo.etmdn.userarea.persistence.repository.note;
 import eu.euipo.etmdn.userarea.persistence.entity.note.NoteApplicationEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
-import org.springframework.data.jpa.repository.Lock;
-import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import javax.persistence.LockModeType;
-import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -45,9 +46,84 @@ public interface NoteApplicationRepository extends JpaRepository<NoteApplication
      */
     List<NoteApplicationEntity> findByApplicationNumberIsIn(List<String> numbers);
 
-    @Lock(LockModeType.PESSIMISTIC_READ)
-    @QueryHints(value = {@QueryHint(name = "javax.persistence.lock.scope", value = "EXTENDED")})
-    NoteApplicationEntity getNoteApplicationById(Long id);
+    /**
+     * Update the note of an application if it has not been changed since it was read.
+     *
+     * @param applicationNumber the application number
+     * @param note              the note
+     * @param username          the username
+     * @param modifiedDate      the modification date
+     * @param version           the version of the note which was read
+     * @return the number of updated notes, 0 if the note has been changed in the meantime
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update NoteApplicationEntity n set n.note = :note, n.lastModifiedBy = :username, n.lastModifiedDate = :modifiedDate,"
+            + " n.version = n.version + 1 where n.applicationNumber = :applicationNumber and n.version = :version")
+    int updateNoteIfVersion(@Param("applicationNumber") String applicationNumber, @Param("note") String note,
+                            @Param("username") String username, @Param("modifiedDate") LocalDateTime modifiedDate,
+                            @Param("version") Long version);
 
     List<NoteApplicationEntity> findByLockedByIsNotNull();
+
+    /**
+     * Lock the note of an application, unless it is locked by another user.
+     *
+     * @param applicationNumber the application number
+     * @param username          the username
+     * @param lockedDate        the lock date
+     * @return the number of locked notes
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update NoteApplicationEntity n set n.lockedBy = :username, n.lockedDate = :lockedDate where n.applicationNumber = :applicationNumber"
+            + " and (n.lockedBy is null or trim(n.lockedBy) = '' or lower(trim(n.lockedBy)) = lower(:username))")
+    int lockByApplicationNumber(@Param("applicationNumber") String applicationNumber, @Param("username") String username,
+                                @Param("lockedDate") LocalDateTime lockedDate);
+
+    /**
+     * Release the lock held by a user on the note of an application.
+     *
+     * @param applicationNumber the application number
+     * @param username          the username
+     * @return the number of released notes
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update NoteApplicationEntity n set n.lockedBy = null, n.lockedDate = null where n.applicationNumber = :applicationNumber"
+            + " and lower(trim(n.lockedBy)) = lower(:username)")
+    int releaseByApplicationNumber(@Param("applicationNumber") String applicationNumber, @Param("username") String username);
+
+    /**
+     * Count the notes of an application.
+     *
+     * @param applicationNumber the application number
+     * @return the number of notes
+     */
+    @Query("select count(n) from NoteApplicationEntity n where n.applicationNumber = :applicationNumber")
+    long countByApplicationNumber(@Param("applicationNumber") String applicationNumber);
+
+    /**
+     * Find the users holding a lock on the note of an application.
+     *
+     * @param applicationNumber the application number
+     * @return the lock holders
+     */
+    @Query("select distinct n.lockedBy from NoteApplicationEntity n where n.applicationNumber = :applicationNumber and trim(n.lockedBy) <> ''")
+    List<String> findLockHoldersByApplicationNumber(@Param("applicationNumber") String applicationNumber);
+
+    /**
+     * Find the locked notes.
+     *
+     * @return the application number, the lock holder and the lock date of each locked note
+     */
+    @Query("select n.applicationNumber, n.lockedBy, n.lockedDate from NoteApplicationEntity n where trim(n.lockedBy) <> ''")
+    List<Object[]> findLocks();
+
+    /**
+     * Find the users holding a lock on the notes of the given applications.
+     *
+     * @param applicationNumbers the application numbers
+     * @return the application number and the lock holder of each locked note
+     */
+    @Query("select distinct n.applicationNumber, n.lockedBy from NoteApplicationEntity n where n.applicationNumber in :applicationNumbers"
+            + " and trim(n.lockedBy) <> ''")
+    List<Object[]> findLockHoldersByApplicationNumbers(@Param("applicationNumbers") Collection<String> applicationNumbers);
 }
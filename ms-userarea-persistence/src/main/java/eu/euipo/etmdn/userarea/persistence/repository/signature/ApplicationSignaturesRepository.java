@@ -0,0 +1,117 @@
+/*
+ * $Id:: ApplicationSignaturesRepository.java 2021/10/28 11:15 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intellectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.persistence.repository.signature;
+
+import eu.euipo.etmdn.userarea.common.persistence.entity.Application;
+import eu.euipo.etmdn.userarea.common.persistence.entity.signature.SignatureEntity;
+import eu.euipo.etmdn.userarea.domain.signature.ApplicationSignatures;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read of the applications shown in the signatures together with their signatures, in one query.
+ * Only the columns shown are selected, one row per signature with the given statuses; the applications without such
+ * a signature are returned with one row and no signature. The rows are aggregated per application.
+ */
+@Repository
+public class ApplicationSignaturesRepository {
+
+    private static final String ID = "id";
+    private static final String NUMBER = "number";
+    private static final String FO_MODULE = "foModule";
+    private static final String ESERVICE_NAME = "eserviceName";
+    private static final String STATUS = "status";
+    private static final String SIGNATURES = "signatures";
+    private static final String NAME = "name";
+    private static final String CAPACITY = "capacity";
+    private static final String DATE = "date";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Find the applications matching a filter, with their signatures having one of the given statuses.
+     *
+     * @param filter            the filter of the applications
+     * @param signatureStatuses the statuses of the signatures to return
+     * @return the applications with their signatures, the most recent signature first
+     */
+    @Transactional(readOnly = true)
+    public List<ApplicationSignatures> findApplicationSignatures(final Specification<Application> filter,
+                                                                 final Collection<String> signatureStatuses) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        final Root<Application> application = query.from(Application.class);
+        final Join<Application, SignatureEntity> signature = application.join(SIGNATURES, JoinType.LEFT);
+        signature.on(signature.get(STATUS).in(signatureStatuses));
+        final Predicate predicate = filter.toPredicate(application, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        // one row per signature is read, a grouping set by the filter would collapse them
+        query.groupBy(Collections.<Expression<?>>emptyList());
+        query.multiselect(application.get(ID), application.get(NUMBER), application.get(FO_MODULE),
+                application.get(ESERVICE_NAME), application.get(STATUS),
+                signature.get(ID), signature.get(NAME), signature.get(CAPACITY), signature.get(DATE));
+        query.orderBy(cb.asc(application.get(ID)), cb.desc(signature.get(ID)));
+        return aggregate(entityManager.createQuery(query).getResultList());
+    }
+
+    private static List<ApplicationSignatures> aggregate(final List<Tuple> rows) {
+        final Map<Long, ApplicationSignatures> applications = new LinkedHashMap<>();
+        // the filter may join the signatures too, a signature is then read more than once
+        final Set<Long> signatureIds = new HashSet<>();
+        for (Tuple row : rows) {
+            final ApplicationSignatures application = applications.computeIfAbsent(row.get(0, Long.class),
+                    id -> ApplicationSignatures.builder()
+                            .applicationId(id)
+                            .number(row.get(1, String.class))
+                            .foModule(row.get(2, String.class))
+                            .eserviceName(row.get(3, String.class))
+                            .status(row.get(4, String.class))
+                            .names(new ArrayList<>())
+                            .capacities(new ArrayList<>())
+                            .dates(new ArrayList<>())
+                            .build());
+            final Long signatureId = row.get(5, Long.class);
+            if (signatureId != null && signatureIds.add(signatureId)) {
+                application.getNames().add(row.get(6, String.class));
+                application.getCapacities().add(row.get(7, String.class));
+                application.getDates().add(row.get(8, LocalDateTime.class));
+            }
+        }
+        return new ArrayList<>(applications.values());
+    }
+}
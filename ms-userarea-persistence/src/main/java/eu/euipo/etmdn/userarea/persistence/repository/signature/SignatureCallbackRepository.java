@@ -0,0 +1,66 @@
+/*
+ * $Id:: SignatureCallbackRepository.java 2021/10/29 10:20 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intellectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.persistence.repository.signature;
+
+import eu.euipo.etmdn.userarea.common.persistence.entity.signature.SignatureEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Set based changes of the signatures of a signature request, applied on the callbacks of the signature platform.
+ * The pending changes are flushed before each update and the persistence context is cleared after it, so the
+ * signatures read afterwards carry the new values.
+ */
+@Transactional
+@Repository
+public interface SignatureCallbackRepository extends org.springframework.data.repository.Repository<SignatureEntity, Long> {
+
+    /**
+     * Record a signing on all the signatures of a signature request, unless it is already recorded with this status.
+     * A callback repeated by the platform carries the same signing id and status and updates no signature, a later
+     * status of the same signing is recorded.
+     *
+     * @param reference the signature request reference
+     * @param signingId the signing id, if null the signing is recorded again
+     * @param status    the signature status
+     * @param signedAt  the signing date
+     * @return the number of updated signatures, 0 if the signing is already recorded with this status
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update SignatureEntity s set s.status = :status, s.signingId = :signingId, s.date = :signedAt"
+            + " where s.reference = :reference and s.deleted = false"
+            + " and (:signingId is null or s.signingId is null or s.signingId <> :signingId"
+            + " or s.status is null or s.status <> :status)")
+    int updateSigning(@Param("reference") String reference, @Param("signingId") String signingId,
+                      @Param("status") String status, @Param("signedAt") LocalDateTime signedAt);
+
+    /**
+     * Change the status of the signatures of a signing.
+     *
+     * @param reference the signature request reference
+     * @param signingId the signing id, if null all the signatures of the request are changed
+     * @param status    the new status
+     * @return the number of updated signatures
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update SignatureEntity s set s.status = :status"
+            + " where s.reference = :reference and s.deleted = false and (:signingId is null or s.signingId = :signingId)")
+    int updateStatusBySigning(@Param("reference") String reference, @Param("signingId") String signingId,
+                              @Param("status") String status);
+}
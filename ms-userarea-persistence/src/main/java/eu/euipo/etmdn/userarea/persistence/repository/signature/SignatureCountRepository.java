@@ -0,0 +1,45 @@
+/*
+ * $Id:: SignatureCountRepository.java 2021/10/28 15:40 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intellectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.persistence.repository.signature;
+
+import eu.euipo.etmdn.userarea.common.persistence.entity.signature.SignatureEntity;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Grouped counts of the signatures of the applications of signature requests.
+ */
+@Transactional(readOnly = true)
+@Repository
+public interface SignatureCountRepository extends org.springframework.data.repository.Repository<SignatureEntity, Long> {
+
+    /**
+     * Count the signatures with the given status of each application of the given signature requests.
+     * The deleted signatures are neither used to find the applications nor counted.
+     *
+     * @param references the signature request references
+     * @param status     the status of the counted signatures
+     * @return the signature reference, the application number and the number of signatures of each application
+     */
+    @Query("select s.reference, a.number, count(distinct c.id) from SignatureEntity s join s.application a"
+            + " left join a.signatures c on c.status = :status and c.deleted = false"
+            + " where s.reference in :references and s.deleted = false"
+            + " group by s.reference, a.id, a.number")
+    List<Object[]> countSignaturesByReferences(@Param("references") Collection<String> references, @Param("status") String status);
+}
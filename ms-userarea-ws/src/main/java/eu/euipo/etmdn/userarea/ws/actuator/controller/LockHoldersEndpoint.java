@@ -0,0 +1,44 @@
+/*
+ * $Id:: LockHoldersEndpoint.java 2021/10/26 10:10 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intellectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.ws.actuator.controller;
+
+import eu.euipo.etmdn.userarea.business.core.api.service.LockService;
+import eu.euipo.etmdn.userarea.domain.lock.LockHolder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint listing the current holders of the edit locks, at {@code /actuator/locks}.
+ */
+@Component
+@Endpoint(id = "locks")
+public class LockHoldersEndpoint {
+
+    private final LockService lockService;
+
+    @Autowired
+    public LockHoldersEndpoint(final LockService lockService) {
+        this.lockService = lockService;
+    }
+
+    @ReadOperation
+    public List<LockHolder> locks() {
+        return lockService.getLockHolders();
+    }
+
+}
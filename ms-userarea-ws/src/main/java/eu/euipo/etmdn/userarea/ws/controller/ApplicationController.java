@@ -13,6 +13,11 @@
 
 package eu.euipo.etmdn.userarea.ws.controller;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import eu.euipo.etmdn.userarea.business.core.api.report.ReportFormat;
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReceipt;
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReport;
 import eu.euipo.etmdn.userarea.business.core.api.service.ApplicationService;
 import eu.euipo.etmdn.userarea.business.core.api.service.ExcelService;
 import eu.euipo.etmdn.userarea.business.core.api.service.PdfService;
@@ -23,22 +28,26 @@ import eu.euipo.etmdn.userarea.common.domain.DuplicateApplicationResponse;
 import eu.euipo.etmdn.userarea.common.domain.FileInfo;
 import eu.euipo.etmdn.userarea.common.domain.Receipt;
 import eu.euipo.etmdn.userarea.common.domain.ResumeDraftResponse;
-import eu.euipo.etmdn.userarea.common.domain.document.FileResponse;
 import eu.euipo.etmdn.userarea.common.domain.eservice.ValidateEServiceRequest;
 import eu.euipo.etmdn.userarea.common.domain.eservice.ValidateEServiceResponse;
 import eu.euipo.etmdn.userarea.common.domain.eservice.ValidationStatusEServiceType;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationDetails;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationRequest;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationSearchResult;
+import eu.euipo.etmdn.userarea.domain.application.DraftBulkResult;
 import eu.euipo.etmdn.userarea.domain.note.NoteApplication;
+import eu.euipo.etmdn.userarea.domain.payment.InvoiceFile;
+import eu.euipo.etmdn.userarea.ws.controller.payment.InvoiceResponses;
 import eu.euipo.etmdn.userarea.ws.domain.application.ApplicationRequestResource;
 import eu.euipo.etmdn.userarea.ws.domain.application.ApplicationSearchResultResource;
+import eu.euipo.etmdn.userarea.ws.domain.application.DraftBulkRequestResource;
 import eu.euipo.etmdn.userarea.ws.mapper.application.ApplicationSearchMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -55,9 +64,14 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The Application controller.
@@ -68,6 +82,9 @@ import java.util.Optional;
 @RequestMapping("/api/v1/applications")
 public class ApplicationController {
 
+    private static final long RECEIPT_MAX_AGE = 86400;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
     private final ApplicationService applicationService;
     private final AccountService accountService;
     private final ExcelService excelService;
@@ -105,16 +122,7 @@ public class ApplicationController {
     public ResponseEntity<ApplicationSearchResultResource> getApplications(@PathVariable String applicationType,
                                                                            @RequestBody ApplicationRequestResource applicationRequestResource,
                                                                            Authentication authentication) {
-        String username = authentication.getName();
-        if (!accountService.isMainAccount(username)) {
-            DomainAccount domainAccount = accountService.getMainAccount(username);
-            if (domainAccount != null) {
-                username = domainAccount.getUsername();
-            }
-        }
-        applicationRequestResource.setUserName(username);
-        applicationRequestResource.setApplicationType(applicationType);
-        ApplicationRequest applicationRequest = ApplicationSearchMapper.MAPPER.map(applicationRequestResource);
+        ApplicationRequest applicationRequest = toApplicationRequest(applicationType, applicationRequestResource, authentication);
         ApplicationSearchResult applicationSearchResult = applicationService.getApplications(applicationRequest, AuthorityUtils.authorityListToSet(authentication.getAuthorities()));
         return ResponseEntity.ok(ApplicationSearchMapper.MAPPER.map(applicationSearchResult));
     }
@@ -130,15 +138,32 @@ public class ApplicationController {
             "(hasRole('ROLE_DESIGNS') and #applicationType == 'design') or " +
             "(hasRole('ROLE_TRADEMARKS') and #applicationType == 'eservice' and #ipRightType == 'trademarks') or " +
             "(hasRole('ROLE_DESIGNS') and #applicationType == 'eservice' and #ipRightType == 'designs') or hasRole('ROLE_ADMINISTRATOR')")
-    public ResponseEntity<Receipt> getReceipt(@PathVariable String applicationType, @PathVariable String ipRightType,
-                                              @PathVariable String id, Authentication authentication) {
-        String receipt = applicationService.getReceipt(authentication.getName(), Long.valueOf(id));
+    public ResponseEntity<StreamingResponseBody> getReceipt(@PathVariable String applicationType, @PathVariable String ipRightType,
+                                                            @PathVariable String id, Authentication authentication) {
+        StreamingReceipt receipt = applicationService.getStreamingReceipt(authentication.getName(), Long.valueOf(id));
         if (receipt != null) {
-            return ResponseEntity.ok(Receipt.builder().applicationId(id).receipt(receipt).build());
+            // the stored receipt of an application does not change
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.maxAge(RECEIPT_MAX_AGE, TimeUnit.SECONDS).cachePrivate())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(outputStream -> writeReceipt(id, receipt, outputStream));
         }
         return ResponseEntity.notFound().build();
     }
 
+    /**
+     * Writes the receipt as a {@link Receipt} json, copying the receipt from the database without holding it in memory.
+     */
+    private static void writeReceipt(String id, StreamingReceipt receipt, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream)) {
+            generator.writeStartObject();
+            generator.writeStringField("applicationId", id);
+            generator.writeFieldName("receipt");
+            receipt.read(reader -> generator.writeString(reader, -1));
+            generator.writeEndObject();
+        }
+    }
+
     /**
      * Get application receipt directly from frontoffice
      */
@@ -147,18 +172,13 @@ public class ApplicationController {
             "(hasRole('ROLE_DESIGNS') and #applicationType == 'design') or " +
             "(hasRole('ROLE_TRADEMARKS') and #applicationType == 'eservice' and #ipRightType == 'trademarks') or " +
             "(hasRole('ROLE_DESIGNS') and #applicationType == 'eservice' and #ipRightType == 'designs') or hasRole('ROLE_ADMINISTRATOR')")
-    public ResponseEntity<byte[]> getDraftReceiptFromFO(@PathVariable String applicationType, @PathVariable String ipRightType,
-                                                        @PathVariable String applicationNumber, @RequestParam(required = false) boolean isDraft,
-                                                        Authentication authentication) {
+    public ResponseEntity<StreamingResponseBody> getDraftReceiptFromFO(@PathVariable String applicationType, @PathVariable String ipRightType,
+                                                                       @PathVariable String applicationNumber, @RequestParam(required = false) boolean isDraft,
+                                                                       Authentication authentication) {
         log.info("Requesting receipt for application number: {}", applicationNumber);
         boolean isDraftParam = Optional.of(isDraft).orElse(false);
-        FileResponse fileResponse = applicationService.getReceiptFromFrontoffice(applicationNumber, isDraftParam);
-        return ResponseEntity
-                .ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileResponse.getFileName() + "\"")
-                .contentLength(fileResponse.getBytes().length)
-                .contentType(MediaType.parseMediaType(fileResponse.getContentType()))
-                .body(fileResponse.getBytes());
+        StreamingReport receipt = applicationService.getReceiptFromFrontoffice(applicationNumber, isDraftParam);
+        return toStreamingResponse(receipt);
     }
 
     /**
@@ -176,16 +196,11 @@ public class ApplicationController {
             "(hasRole('ROLE_DESIGNS') and #applicationType == 'eservice' and #ipRightType == 'designs') or hasRole('ROLE_ADMINISTRATOR')")
     public ResponseEntity<byte[]> getApplicationInvoice(@PathVariable String applicationType, @PathVariable String ipRightType,
                                                          @PathVariable String id, Authentication authentication) {
-        FileInfo fileInfo = applicationService.getInvoice(authentication.getName(),Long.valueOf(id));
-        if (fileInfo == null) {
+        InvoiceFile invoiceFile = applicationService.getInvoice(authentication.getName(),Long.valueOf(id));
+        if (invoiceFile == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity
-                .ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileInfo.getFileName() + "\"")
-                .contentLength(fileInfo.getFileContent().length)
-                .contentType(MediaType.parseMediaType(MediaType.APPLICATION_OCTET_STREAM_VALUE))
-                .body(fileInfo.getFileContent());
+        return InvoiceResponses.of(invoiceFile);
     }
 
     /**
@@ -248,6 +263,54 @@ public class ApplicationController {
         return ResponseEntity.notFound().build();
     }
 
+    /**
+     * Delete many drafts.
+     *
+     * @param draftBulkRequestResource the draft ids
+     * @return {@link List<DraftBulkResult>} the result for each draft id
+     */
+    @PostMapping("/{applicationType}/{ipRightType}/bulk/delete")
+    @PreAuthorize("(hasRole('ROLE_TRADEMARKS') and #applicationType == 'trademark') or " +
+            "(hasRole('ROLE_DESIGNS') and #applicationType == 'design') or " +
+            "(hasRole('ROLE_TRADEMARKS') and #applicationType == 'eservice' and #ipRightType == 'trademarks') or " +
+            "(hasRole('ROLE_DESIGNS') and #applicationType == 'eservice' and #ipRightType == 'designs')")
+    public ResponseEntity<List<DraftBulkResult>> deleteAll(@PathVariable String applicationType, @PathVariable String ipRightType,
+            @Valid @RequestBody DraftBulkRequestResource draftBulkRequestResource, Authentication authentication) {
+        return ResponseEntity.ok(applicationService.deleteAll(authentication.getName(), draftBulkRequestResource.getIds()));
+    }
+
+    /**
+     * Lock many drafts.
+     *
+     * @param draftBulkRequestResource the draft ids
+     * @return {@link List<DraftBulkResult>} the result for each draft id
+     */
+    @PostMapping("/{applicationType}/{ipRightType}/bulk/lock")
+    @PreAuthorize("(hasRole('ROLE_TRADEMARKS') and #applicationType == 'trademark') or " +
+            "(hasRole('ROLE_DESIGNS') and #applicationType == 'design') or " +
+            "(hasRole('ROLE_TRADEMARKS') and #applicationType == 'eservice' and #ipRightType == 'trademarks') or " +
+            "(hasRole('ROLE_DESIGNS') and #applicationType == 'eservice' and #ipRightType == 'designs')")
+    public ResponseEntity<List<DraftBulkResult>> lockAll(@PathVariable String applicationType, @PathVariable String ipRightType,
+            @Valid @RequestBody DraftBulkRequestResource draftBulkRequestResource, Authentication authentication) {
+        return ResponseEntity.ok(applicationService.lockAll(authentication.getName(), draftBulkRequestResource.getIds()));
+    }
+
+    /**
+     * Unlock many drafts.
+     *
+     * @param draftBulkRequestResource the draft ids
+     * @return {@link List<DraftBulkResult>} the result for each draft id
+     */
+    @PostMapping("/{applicationType}/{ipRightType}/bulk/unlock")
+    @PreAuthorize("(hasRole('ROLE_TRADEMARKS') and #applicationType == 'trademark') or " +
+            "(hasRole('ROLE_DESIGNS') and #applicationType == 'design') or " +
+            "(hasRole('ROLE_TRADEMARKS') and #applicationType == 'eservice' and #ipRightType == 'trademarks') or " +
+            "(hasRole('ROLE_DESIGNS') and #applicationType == 'eservice' and #ipRightType == 'designs')")
+    public ResponseEntity<List<DraftBulkResult>> unlockAll(@PathVariable String applicationType, @PathVariable String ipRightType,
+            @Valid @RequestBody DraftBulkRequestResource draftBulkRequestResource, Authentication authentication) {
+        return ResponseEntity.ok(applicationService.unlockAll(authentication.getName(), draftBulkRequestResource.getIds()));
+    }
+
     /**
      * Lock application note when note is edited ny user.
      *
@@ -261,9 +324,9 @@ public class ApplicationController {
             "(hasRole('ROLE_DESIGNS') and #applicationType == 'eservice' and #ipRightType == 'designs')")
     public ResponseEntity<NoteApplication> lockNote(@PathVariable String applicationType, @PathVariable String ipRightType,
                                                     @RequestBody NoteApplication noteApplication, Authentication authentication) {
-        String applicationNote = applicationService.lockNote(authentication.getName(), noteApplication);
+        NoteApplication applicationNote = applicationService.lockNote(authentication.getName(), noteApplication);
         if (applicationNote != null) {
-            return ResponseEntity.ok(NoteApplication.builder().note(applicationNote).build());
+            return ResponseEntity.ok(applicationNote);
         }
         return ResponseEntity.notFound().build();
     }
@@ -280,9 +343,9 @@ public class ApplicationController {
             "(hasRole('ROLE_DESIGNS') and #applicationType == 'eservice' and #ipRightType == 'designs')")
     public ResponseEntity<NoteApplication> updateNote(@PathVariable String applicationType, @PathVariable String ipRightType,
                                            @RequestBody NoteApplication noteApplication, Authentication authentication) {
-        String applicationNote = applicationService.updateNote(authentication.getName(), noteApplication);
+        NoteApplication applicationNote = applicationService.updateNote(authentication.getName(), noteApplication);
         if (applicationNote != null) {
-            return ResponseEntity.ok(NoteApplication.builder().applicationIdentifier(noteApplication.getApplicationIdentifier()).note(applicationNote).build());
+            return ResponseEntity.ok(applicationNote);
         }
         return ResponseEntity.notFound().build();
     }
@@ -340,16 +403,7 @@ public class ApplicationController {
             "(hasAnyRole('ROLE_TRADEMARKS','ROLE_DESIGNS') and #applicationType == 'eservice') or hasRole('ROLE_ADMINISTRATOR')")
     public ResponseEntity<Resource> generateExcel(@PathVariable String applicationType, @RequestBody ApplicationRequestResource applicationRequestResource,
                                                   Authentication authentication) {
-        String username = authentication.getName();
-        if (!accountService.isMainAccount(username)) {
-            DomainAccount domainAccount = accountService.getMainAccount(username);
-            if (domainAccount != null) {
-                username = domainAccount.getUsername();
-            }
-        }
-        applicationRequestResource.setUserName(username);
-        applicationRequestResource.setApplicationType(applicationType);
-        ApplicationRequest applicationRequest = ApplicationSearchMapper.MAPPER.map(applicationRequestResource);
+        ApplicationRequest applicationRequest = toApplicationRequest(applicationType, applicationRequestResource, authentication);
         final FileInfo fileInfo = excelService.generateExcel(applicationRequest, AuthorityUtils.authorityListToSet(authentication.getAuthorities()));
         if (fileInfo != null) {
             return ResponseEntity.ok()
@@ -361,6 +415,50 @@ public class ApplicationController {
         return ResponseEntity.notFound().build();
     }
 
+    /**
+     * Generate excel report for applications, streamed directly to the response.
+     *
+     * @param applicationType    the application type
+     * @param applicationRequestResource the application request
+     * @param authentication     the Authentication authentication
+     * @return {@link StreamingResponseBody} the generated excel report
+     */
+    @PostMapping(value = "/{applicationType}/excel", params = {"stream=true", "!format"})
+    @PreAuthorize("(hasRole('ROLE_TRADEMARKS') and #applicationType == 'trademark') or " +
+            "(hasRole('ROLE_DESIGNS') and #applicationType == 'design') or " +
+            "(hasAnyRole('ROLE_TRADEMARKS','ROLE_DESIGNS') and #applicationType == 'eservice') or hasRole('ROLE_ADMINISTRATOR')")
+    public ResponseEntity<StreamingResponseBody> generateStreamingExcel(@PathVariable String applicationType, @RequestBody ApplicationRequestResource applicationRequestResource,
+                                                                        Authentication authentication) {
+        ApplicationRequest applicationRequest = toApplicationRequest(applicationType, applicationRequestResource, authentication);
+        final StreamingReport report = excelService.generateStreamingExcel(applicationRequest, AuthorityUtils.authorityListToSet(authentication.getAuthorities()));
+        return toStreamingResponse(report);
+    }
+
+    /**
+     * Generate a report for applications in the requested format (xlsx, csv or ndjson), streamed directly to the response.
+     *
+     * @param applicationType    the application type
+     * @param format             the report format
+     * @param applicationRequestResource the application request
+     * @param authentication     the Authentication authentication
+     * @return {@link StreamingResponseBody} the generated report
+     */
+    @PostMapping(value = "/{applicationType}/excel", params = "format")
+    @PreAuthorize("(hasRole('ROLE_TRADEMARKS') and #applicationType == 'trademark') or " +
+            "(hasRole('ROLE_DESIGNS') and #applicationType == 'design') or " +
+            "(hasAnyRole('ROLE_TRADEMARKS','ROLE_DESIGNS') and #applicationType == 'eservice') or hasRole('ROLE_ADMINISTRATOR')")
+    public ResponseEntity<StreamingResponseBody> generateReport(@PathVariable String applicationType, @RequestParam String format,
+                                                                @RequestBody ApplicationRequestResource applicationRequestResource,
+                                                                Authentication authentication) {
+        final ReportFormat reportFormat = ReportFormat.getReportFormat(format);
+        if (reportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        ApplicationRequest applicationRequest = toApplicationRequest(applicationType, applicationRequestResource, authentication);
+        final StreamingReport report = excelService.generateStreamingReport(applicationRequest, AuthorityUtils.authorityListToSet(authentication.getAuthorities()), reportFormat);
+        return toStreamingResponse(report);
+    }
+
     /**
      * Generate pdf report for applications.
      *
@@ -376,16 +474,7 @@ public class ApplicationController {
     public ResponseEntity<Resource> generatePdf(@PathVariable String applicationType,
                                                 @RequestBody ApplicationRequestResource applicationRequestResource,
                                                 Authentication authentication) {
-        String username = authentication.getName();
-        if (!accountService.isMainAccount(username)) {
-            DomainAccount domainAccount = accountService.getMainAccount(username);
-            if (domainAccount != null) {
-                username = domainAccount.getUsername();
-            }
-        }
-        applicationRequestResource.setUserName(username);
-        applicationRequestResource.setApplicationType(applicationType);
-        ApplicationRequest applicationRequest = ApplicationSearchMapper.MAPPER.map(applicationRequestResource);
+        ApplicationRequest applicationRequest = toApplicationRequest(applicationType, applicationRequestResource, authentication);
         final FileInfo fileInfo = pdfService.generatePdf(applicationRequest, AuthorityUtils.authorityListToSet(authentication.getAuthorities()));
         if (fileInfo != null) {
             return ResponseEntity.ok()
@@ -397,6 +486,26 @@ public class ApplicationController {
         return ResponseEntity.notFound().build();
     }
 
+    /**
+     * Generate pdf report for applications, streamed directly to the response.
+     *
+     * @param applicationType    the application type
+     * @param applicationRequestResource the application request
+     * @param authentication     the Authentication authentication
+     * @return {@link StreamingResponseBody} the generated pdf report
+     */
+    @PostMapping(value = "/{applicationType}/pdf", params = "stream=true")
+    @PreAuthorize("(hasRole('ROLE_TRADEMARKS') and #applicationType == 'trademark') or " +
+            "(hasRole('ROLE_DESIGNS') and #applicationType == 'design') or " +
+            "(hasAnyRole('ROLE_TRADEMARKS','ROLE_DESIGNS') and #applicationType == 'eservice') or hasRole('ROLE_ADMINISTRATOR')")
+    public ResponseEntity<StreamingResponseBody> generateStreamingPdf(@PathVariable String applicationType,
+                                                                      @RequestBody ApplicationRequestResource applicationRequestResource,
+                                                                      Authentication authentication) {
+        ApplicationRequest applicationRequest = toApplicationRequest(applicationType, applicationRequestResource, authentication);
+        final StreamingReport report = pdfService.generateStreamingPdf(applicationRequest, AuthorityUtils.authorityListToSet(authentication.getAuthorities()));
+        return toStreamingResponse(report);
+    }
+
     @PostMapping("/{applicationType}/eservices/validate")
     public ResponseEntity<ValidateEServiceResponse> validateEservice(@RequestBody @Valid ValidateEServiceRequest validateEServiceRequest, Authentication authentication) {
         ValidateEServiceResponse validateEServiceResponse = applicationService.validateEService(authentication.getName(), validateEServiceRequest);
@@ -406,4 +515,42 @@ public class ApplicationController {
         return ResponseEntity.ok(validateEServiceResponse);
     }
 
+    /**
+     * Build the response writing the report to the client, not found when the report is not available.
+     *
+     * @param report the report
+     * @return {@link StreamingResponseBody} the report response
+     */
+    private ResponseEntity<StreamingResponseBody> toStreamingResponse(final StreamingReport report) {
+        if (report != null) {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + report.getFileName() + "\"")
+                    .contentType(MediaType.parseMediaType(report.getContentType()))
+                    .body(report::writeTo);
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Build the application request on behalf of the main account of the authenticated user.
+     *
+     * @param applicationType            the application type
+     * @param applicationRequestResource the application request
+     * @param authentication             the Authentication authentication
+     * @return {@link ApplicationRequest} the application request
+     */
+    private ApplicationRequest toApplicationRequest(String applicationType, ApplicationRequestResource applicationRequestResource,
+                                                    Authentication authentication) {
+        String username = authentication.getName();
+        if (!accountService.isMainAccount(username)) {
+            DomainAccount domainAccount = accountService.getMainAccount(username);
+            if (domainAccount != null) {
+                username = domainAccount.getUsername();
+            }
+        }
+        applicationRequestResource.setUserName(username);
+        applicationRequestResource.setApplicationType(applicationType);
+        return ApplicationSearchMapper.MAPPER.map(applicationRequestResource);
+    }
+
 }
@@ -20,10 +20,13 @@ import eu.euipo.etmdn.userarea.domain.signature.PlatformSignatureDetails;
 import eu.euipo.etmdn.userarea.domain.signature.SignRequest;
 import eu.euipo.etmdn.userarea.domain.signature.SignResource;
 import eu.euipo.etmdn.userarea.domain.signature.SignatureSortingCriteriaRequest;
+import eu.euipo.etmdn.userarea.ws.domain.signature.SignatureIdsRequestResource;
 import eu.euipo.etmdn.userarea.ws.domain.signature.SignatureResource;
 import eu.euipo.etmdn.userarea.ws.mapper.signature.SignatureResourceMapper;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
@@ -42,6 +45,7 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The Signature controller.
@@ -53,14 +57,20 @@ import java.util.List;
 @RequestMapping("/signatures")
 public class SignatureController {
 
+    private static final String TOTAL_COUNT = "X-Total-Count";
+
     private final SignatureService signatureService;
 
     @PostMapping
     public ResponseEntity<List<SignatureResource>> getSignatures(Authentication authentication, @Valid @RequestBody SignatureSortingCriteriaRequest signatureSortingCriteriaRequest) {
         log.info("Retrieve all signatures");
-        List<Signature> signatures = signatureService.getSignatures(authentication.getName(), AuthorityUtils.authorityListToSet(authentication.getAuthorities()), signatureSortingCriteriaRequest);
-        List<SignatureResource> resource = SignatureResourceMapper.MAPPER.mapSignatureResources(signatures);
-        return ResponseEntity.ok(resource);
+        Pageable pageable = signatureSortingCriteriaRequest.toPageable();
+        Page<Signature> signatures = signatureService.getSignatures(authentication.getName(), AuthorityUtils.authorityListToSet(authentication.getAuthorities()),
+                signatureSortingCriteriaRequest, pageable);
+        List<SignatureResource> resource = SignatureResourceMapper.MAPPER.mapSignatureResources(signatures.getContent());
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT, String.valueOf(signatures.getTotalElements()))
+                .body(resource);
     }
 
     @DeleteMapping("/delete/application/{applicationType}/{applicationNumber}")
@@ -120,6 +130,19 @@ public class SignatureController {
         return ResponseEntity.ok(applications);
     }
 
+    /**
+     * Find, for many signature requests at once, which of their applications can have more signatures added
+     *
+     * @param signatureIdsRequestResource The unique identifiers of the signature requests
+     * @return The applicationNumbers per signature id
+     */
+    @PostMapping("/checkAddMore")
+    public ResponseEntity<Map<String, List<String>>> checkAddMore(@Valid @RequestBody SignatureIdsRequestResource signatureIdsRequestResource) {
+        log.info("Retrieve the applications that may have more signatures added for many signature requests");
+        Map<String, List<String>> applications = signatureService.getNonFullySignedApplicationNumbers(signatureIdsRequestResource.getSignatureIds());
+        return ResponseEntity.ok(applications);
+    }
+
     /**
      * Delete all signatures of an application
      *
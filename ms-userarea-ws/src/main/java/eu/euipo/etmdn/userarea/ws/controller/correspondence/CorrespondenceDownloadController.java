@@ -14,8 +14,8 @@
 
 package eu.euipo.etmdn.userarea.ws.controller.correspondence;
 
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReport;
 import eu.euipo.etmdn.userarea.business.core.api.service.PdfService;
-import eu.euipo.etmdn.userarea.common.domain.FileInfo;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
@@ -27,6 +27,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @RestController
@@ -44,15 +45,10 @@ public class CorrespondenceDownloadController {
      */
     @GetMapping(value = "/incoming/{messageId}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
     @PreAuthorize("hasRole('ROLE_CORRESPONDENCE_READ_ONLY') or hasRole('ROLE_CORRESPONDENCE_READ_WRITE') or hasRole('ROLE_ADMINISTRATOR')")
-    public ResponseEntity<byte[]> getZip(Authentication authentication, @PathVariable String messageId){
+    public ResponseEntity<StreamingResponseBody> getZip(Authentication authentication, @PathVariable String messageId){
         log.info("Generating pdf for message {}",messageId);
-        FileInfo fileInfo = pdfService.generatePdf(authentication.getName(),messageId,false);
-        return ResponseEntity
-                .ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileInfo.getFileName() + "\"")
-                .contentLength(fileInfo.getFileContent().length)
-                .contentType(MediaType.parseMediaType(MediaType.APPLICATION_OCTET_STREAM_VALUE))
-                .body(fileInfo.getFileContent());
+        StreamingReport correspondence = pdfService.generateCorrespondence(authentication.getName(),messageId,false);
+        return toStreamingResponse(correspondence);
     }
 
     /**
@@ -63,14 +59,20 @@ public class CorrespondenceDownloadController {
      */
     @GetMapping(value = "/draft/{draftId}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
     @PreAuthorize("hasRole('ROLE_CORRESPONDENCE_READ_ONLY') or hasRole('ROLE_CORRESPONDENCE_READ_WRITE') or hasRole('ROLE_ADMINISTRATOR')")
-    public ResponseEntity<byte[]> getDraftPdf(Authentication authentication, @PathVariable String draftId){
+    public ResponseEntity<StreamingResponseBody> getDraftPdf(Authentication authentication, @PathVariable String draftId){
         log.info("Generating pdf for draft {}",draftId);
-        FileInfo fileInfo = pdfService.generatePdf(authentication.getName(),draftId,true);
+        StreamingReport correspondence = pdfService.generateCorrespondence(authentication.getName(),draftId,true);
+        return toStreamingResponse(correspondence);
+    }
+
+    /**
+     * The zip is written while the attachments are fetched, so its length is not known in advance.
+     */
+    private ResponseEntity<StreamingResponseBody> toStreamingResponse(final StreamingReport correspondence) {
         return ResponseEntity
                 .ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileInfo.getFileName() + "\"")
-                .contentLength(fileInfo.getFileContent().length)
-                .contentType(MediaType.parseMediaType(MediaType.APPLICATION_OCTET_STREAM_VALUE))
-                .body(fileInfo.getFileContent());
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + correspondence.getFileName() + "\"")
+                .contentType(MediaType.parseMediaType(correspondence.getContentType()))
+                .body(correspondence::writeTo);
     }
 }
@@ -0,0 +1,49 @@
+/*
+ * $Id:: InvoiceResponses.java 2021/10/29 17:10 dvelegra
+ *
+ *        . * .
+ *      * RRRR  *   Copyright (c) 2012-2021 EUIPO: European Intelectual
+ *     .  RR  R  .  Property Organization (trademarks and designs).
+ *     *  RRR    *
+ *      . RR RR .   ALL RIGHTS RESERVED
+ *       *. _ .*
+ *
+ *  The use and distribution of this software is under the restrictions exposed in 'license.txt'
+ */
+
+package eu.euipo.etmdn.userarea.ws.controller.payment;
+
+import eu.euipo.etmdn.userarea.domain.payment.InvoiceFile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Download responses of the pdf invoices.
+ */
+public final class InvoiceResponses {
+
+    private InvoiceResponses() {
+    }
+
+    /**
+     * Build the download response of an invoice.
+     * A stored invoice never changes: it is sent with its etag and must be revalidated, so that a request with a
+     * matching If-None-Match gets a 304.
+     *
+     * @param invoiceFile the invoice
+     * @return the response with the invoice as attachment
+     */
+    public static ResponseEntity<byte[]> of(final InvoiceFile invoiceFile) {
+        final ResponseEntity.BodyBuilder response = ResponseEntity
+                .ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + invoiceFile.getFileName() + "\"")
+                .contentLength(invoiceFile.getFileContent().length)
+                .contentType(MediaType.parseMediaType(MediaType.APPLICATION_OCTET_STREAM_VALUE));
+        if (invoiceFile.getEtag() != null) {
+            response.eTag(invoiceFile.getEtag()).cacheControl(CacheControl.noCache().cachePrivate());
+        }
+        return response.body(invoiceFile.getFileContent());
+    }
+}
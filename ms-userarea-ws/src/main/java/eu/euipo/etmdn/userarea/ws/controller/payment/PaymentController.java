@@ -15,8 +15,8 @@ package eu.euipo.etmdn.userarea.ws.controller.payment;
 
 import eu.euipo.etmdn.userarea.business.core.api.service.PaymentService;
 import eu.euipo.etmdn.userarea.business.core.api.service.PdfService;
-import eu.euipo.etmdn.userarea.common.domain.FileInfo;
 import eu.euipo.etmdn.userarea.domain.payment.InitiatePaymentResult;
+import eu.euipo.etmdn.userarea.domain.payment.InvoiceFile;
 import eu.euipo.etmdn.userarea.domain.payment.PaymentConfirmation;
 import eu.euipo.etmdn.userarea.domain.payment.PaymentConfirmationResponse;
 import eu.euipo.etmdn.userarea.domain.payment.PaymentStatusResult;
@@ -26,7 +26,6 @@ import eu.euipo.etmdn.userarea.ws.domain.payment.PaymentStatusResponse;
 import eu.euipo.etmdn.userarea.ws.mapper.payment.PaymentMapper;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -92,13 +91,8 @@ public class PaymentController {
     @GetMapping(value = "/invoice/{transactionId}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
     public ResponseEntity<byte[]> getInvoice(Authentication authentication, @PathVariable("transactionId") String transactionId) {
         log.info("Generating invoice in PDF format for payment details {}", transactionId);
-        FileInfo fileInfo = pdfService.generatePdf(authentication.getName(), transactionId);
-        return ResponseEntity
-                .ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileInfo.getFileName() + "\"")
-                .contentLength(fileInfo.getFileContent().length)
-                .contentType(MediaType.parseMediaType(MediaType.APPLICATION_OCTET_STREAM_VALUE))
-                .body(fileInfo.getFileContent());
+        InvoiceFile invoiceFile = pdfService.getInvoice(authentication.getName(), transactionId);
+        return InvoiceResponses.of(invoiceFile);
     }
 
 }
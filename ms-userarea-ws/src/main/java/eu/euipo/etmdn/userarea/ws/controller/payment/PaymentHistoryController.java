@@ -15,7 +15,7 @@ package eu.euipo.etmdn.userarea.ws.controller.payment;
 
 import eu.euipo.etmdn.userarea.business.core.api.service.PaymentService;
 import eu.euipo.etmdn.userarea.business.core.api.service.PdfService;
-import eu.euipo.etmdn.userarea.common.domain.FileInfo;
+import eu.euipo.etmdn.userarea.domain.payment.InvoiceFile;
 import eu.euipo.etmdn.userarea.domain.payment.PaymentHistorySearchCriteria;
 import eu.euipo.etmdn.userarea.domain.payment.PaymentHistorySearchResult;
 import eu.euipo.etmdn.userarea.ws.domain.payment.PaymentHistorySearchCriteriaResource;
@@ -24,7 +24,6 @@ import eu.euipo.etmdn.userarea.ws.mapper.payment.PaymentHistorySearchCriteriaRes
 import eu.euipo.etmdn.userarea.ws.mapper.payment.PaymentHistorySearchResultResourceMapper;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -74,13 +73,8 @@ public class PaymentHistoryController {
     @GetMapping(value = "/download/invoice/{transactionId}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
     public ResponseEntity<byte[]> downloadInvoiceFromHistory(Authentication authentication, @PathVariable("transactionId") String transactionId) {
         log.info("Generating invoice in PDF format for payment details {}", transactionId);
-        FileInfo fileInfo = pdfService.generatePdf(authentication.getName(), transactionId);
-        return ResponseEntity
-                .ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileInfo.getFileName() + "\"")
-                .contentLength(fileInfo.getFileContent().length)
-                .contentType(MediaType.parseMediaType(MediaType.APPLICATION_OCTET_STREAM_VALUE))
-                .body(fileInfo.getFileContent());
+        InvoiceFile invoiceFile = pdfService.getInvoice(authentication.getName(), transactionId);
+        return InvoiceResponses.of(invoiceFile);
     }
 
 }
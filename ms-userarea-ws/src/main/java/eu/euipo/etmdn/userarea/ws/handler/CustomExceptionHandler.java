@@ -44,8 +44,13 @@ import eu.euipo.etmdn.userarea.common.domain.exception.ServiceUnavailableExcepti
 import eu.euipo.etmdn.userarea.common.domain.exception.SignatureClientException;
 import eu.euipo.etmdn.userarea.common.domain.exception.UnsupportedContentTypeException;
 import eu.euipo.etmdn.userarea.common.domain.exception.ValidateEserviceException;
+import eu.euipo.etmdn.userarea.domain.note.NoteApplication;
+import eu.euipo.etmdn.userarea.domain.note.exception.NoteVersionConflictException;
+import eu.euipo.etmdn.userarea.domain.note.exception.NoteVersionMissingException;
+import eu.euipo.etmdn.userarea.domain.pdf.exception.PdfRenderRejectedException;
 import eu.euipo.etmdn.userarea.domain.shoppingcart.exception.ShoppingCartSecurityException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AccountExpiredException;
@@ -648,4 +653,57 @@ public class CustomExceptionHandler extends ResponseEntityExceptionHandler {
         ErrorResponse errorResponse = new ErrorResponse(LiteralConstants.PAYMENT_COMPLETED_ANOTHER_USER, HttpStatus.FORBIDDEN.value(), details);
         return new ResponseEntity<>(errorResponse, HttpStatus.FORBIDDEN);
     }
+
+    /**
+     * PdfRenderRejectedException
+     *
+     * @param e the exception
+     * @return ErrorResponse
+     */
+    @ExceptionHandler({PdfRenderRejectedException.class})
+    public ResponseEntity<ErrorResponse> handlePdfRenderRejectedException(PdfRenderRejectedException e) {
+        log.info("Handling pdf render rejected exception");
+        Map<String, String> details = new HashMap<>();
+        details.put(EXCEPTION, PdfRenderRejectedException.class.getSimpleName());
+        ErrorResponse errorResponse = new ErrorResponse(e.getLocalizedMessage(), HttpStatus.SERVICE_UNAVAILABLE.value(), details);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter()))
+                .body(errorResponse);
+    }
+
+    /**
+     * NoteVersionConflictException, returns the current note so that the changes can be merged
+     *
+     * @param e the exception
+     * @return ErrorResponse
+     */
+    @ExceptionHandler({NoteVersionConflictException.class})
+    public ResponseEntity<ErrorResponse> handleNoteVersionConflictException(NoteVersionConflictException e) {
+        log.info("Handling note version conflict exception");
+        Map<String, String> details = new HashMap<>();
+        details.put(EXCEPTION, NoteVersionConflictException.class.getSimpleName());
+        NoteApplication current = e.getCurrent();
+        if (current != null) {
+            details.put("applicationIdentifier", current.getApplicationIdentifier());
+            details.put("note", current.getNote());
+            details.put("version", String.valueOf(current.getVersion()));
+        }
+        ErrorResponse errorResponse = new ErrorResponse(e.getLocalizedMessage(), HttpStatus.CONFLICT.value(), details);
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
+    /**
+     * NoteVersionMissingException, the note update requires the version which was read
+     *
+     * @param e the exception
+     * @return ErrorResponse
+     */
+    @ExceptionHandler({NoteVersionMissingException.class})
+    public ResponseEntity<ErrorResponse> handleNoteVersionMissingException(NoteVersionMissingException e) {
+        log.info("Handling note version missing exception");
+        Map<String, String> details = new HashMap<>();
+        details.put(EXCEPTION, NoteVersionMissingException.class.getSimpleName());
+        ErrorResponse errorResponse = new ErrorResponse(e.getLocalizedMessage(), HttpStatus.BAD_REQUEST.value(), details);
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
 }
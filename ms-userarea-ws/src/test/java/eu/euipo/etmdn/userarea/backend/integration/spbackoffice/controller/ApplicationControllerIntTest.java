@@ -13,6 +13,7 @@
 
 package eu.euipo.etmdn.userarea.backend.integration.spbackoffice.controller;
 
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReport;
 import eu.euipo.etmdn.userarea.business.core.api.service.ApplicationService;
 import eu.euipo.etmdn.userarea.common.domain.document.FileResponse;
 import eu.euipo.etmdn.userarea.common.domain.exception.FrontofficeReceiptNotFoundException;
@@ -46,10 +47,14 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.client.RestTemplate;
 
 import javax.jcr.Repository;
+import java.io.OutputStream;
 import java.util.Arrays;
 
 import static com.atlassian.oai.validator.mockmvc.OpenApiValidationMatchers.openApi;
 import static org.junit.Assert.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -105,12 +110,15 @@ public class ApplicationControllerIntTest {
         String applicationNumber = "EF123123123123";
         String mockPdfContent = "fdskalfsdlkafjsdklfajasfd";
         byte[] pdfData = mockPdfContent.getBytes();
-        FileResponse mockFileResponse = new FileResponse();
-        mockFileResponse.setBytes(pdfData);
-        mockFileResponse.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
-        mockFileResponse.setFileName(applicationNumber + "_receipt.pdf");
-
-        when(applicationService.getReceiptFromFrontoffice(applicationNumber, true)).thenReturn(mockFileResponse);
+        StreamingReport mockReceipt = mock(StreamingReport.class);
+        when(mockReceipt.getFileName()).thenReturn(applicationNumber + "_receipt.pdf");
+        when(mockReceipt.getContentType()).thenReturn(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write(pdfData);
+            return null;
+        }).when(mockReceipt).writeTo(any(OutputStream.class));
+
+        when(applicationService.getReceiptFromFrontoffice(applicationNumber, true)).thenReturn(mockReceipt);
 
         this.mockMvc.perform(
                 get(API_RESOURCE_ROOT + "/" + applicationNumber + "/receipt").accept(MediaType.APPLICATION_OCTET_STREAM))
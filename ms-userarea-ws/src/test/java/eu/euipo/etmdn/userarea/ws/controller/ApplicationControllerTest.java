@@ -13,6 +13,10 @@
 
 package eu.euipo.etmdn.userarea.ws.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.euipo.etmdn.userarea.business.core.api.report.ReportFormat;
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReport;
 import eu.euipo.etmdn.userarea.business.core.api.service.ApplicationService;
 import eu.euipo.etmdn.userarea.business.core.api.service.ExcelService;
 import eu.euipo.etmdn.userarea.business.core.api.service.PdfService;
@@ -24,7 +28,6 @@ import eu.euipo.etmdn.userarea.common.domain.DuplicateApplicationResponse;
 import eu.euipo.etmdn.userarea.common.domain.FileInfo;
 import eu.euipo.etmdn.userarea.common.domain.FilteringData;
 import eu.euipo.etmdn.userarea.common.domain.PaginationData;
-import eu.euipo.etmdn.userarea.common.domain.Receipt;
 import eu.euipo.etmdn.userarea.common.domain.ResumeDraftResponse;
 import eu.euipo.etmdn.userarea.common.domain.SortingData;
 import eu.euipo.etmdn.userarea.common.domain.eservice.ValidateEServiceRequest;
@@ -34,9 +37,13 @@ import eu.euipo.etmdn.userarea.domain.ApplicationType;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationDetails;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationRequest;
 import eu.euipo.etmdn.userarea.domain.application.ApplicationSearchResult;
+import eu.euipo.etmdn.userarea.domain.application.DraftBulkResult;
+import eu.euipo.etmdn.userarea.domain.application.DraftBulkStatus;
 import eu.euipo.etmdn.userarea.domain.note.NoteApplication;
+import eu.euipo.etmdn.userarea.domain.payment.InvoiceFile;
 import eu.euipo.etmdn.userarea.ws.domain.application.ApplicationRequestResource;
 import eu.euipo.etmdn.userarea.ws.domain.application.ApplicationSearchResultResource;
+import eu.euipo.etmdn.userarea.ws.domain.application.DraftBulkRequestResource;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -45,7 +52,9 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -53,10 +62,16 @@ import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
 import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -65,9 +80,11 @@ import static eu.euipo.etmdn.userarea.domain.constants.UserareaConstants.DESIGN;
 import static eu.euipo.etmdn.userarea.domain.constants.UserareaConstants.ESERVICE;
 import static eu.euipo.etmdn.userarea.domain.constants.UserareaConstants.IP_RIGHT_TYPE_TRADEMARKS;
 import static eu.euipo.etmdn.userarea.domain.constants.UserareaConstants.TRADEMARK;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -214,31 +231,47 @@ public class ApplicationControllerTest {
     }
 
     @Test
-    public void testGetApplicationReceipt() {
-        when(applicationService.getReceipt(USERNAME, 1L)).thenReturn("e04fd020ea3a6910a2d808002b30309d");
-        ResponseEntity<Receipt> result = applicationController.getReceipt(TRADEMARK, IP_RIGHT_TYPE_TRADEMARKS,"1", authentication);
+    public void testGetApplicationReceipt() throws IOException {
+        when(applicationService.getStreamingReceipt(USERNAME, 1L)).thenReturn(consumer -> consumer.accept(new StringReader("e04fd020ea3a6910a2d808002b30309d")));
+        ResponseEntity<StreamingResponseBody> result = applicationController.getReceipt(TRADEMARK, IP_RIGHT_TYPE_TRADEMARKS,"1", authentication);
         assertNotNull(result);
         assertEquals(HttpStatus.OK, result.getStatusCode());
-        Receipt response = result.getBody();
-        assertNotNull(response);
+        assertEquals("max-age=86400, private", result.getHeaders().getCacheControl());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Objects.requireNonNull(result.getBody()).writeTo(outputStream);
+        JsonNode response = new ObjectMapper().readTree(outputStream.toByteArray());
+        assertEquals("1", response.get("applicationId").asText());
+        assertEquals("e04fd020ea3a6910a2d808002b30309d", response.get("receipt").asText());
     }
 
     @Test
     public void testGetReceiptNoApplicationExist() {
-        when(applicationService.getReceipt(USERNAME, 1L)).thenReturn(null);
-        ResponseEntity<Receipt> result = applicationController.getReceipt(TRADEMARK, IP_RIGHT_TYPE_TRADEMARKS,"1", authentication);
+        when(applicationService.getStreamingReceipt(USERNAME, 1L)).thenReturn(null);
+        ResponseEntity<StreamingResponseBody> result = applicationController.getReceipt(TRADEMARK, IP_RIGHT_TYPE_TRADEMARKS,"1", authentication);
         assertNotNull(result);
         assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
-        Receipt response = result.getBody();
-        assertNull(response);
+        assertNull(result.getBody());
+    }
+
+    @Test
+    public void testGetReceiptFromFrontoffice() {
+        StreamingReport receipt = mock(StreamingReport.class);
+        when(receipt.getFileName()).thenReturn(NUMBER + "_receipt.pdf");
+        when(receipt.getContentType()).thenReturn(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        when(applicationService.getReceiptFromFrontoffice(NUMBER, false)).thenReturn(receipt);
+        ResponseEntity<StreamingResponseBody> result = applicationController.getDraftReceiptFromFO(TRADEMARK, IP_RIGHT_TYPE_TRADEMARKS, NUMBER, false, authentication);
+        assertNotNull(result);
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("attachment; filename=\"" + NUMBER + "_receipt.pdf\"", result.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        assertNotNull(result.getBody());
     }
 
     @Test
     public void testGetApplicationInvoice(){
         final String fileName = "invoice.pdf";
         final byte[] content = {2, 6, -2, 1, 7};
-        FileInfo fileInfo = FileInfo.builder().fileContent(content).fileName(fileName).build();
-        when(applicationService.getInvoice(USERNAME,1L)).thenReturn(fileInfo);
+        InvoiceFile invoiceFile = InvoiceFile.builder().fileContent(content).fileName(fileName).build();
+        when(applicationService.getInvoice(USERNAME,1L)).thenReturn(invoiceFile);
         ResponseEntity<byte[]> result = applicationController.getApplicationInvoice(ESERVICE, IP_RIGHT_TYPE_TRADEMARKS, "1", authentication);
         assertNotNull(result);
         assertEquals(HttpStatus.OK, result.getStatusCode());
@@ -276,6 +309,16 @@ public class ApplicationControllerTest {
         assertNull(response);
     }
 
+    @Test
+    public void testDeleteAllDrafts() {
+        List<DraftBulkResult> results = Collections.singletonList(DraftBulkResult.builder().id(1L).status(DraftBulkStatus.DELETED).build());
+        when(applicationService.deleteAll(USERNAME, Collections.singletonList(1L))).thenReturn(results);
+        ResponseEntity<List<DraftBulkResult>> result = applicationController.deleteAll(TRADEMARK, IP_RIGHT_TYPE_TRADEMARKS,
+                DraftBulkRequestResource.builder().ids(Collections.singletonList(1L)).build(), authentication);
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(results, result.getBody());
+    }
+
     @Test
     public void testGetApplicationExcel() {
         final String fileName = "report.xlsx";
@@ -315,6 +358,66 @@ public class ApplicationControllerTest {
         assertNull(response);
     }
 
+    @Test
+    public void testGetApplicationStreamingExcel() throws IOException {
+        final byte[] content = {2, 6, -2, 1, 7};
+        StreamingReport report = new StreamingReport() {
+            @Override
+            public String getFileName() {
+                return "report.xlsx";
+            }
+
+            @Override
+            public String getContentType() {
+                return "application/vnd.ms-excel";
+            }
+
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                outputStream.write(content);
+            }
+        };
+        when(accountService.isMainAccount(USERNAME)).thenReturn(true);
+        when(excelService.generateStreamingExcel(applicationRequestEservice, roles)).thenReturn(report);
+        ResponseEntity<StreamingResponseBody> result = applicationController.generateStreamingExcel(ESERVICE, applicationRequestResourceEservice, authentication);
+        assertNotNull(result);
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("attachment; filename=\"report.xlsx\"", result.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Objects.requireNonNull(result.getBody()).writeTo(outputStream);
+        assertArrayEquals(content, outputStream.toByteArray());
+    }
+
+    @Test
+    public void testGetApplicationStreamingExcelError() {
+        when(excelService.generateStreamingExcel(applicationRequestEservice, roles)).thenReturn(null);
+        ResponseEntity<StreamingResponseBody> result = applicationController.generateStreamingExcel(ESERVICE, applicationRequestResourceEservice, authentication);
+        assertNotNull(result);
+        assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+        assertNull(result.getBody());
+    }
+
+    @Test
+    public void testGetApplicationCsvReport() {
+        StreamingReport report = mock(StreamingReport.class);
+        when(report.getFileName()).thenReturn("eservices.csv");
+        when(report.getContentType()).thenReturn(ReportFormat.CSV.getContentType());
+        when(accountService.isMainAccount(USERNAME)).thenReturn(true);
+        when(excelService.generateStreamingReport(applicationRequestEservice, roles, ReportFormat.CSV)).thenReturn(report);
+        ResponseEntity<StreamingResponseBody> result = applicationController.generateReport(ESERVICE, "csv", applicationRequestResourceEservice, authentication);
+        assertNotNull(result);
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("attachment; filename=\"eservices.csv\"", result.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        assertNotNull(result.getBody());
+    }
+
+    @Test
+    public void testGetApplicationReportUnknownFormat() {
+        ResponseEntity<StreamingResponseBody> result = applicationController.generateReport(ESERVICE, "docx", applicationRequestResourceEservice, authentication);
+        assertNotNull(result);
+        assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+    }
+
     @Test
     public void testGetApplicationPdf() {
         final String fileName = "report.pdf";
@@ -329,6 +432,21 @@ public class ApplicationControllerTest {
         assertNotNull(response);
     }
 
+    @Test
+    public void testGetApplicationStreamingPdf() {
+        StreamingReport report = mock(StreamingReport.class);
+        when(report.getFileName()).thenReturn("report.pdf");
+        when(report.getContentType()).thenReturn(MediaType.APPLICATION_PDF_VALUE);
+        when(accountService.isMainAccount(USERNAME)).thenReturn(true);
+        when(pdfService.generateStreamingPdf(applicationRequestEservice, roles)).thenReturn(report);
+        ResponseEntity<StreamingResponseBody> result = applicationController.generateStreamingPdf(ESERVICE, applicationRequestResourceEservice, authentication);
+        assertNotNull(result);
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(MediaType.APPLICATION_PDF, result.getHeaders().getContentType());
+        assertEquals("attachment; filename=\"report.pdf\"", result.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        assertNotNull(result.getBody());
+    }
+
     @Test
     public void testGetApplicationPdfChildAccount() {
         final String fileName = "report.pdf";
@@ -435,7 +553,7 @@ public class ApplicationControllerTest {
 
     @Test
     public void testUpdateApplicationNote() {
-        when(applicationService.updateNote(USERNAME, noteApplication)).thenReturn(NOTE);
+        when(applicationService.updateNote(USERNAME, noteApplication)).thenReturn(NoteApplication.builder().note(NOTE).version(1L).build());
         ResponseEntity<NoteApplication> result = applicationController.updateNote(TRADEMARK, IP_RIGHT_TYPE_TRADEMARKS, noteApplication, authentication);
         assertNotNull(result);
         assertEquals(HttpStatus.OK, result.getStatusCode());
@@ -13,8 +13,8 @@
 
 package eu.euipo.etmdn.userarea.ws.controller;
 
+import eu.euipo.etmdn.userarea.business.core.api.report.StreamingReport;
 import eu.euipo.etmdn.userarea.business.core.api.service.PdfService;
-import eu.euipo.etmdn.userarea.common.domain.FileInfo;
 import eu.euipo.etmdn.userarea.ws.controller.correspondence.CorrespondenceDownloadController;
 import org.junit.Before;
 import org.junit.Test;
@@ -24,10 +24,19 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.Mockito.when;
@@ -53,29 +62,50 @@ public class CorrespondenceDownloadControllerTest {
     }
 
     @Test
-    public void testGetCorrespondenceMessageZip() {
+    public void testGetCorrespondenceMessageZip() throws IOException {
         final String fileName = "message.pdf";
         final byte[] content = {2, 6, -2, 1, 7};
-        FileInfo fileInfo = FileInfo.builder().fileContent(content).fileName(fileName).build();
-        when(pdfService.generatePdf(authentication.getName(), MESSAGE_ID, false)).thenReturn(fileInfo);
-        ResponseEntity<byte[]> result = correspondenceDownloadController.getZip(authentication, MESSAGE_ID);
+        when(pdfService.generateCorrespondence(authentication.getName(), MESSAGE_ID, false)).thenReturn(createCorrespondence(fileName, content));
+        ResponseEntity<StreamingResponseBody> result = correspondenceDownloadController.getZip(authentication, MESSAGE_ID);
         assertNotNull(result);
         assertEquals(HttpStatus.OK, result.getStatusCode());
-        byte[] response = result.getBody();
-        assertNotNull(response);
+        assertEquals("attachment; filename=\"" + fileName + "\"", result.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Objects.requireNonNull(result.getBody()).writeTo(outputStream);
+        assertArrayEquals(content, outputStream.toByteArray());
     }
 
 
     @Test
-    public void testGetCorrespondenceDraft() {
+    public void testGetCorrespondenceDraft() throws IOException {
         final String fileName = "draft.pdf";
         final byte[] content = {2, 5, -2, 8, 3};
-        FileInfo fileInfo = FileInfo.builder().fileContent(content).fileName(fileName).build();
-        when(pdfService.generatePdf(authentication.getName(), MESSAGE_ID, true)).thenReturn(fileInfo);
-        ResponseEntity<byte[]> result = correspondenceDownloadController.getDraftPdf(authentication, MESSAGE_ID);
+        when(pdfService.generateCorrespondence(authentication.getName(), MESSAGE_ID, true)).thenReturn(createCorrespondence(fileName, content));
+        ResponseEntity<StreamingResponseBody> result = correspondenceDownloadController.getDraftPdf(authentication, MESSAGE_ID);
         assertNotNull(result);
         assertEquals(HttpStatus.OK, result.getStatusCode());
-        byte[] response = result.getBody();
-        assertNotNull(response);
+        assertEquals("attachment; filename=\"" + fileName + "\"", result.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Objects.requireNonNull(result.getBody()).writeTo(outputStream);
+        assertArrayEquals(content, outputStream.toByteArray());
+    }
+
+    private static StreamingReport createCorrespondence(final String fileName, final byte[] content) {
+        return new StreamingReport() {
+            @Override
+            public String getFileName() {
+                return fileName;
+            }
+
+            @Override
+            public String getContentType() {
+                return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+            }
+
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                outputStream.write(content);
+            }
+        };
     }
-}
\ No newline at end of file
+}
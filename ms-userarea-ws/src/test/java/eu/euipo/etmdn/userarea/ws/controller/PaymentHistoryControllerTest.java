@@ -15,7 +15,7 @@ package eu.euipo.etmdn.userarea.ws.controller;
 
 import eu.euipo.etmdn.userarea.business.core.api.service.PaymentService;
 import eu.euipo.etmdn.userarea.business.core.api.service.PdfService;
-import eu.euipo.etmdn.userarea.common.domain.FileInfo;
+import eu.euipo.etmdn.userarea.domain.payment.InvoiceFile;
 import eu.euipo.etmdn.userarea.domain.payment.PaymentHistorySearch;
 import eu.euipo.etmdn.userarea.domain.payment.PaymentHistorySearchCriteria;
 import eu.euipo.etmdn.userarea.domain.payment.PaymentHistorySearchResult;
@@ -38,6 +38,7 @@ import java.util.Collections;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -90,13 +91,24 @@ public class PaymentHistoryControllerTest {
     public void testGetInvoice() {
         final String fileName = "invoice.pdf";
         final byte[] content = {2, 6, -2, 1, 7};
-        FileInfo fileInfo = FileInfo.builder().fileContent(content).fileName(fileName).build();
-        when(pdfService.generatePdf(authentication.getName(), TRANSACTION_ID)).thenReturn(fileInfo);
+        InvoiceFile invoiceFile = InvoiceFile.builder().fileContent(content).fileName(fileName).build();
+        when(pdfService.getInvoice(authentication.getName(), TRANSACTION_ID)).thenReturn(invoiceFile);
         ResponseEntity<byte[]> result = paymentHistoryController.downloadInvoiceFromHistory(authentication, TRANSACTION_ID);
         assertNotNull(result);
         assertEquals(HttpStatus.OK, result.getStatusCode());
         byte[] response = result.getBody();
         assertNotNull(response);
+        assertNull(result.getHeaders().getETag());
+    }
+
+    @Test
+    public void testGetStoredInvoice() {
+        final byte[] content = {2, 6, -2, 1, 7};
+        InvoiceFile invoiceFile = InvoiceFile.builder().fileContent(content).fileName("invoice.pdf").etag("0a1b2c").build();
+        when(pdfService.getInvoice(authentication.getName(), TRANSACTION_ID)).thenReturn(invoiceFile);
+        ResponseEntity<byte[]> result = paymentHistoryController.downloadInvoiceFromHistory(authentication, TRANSACTION_ID);
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("\"0a1b2c\"", result.getHeaders().getETag());
     }
 
 }
\ No newline at end of file
@@ -18,6 +18,7 @@ import eu.euipo.etmdn.userarea.common.domain.ApplicationResponse;
 import eu.euipo.etmdn.userarea.common.domain.signature.Signature;
 import eu.euipo.etmdn.userarea.domain.ApplicationType;
 import eu.euipo.etmdn.userarea.domain.signature.SignatureSortingCriteriaRequest;
+import eu.euipo.etmdn.userarea.ws.domain.signature.SignatureIdsRequestResource;
 import eu.euipo.etmdn.userarea.ws.domain.signature.SignatureResource;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Before;
@@ -27,6 +28,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -38,8 +42,10 @@ import org.springframework.security.oauth2.core.user.OAuth2User;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static eu.euipo.etmdn.userarea.domain.constants.UserareaConstants.TRADEMARK;
@@ -88,7 +94,8 @@ public class SignatureControllerTest {
 
     @Test
     public void testSignatureDetails() {
-        when(signatureService.getSignatures(authentication.getName(), roles, signatureSortingCriteriaRequest)).thenReturn(Collections.singletonList(signature));
+        when(signatureService.getSignatures(authentication.getName(), roles, signatureSortingCriteriaRequest, Pageable.unpaged()))
+                .thenReturn(new PageImpl<>(Collections.singletonList(signature)));
         ResponseEntity<List<SignatureResource>> result = signatureController.getSignatures(authentication, signatureSortingCriteriaRequest);
         assertNotNull(result);
         assertEquals(HttpStatus.OK, result.getStatusCode());
@@ -96,6 +103,19 @@ public class SignatureControllerTest {
         assertNotNull(response);
     }
 
+    @Test
+    public void testSignatureDetailsPage() {
+        signatureSortingCriteriaRequest.setPage(1);
+        signatureSortingCriteriaRequest.setSize(1);
+        when(signatureService.getSignatures(authentication.getName(), roles, signatureSortingCriteriaRequest, PageRequest.of(1, 1)))
+                .thenReturn(new PageImpl<>(Collections.singletonList(signature), PageRequest.of(1, 1), 3));
+        ResponseEntity<List<SignatureResource>> result = signatureController.getSignatures(authentication, signatureSortingCriteriaRequest);
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("3", result.getHeaders().getFirst("X-Total-Count"));
+        assertNotNull(result.getBody());
+        assertEquals(1, result.getBody().size());
+    }
+
     @Test
     public void testDeleteApplicationInSignature() {
         when(signatureService.deleteApplication(authentication.getName(), APPLICATION_NUMBER)).thenReturn(StringUtils.EMPTY);
@@ -122,4 +142,17 @@ public class SignatureControllerTest {
         assertNotNull(result);
         assertEquals(result.getStatusCode(), HttpStatus.OK);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCheckAddMoreForManySignatures() {
+        List<String> signatureIds = Arrays.asList("signatureId", "otherSignatureId");
+        Map<String, List<String>> applications = new HashMap<>();
+        applications.put("signatureId", Collections.singletonList(APPLICATION_NUMBER));
+        applications.put("otherSignatureId", Collections.emptyList());
+        when(signatureService.getNonFullySignedApplicationNumbers(signatureIds)).thenReturn(applications);
+        ResponseEntity<Map<String, List<String>>> result = signatureController.checkAddMore(
+                SignatureIdsRequestResource.builder().signatureIds(signatureIds).build());
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(applications, result.getBody());
+    }
+}